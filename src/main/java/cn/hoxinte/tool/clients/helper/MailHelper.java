@@ -1,14 +1,18 @@
 package cn.hoxinte.tool.clients.helper;
 
 import cn.hoxinte.tool.clients.entity.MailSend;
+import cn.hoxinte.tool.clients.redis.RateLimiter;
 import cn.hoxinte.tool.clients.redis.RedisClient;
+import cn.hoxinte.tool.clients.redis.RedisScripts;
 import cn.hoxinte.tool.utils.LoadUtil;
 import cn.hoxinte.tool.utils.MailUtil;
 import cn.hoxinte.tool.utils.RandomUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 邮件发送工具
@@ -45,28 +49,69 @@ public class MailHelper {
     private static final int PORT = LoadUtil.getIntegerProperty("hoxinte.mail.port");
 
     private static final String MAIL_SEND_QUEUE_KEY = "queue:mail:send";
+    private static final int QUEUE_POP_SIZE = 100;
+    /**
+     * 所有节点合计每分钟发送上限，不配置不限流
+     */
+    private static final int SEND_RATE = LoadUtil.getIntegerProperty("hoxinte.mail.rate");
+    private static final long SEND_RATE_WINDOW = TimeUnit.MINUTES.toMillis(1);
+    private static final RateLimiter SEND_LIMITER = SEND_RATE > 0 ?
+            RateLimiter.slidingWindow("mail:send", SEND_RATE, SEND_RATE_WINDOW) : null;
 
 
     /**
      * 发送当前队列里的所有邮件
+     * 限流时先获取许可，只弹出获取到许可数量的邮件，额度用完时剩余邮件留在队列中等待下次发送
      */
     public static void sendByQueue() {
-        long queueLength = RedisClient.listLength(MAIL_SEND_QUEUE_KEY);
-        if (0 >= queueLength) {
-            return;
-        }
-        log.info("send mail by queue, send target count {}", queueLength);
+        int totalCount = 0;
         int successCount = 0;
-        for (long i = 0; i < queueLength; i++) {
-            MailSend send = (MailSend) RedisClient.leftPop(MAIL_SEND_QUEUE_KEY);
-            if (sendMail(send.getSubject(), send.getText(), send.getImgUrls(), send.getAccounts())) {
-                successCount++;
-                continue;
+        // 每次原子弹出一批，直到队列为空或达到发送上限
+        while (true) {
+            int popSize = acquireSend((int) Math.min(QUEUE_POP_SIZE, RedisClient.listLength(MAIL_SEND_QUEUE_KEY)));
+            if (popSize == 0) {
+                break;
+            }
+            List<MailSend> sendList = RedisScripts.leftPop(MAIL_SEND_QUEUE_KEY, popSize, MailSend.class);
+            if (sendList.isEmpty()) {
+                break;
             }
-            // 发送失败
-            log.info("send failed check email {}, now queue length {}", send.getAccounts()[0], queueLength);
+            log.info("send mail by queue, send target count {}", sendList.size());
+            for (MailSend send : sendList) {
+                totalCount++;
+                if (sendMail(send.getSubject(), send.getText(), send.getImgUrls(), send.getAccounts())) {
+                    successCount++;
+                    continue;
+                }
+                // 发送失败
+                log.info("send failed check email {}", send.getAccounts()[0]);
+            }
+        }
+        logTotal(successCount, totalCount);
+    }
+
+    /**
+     * 获取发送许可，不等待
+     *
+     * @param count 待发送数量
+     * @return 可发送数量
+     */
+    private static int acquireSend(int count) {
+        if (null == SEND_LIMITER || count <= 0) {
+            return count;
+        }
+        int permits = SEND_LIMITER.tryAcquireUpTo(count);
+        if (permits == 0) {
+            log.info("send mail rate limited, wait for next send");
+        }
+        return permits;
+    }
+
+    private static void logTotal(int successCount, int totalCount) {
+        if (0 == totalCount) {
+            return;
         }
-        log.info("send mail success {}, failed {}, total {}", successCount, queueLength - successCount, queueLength);
+        log.info("send mail success {}, failed {}, total {}", successCount, totalCount - successCount, totalCount);
     }
 
 
@@ -1,6 +1,8 @@
 package cn.hoxinte.tool.clients.helper;
 
 import cn.hoxinte.tool.clients.redis.RedisClient;
+import cn.hoxinte.tool.clients.redis.WriteBehindBuffer;
+import cn.hoxinte.tool.clients.redis.cache.TieredCache;
 import cn.hoxinte.tool.clients.sso.CacheUtil;
 import cn.hoxinte.tool.clients.sso.ParseUtil;
 import cn.hoxinte.tool.clients.sso.SsoClient;
@@ -46,6 +48,12 @@ public class UserHelper {
      */
     private static final String TEMP_LOWER_ID_LIST_CACHE = "sso:temp:lower:id:list:user:id:";
 
+    // 临时缓存 进程内缓存热点数据，按列表长度计算权重
+
+    private static final long TIERED_CACHE_WEIGHT = 100000;
+    private static final TieredCache<Integer, Object> DEPT_USER_ID_LIST_CACHE = tieredCache(TEMP_DEPT_USER_ID_LIST_CACHE);
+    private static final TieredCache<Integer, Object> DEPT_USER_LIST_CACHE = tieredCache(TEMP_DEPT_USER_LIST_CACHE);
+    private static final TieredCache<Integer, Object> LOWER_ID_LIST_CACHE = tieredCache(TEMP_LOWER_ID_LIST_CACHE);
 
     // Hash 缓存
 
@@ -53,6 +61,10 @@ public class UserHelper {
      * CTI用户绑定关系
      */
     private static final String HASH_CIT_RELATE_USER_CACHE_HEAD = "sso:hash:cti:relate:";
+    /**
+     * CTI 绑定关系合并写入
+     */
+    private static final WriteBehindBuffer CTI_RELATE_WRITER = WriteBehindBuffer.create();
 
     private static final int DEFAULT_MAP_SIZE = 8;
 
@@ -103,9 +115,7 @@ public class UserHelper {
                 return;
             }
             index += userList.size();
-            for (UserInfoDTO user : userList) {
-                CacheUtil.setUserCache(user);
-            }
+            CacheUtil.setUserCache(userList);
         }
     }
 
@@ -155,6 +165,7 @@ public class UserHelper {
                 saveCtiRelateCache(ctiEnum.getCode(), relate.getCode(), relate);
             }
         }
+        CTI_RELATE_WRITER.flush();
     }
 
     /**
@@ -342,9 +353,10 @@ public class UserHelper {
      */
     public static Map<Integer, UserInfoDTO> getUserMap(Collection<Integer> userIdList) {
         Map<Integer, UserInfoDTO> userMap = new HashMap<>(userIdList.size());
+        Map<Integer, UserInfoDTO> cacheUserMap = CacheUtil.getUserMap(userIdList);
         List<Integer> syncUserIdList = new ArrayList<>();
         for (Integer userId : userIdList) {
-            UserInfoDTO user = CacheUtil.getUser(userId);
+            UserInfoDTO user = cacheUserMap.get(userId);
             if (null != user) {
                 userMap.put(userId, user);
             } else {
@@ -357,8 +369,8 @@ public class UserHelper {
         List<UserInfoDTO> userList = requestUserList(syncUserIdList.toArray(new Integer[0]));
         for (UserInfoDTO user : userList) {
             userMap.put(user.getAccountId(), user);
-            CacheUtil.setUserCache(user);
         }
+        CacheUtil.setUserCache(userList);
         return userMap;
     }
 
@@ -371,9 +383,10 @@ public class UserHelper {
      */
     public static Map<Integer, String> getUserNameMap(Collection<Integer> userIdList) {
         Map<Integer, String> userMap = new HashMap<>(userIdList.size());
+        Map<Integer, UserInfoDTO> cacheUserMap = CacheUtil.getUserMap(userIdList);
         List<Integer> syncUserIdList = new ArrayList<>();
         for (Integer userId : userIdList) {
-            UserInfoDTO user = CacheUtil.getUser(userId);
+            UserInfoDTO user = cacheUserMap.get(userId);
             if (null != user) {
                 userMap.put(userId, user.getName());
             } else {
@@ -386,8 +399,8 @@ public class UserHelper {
         List<UserInfoDTO> userList = requestUserList(syncUserIdList.toArray(new Integer[0]));
         for (UserInfoDTO user : userList) {
             userMap.put(user.getAccountId(), user.getName());
-            CacheUtil.setUserCache(user);
         }
+        CacheUtil.setUserCache(userList);
         return userMap;
     }
 
@@ -400,9 +413,10 @@ public class UserHelper {
      */
     public static List<UserInfoDTO> getUserList(List<Integer> userIdList) {
         List<UserInfoDTO> userList = new ArrayList<>(userIdList.size());
+        Map<Integer, UserInfoDTO> cacheUserMap = CacheUtil.getUserMap(userIdList);
         List<Integer> syncUserIdList = new ArrayList<>();
         for (Integer userId : userIdList) {
-            UserInfoDTO user = CacheUtil.getUser(userId);
+            UserInfoDTO user = cacheUserMap.get(userId);
             if (null != user) {
                 userList.add(user);
             } else {
@@ -415,8 +429,8 @@ public class UserHelper {
         List<UserInfoDTO> requestUserList = requestUserList(syncUserIdList.toArray(new Integer[0]));
         for (UserInfoDTO user : requestUserList) {
             userList.add(user);
-            CacheUtil.setUserCache(user);
         }
+        CacheUtil.setUserCache(requestUserList);
         return userList;
     }
 
@@ -463,13 +477,8 @@ public class UserHelper {
      * @return 用户ID List
      */
     public static List<Integer> getDeptUserIdList(int deptId) {
-        String cacheKey = TEMP_DEPT_USER_ID_LIST_CACHE + deptId;
-        if (RedisClient.hasKey(cacheKey)) {
-            return getCacheIntegerList(cacheKey);
-        }
-        List<Integer> userIdList = requestDeptUserIdList(deptId);
-        RedisClient.set(cacheKey, userIdList, randOutTime());
-        return userIdList;
+        Object cache = DEPT_USER_ID_LIST_CACHE.get(deptId, randOutTime(), () -> requestDeptUserIdList(deptId));
+        return parseIntegerList(cache);
     }
 
     /**
@@ -480,13 +489,8 @@ public class UserHelper {
      * @return 用户ID List
      */
     public static List<Integer> lowerIdList(Integer userId) {
-        String cacheKey = TEMP_LOWER_ID_LIST_CACHE + userId;
-        if (RedisClient.hasKey(cacheKey)) {
-            return getCacheIntegerList(cacheKey);
-        }
-        List<Integer> userIdList = requestLowerIdList(userId);
-        RedisClient.set(cacheKey, userIdList, randOutTime());
-        return userIdList;
+        Object cache = LOWER_ID_LIST_CACHE.get(userId, randOutTime(), () -> requestLowerIdList(userId));
+        return parseIntegerList(cache);
     }
 
     /**
@@ -497,14 +501,8 @@ public class UserHelper {
      * @return 用户列表
      */
     public static List<DeptUserDTO> getDeptUserList(int deptId) {
-        String cacheKey = TEMP_DEPT_USER_LIST_CACHE + deptId;
-        if (RedisClient.hasKey(cacheKey)) {
-            Object cache = RedisClient.get(cacheKey);
-            return null == cache ? Collections.emptyList() : ParseUtil.objectToList(cache, DeptUserDTO.class);
-        }
-        List<DeptUserDTO> userDTOList = requestDeptUserList(deptId);
-        RedisClient.set(cacheKey, userDTOList, randOutTime());
-        return userDTOList;
+        Object cache = DEPT_USER_LIST_CACHE.get(deptId, randOutTime(), () -> requestDeptUserList(deptId));
+        return null == cache ? Collections.emptyList() : ParseUtil.objectToList(cache, DeptUserDTO.class);
     }
 
     /**
@@ -515,16 +513,10 @@ public class UserHelper {
      * @return 用户ID List
      */
     public static List<Integer> getDeptAllUserIdList(int deptId) {
-        String cacheKey = TEMP_DEPT_ALL_USER_ID_CACHE + deptId;
-        if (RedisClient.hasKey(cacheKey)) {
-            List<Integer> cacheIntegerList = getCacheIntegerList(cacheKey);
-            if (!CollectionUtils.isEmpty(cacheIntegerList)) {
-                return cacheIntegerList;
-            }
-        }
-        List<Integer> userIdList = requestDeptAllUserIdList(deptId);
-        RedisClient.set(cacheKey, userIdList, randOutTime());
-        return userIdList;
+        // 空列表按未命中处理
+        Object cache = RedisClient.getOrLoad(TEMP_DEPT_ALL_USER_ID_CACHE + deptId, randOutTime(), Object.class,
+                () -> requestDeptAllUserIdList(deptId), value -> !CollectionUtils.isEmpty(parseIntegerList(value)));
+        return parseIntegerList(cache);
     }
 
     /**
@@ -973,7 +965,7 @@ public class UserHelper {
     // 缓存处理
 
     private static void saveCtiRelateCache(int ctiCode, String ctiUserCode, CtiRelateDTO relate) {
-        RedisClient.hSetPersist(HASH_CIT_RELATE_USER_CACHE_HEAD + ctiCode, ctiUserCode, relate);
+        CTI_RELATE_WRITER.hSet(HASH_CIT_RELATE_USER_CACHE_HEAD + ctiCode, ctiUserCode, relate);
     }
 
     private static List<CtiRelateDTO> getCacheCtiRelateList(int ctiCode) {
@@ -998,11 +990,18 @@ public class UserHelper {
         return null;
     }
 
-    private static List<Integer> getCacheIntegerList(String cacheKey) {
-        Object cache = RedisClient.get(cacheKey);
+    private static List<Integer> parseIntegerList(Object cache) {
         return null == cache ? Collections.emptyList() : ParseUtil.objectToList(cache, Integer.class);
     }
 
+    private static TieredCache<Integer, Object> tieredCache(String prefix) {
+        return TieredCache.<Integer, Object>builder(prefix, Object.class)
+                .expireSeconds(MAX_OUT_TIME)
+                .maximumWeight(TIERED_CACHE_WEIGHT)
+                .weigher(value -> value instanceof Collection ? ((Collection<?>) value).size() : 1)
+                .build();
+    }
+
     private static int randOutTime() {
         return RandomUtil.getRandNum(MIN_OUT_TIME, MAX_OUT_TIME);
     }
@@ -0,0 +1,191 @@
+package cn.hoxinte.tool.clients.redis;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Redis 异步客户端
+ * <p>
+ * 与 RedisClient 相同的操作，在独立的有界线程池中执行，返回 CompletableFuture
+ * 需要同时读取多个 Key 时可并行等待，线程数与队列长度通过 hoxinte.redis.async 配置
+ * 队列已满时返回异常结束的 Future（RejectedExecutionException），由调用方决定降级或重试
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class AsyncRedisClient {
+
+    private static final ThreadPoolExecutor EXECUTOR = initialExecutor();
+
+    private static ThreadPoolExecutor initialExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(RedisConfig.ASYNC_THREADS, RedisConfig.ASYNC_THREADS,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(RedisConfig.ASYNC_QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "redis-async-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // 读取缓存
+
+    public static CompletableFuture<Object> get(String key) {
+        return supply(() -> RedisClient.get(key));
+    }
+
+    public static <T> CompletableFuture<T> get(String key, Class<T> tClass) {
+        return supply(() -> RedisClient.get(key, tClass));
+    }
+
+    public static <T> CompletableFuture<List<T>> getList(String key, Class<T> tClass) {
+        return supply(() -> RedisClient.getList(key, tClass));
+    }
+
+    public static <K, V> CompletableFuture<Map<K, V>> getMap(String key, Class<K> kClass, Class<V> vClass) {
+        return supply(() -> RedisClient.getMap(key, kClass, vClass));
+    }
+
+    public static <T> CompletableFuture<Map<String, T>> mGet(Collection<String> keys, Class<T> tClass) {
+        return supply(() -> RedisClient.mGet(keys, tClass));
+    }
+
+    public static CompletableFuture<Object> hGet(String key, String field) {
+        return supply(() -> RedisClient.hGet(key, field));
+    }
+
+    public static <T> CompletableFuture<T> hGet(String key, String field, Class<T> tClass) {
+        return supply(() -> RedisClient.hGet(key, field, tClass));
+    }
+
+    public static CompletableFuture<Map<String, Object>> hGetAll(String key) {
+        return supply(() -> RedisClient.hGetAll(key));
+    }
+
+    public static <T> CompletableFuture<Map<String, T>> hGetAll(String key, Class<T> tClass) {
+        return supply(() -> RedisClient.hGetAll(key, tClass));
+    }
+
+    public static <T> CompletableFuture<Map<String, T>> hMGet(String key, Class<T> tClass, Collection<String> fields) {
+        return supply(() -> RedisClient.hMGet(key, tClass, fields));
+    }
+
+    public static CompletableFuture<Boolean> hasKey(String key) {
+        return supply(() -> RedisClient.hasKey(key));
+    }
+
+    public static CompletableFuture<Boolean> hHasKey(String key, String field) {
+        return supply(() -> RedisClient.hHasKey(key, field));
+    }
+
+    public static CompletableFuture<Long> ttl(String key) {
+        return supply(() -> RedisClient.ttl(key));
+    }
+
+    // 写入缓存
+
+    public static CompletableFuture<String> set(String key, Object value) {
+        return supply(() -> RedisClient.set(key, value));
+    }
+
+    public static CompletableFuture<String> set(String key, Object value, int second) {
+        return supply(() -> RedisClient.set(key, value, second));
+    }
+
+    public static CompletableFuture<Long> setPersist(String key, Object value) {
+        return supply(() -> RedisClient.setPersist(key, value));
+    }
+
+    public static CompletableFuture<Boolean> mSet(Map<String, ?> valueMap, int seconds) {
+        return supply(() -> RedisClient.mSet(valueMap, seconds));
+    }
+
+    public static CompletableFuture<Long> hSetPersist(String key, String field, Object value) {
+        return supply(() -> RedisClient.hSetPersist(key, field, value));
+    }
+
+    public static CompletableFuture<Long> hMSet(String key, Map<String, ?> fieldMap) {
+        return supply(() -> RedisClient.hMSet(key, fieldMap));
+    }
+
+    public static CompletableFuture<Long> expire(String key, int seconds) {
+        return supply(() -> RedisClient.expire(key, seconds));
+    }
+
+    public static CompletableFuture<Long> removeKey(String key) {
+        return supply(() -> RedisClient.removeKey(key));
+    }
+
+    public static CompletableFuture<Long> hRemoveField(String key, String field) {
+        return supply(() -> RedisClient.hRemoveField(key, field));
+    }
+
+    // 列表
+
+    public static CompletableFuture<Long> leftPush(String key, Object value) {
+        return supply(() -> RedisClient.leftPush(key, value));
+    }
+
+    public static CompletableFuture<Long> rightPush(String key, Object value) {
+        return supply(() -> RedisClient.rightPush(key, value));
+    }
+
+    public static <T> CompletableFuture<T> leftPop(String key, Class<T> tClass) {
+        return supply(() -> RedisClient.leftPop(key, tClass));
+    }
+
+    public static <T> CompletableFuture<T> rightPop(String key, Class<T> tClass) {
+        return supply(() -> RedisClient.rightPop(key, tClass));
+    }
+
+    public static CompletableFuture<Long> listLength(String key) {
+        return supply(() -> RedisClient.listLength(key));
+    }
+
+    public static <T> CompletableFuture<List<T>> listRange(String key, long start, long end, Class<T> tClass) {
+        return supply(() -> RedisClient.listRange(key, start, end, tClass));
+    }
+
+    // 集合
+
+    public static CompletableFuture<Long> addSetValue(String key, Object value) {
+        return supply(() -> RedisClient.addSetValue(key, value));
+    }
+
+    public static CompletableFuture<Boolean> sisMember(String key, Object value) {
+        return supply(() -> RedisClient.sisMember(key, value));
+    }
+
+    public static CompletableFuture<Long> sCard(String key) {
+        return supply(() -> RedisClient.sCard(key));
+    }
+
+    /**
+     * 在异步线程池中执行批量命令
+     *
+     * @param consumer 添加命令
+     * @return 执行完成，结果从各命令的 RedisResponse 读取
+     */
+    public static CompletableFuture<Void> pipeline(Consumer<RedisBatch> consumer) {
+        return supply(() -> {
+            RedisClient.pipeline(consumer);
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package cn.hoxinte.tool.clients.redis;
+
+import java.util.*;
+
+/**
+ * 大 Key 分析
+ * <p>
+ * SCAN 遍历所有 Key，每页一次 Pipeline 读取 TYPE、MEMORY USAGE，按 Key 前缀统计数量、内存及大小分布
+ * 遍历整个 Key 空间，需要在低峰期或从节点上执行；遍历失败时抛出异常，不返回部分结果
+ * 用于判断哪些 Key 适合近端缓存、拆分或压缩
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public final class BigKeyAnalyzer {
+
+    /**
+     * 默认统计的前缀
+     */
+    public static final String[] DEFAULT_PREFIXES = {"sso:cache:*", "sso:temp:*", "queue:mail:*", "sm:*"};
+
+    private static final int TOP_SIZE = 20;
+    private static final String WILDCARD = "*";
+    private static final String PREFIX_SPLIT = ":";
+    /**
+     * 大小分布区间上限 字节
+     */
+    private static final long[] SIZE_BOUNDS = {1024, 10 * 1024, 100 * 1024, 1024 * 1024};
+    private static final String[] SIZE_LABELS = {"<1K", "<10K", "<100K", "<1M", ">=1M"};
+
+    private BigKeyAnalyzer() {
+    }
+
+    /**
+     * 按默认前缀分析
+     *
+     * @param scanCount 每次遍历数量
+     * @return 分析结果
+     */
+    public static Report analyze(int scanCount) {
+        return analyze(scanCount, DEFAULT_PREFIXES);
+    }
+
+    /**
+     * 分析所有 Key，未匹配前缀的 Key 按第一段归类，如 lock:*
+     *
+     * @param scanCount 每次遍历数量
+     * @param prefixes  统计的前缀，如 sso:cache:*
+     * @return 分析结果
+     */
+    public static Report analyze(int scanCount, String... prefixes) {
+        List<String> prefixList = new ArrayList<>(prefixes.length);
+        for (String prefix : prefixes) {
+            prefixList.add(prefix.endsWith(WILDCARD) ? prefix.substring(0, prefix.length() - 1) : prefix);
+        }
+        // 优先匹配更长的前缀
+        prefixList.sort(Comparator.comparingInt(String::length).reversed());
+        Report report = new Report();
+        ScanIterator<byte[], byte[]> iterator = RedisClient.rawScanIterator(scanCount);
+        List<byte[]> page = iterator.nextPage();
+        while (!page.isEmpty()) {
+            analyzePage(page, prefixList, report);
+            page = iterator.nextPage();
+        }
+        return report;
+    }
+
+    private static void analyzePage(List<byte[]> keys, List<String> prefixList, Report report) {
+        List<RedisResponse<String>> typeList = new ArrayList<>(keys.size());
+        List<RedisResponse<Long>> sizeList = new ArrayList<>(keys.size());
+        RedisClient.pipeline(batch -> {
+            for (byte[] key : keys) {
+                typeList.add(batch.type(key));
+                sizeList.add(batch.memoryUsage(key));
+            }
+        });
+        for (int i = 0; i < keys.size(); i++) {
+            String type;
+            Long size;
+            try {
+                type = typeList.get(i).get();
+                size = sizeList.get(i).get();
+            } catch (RuntimeException e) {
+                report.failed++;
+                continue;
+            }
+            if (null == size) {
+                // 遍历期间已过期或删除
+                continue;
+            }
+            String key = RedisClient.displayKey(keys.get(i));
+            report.add(prefixOf(key, prefixList), key, type, size);
+        }
+    }
+
+    private static String prefixOf(String key, List<String> prefixList) {
+        for (String prefix : prefixList) {
+            if (key.startsWith(prefix)) {
+                return prefix + WILDCARD;
+            }
+        }
+        int index = key.indexOf(PREFIX_SPLIT);
+        return index < 0 ? WILDCARD : key.substring(0, index + 1) + WILDCARD;
+    }
+
+    /**
+     * 分析结果
+     */
+    public static final class Report {
+
+        private final Map<String, PrefixStats> prefixMap = new TreeMap<>();
+        private final PriorityQueue<KeySize> topQueue = new PriorityQueue<>(Comparator.comparingLong(KeySize::getBytes));
+        private long scanned;
+        private long failed;
+
+        private void add(String prefix, String key, String type, long bytes) {
+            scanned++;
+            prefixMap.computeIfAbsent(prefix, PrefixStats::new).add(key, type, bytes);
+            topQueue.offer(new KeySize(key, type, bytes));
+            if (topQueue.size() > TOP_SIZE) {
+                topQueue.poll();
+            }
+        }
+
+        /**
+         * @return key 前缀，value 前缀统计
+         */
+        public Map<String, PrefixStats> getPrefixMap() {
+            return prefixMap;
+        }
+
+        /**
+         * @return 占用内存最多的 Key，按大小倒序
+         */
+        public List<KeySize> getTopKeys() {
+            List<KeySize> topList = new ArrayList<>(topQueue);
+            topList.sort(Comparator.comparingLong(KeySize::getBytes).reversed());
+            return topList;
+        }
+
+        public long getScanned() {
+            return scanned;
+        }
+
+        /**
+         * @return 读取类型或大小失败的 Key 数量
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("scanned=").append(scanned).append(" failed=").append(failed).append('\n');
+            List<PrefixStats> statsList = new ArrayList<>(prefixMap.values());
+            statsList.sort(Comparator.comparingLong(PrefixStats::getTotalBytes).reversed());
+            for (PrefixStats stats : statsList) {
+                builder.append(stats).append('\n');
+            }
+            for (KeySize keySize : getTopKeys()) {
+                builder.append(keySize).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * 前缀统计
+     */
+    public static final class PrefixStats {
+
+        private final String prefix;
+        private final long[] sizeCounts = new long[SIZE_LABELS.length];
+        private final Map<String, Long> typeMap = new TreeMap<>();
+        private long count;
+        private long totalBytes;
+        private long maxBytes;
+        private String maxKey;
+
+        private PrefixStats(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private void add(String key, String type, long bytes) {
+            count++;
+            totalBytes += bytes;
+            if (bytes > maxBytes) {
+                maxBytes = bytes;
+                maxKey = key;
+            }
+            typeMap.merge(type, 1L, Long::sum);
+            int index = 0;
+            while (index < SIZE_BOUNDS.length && bytes >= SIZE_BOUNDS[index]) {
+                index++;
+            }
+            sizeCounts[index]++;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public String getMaxKey() {
+            return maxKey;
+        }
+
+        /**
+         * @return key 类型，value 数量
+         */
+        public Map<String, Long> getTypeMap() {
+            return typeMap;
+        }
+
+        /**
+         * @return key 大小区间，value 数量
+         */
+        public Map<String, Long> getSizeHistogram() {
+            Map<String, Long> histogram = new LinkedHashMap<>(SIZE_LABELS.length);
+            for (int i = 0; i < SIZE_LABELS.length; i++) {
+                histogram.put(SIZE_LABELS[i], sizeCounts[i]);
+            }
+            return histogram;
+        }
+
+        @Override
+        public String toString() {
+            return prefix + " count=" + count + " bytes=" + totalBytes + " avg=" + (count == 0 ? 0 : totalBytes / count)
+                    + " max=" + maxBytes + " maxKey=" + maxKey + " types=" + typeMap + " sizes=" + getSizeHistogram();
+        }
+    }
+
+    /**
+     * Key 大小
+     */
+    public static final class KeySize {
+
+        private final String key;
+        private final String type;
+        private final long bytes;
+
+        private KeySize(String key, String type, long bytes) {
+            this.key = key;
+            this.type = type;
+            this.bytes = bytes;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return key + " " + type + " " + bytes;
+        }
+    }
+}
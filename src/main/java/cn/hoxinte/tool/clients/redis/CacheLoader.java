@@ -0,0 +1,212 @@
+package cn.hoxinte.tool.clients.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 缓存读取加载
+ * <p>
+ * 命中时 GET + PTTL 一次往返
+ * 未命中时同 Key 在 JVM 内合并为一次加载，跨节点由 SET NX PX 租约锁保证只有一个节点加载，其余节点等待写入
+ * 等待期间租约释放或已写入值时停止等待，写入的值校验不通过时立即自行加载
+ * 提前刷新按 XFetch 算法：剩余时间小于 -加载耗时 * BETA * ln(随机数) 时由一个调用方提前加载，其余调用方继续使用旧值
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class CacheLoader {
+
+    static final String LEASE_PREFIX = "lock:load:";
+    private static final long WAIT_INTERVAL_MILLIS = 50;
+    private static final long DEFAULT_COST_MILLIS = 100;
+    private static final double BETA = 1.0;
+    private static final int MAX_COST_SIZE = 10000;
+
+    private static final long KEY_NOT_EXIST = -2;
+
+    private static final Map<String, CompletableFuture<Object>> LOADING_MAP = new ConcurrentHashMap<>();
+    private static final Map<String, Long> COST_MAP = new ConcurrentHashMap<>();
+
+    private CacheLoader() {
+    }
+
+    static <T> T getOrLoad(String key, int seconds, Class<T> tClass, Supplier<T> loader, Predicate<T> validator) {
+        Cached cached = read(key, false);
+        if (null == cached) {
+            // Redis 不可用时直接加载
+            return loader.get();
+        }
+        if (cached.exists) {
+            T value = tClass.cast(cached.value);
+            if (validator.test(value)) {
+                if (shouldRefresh(key, cached.ttl)) {
+                    return refresh(key, seconds, loader, value);
+                }
+                return value;
+            }
+        }
+        return load(key, seconds, tClass, loader, validator);
+    }
+
+    private static Cached read(String key, boolean withLease) {
+        List<RedisResponse<?>> responseList = new ArrayList<>(3);
+        try {
+            RedisClient.pipeline(batch -> {
+                responseList.add(batch.get(key));
+                responseList.add(batch.pTtl(key));
+                if (withLease) {
+                    responseList.add(batch.hasKey(LEASE_PREFIX + key));
+                }
+            });
+            long ttl = (Long) responseList.get(1).get();
+            boolean leased = withLease && (Boolean) responseList.get(2).get();
+            return new Cached(ttl != KEY_NOT_EXIST, responseList.get(0).get(), ttl, leased);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static boolean shouldRefresh(String key, long ttl) {
+        if (ttl <= 0) {
+            return false;
+        }
+        long cost = COST_MAP.getOrDefault(key, DEFAULT_COST_MILLIS);
+        double random = ThreadLocalRandom.current().nextDouble();
+        return -cost * BETA * Math.log(random) >= ttl;
+    }
+
+    private static <T> T refresh(String key, int seconds, Supplier<T> loader, T current) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (null != LOADING_MAP.putIfAbsent(key, future)) {
+            return current;
+        }
+        try {
+            String token = UUID.randomUUID().toString();
+            if (!RedisClient.setIfAbsent(LEASE_PREFIX + key, token, RedisConfig.LOAD_LEASE_MILLIS)) {
+                future.complete(current);
+                return current;
+            }
+            try {
+                T value = loadAndSet(key, seconds, loader);
+                future.complete(value);
+                return value;
+            } finally {
+                release(key, token);
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            future.complete(current);
+            return current;
+        } finally {
+            // Error 等异常抛出时等待的调用方使用旧值
+            future.complete(current);
+            LOADING_MAP.remove(key, future);
+        }
+    }
+
+    private static <T> T load(String key, int seconds, Class<T> tClass, Supplier<T> loader, Predicate<T> validator) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> loading = LOADING_MAP.putIfAbsent(key, future);
+        if (null != loading) {
+            try {
+                return tClass.cast(loading.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            T value = loadShared(key, seconds, tClass, loader, validator);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // 包括 Error，保证等待的调用方不会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            LOADING_MAP.remove(key, future);
+        }
+    }
+
+    private static <T> T loadShared(String key, int seconds, Class<T> tClass, Supplier<T> loader, Predicate<T> validator) {
+        String token = UUID.randomUUID().toString();
+        if (RedisClient.setIfAbsent(LEASE_PREFIX + key, token, RedisConfig.LOAD_LEASE_MILLIS)) {
+            try {
+                return loadAndSet(key, seconds, loader);
+            } finally {
+                release(key, token);
+            }
+        }
+        // 其他节点正在加载，租约时间内等待写入
+        long deadline = System.currentTimeMillis() + RedisConfig.LOAD_LEASE_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(WAIT_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Cached cached = read(key, true);
+            if (null == cached) {
+                break;
+            }
+            if (cached.exists) {
+                T value = tClass.cast(cached.value);
+                if (validator.test(value)) {
+                    return value;
+                }
+                // 写入的值校验不通过，继续等待也不会变化
+                break;
+            }
+            if (!cached.leased) {
+                break;
+            }
+        }
+        return loadAndSet(key, seconds, loader);
+    }
+
+    private static <T> T loadAndSet(String key, int seconds, Supplier<T> loader) {
+        long start = System.currentTimeMillis();
+        T value = loader.get();
+        if (COST_MAP.size() >= MAX_COST_SIZE) {
+            COST_MAP.clear();
+        }
+        COST_MAP.put(key, Math.max(1, System.currentTimeMillis() - start));
+        RedisClient.set(key, value, seconds);
+        return value;
+    }
+
+    private static void release(String key, String token) {
+        // 租约已过期被其他节点获取时不删除
+        RedisScripts.removeIfEquals(LEASE_PREFIX + key, token);
+    }
+
+    private static class Cached {
+        private final boolean exists;
+        private final Object value;
+        private final long ttl;
+        private final boolean leased;
+
+        private Cached(boolean exists, Object value, long ttl, boolean leased) {
+            this.exists = exists;
+            this.value = value;
+            this.ttl = ttl;
+            this.leased = leased;
+        }
+    }
+}
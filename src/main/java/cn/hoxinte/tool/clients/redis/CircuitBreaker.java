@@ -0,0 +1,130 @@
+package cn.hoxinte.tool.clients.redis;
+
+import redis.clients.jedis.exceptions.JedisBusyException;
+import redis.clients.jedis.exceptions.JedisClusterOperationException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Redis 熔断器
+ * <p>
+ * 连续失败达到阈值后打开，打开期间命令直接返回降级值，不再等待连接池和网络
+ * 打开时长结束后进入半开状态，放行少量探测命令，全部成功则关闭，任一失败重新打开
+ * 只统计连接、超时、连接池耗尽等不可用异常，WRONGTYPE 等数据异常说明服务可用，按成功处理
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+
+    private volatile State state = State.CLOSED;
+    private int failures;
+    private int probes;
+    private int probeSuccesses;
+    private long stateTime;
+
+    CircuitBreaker(int failureThreshold, long openMillis, int halfOpenCalls) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * 是否放行命令
+     *
+     * @return 关闭状态或半开探测名额内返回 true
+     */
+    boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (state == State.OPEN) {
+                if (now - stateTime < openMillis) {
+                    return false;
+                }
+                toState(State.HALF_OPEN, now);
+            }
+            if (state == State.HALF_OPEN) {
+                // 探测命令未返回结果（如批量命令不统计成功）时，超过打开时长重新放行
+                if (probes >= halfOpenCalls && now - stateTime >= openMillis) {
+                    toState(State.HALF_OPEN, now);
+                }
+                if (probes < halfOpenCalls) {
+                    probes++;
+                    return true;
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+    void onSuccess() {
+        if (state == State.CLOSED && failures == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                if (++probeSuccesses >= halfOpenCalls) {
+                    toState(State.CLOSED, System.currentTimeMillis());
+                }
+                return;
+            }
+            failures = 0;
+        }
+    }
+
+    void onFailure() {
+        synchronized (this) {
+            if (state == State.HALF_OPEN || (state == State.CLOSED && ++failures >= failureThreshold)) {
+                toState(State.OPEN, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * 按异常类型记录结果
+     *
+     * @param e 命令异常
+     */
+    void onError(Throwable e) {
+        if (isUnavailable(e)) {
+            onFailure();
+            return;
+        }
+        onSuccess();
+    }
+
+    State getState() {
+        return state;
+    }
+
+    private void toState(State newState, long now) {
+        state = newState;
+        stateTime = now;
+        failures = 0;
+        probes = 0;
+        probeSuccesses = 0;
+    }
+
+    private static boolean isUnavailable(Throwable e) {
+        if (e instanceof JedisConnectionException || e instanceof JedisClusterOperationException
+                || e instanceof JedisBusyException) {
+            return true;
+        }
+        // 连接池耗尽
+        return e instanceof JedisException && e.getCause() instanceof NoSuchElementException;
+    }
+}
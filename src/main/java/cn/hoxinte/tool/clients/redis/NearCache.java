@@ -0,0 +1,467 @@
+package cn.hoxinte.tool.clients.redis;
+
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 近端缓存
+ * <p>
+ * 在进程内缓存 get / hGet / hGetAll 读取到的原始字节，命中时不再访问 Redis
+ * 通过 CLIENT TRACKING BCAST 按前缀订阅失效通知，其它节点写入后本地缓存随即失效
+ * Jedis 不支持 RESP3，失效通知通过 REDIRECT 到 __redis__:invalidate 频道接收
+ * 失效连接断开期间不使用缓存，重连后清空缓存
+ * 按 Key 分段加锁，每段按访问顺序淘汰，段内条目数量上限为总上限平均到每段
+ * 未命中时先放入空条目再读取 Redis，读取期间该 Key 失效会删除条目，写入前发现条目已变化则放弃，不影响其他 Key 的读取
+ * 按条目数量及过期时间淘汰，配置 hoxinte.redis.near-cache.prefixes 后启用
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class NearCache {
+
+    private static final String INVALIDATE_CHANNEL = "__redis__:invalidate";
+    private static final String MESSAGE = "message";
+    private static final byte JSON_QUOTE = '"';
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private static final byte[][] PREFIXES = new byte[RedisConfig.NEAR_CACHE_PREFIXES.length][];
+    private static final int MAX_SIZE = RedisConfig.NEAR_CACHE_MAX_SIZE;
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(RedisConfig.NEAR_CACHE_TTL);
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final int SEGMENT_MAX_SIZE = Math.max(1, MAX_SIZE / SEGMENT_COUNT);
+    private static final Segment[] SEGMENTS = new Segment[SEGMENT_COUNT];
+    private static final AtomicInteger CONNECTED = new AtomicInteger();
+    private static final AtomicLong HIT = new AtomicLong();
+    private static final AtomicLong MISS = new AtomicLong();
+    private static final List<Listener> LISTENERS = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            SEGMENTS[i] = new Segment();
+        }
+    }
+
+    private NearCache() {
+    }
+
+    /**
+     * 启动失效通知监听
+     *
+     * @param nodeSuppliers 每个节点一个监听，重连时重新获取节点地址
+     */
+    static synchronized void start(List<Supplier<HostAndPort>> nodeSuppliers) {
+        if (!isEnabled() || !LISTENERS.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < PREFIXES.length; i++) {
+            PREFIXES[i] = encodePrefix(RedisConfig.NEAR_CACHE_PREFIXES[i]);
+        }
+        for (Supplier<HostAndPort> nodeSupplier : nodeSuppliers) {
+            Listener listener = new Listener(nodeSupplier);
+            LISTENERS.add(listener);
+            Thread thread = new Thread(listener, "redis-near-cache-" + LISTENERS.size());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 停止监听并清空缓存
+     */
+    static synchronized void shutdown() {
+        for (Listener listener : LISTENERS) {
+            listener.stop();
+        }
+        LISTENERS.clear();
+        clear();
+    }
+
+    static boolean isEnabled() {
+        return PREFIXES.length > 0;
+    }
+
+    /**
+     * Key 的读取结果是否会写入近缓存
+     */
+    static boolean caches(byte[] key) {
+        return usable(key);
+    }
+
+    static long getHitCount() {
+        return HIT.get();
+    }
+
+    static long getMissCount() {
+        return MISS.get();
+    }
+
+    static byte[] get(byte[] key, Function<byte[], byte[]> loader) {
+        if (!usable(key)) {
+            return loader.apply(key);
+        }
+        String cacheKey = toCacheKey(key);
+        Segment segment = segment(cacheKey);
+        KeyEntry entry;
+        synchronized (segment) {
+            entry = segment.getOrCreate(cacheKey);
+            if (entry.hasValue) {
+                HIT.incrementAndGet();
+                return entry.value;
+            }
+        }
+        MISS.incrementAndGet();
+        byte[] value = loader.apply(key);
+        synchronized (segment) {
+            if (cacheable(value) && segment.isCurrent(cacheKey, entry)) {
+                segment.size += entry.hasValue ? 0 : 1;
+                entry.value = value;
+                entry.hasValue = true;
+                segment.evict();
+            } else {
+                segment.removeIfEmpty(cacheKey, entry);
+            }
+        }
+        return value;
+    }
+
+    static byte[] hGet(byte[] key, byte[] field, Function<byte[], byte[]> loader) {
+        if (!usable(key)) {
+            return loader.apply(field);
+        }
+        String cacheKey = toCacheKey(key);
+        String fieldKey = toCacheKey(field);
+        Segment segment = segment(cacheKey);
+        KeyEntry entry;
+        synchronized (segment) {
+            entry = segment.getOrCreate(cacheKey);
+            if (null != entry.fieldMap && entry.fieldMap.containsKey(fieldKey)) {
+                HIT.incrementAndGet();
+                return entry.fieldMap.get(fieldKey);
+            }
+            if (null != entry.hash) {
+                HIT.incrementAndGet();
+                return entry.hash.get(fieldKey);
+            }
+        }
+        MISS.incrementAndGet();
+        byte[] value = loader.apply(field);
+        synchronized (segment) {
+            if (cacheable(value) && segment.isCurrent(cacheKey, entry)) {
+                if (null == entry.fieldMap) {
+                    entry.fieldMap = new HashMap<>();
+                }
+                if (null == entry.fieldMap.put(fieldKey, value)) {
+                    segment.size++;
+                }
+                segment.evict();
+            } else {
+                segment.removeIfEmpty(cacheKey, entry);
+            }
+        }
+        return value;
+    }
+
+    static Map<byte[], byte[]> hGetAll(byte[] key, Function<byte[], Map<byte[], byte[]>> loader) {
+        if (!usable(key)) {
+            return loader.apply(key);
+        }
+        String cacheKey = toCacheKey(key);
+        Segment segment = segment(cacheKey);
+        KeyEntry entry;
+        synchronized (segment) {
+            entry = segment.getOrCreate(cacheKey);
+            if (null != entry.hash) {
+                HIT.incrementAndGet();
+                return toHash(entry.hash);
+            }
+        }
+        MISS.incrementAndGet();
+        Map<byte[], byte[]> hash = loader.apply(key);
+        // 空 Map 可能是读取失败的返回值，不缓存
+        Map<String, byte[]> cacheHash = null;
+        if (null != hash && !hash.isEmpty() && hash.size() <= SEGMENT_MAX_SIZE) {
+            cacheHash = new HashMap<>(hash.size());
+            for (Map.Entry<byte[], byte[]> field : hash.entrySet()) {
+                cacheHash.put(toCacheKey(field.getKey()), field.getValue());
+            }
+        }
+        synchronized (segment) {
+            if (null != cacheHash && segment.isCurrent(cacheKey, entry)) {
+                segment.size += cacheHash.size() - (null == entry.hash ? 0 : entry.hash.size());
+                entry.hash = cacheHash;
+                segment.evict();
+            } else {
+                segment.removeIfEmpty(cacheKey, entry);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 本节点写入时立即失效，不等待失效通知
+     *
+     * @param key 编码后的 Key
+     */
+    static void invalidate(byte[] key) {
+        if (!isEnabled() || !tracked(key)) {
+            return;
+        }
+        invalidate(toCacheKey(key));
+    }
+
+    /**
+     * 删除条目，读取中的加载发现条目已不是加载前的条目后不再写入
+     */
+    private static void invalidate(String cacheKey) {
+        Segment segment = segment(cacheKey);
+        synchronized (segment) {
+            segment.remove(cacheKey);
+        }
+    }
+
+    private static void clear() {
+        for (Segment segment : SEGMENTS) {
+            synchronized (segment) {
+                segment.map.clear();
+                segment.size = 0;
+            }
+        }
+    }
+
+    private static boolean usable(byte[] key) {
+        return isEnabled() && CONNECTED.get() == LISTENERS.size() && !LISTENERS.isEmpty() && tracked(key);
+    }
+
+    private static boolean tracked(byte[] key) {
+        for (byte[] prefix : PREFIXES) {
+            if (startsWith(key, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 空数组可能是读取失败的返回值，不缓存，不存在的 Key 返回 null 可以缓存
+     */
+    private static boolean cacheable(byte[] value) {
+        return null == value || value.length > 0;
+    }
+
+    private static Segment segment(String cacheKey) {
+        int hash = cacheKey.hashCode();
+        return SEGMENTS[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static Map<byte[], byte[]> toHash(Map<String, byte[]> cacheHash) {
+        Map<byte[], byte[]> hash = new HashMap<>(cacheHash.size());
+        for (Map.Entry<String, byte[]> field : cacheHash.entrySet()) {
+            hash.put(field.getKey().getBytes(StandardCharsets.ISO_8859_1), field.getValue());
+        }
+        return hash;
+    }
+
+    /**
+     * 字节一一对应，作为 Map 的 Key 使用
+     */
+    private static String toCacheKey(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 使用 Key 编码后的前缀，JSON 编码需要去掉结尾的引号
+     */
+    private static byte[] encodePrefix(String prefix) {
+        byte[] bytes = RedisClient.serializeKey(prefix);
+        if (bytes.length > 1 && bytes[0] == JSON_QUOTE && bytes[bytes.length - 1] == JSON_QUOTE) {
+            return Arrays.copyOf(bytes, bytes.length - 1);
+        }
+        return bytes;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 缓存分段，访问顺序的 LinkedHashMap 读取时也会修改，读写都在段锁内
+     */
+    private static final class Segment {
+        private final Map<String, KeyEntry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private int size;
+
+        private KeyEntry getOrCreate(String cacheKey) {
+            KeyEntry entry = map.get(cacheKey);
+            if (null != entry && entry.expireTime < System.currentTimeMillis()) {
+                remove(cacheKey);
+                entry = null;
+            }
+            if (null == entry) {
+                entry = new KeyEntry(System.currentTimeMillis() + TTL_MILLIS);
+                map.put(cacheKey, entry);
+            }
+            return entry;
+        }
+
+        /**
+         * 加载前放入的条目是否仍在缓存中，期间失效、过期、淘汰都会移除条目
+         */
+        private boolean isCurrent(String cacheKey, KeyEntry entry) {
+            return map.get(cacheKey) == entry;
+        }
+
+        private void removeIfEmpty(String cacheKey, KeyEntry entry) {
+            if (entry.size() == 0 && isCurrent(cacheKey, entry)) {
+                map.remove(cacheKey);
+            }
+        }
+
+        private void remove(String cacheKey) {
+            KeyEntry entry = map.remove(cacheKey);
+            if (null != entry) {
+                size -= entry.size();
+            }
+        }
+
+        private void evict() {
+            Iterator<KeyEntry> iterator = map.values().iterator();
+            while (size > SEGMENT_MAX_SIZE && iterator.hasNext()) {
+                size -= iterator.next().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class KeyEntry {
+        private final long expireTime;
+        private boolean hasValue;
+        private byte[] value;
+        private Map<String, byte[]> fieldMap;
+        private Map<String, byte[]> hash;
+
+        private KeyEntry(long expireTime) {
+            this.expireTime = expireTime;
+        }
+
+        private int size() {
+            int size = hasValue ? 1 : 0;
+            size += null == fieldMap ? 0 : fieldMap.size();
+            size += null == hash ? 0 : hash.size();
+            return size;
+        }
+    }
+
+    /**
+     * 失效通知监听，断开后自动重连
+     */
+    private static final class Listener implements Runnable {
+
+        private final Supplier<HostAndPort> nodeSupplier;
+        private volatile boolean running = true;
+        private volatile Connection connection;
+
+        private Listener(Supplier<HostAndPort> nodeSupplier) {
+            this.nodeSupplier = nodeSupplier;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                boolean connected = false;
+                try (Connection conn = new Connection(nodeSupplier.get(), RedisConfig.jedisClient())) {
+                    connection = conn;
+                    subscribe(conn);
+                    clear();
+                    CONNECTED.incrementAndGet();
+                    connected = true;
+                    listen(conn);
+                } catch (Exception e) {
+                    if (running) {
+                        e.printStackTrace();
+                    }
+                } finally {
+                    if (connected) {
+                        CONNECTED.decrementAndGet();
+                    }
+                    clear();
+                }
+                sleep();
+            }
+        }
+
+        private void subscribe(Connection conn) {
+            Object clientId = conn.executeCommand(new CommandArguments(Protocol.Command.CLIENT).add("ID"));
+            CommandArguments tracking = new CommandArguments(Protocol.Command.CLIENT)
+                    .add("TRACKING").add("ON").add("REDIRECT").add(clientId).add("BCAST");
+            for (byte[] prefix : PREFIXES) {
+                tracking.add("PREFIX").add(prefix);
+            }
+            conn.executeCommand(tracking);
+            conn.sendCommand(Protocol.Command.SUBSCRIBE, INVALIDATE_CHANNEL);
+            conn.setTimeoutInfinite();
+            // 订阅确认
+            conn.getUnflushedObjectMultiBulkReply();
+        }
+
+        private void listen(Connection conn) {
+            while (running) {
+                List<Object> reply = conn.getUnflushedObjectMultiBulkReply();
+                if (reply.size() < 3 || !MESSAGE.equals(new String((byte[]) reply.get(0), StandardCharsets.UTF_8))) {
+                    continue;
+                }
+                Object keys = reply.get(2);
+                if (keys instanceof List) {
+                    for (Object key : (List<?>) keys) {
+                        invalidate(toCacheKey((byte[]) key));
+                    }
+                    continue;
+                }
+                if (keys instanceof byte[]) {
+                    invalidate(toCacheKey((byte[]) keys));
+                    continue;
+                }
+                // FLUSHALL / FLUSHDB 时为 null
+                clear();
+            }
+        }
+
+        private void sleep() {
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+
+        private void stop() {
+            running = false;
+            Connection conn = connection;
+            if (null != conn) {
+                conn.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import cn.hoxinte.tool.clients.redis.memory.MemoryScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 分布式限流
+ * <p>
+ * 令牌桶、滑动窗口各为一个原子脚本，时间取 Redis TIME，多节点共享同一个限流额度
+ * 设置预取数量后一次申请多个许可保存在本地，本地许可用完或超过有效期再访问 Redis
+ * 预取会让单个节点提前占用额度，适合调用频繁、额度较大的场景
+ * Redis 不可用时放行，避免限流影响业务
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class RateLimiter {
+
+    /**
+     * 令牌桶
+     * KEYS[1] 桶 ARGV[1] 容量 ARGV[2] 每毫秒生成令牌数 ARGV[3] 申请数量
+     * 返回 0 获取成功，-1 申请数量超过容量，否则为需要等待的毫秒数
+     */
+    public static final RedisScript TOKEN_BUCKET = RedisScript.of(
+            "redis.replicate_commands()\n" +
+                    "local capacity = tonumber(ARGV[1])\n" +
+                    "local rate = tonumber(ARGV[2])\n" +
+                    "local requested = tonumber(ARGV[3])\n" +
+                    "if requested > capacity then return -1 end\n" +
+                    "local time = redis.call('TIME')\n" +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+                    "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')\n" +
+                    "local tokens = tonumber(bucket[1]) or capacity\n" +
+                    "local ts = tonumber(bucket[2]) or now\n" +
+                    "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)\n" +
+                    "local wait = 0\n" +
+                    "if tokens >= requested then tokens = tokens - requested\n" +
+                    "else wait = math.ceil((requested - tokens) / rate) end\n" +
+                    "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)\n" +
+                    "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000)\n" +
+                    "return wait");
+
+    /**
+     * 滑动窗口，有序集合记录窗口内每个许可的获取时间
+     * KEYS[1] 窗口 ARGV[1] 窗口内上限 ARGV[2] 窗口大小 毫秒 ARGV[3] 申请数量 ARGV[4] 本次申请标识
+     * 返回 0 获取成功，-1 申请数量超过上限，否则为需要等待的毫秒数
+     */
+    public static final RedisScript SLIDING_WINDOW = RedisScript.of(
+            "redis.replicate_commands()\n" +
+                    "local limit = tonumber(ARGV[1])\n" +
+                    "local window = tonumber(ARGV[2])\n" +
+                    "local requested = tonumber(ARGV[3])\n" +
+                    "if requested > limit then return -1 end\n" +
+                    "local time = redis.call('TIME')\n" +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+                    "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)\n" +
+                    "local count = redis.call('ZCARD', KEYS[1])\n" +
+                    "if count + requested <= limit then\n" +
+                    "  for i = 1, requested do redis.call('ZADD', KEYS[1], now, ARGV[4] .. ':' .. i) end\n" +
+                    "  redis.call('PEXPIRE', KEYS[1], window)\n" +
+                    "  return 0\n" +
+                    "end\n" +
+                    "local index = count + requested - limit - 1\n" +
+                    "local oldest = redis.call('ZRANGE', KEYS[1], index, index, 'WITHSCORES')\n" +
+                    "return math.max(1, tonumber(oldest[2]) + window - now)");
+
+    private static final String KEY_PREFIX = "rate:";
+    private static final long GRANTED = 0;
+    private static final long REJECTED = -1;
+    /**
+     * 本地预取许可有效期
+     */
+    private static final long PREFETCH_MILLIS = 1000;
+
+    static {
+        MemoryRedis.registerScript(TOKEN_BUCKET.getSha1Hex(), RateLimiter::tokenBucket);
+        MemoryRedis.registerScript(SLIDING_WINDOW.getSha1Hex(), RateLimiter::slidingWindow);
+    }
+
+    private final String key;
+    private final RedisScript script;
+    private final byte[][] limitArgs;
+    private final int prefetch;
+    private final long prefetchMillis;
+
+    private int localPermits;
+    private long localDeadline;
+
+    private RateLimiter(String key, RedisScript script, byte[][] limitArgs, int prefetch, long prefetchMillis) {
+        this.key = KEY_PREFIX + key;
+        this.script = script;
+        this.limitArgs = limitArgs;
+        this.prefetch = Math.max(1, prefetch);
+        this.prefetchMillis = prefetchMillis;
+    }
+
+    /**
+     * 令牌桶限流，允许容量内的突发
+     *
+     * @param key              限流Key
+     * @param permitsPerSecond 每秒生成令牌数
+     * @param capacity         桶容量
+     * @return 限流器
+     */
+    public static RateLimiter tokenBucket(String key, double permitsPerSecond, int capacity) {
+        return tokenBucket(key, permitsPerSecond, capacity, 1);
+    }
+
+    /**
+     * 令牌桶限流，允许容量内的突发
+     *
+     * @param key              限流Key
+     * @param permitsPerSecond 每秒生成令牌数
+     * @param capacity         桶容量
+     * @param prefetch         每次从 Redis 预取的许可数量
+     * @return 限流器
+     */
+    public static RateLimiter tokenBucket(String key, double permitsPerSecond, int capacity, int prefetch) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Redis - rate limiter permits and capacity must be positive !");
+        }
+        byte[][] limitArgs = {toBytes(String.valueOf(capacity)), toBytes(String.valueOf(permitsPerSecond / 1000))};
+        return new RateLimiter(key, TOKEN_BUCKET, limitArgs, Math.min(prefetch, capacity), PREFETCH_MILLIS);
+    }
+
+    /**
+     * 滑动窗口限流，任意 windowMillis 时间内不超过 limit 次
+     *
+     * @param key          限流Key
+     * @param limit        窗口内上限
+     * @param windowMillis 窗口大小 毫秒
+     * @return 限流器
+     */
+    public static RateLimiter slidingWindow(String key, int limit, long windowMillis) {
+        return slidingWindow(key, limit, windowMillis, 1);
+    }
+
+    /**
+     * 滑动窗口限流，任意 windowMillis 时间内不超过 limit 次
+     *
+     * @param key          限流Key
+     * @param limit        窗口内上限
+     * @param windowMillis 窗口大小 毫秒
+     * @param prefetch     每次从 Redis 预取的许可数量
+     * @return 限流器
+     */
+    public static RateLimiter slidingWindow(String key, int limit, long windowMillis, int prefetch) {
+        if (limit <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Redis - rate limiter limit and window must be positive !");
+        }
+        byte[][] limitArgs = {toBytes(String.valueOf(limit)), toBytes(String.valueOf(windowMillis))};
+        return new RateLimiter(key, SLIDING_WINDOW, limitArgs, Math.min(prefetch, limit),
+                Math.min(PREFETCH_MILLIS, windowMillis));
+    }
+
+    /**
+     * 尝试获取一个许可，不等待
+     *
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 尝试获取许可，不等待
+     *
+     * @param permits 许可数量
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(int permits) {
+        return acquireOrWait(permits) == GRANTED;
+    }
+
+    /**
+     * 尝试获取最多 permits 个许可，不等待
+     * 额度不足时按一半递减重试，最多约 log2(permits) 次访问 Redis
+     *
+     * @param permits 最多许可数量
+     * @return 获取到的许可数量，0 为没有额度
+     */
+    public int tryAcquireUpTo(int permits) {
+        for (int request = permits; request > 0; request /= 2) {
+            if (tryAcquire(request)) {
+                return request;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 获取许可，额度不足时等待
+     *
+     * @param permits 许可数量
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     * @return 是否获取成功，超时或申请数量超过上限返回 false
+     */
+    public boolean acquire(int permits, long timeout, TimeUnit unit) {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (true) {
+            long wait = acquireOrWait(permits);
+            if (wait == GRANTED) {
+                return true;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (wait == REJECTED || wait > remaining) {
+                return false;
+            }
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 获取许可，优先使用本地预取许可
+     *
+     * @param permits 许可数量
+     * @return 0 获取成功，-1 无法获取，否则为需要等待的毫秒数
+     */
+    private long acquireOrWait(int permits) {
+        if (permits <= 0) {
+            return GRANTED;
+        }
+        if (takeLocal(permits)) {
+            return GRANTED;
+        }
+        int batch = Math.max(permits, prefetch);
+        long wait = request(batch);
+        if (wait == GRANTED) {
+            putLocal(batch - permits);
+            return GRANTED;
+        }
+        if (batch > permits) {
+            // 剩余额度不够预取时只申请本次所需
+            wait = request(permits);
+        }
+        return wait;
+    }
+
+    private synchronized boolean takeLocal(int permits) {
+        if (localPermits < permits || System.currentTimeMillis() >= localDeadline) {
+            return false;
+        }
+        localPermits -= permits;
+        return true;
+    }
+
+    private synchronized void putLocal(int permits) {
+        if (permits <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // 过期的本地许可直接丢弃
+        localPermits = now < localDeadline ? localPermits + permits : permits;
+        localDeadline = now + prefetchMillis;
+    }
+
+    private long request(int permits) {
+        byte[][] args = new byte[limitArgs.length + 2][];
+        System.arraycopy(limitArgs, 0, args, 0, limitArgs.length);
+        args[limitArgs.length] = toBytes(String.valueOf(permits));
+        args[limitArgs.length + 1] = toBytes(UUID.randomUUID().toString());
+        Object result;
+        try {
+            result = RedisScripts.eval(script, key, args);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return GRANTED;
+        }
+        return result instanceof Long ? (Long) result : GRANTED;
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 进程内存储实现，与脚本逻辑一致
+
+    private static long now(MemoryScript.Call redis) {
+        List<?> time = (List<?>) redis.call("TIME");
+        return MemoryScript.toLong(time.get(0)) * 1000 + MemoryScript.toLong(time.get(1)) / 1000;
+    }
+
+    private static Object tokenBucket(MemoryScript.Call redis, byte[][] keys, byte[][] argv) {
+        double capacity = MemoryScript.toDouble(argv[0]);
+        double rate = MemoryScript.toDouble(argv[1]);
+        double requested = MemoryScript.toDouble(argv[2]);
+        if (requested > capacity) {
+            return REJECTED;
+        }
+        long now = now(redis);
+        List<?> bucket = (List<?>) redis.call("HMGET", keys[0], "tokens", "ts");
+        Double tokens = MemoryScript.toNumber(bucket.get(0));
+        Double ts = MemoryScript.toNumber(bucket.get(1));
+        double available = Math.min(capacity, (null == tokens ? capacity : tokens)
+                + Math.max(0, now - (null == ts ? now : ts)) * rate);
+        double wait = 0;
+        if (available >= requested) {
+            available -= requested;
+        } else {
+            wait = Math.ceil((requested - available) / rate);
+        }
+        redis.call("HMSET", keys[0], "tokens", MemoryScript.toString(available), "ts", now);
+        redis.call("PEXPIRE", keys[0], (long) Math.ceil(capacity / rate) + 1000);
+        return (long) wait;
+    }
+
+    private static Object slidingWindow(MemoryScript.Call redis, byte[][] keys, byte[][] argv) {
+        long limit = MemoryScript.toLong(argv[0]);
+        long window = MemoryScript.toLong(argv[1]);
+        long requested = MemoryScript.toLong(argv[2]);
+        if (requested > limit) {
+            return REJECTED;
+        }
+        long now = now(redis);
+        redis.call("ZREMRANGEBYSCORE", keys[0], "-inf", now - window);
+        long count = (Long) redis.call("ZCARD", keys[0]);
+        if (count + requested <= limit) {
+            String id = new String(argv[3], StandardCharsets.UTF_8);
+            for (int i = 1; i <= requested; i++) {
+                redis.call("ZADD", keys[0], now, id + ":" + i);
+            }
+            redis.call("PEXPIRE", keys[0], window);
+            return GRANTED;
+        }
+        long index = count + requested - limit - 1;
+        List<?> oldest = (List<?>) redis.call("ZRANGE", keys[0], index, index, "WITHSCORES");
+        return Math.max(1, (long) (MemoryScript.toDouble(oldest.get(1)) + window - now));
+    }
+}
@@ -0,0 +1,340 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.metrics.RedisMetrics;
+import org.apache.commons.pool2.PooledObject;
+import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 读请求路由
+ * <p>
+ * 哨兵模式通过 SENTINEL REPLICAS 发现从节点（需要 Redis 5 及以上的哨兵），集群模式通过 CLUSTER SLOTS 获取每个槽位的从节点
+ * 定时刷新拓扑并 PING 每个节点记录延迟，PING 失败或执行失败的节点在下次刷新前不再使用
+ * 从节点存在复制延迟，刚写入的数据可能读不到，只用于允许短暂不一致的读取
+ * MASTER 只读主节点；REPLICA_PREFERRED 随机选择可用从节点，没有时读主节点；NEAREST 选择延迟最低的节点
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class ReadRouter {
+
+    enum ReadFrom {
+        MASTER, REPLICA_PREFERRED, NEAREST;
+
+        static ReadFrom of(String name) {
+            if (null == name) {
+                return MASTER;
+            }
+            for (ReadFrom readFrom : values()) {
+                if (readFrom.name().replace('_', '-').equalsIgnoreCase(name.trim())) {
+                    return readFrom;
+                }
+            }
+            return MASTER;
+        }
+    }
+
+    /**
+     * 延迟平滑系数，新测量值的权重
+     */
+    private static final double LATENCY_WEIGHT = 0.3;
+    private static final String FLAGS = "flags";
+    private static final String LINK_STATUS = "master-link-status";
+    private static final String LINK_OK = "ok";
+    private static final String[] DOWN_FLAGS = {"s_down", "o_down", "disconnected"};
+
+    private static final Map<HostAndPort, JedisPool> POOL_MAP = new ConcurrentHashMap<>();
+    private static final Map<HostAndPort, Long> LATENCY_MAP = new ConcurrentHashMap<>();
+
+    private static volatile ReadFrom MODE = ReadFrom.MASTER;
+    private static volatile Topology TOPOLOGY = Topology.EMPTY;
+    private static Supplier<Topology> LOADER;
+    private static boolean READ_ONLY;
+
+    private ReadRouter() {
+    }
+
+    /**
+     * 启动路由，MASTER 模式不启动
+     *
+     * @param mode           路由模式
+     * @param loader         拓扑读取
+     * @param readOnly       从节点连接是否需要 READONLY，集群模式需要
+     * @param refreshSeconds 拓扑刷新间隔 秒
+     */
+    static synchronized void start(ReadFrom mode, Supplier<Topology> loader, boolean readOnly, int refreshSeconds) {
+        if (mode == ReadFrom.MASTER || null != LOADER) {
+            return;
+        }
+        LOADER = loader;
+        READ_ONLY = readOnly;
+        MODE = mode;
+        refresh();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-read-router");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(ReadRouter::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    static boolean isEnabled() {
+        return MODE != ReadFrom.MASTER;
+    }
+
+    /**
+     * 选择读取节点
+     *
+     * @param key 缓存Key
+     * @return 从节点连接，应读取主节点时返回 null
+     */
+    static Replica borrow(byte[] key) {
+        Topology topology = TOPOLOGY;
+        if (topology.replicas.length == 0) {
+            return null;
+        }
+        int slot = topology.replicas.length == 1 ? 0 : JedisClusterCRC16.getSlot(key);
+        HostAndPort node = MODE == ReadFrom.NEAREST ? nearest(topology.masters[slot], topology.replicas[slot])
+                : randomReplica(topology.replicas[slot]);
+        if (null == node) {
+            return null;
+        }
+        JedisPool pool = POOL_MAP.get(node);
+        if (null == pool) {
+            return null;
+        }
+        try {
+            return new Replica(node, pool.getResource());
+        } catch (RuntimeException e) {
+            markDown(node);
+            return null;
+        }
+    }
+
+    /**
+     * 节点不可用，下次刷新前不再使用
+     *
+     * @param node 节点
+     */
+    static void markDown(HostAndPort node) {
+        LATENCY_MAP.remove(node);
+    }
+
+    private static HostAndPort randomReplica(HostAndPort[] replicas) {
+        int start = ThreadLocalRandom.current().nextInt(Math.max(1, replicas.length));
+        for (int i = 0; i < replicas.length; i++) {
+            HostAndPort replica = replicas[(start + i) % replicas.length];
+            if (LATENCY_MAP.containsKey(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static HostAndPort nearest(HostAndPort master, HostAndPort[] replicas) {
+        HostAndPort nearest = null;
+        long best = null == master ? Long.MAX_VALUE : LATENCY_MAP.getOrDefault(master, Long.MAX_VALUE);
+        for (HostAndPort replica : replicas) {
+            Long latency = LATENCY_MAP.get(replica);
+            if (null != latency && latency < best) {
+                best = latency;
+                nearest = replica;
+            }
+        }
+        return nearest;
+    }
+
+    private static void refresh() {
+        Topology topology;
+        try {
+            topology = LOADER.get();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+        Set<HostAndPort> nodes = new HashSet<>();
+        for (HostAndPort[] replicas : topology.replicas) {
+            nodes.addAll(Arrays.asList(replicas));
+        }
+        if (MODE == ReadFrom.NEAREST) {
+            for (HostAndPort master : topology.masters) {
+                if (null != master) {
+                    nodes.add(master);
+                }
+            }
+        }
+        for (HostAndPort node : nodes) {
+            ping(POOL_MAP.computeIfAbsent(node, ReadRouter::createPool), node);
+        }
+        TOPOLOGY = topology;
+        // 关闭已下线节点的连接池
+        for (HostAndPort node : new ArrayList<>(POOL_MAP.keySet())) {
+            if (!nodes.contains(node)) {
+                LATENCY_MAP.remove(node);
+                POOL_MAP.remove(node).close();
+            }
+        }
+    }
+
+    private static void ping(JedisPool pool, HostAndPort node) {
+        try (Jedis jedis = pool.getResource()) {
+            long start = System.nanoTime();
+            jedis.ping();
+            long latency = System.nanoTime() - start;
+            LATENCY_MAP.merge(node, latency, (old, now) -> (long) (old * (1 - LATENCY_WEIGHT) + now * LATENCY_WEIGHT));
+        } catch (RuntimeException e) {
+            markDown(node);
+        }
+    }
+
+    private static JedisPool createPool(HostAndPort node) {
+        JedisPool pool = READ_ONLY ? new JedisPool(RedisConfig.jedisPool(), new ReadOnlyFactory(node))
+                : new JedisPool(RedisConfig.jedisPool(), node, RedisConfig.jedisClient());
+        RedisMetrics.registerPool("replica." + node, pool);
+        return pool;
+    }
+
+    /**
+     * 从哨兵读取当前主节点及可用从节点
+     *
+     * @param sentinelNodes 哨兵节点
+     * @param masterName    主节点名称
+     * @return 拓扑
+     */
+    static Topology sentinelTopology(Set<HostAndPort> sentinelNodes, String masterName) {
+        RuntimeException failure = new JedisDataException("Redis - no sentinel available !");
+        for (HostAndPort sentinel : sentinelNodes) {
+            try (Jedis jedis = new Jedis(sentinel, RedisConfig.jedisClient())) {
+                HostAndPort master = HostAndPort.from(String.join(":", jedis.sentinelGetMasterAddrByName(masterName)));
+                List<Map<String, String>> replicaList = jedis.sentinelReplicas(masterName);
+                List<HostAndPort> replicas = new ArrayList<>(replicaList.size());
+                for (Map<String, String> replica : replicaList) {
+                    if (isAvailable(replica)) {
+                        replicas.add(new HostAndPort(replica.get("ip"), Integer.parseInt(replica.get("port"))));
+                    }
+                }
+                return new Topology(new HostAndPort[]{master}, new HostAndPort[][]{replicas.toArray(new HostAndPort[0])});
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * 从集群读取每个槽位的主从节点
+     *
+     * @param connectionSupplier 任一集群节点连接
+     * @return 拓扑
+     */
+    static Topology clusterTopology(Supplier<Connection> connectionSupplier) {
+        HostAndPort[] masters = new HostAndPort[Protocol.CLUSTER_HASHSLOTS];
+        HostAndPort[][] replicas = new HostAndPort[Protocol.CLUSTER_HASHSLOTS][];
+        Arrays.fill(replicas, new HostAndPort[0]);
+        List<Object> slotList;
+        try (Connection connection = connectionSupplier.get()) {
+            slotList = new Jedis(connection).clusterSlots();
+        }
+        for (Object slotInfo : slotList) {
+            List<?> info = (List<?>) slotInfo;
+            int start = ((Long) info.get(0)).intValue();
+            int end = ((Long) info.get(1)).intValue();
+            HostAndPort master = toNode((List<?>) info.get(2));
+            HostAndPort[] slotReplicas = new HostAndPort[info.size() - 3];
+            for (int i = 3; i < info.size(); i++) {
+                slotReplicas[i - 3] = toNode((List<?>) info.get(i));
+            }
+            for (int slot = start; slot <= end; slot++) {
+                masters[slot] = master;
+                replicas[slot] = slotReplicas;
+            }
+        }
+        return new Topology(masters, replicas);
+    }
+
+    private static boolean isAvailable(Map<String, String> replica) {
+        String flags = replica.getOrDefault(FLAGS, "");
+        for (String downFlag : DOWN_FLAGS) {
+            if (flags.contains(downFlag)) {
+                return false;
+            }
+        }
+        return LINK_OK.equals(replica.getOrDefault(LINK_STATUS, LINK_OK));
+    }
+
+    private static HostAndPort toNode(List<?> nodeInfo) {
+        Object host = nodeInfo.get(0);
+        String hostName = host instanceof byte[] ? SafeEncoder.encode((byte[]) host) : String.valueOf(host);
+        return new HostAndPort(hostName, ((Long) nodeInfo.get(1)).intValue());
+    }
+
+    /**
+     * 主从拓扑，哨兵模式只有一组，集群模式每个槽位一组
+     */
+    static final class Topology {
+
+        static final Topology EMPTY = new Topology(new HostAndPort[0], new HostAndPort[0][]);
+
+        private final HostAndPort[] masters;
+        private final HostAndPort[][] replicas;
+
+        Topology(HostAndPort[] masters, HostAndPort[][] replicas) {
+            this.masters = masters;
+            this.replicas = replicas;
+        }
+    }
+
+    /**
+     * 借出的从节点连接
+     */
+    static final class Replica implements AutoCloseable {
+
+        private final HostAndPort node;
+        private final Jedis jedis;
+
+        private Replica(HostAndPort node, Jedis jedis) {
+            this.node = node;
+            this.jedis = jedis;
+        }
+
+        HostAndPort getNode() {
+            return node;
+        }
+
+        Jedis getJedis() {
+            return jedis;
+        }
+
+        @Override
+        public void close() {
+            jedis.close();
+        }
+    }
+
+    /**
+     * 集群从节点连接创建后执行 READONLY，否则读命令会被重定向到主节点
+     */
+    private static final class ReadOnlyFactory extends JedisFactory {
+
+        private ReadOnlyFactory(HostAndPort node) {
+            super(node, RedisConfig.jedisClient());
+        }
+
+        @Override
+        public PooledObject<Jedis> makeObject() throws Exception {
+            PooledObject<Jedis> pooled = super.makeObject();
+            pooled.getObject().readonly();
+            return pooled;
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package cn.hoxinte.tool.clients.redis;
+
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.CommandObjects;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Redis 批量命令
+ * <p>
+ * 通过 RedisClient.pipeline 使用，命令先入队，执行时单点、哨兵一次往返，集群每个节点一次往返
+ * 只支持单 Key 命令，集群模式下按 Key 所在节点分组
+ * 写命令执行前清除对应 Key 的近端缓存
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class RedisBatch {
+
+    private static final CommandObjects COMMAND_OBJECTS = new CommandObjects();
+
+    private final List<Command<?, ?>> commandList = new ArrayList<>();
+
+    RedisBatch() {
+    }
+
+    /**
+     * 设置缓存
+     *
+     * @param key    缓存Key
+     * @param value  缓存值
+     * @param second 缓存到期时间 秒
+     * @return 操作结果
+     */
+    public RedisResponse<String> set(String key, Object value, int second) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.setex(keyBytes, second, RedisClient.serialize(value)), Function.identity());
+    }
+
+    /**
+     * 设置永久缓存
+     *
+     * @param key   缓存Key
+     * @param value 缓存值
+     * @return 操作结果
+     */
+    public RedisResponse<String> setPersist(String key, Object value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.set(keyBytes, RedisClient.serialize(value)), Function.identity());
+    }
+
+    /**
+     * 设置散列缓存
+     *
+     * @param key   散列缓存key
+     * @param field 字段
+     * @param value 缓存值
+     * @return 操作结果
+     */
+    public RedisResponse<Long> hSetPersist(String key, String field, Object value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.hset(keyBytes, RedisClient.serializeKey(field), RedisClient.serialize(value)),
+                Function.identity());
+    }
+
+    /**
+     * 设置散列缓存多个字段
+     *
+     * @param key      散列缓存key
+     * @param fieldMap key 字段，value 缓存值
+     * @return 新增字段数量
+     */
+    public RedisResponse<Long> hMSet(String key, Map<String, ?> fieldMap) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        Map<byte[], byte[]> hash = new HashMap<>(fieldMap.size());
+        for (Map.Entry<String, ?> entry : fieldMap.entrySet()) {
+            hash.put(RedisClient.serializeKey(entry.getKey()), RedisClient.serialize(entry.getValue()));
+        }
+        return write(keyBytes, COMMAND_OBJECTS.hset(keyBytes, hash), Function.identity());
+    }
+
+    /**
+     * 读取缓存值
+     *
+     * @param key 缓存key
+     * @return 缓存对象
+     */
+    public RedisResponse<Object> get(String key) {
+        return get(key, Object.class);
+    }
+
+    /**
+     * 读取缓存值
+     *
+     * @param key    缓存key
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return 缓存对象
+     */
+    public <T> RedisResponse<T> get(String key, Class<T> tClass) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.get(keyBytes), bytes -> tClass.cast(RedisClient.unSerialize(bytes)));
+    }
+
+    /**
+     * 读取散列缓存一个字段值
+     *
+     * @param key    散列缓存key
+     * @param field  字段
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return 缓存对象
+     */
+    public <T> RedisResponse<T> hGet(String key, String field, Class<T> tClass) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.hget(keyBytes, RedisClient.serializeKey(field)),
+                bytes -> tClass.cast(RedisClient.unSerialize(bytes)));
+    }
+
+    /**
+     * 读取散列缓存中所有值
+     *
+     * @param key    散列缓存key
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return Map key 字段，value 缓存对象
+     */
+    public <T> RedisResponse<Map<String, T>> hGetAll(String key, Class<T> tClass) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.hgetAll(keyBytes), hash -> {
+            Map<String, T> result = new HashMap<>(hash.size());
+            for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+                result.put(RedisClient.unSerializeKey(entry.getKey()), tClass.cast(RedisClient.unSerialize(entry.getValue())));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 查询缓存是否存在
+     *
+     * @param key 缓存Key
+     * @return 是否存在
+     */
+    public RedisResponse<Boolean> hasKey(String key) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.exists(keyBytes), Function.identity());
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key 缓存key
+     * @return 操作结果
+     */
+    public RedisResponse<Long> removeKey(String key) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.del(keyBytes), Function.identity());
+    }
+
+    /**
+     * 删除散列缓存字段
+     *
+     * @param key   散列缓存key
+     * @param field 字段
+     * @return 操作结果
+     */
+    public RedisResponse<Long> hRemoveField(String key, String field) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.hdel(keyBytes, RedisClient.serializeKey(field)), Function.identity());
+    }
+
+    /**
+     * 为 Key 设置过期时间
+     *
+     * @param key     缓存key
+     * @param seconds 缓存过期时间 秒
+     * @return 操作结果
+     */
+    public RedisResponse<Long> expire(String key, int seconds) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.expire(keyBytes, seconds), Function.identity());
+    }
+
+    /**
+     * 查询缓存到期时间
+     *
+     * @param key 缓存Key
+     * @return 缓存过期时间 秒
+     */
+    public RedisResponse<Long> ttl(String key) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.ttl(keyBytes), Function.identity());
+    }
+
+    /**
+     * 查询缓存到期时间 毫秒
+     *
+     * @param key 缓存Key
+     * @return 缓存过期时间 毫秒，-1 永久，-2 不存在
+     */
+    public RedisResponse<Long> pTtl(String key) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.pttl(keyBytes), Function.identity());
+    }
+
+    /**
+     * 向队列最前面插入值
+     *
+     * @param key   缓存Key
+     * @param value 保存数据
+     * @return 列表长度
+     */
+    public RedisResponse<Long> leftPush(String key, Object value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.lpush(keyBytes, RedisClient.serialize(value)), Function.identity());
+    }
+
+    /**
+     * 向队列最后面插入值
+     *
+     * @param key   缓存Key
+     * @param value 保存数据
+     * @return 列表长度
+     */
+    public RedisResponse<Long> rightPush(String key, Object value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.rpush(keyBytes, RedisClient.serialize(value)), Function.identity());
+    }
+
+    /**
+     * 向队列最后面插入多个值，一条 RPUSH 命令
+     *
+     * @param key    缓存Key
+     * @param values 保存数据
+     * @return 列表长度
+     */
+    public RedisResponse<Long> rightPushAll(String key, Object... values) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        byte[][] elements = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            elements[i] = RedisClient.serialize(values[i]);
+        }
+        return write(keyBytes, COMMAND_OBJECTS.rpush(keyBytes, elements), Function.identity());
+    }
+
+    /**
+     * 设置set集合缓存
+     *
+     * @param key   缓存Key
+     * @param value 缓存值
+     * @return 操作结果
+     */
+    public RedisResponse<Long> addSetValue(String key, Object value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.sadd(keyBytes, RedisClient.serialize(value)), Function.identity());
+    }
+
+    /**
+     * 检查value是否是key对应set的成员
+     *
+     * @param key   缓存key
+     * @param value 缓存值
+     * @return 查询结果
+     */
+    public RedisResponse<Boolean> sisMember(String key, Object value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.sismember(keyBytes, RedisClient.serialize(value)), Function.identity());
+    }
+
+    /**
+     * 设置位图指定位
+     *
+     * @param key    缓存Key
+     * @param offset 位偏移
+     * @param value  位值
+     * @return 原来的位值
+     */
+    public RedisResponse<Boolean> setBit(String key, long offset, boolean value) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.setbit(keyBytes, offset, value), Function.identity());
+    }
+
+    /**
+     * 读取位图指定位
+     *
+     * @param key    缓存Key
+     * @param offset 位偏移
+     * @return 位值
+     */
+    public RedisResponse<Boolean> getBit(String key, long offset) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.getbit(keyBytes, offset), Function.identity());
+    }
+
+    /**
+     * 统计位图中值为 1 的位数量
+     *
+     * @param key 缓存Key
+     * @return 位数量
+     */
+    public RedisResponse<Long> bitCount(String key) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.bitcount(keyBytes), Function.identity());
+    }
+
+    /**
+     * 添加元素到 HyperLogLog
+     *
+     * @param key    缓存Key
+     * @param values 元素
+     * @return 1 估算基数变化，0 未变化
+     */
+    public RedisResponse<Long> pfAdd(String key, Object... values) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        byte[][] elements = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            elements[i] = RedisClient.serialize(values[i]);
+        }
+        return write(keyBytes, COMMAND_OBJECTS.pfadd(keyBytes, elements), Function.identity());
+    }
+
+    /**
+     * 估算 HyperLogLog 基数
+     *
+     * @param key 缓存Key
+     * @return 估算基数
+     */
+    public RedisResponse<Long> pfCount(String key) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return add(keyBytes, COMMAND_OBJECTS.pfcount(keyBytes), Function.identity());
+    }
+
+    RedisResponse<String> type(byte[] key) {
+        return add(key, COMMAND_OBJECTS.type(key), Function.identity());
+    }
+
+    RedisResponse<Long> memoryUsage(byte[] key) {
+        return add(key, COMMAND_OBJECTS.memoryUsage(key), Function.identity());
+    }
+
+    RedisResponse<List<Long>> bitField(String key, byte[]... arguments) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        return write(keyBytes, COMMAND_OBJECTS.bitfield(keyBytes, arguments), Function.identity());
+    }
+
+    /**
+     * 已入队的命令数量
+     *
+     * @return 命令数量
+     */
+    public int size() {
+        return commandList.size();
+    }
+
+    List<Command<?, ?>> getCommandList() {
+        return commandList;
+    }
+
+    private <R, T> RedisResponse<T> add(byte[] key, CommandObject<R> command, Function<R, T> decoder) {
+        return add(key, command, decoder, false);
+    }
+
+    private <R, T> RedisResponse<T> write(byte[] key, CommandObject<R> command, Function<R, T> decoder) {
+        return add(key, command, decoder, true);
+    }
+
+    private <R, T> RedisResponse<T> add(byte[] key, CommandObject<R> command, Function<R, T> decoder, boolean write) {
+        Command<R, T> batchCommand = new Command<>(key, command, decoder, write);
+        commandList.add(batchCommand);
+        return batchCommand.response;
+    }
+
+    /**
+     * 入队的命令
+     *
+     * @param <R> 原始结果类型
+     * @param <T> 解码后结果类型
+     */
+    static final class Command<R, T> {
+
+        private final byte[] key;
+        private final CommandObject<R> command;
+        private final Function<R, T> decoder;
+        private final boolean write;
+        private final RedisResponse<T> response = new RedisResponse<>();
+        private Response<R> pending;
+
+        private Command(byte[] key, CommandObject<R> command, Function<R, T> decoder, boolean write) {
+            this.key = key;
+            this.command = command;
+            this.decoder = decoder;
+            this.write = write;
+        }
+
+        byte[] getKey() {
+            return key;
+        }
+
+        CommandObject<R> getCommand() {
+            return command;
+        }
+
+        boolean isWrite() {
+            return write;
+        }
+
+        void append(Pipeline pipeline) {
+            pending = pipeline.appendCommand(command);
+        }
+
+        /**
+         * 读取 Pipeline 中的结果，命令执行异常时抛出
+         */
+        void read() {
+            complete(pending.get());
+        }
+
+        void complete(R raw) {
+            try {
+                response.complete(decoder.apply(raw));
+            } catch (RuntimeException e) {
+                response.fail(e);
+            }
+        }
+
+        void fail(RuntimeException e) {
+            response.fail(e);
+        }
+    }
+}
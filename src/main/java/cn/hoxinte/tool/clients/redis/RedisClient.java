@@ -1,17 +1,47 @@
 package cn.hoxinte.tool.clients.redis;
 
+import cn.hoxinte.tool.clients.redis.codec.RedisCodec;
+import cn.hoxinte.tool.clients.redis.metrics.HotKeyTracker;
+import cn.hoxinte.tool.clients.redis.metrics.RedisMetrics;
 import cn.hoxinte.tool.utils.BaseUtil;
-import com.alibaba.fastjson.support.spring.GenericFastJsonRedisSerializer;
 import org.redisson.Redisson;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import redis.clients.jedis.*;
-
+import redis.clients.jedis.args.BitOP;
+import redis.clients.jedis.commands.JedisBinaryCommands;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Redis 基础操作客户端
  * 支持单点、哨兵、集群，根据配置文件优先级为 集群、哨兵、单点
+ * backend 配置为 memory 时使用进程内存储 {@link cn.hoxinte.tool.clients.redis.memory.MemoryRedis}，用于本地压测及基准测试
  *
  * @author dominate
  */
@@ -25,34 +55,302 @@ public class RedisClient {
 
     /**
      * JedisPool JedisSentinelPool 需要执行完成后把取出来对 Jedis 释放连接
-     * JedisCluster 不需要手动释放连接，将在执行完成自动释放
+     * JEDIS_CLUSTER 不需要手动释放连接，将在执行完成自动释放
+     * CLUSTER_PROVIDER 与 JEDIS_CLUSTER 共享连接池，批量操作时按节点直接取连接
      */
 
     private static final JedisPool JEDIS_POOL;
     private static final JedisSentinelPool JEDIS_SENTINEL_POOL;
-    private static final JedisCluster JEDIS_CLUSTER;
+    private static final ClusterConnectionProvider CLUSTER_PROVIDER;
+    private static final UnifiedJedis JEDIS_CLUSTER;
+    private static final ExecutorService CLUSTER_EXECUTOR;
+
+    private static volatile RedissonClient REDISSON;
 
-    private static RedissonClient REDISSON;
+    private static final CircuitBreaker BREAKER = new CircuitBreaker(RedisConfig.BREAKER_FAILURES,
+            RedisConfig.BREAKER_OPEN_MILLIS, RedisConfig.BREAKER_HALF_OPEN_CALLS);
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    /**
+     * Key 与 Hash 字段编码，Value 编码，均为全局共享实例
+     */
+    private static volatile RedisCodec KEY_CODEC = RedisConfig.keyCodec();
+    private static volatile RedisCodec VALUE_CODEC = RedisConfig.valueCodec();
 
 
     static {
         JEDIS_POOL = initialPool();
         JEDIS_SENTINEL_POOL = initialSentinelPool();
+        CLUSTER_PROVIDER = initialClusterProvider();
         JEDIS_CLUSTER = initialCluster();
+        CLUSTER_EXECUTOR = initialClusterExecutor();
+        NearCache.start(nearCacheNodes());
+        registerMetrics();
+        ReadRouter.start(ReadRouter.ReadFrom.of(RedisConfig.READ_FROM), readTopology(), RedisConfig.USE_CLUSTER,
+                RedisConfig.READ_REFRESH_SECONDS);
+        HotKeyTracker.start(RedisConfig.HOT_KEY_SAMPLE_RATE, RedisConfig.HOT_KEY_TOP, RedisConfig.HOT_KEY_REPORT_SECONDS);
+    }
+
+    /**
+     * 替换 Key 编码
+     * 更换后已有数据的 Key 将无法读取，需在启动时设置
+     *
+     * @param codec 编码实现
+     */
+    public static void setKeyCodec(RedisCodec codec) {
+        KEY_CODEC = codec;
+    }
+
+    /**
+     * 替换 Value 编码
+     *
+     * @param codec 编码实现
+     */
+    public static void setValueCodec(RedisCodec codec) {
+        VALUE_CODEC = codec;
+    }
+
+    private static void registerMetrics() {
+        if (RedisConfig.USE_CLUSTER) {
+            for (Map.Entry<String, ConnectionPool> node : CLUSTER_PROVIDER.getNodes().entrySet()) {
+                RedisMetrics.registerPool(node.getKey(), node.getValue());
+            }
+        } else if (RedisConfig.USE_SENTINEL) {
+            RedisMetrics.registerPool("sentinel", JEDIS_SENTINEL_POOL);
+        } else if (RedisConfig.USE_MEMORY) {
+            RedisMetrics.registerPool("memory", JEDIS_POOL);
+        } else {
+            RedisMetrics.registerPool(RedisConfig.HOST + HOST_PORT_SPLIT_STR + RedisConfig.PORT, JEDIS_POOL);
+        }
+        RedisMetrics.gauge("redis.breaker.state", () -> BREAKER.getState().ordinal());
+        RedisMetrics.gauge("redis.near-cache.hit", NearCache::getHitCount);
+        RedisMetrics.gauge("redis.near-cache.miss", NearCache::getMissCount);
     }
 
-    private static RedissonClient getRedisson() {
+    static RedissonClient getRedisson() {
         if (REDISSON == null) {
-            REDISSON = Redisson.create(RedisConfig.redissonConfig());
+            synchronized (RedisClient.class) {
+                if (REDISSON == null) {
+                    REDISSON = Redisson.create(RedisConfig.redissonConfig());
+                }
+            }
         }
         return REDISSON;
     }
 
     private static Jedis getJedis() {
-        if (RedisConfig.USE_SENTINEL) {
-            return JEDIS_SENTINEL_POOL.getResource();
+        long start = System.nanoTime();
+        try {
+            if (RedisConfig.USE_SENTINEL) {
+                return JEDIS_SENTINEL_POOL.getResource();
+            }
+            return JEDIS_POOL.getResource();
+        } finally {
+            RedisMetrics.recordBorrow(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 执行单 Key 命令并记录耗时、异常
+     * 熔断器打开时直接返回 fallback
+     * 集群模式异常直接抛出，单点、哨兵模式打印异常并返回 fallback
+     *
+     * @param command   命令名，用于指标
+     * @param operation 命令
+     * @param fallback  异常时返回值
+     * @param <R>       返回类型
+     * @return 命令结果
+     */
+    private static <R> R execute(String command, Function<JedisBinaryCommands, R> operation, R fallback) {
+        if (!allowRequest(command)) {
+            return fallback;
+        }
+        long start = System.nanoTime();
+        try {
+            R result;
+            if (RedisConfig.USE_CLUSTER) {
+                remainingTimeout();
+                result = operation.apply(JEDIS_CLUSTER);
+            } else {
+                try (Jedis jedis = getJedis()) {
+                    result = applyWithDeadline(jedis, operation);
+                }
+            }
+            BREAKER.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            onError(command, e);
+            if (RedisConfig.USE_CLUSTER) {
+                throw e;
+            }
+            e.printStackTrace();
+            return fallback;
+        } finally {
+            RedisMetrics.recordCommand(command, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 执行命令并记录耗时、异常，熔断器打开或执行失败时抛出异常
+     * 用于游标遍历等不能用 fallback 代替结果的命令
+     *
+     * @param command   命令名，用于指标
+     * @param key       Key，用于热点统计，没有时为 null
+     * @param operation 命令
+     * @param <R>       返回类型
+     * @return 命令结果
+     */
+    private static <R> R executeOrThrow(String command, byte[] key, Supplier<R> operation) {
+        if (!allowRequest(command)) {
+            throw new JedisConnectionException("Redis - circuit breaker open !");
+        }
+        if (null != key) {
+            sampleKey(command, key);
+        }
+        long start = System.nanoTime();
+        try {
+            R result = operation.get();
+            BREAKER.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            onError(command, e);
+            throw e;
+        } finally {
+            RedisMetrics.recordCommand(command, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 执行单 Key 命令，按采样率统计热点 Key
+     */
+    private static <R> R execute(String command, byte[] key, Function<JedisBinaryCommands, R> operation, R fallback) {
+        sampleKey(command, key);
+        return execute(command, operation, fallback);
+    }
+
+    /**
+     * 执行只读命令，按读路由配置选择从节点，从节点执行失败时改为读主节点
+     */
+    private static <R> R executeRead(String command, byte[] key, Function<JedisBinaryCommands, R> operation, R fallback) {
+        if (!ReadRouter.isEnabled()) {
+            return execute(command, key, operation, fallback);
+        }
+        ReadRouter.Replica replica = ReadRouter.borrow(key);
+        if (null == replica) {
+            return execute(command, key, operation, fallback);
+        }
+        sampleKey(command, key);
+        long start = System.nanoTime();
+        try (replica) {
+            return applyWithDeadline(replica.getJedis(), operation);
+        } catch (JedisConnectionException e) {
+            ReadRouter.markDown(replica.getNode());
+            RedisMetrics.recordError(command, e);
+        } catch (RuntimeException e) {
+            RedisMetrics.recordError(command, e);
+        } finally {
+            RedisMetrics.recordCommand(command, System.nanoTime() - start);
+        }
+        return execute(command, operation, fallback);
+    }
+
+    /**
+     * 执行近缓存的加载命令，结果会进入近缓存时读主节点，避免从节点复制延迟的旧值缓存到过期
+     */
+    private static <R> R executeLoad(String command, byte[] key, Function<JedisBinaryCommands, R> operation, R fallback) {
+        if (NearCache.caches(key)) {
+            return execute(command, key, operation, fallback);
+        }
+        return executeRead(command, key, operation, fallback);
+    }
+
+    private static void sampleKey(String command, byte[] key) {
+        if (HotKeyTracker.shouldSample()) {
+            recordKey(command, key);
+        }
+    }
+
+    private static void recordKey(String command, byte[] key) {
+        try {
+            HotKeyTracker.record(command, displayKey(key));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Key 的可读形式，不是当前 Key 编码写入的 Key 按 UTF-8 字符串显示
+     *
+     * @param key Key
+     * @return 可读 Key
+     */
+    static String displayKey(byte[] key) {
+        try {
+            String decoded = unSerializeKey(key);
+            if (null != decoded) {
+                return decoded;
+            }
+        } catch (RuntimeException ignored) {
+            // 其他客户端写入的 Key
+        }
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 在当前线程设置的截止时间内执行，读取超时按剩余时间缩短
+     */
+    private static <R> R applyWithDeadline(Jedis jedis, Function<JedisBinaryCommands, R> operation) {
+        int remaining = remainingTimeout();
+        if (remaining < 0) {
+            return operation.apply(jedis);
+        }
+        Connection connection = jedis.getConnection();
+        int soTimeout = connection.getSoTimeout();
+        connection.setSoTimeout(soTimeout == 0 ? remaining : Math.min(remaining, soTimeout));
+        try {
+            return operation.apply(jedis);
+        } finally {
+            connection.setSoTimeout(soTimeout);
+        }
+    }
+
+    /**
+     * 当前线程剩余时间
+     *
+     * @return 剩余毫秒，未设置截止时间返回 -1
+     */
+    private static int remainingTimeout() {
+        Long deadline = DEADLINE.get();
+        if (null == deadline) {
+            return -1;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new JedisException("Redis - deadline exceeded !");
+        }
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    private static boolean allowRequest(String command) {
+        if (BREAKER.allowRequest()) {
+            return true;
+        }
+        RedisMetrics.recordRejected(command);
+        return false;
+    }
+
+    private static void onError(String command, Exception e) {
+        RedisMetrics.recordError(command, e);
+        BREAKER.onError(e);
+    }
+
+    private static <R> R timed(String command, Supplier<R> operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            RedisMetrics.recordCommand(command, System.nanoTime() - start);
         }
-        return JEDIS_POOL.getResource();
     }
 
     private static final String HOST_PORT_SPLIT_STR = ":";
@@ -66,12 +364,71 @@ public class RedisClient {
         return hostAndPortSet;
     }
 
-    private static JedisCluster initialCluster() {
+    private static ClusterConnectionProvider initialClusterProvider() {
         if (!RedisConfig.USE_CLUSTER) {
             return null;
         }
         Set<HostAndPort> clusterNode = parseHostAndPort(RedisConfig.CLUSTER_NODES);
-        return new JedisCluster(clusterNode, RedisConfig.jedisClient(), MAX_ATTEMPTS, RedisConfig.genericPool());
+        return new ClusterConnectionProvider(clusterNode, RedisConfig.jedisClient(), RedisConfig.genericPool());
+    }
+
+    private static UnifiedJedis initialCluster() {
+        if (!RedisConfig.USE_CLUSTER) {
+            return null;
+        }
+        // 与 JedisCluster 相同的重试策略
+        Duration maxRetryDuration = Duration.ofMillis((long) RedisConfig.jedisClient().getSocketTimeoutMillis() * MAX_ATTEMPTS);
+        return new UnifiedJedis(CLUSTER_PROVIDER, MAX_ATTEMPTS, maxRetryDuration);
+    }
+
+    /**
+     * 近端缓存失效通知监听的节点，集群每个节点一个监听，哨兵重连时跟随当前主节点
+     */
+    private static List<Supplier<HostAndPort>> nearCacheNodes() {
+        // 进程内存储没有失效通知
+        if (!NearCache.isEnabled() || RedisConfig.USE_MEMORY) {
+            return Collections.emptyList();
+        }
+        if (RedisConfig.USE_CLUSTER) {
+            List<Supplier<HostAndPort>> nodes = new ArrayList<>();
+            for (String node : CLUSTER_PROVIDER.getNodes().keySet()) {
+                HostAndPort hostAndPort = HostAndPort.from(node);
+                nodes.add(() -> hostAndPort);
+            }
+            return nodes;
+        }
+        if (RedisConfig.USE_SENTINEL) {
+            return Collections.singletonList(JEDIS_SENTINEL_POOL::getCurrentHostMaster);
+        }
+        HostAndPort hostAndPort = new HostAndPort(RedisConfig.HOST, RedisConfig.PORT);
+        return Collections.singletonList(() -> hostAndPort);
+    }
+
+    /**
+     * 读路由拓扑，单点模式没有从节点
+     */
+    private static Supplier<ReadRouter.Topology> readTopology() {
+        if (RedisConfig.USE_CLUSTER) {
+            return () -> ReadRouter.clusterTopology(CLUSTER_PROVIDER::getConnection);
+        }
+        if (RedisConfig.USE_SENTINEL) {
+            Set<HostAndPort> sentinelNode = parseHostAndPort(RedisConfig.SENTINEL_NODES);
+            return () -> ReadRouter.sentinelTopology(sentinelNode, RedisConfig.SENTINEL_MASTER_NAME);
+        }
+        return () -> ReadRouter.Topology.EMPTY;
+    }
+
+    private static ExecutorService initialClusterExecutor() {
+        if (!RedisConfig.USE_CLUSTER) {
+            return null;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        int poolSize = Math.max(RedisConfig.CLUSTER_NODES.length, Runtime.getRuntime().availableProcessors());
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "redis-cluster-batch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private static JedisSentinelPool initialSentinelPool() {
@@ -86,6 +443,9 @@ public class RedisClient {
         if (RedisConfig.USE_CLUSTER || RedisConfig.USE_SENTINEL) {
             return null;
         }
+        if (RedisConfig.USE_MEMORY) {
+            return new JedisPool(RedisConfig.jedisPool(), RedisConfig.memorySocketFactory(), RedisConfig.jedisClient());
+        }
         return new JedisPool(RedisConfig.jedisPool(), new HostAndPort(RedisConfig.HOST, RedisConfig.PORT), RedisConfig.jedisClient());
     }
 
@@ -100,7 +460,7 @@ public class RedisClient {
      * @return String 操作结果
      */
     public static String set(String key, Object value) {
-        return setKeyValue(serialize(key), serialize(value), DEFAULT_OVERTIME_SECONDS);
+        return setKeyValue(serializeKey(key), serialize(value), DEFAULT_OVERTIME_SECONDS);
     }
 
     /**
@@ -112,7 +472,7 @@ public class RedisClient {
      * @return String 操作结果
      */
     public static String set(String key, Object value, int second) {
-        return setKeyValue(serialize(key), serialize(value), second);
+        return setKeyValue(serializeKey(key), serialize(value), second);
     }
 
     /**
@@ -123,7 +483,7 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long setPersist(String key, Object value) {
-        return setPersistKeyValue(serialize(key), serialize(value));
+        return setPersistKeyValue(serializeKey(key), serialize(value));
     }
 
     /**
@@ -135,7 +495,19 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long hSetPersist(String key, String field, Object value) {
-        return hSetKeyValue(serialize(key), serialize(field), serialize(value));
+        return hSetKeyValue(serializeKey(key), serializeKey(field), serialize(value));
+    }
+
+    /**
+     * Key 不存在时设置缓存
+     *
+     * @param key          缓存Key
+     * @param value        缓存值
+     * @param milliseconds 缓存到期时间 毫秒
+     * @return 是否设置成功
+     */
+    public static boolean setIfAbsent(String key, Object value, long milliseconds) {
+        return setIfAbsent(serializeKey(key), serialize(value), milliseconds);
     }
 
     /**
@@ -145,7 +517,7 @@ public class RedisClient {
      * @return long 缓存过期时间 秒
      */
     public static long ttl(String key) {
-        return ttl(serialize(key));
+        return ttl(serializeKey(key));
     }
 
     /**
@@ -156,21 +528,80 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static long expire(String key, int seconds) {
-        return expire(serialize(key), seconds);
+        return expire(serializeKey(key), seconds);
     }
 
     /**
-     * 获取分布式锁
+     * 获取分布式锁对象
+     * 同一节点多线程竞争同一个锁时推荐使用 RedisLock，本地排队后只有一个线程访问 Redis
      *
      * @param key 锁的值
-     * @return 是否成功上锁
+     * @return 锁对象
      */
     public static RLock lock(String key) {
         return getRedisson().getLock(key);
     }
 
+    /**
+     * 在截止时间内执行 Redis 操作
+     * 期间的命令读取超时按剩余时间缩短，超过截止时间的命令不再发送，按异常处理返回降级值
+     * <pre>
+     * UserInfoDTO user = RedisClient.withTimeout(50, () -> RedisClient.get(key, UserInfoDTO.class));
+     * </pre>
+     *
+     * @param milliseconds 超时时间 毫秒
+     * @param operation    Redis 操作
+     * @param <T>          返回类型
+     * @return 操作结果
+     */
+    public static <T> T withTimeout(int milliseconds, Supplier<T> operation) {
+        Long outer = DEADLINE.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milliseconds);
+        DEADLINE.set(null == outer ? deadline : Math.min(outer, deadline));
+        try {
+            return operation.get();
+        } finally {
+            if (null == outer) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(outer);
+            }
+        }
+    }
+
     // 读取缓存
 
+    /**
+     * 读取缓存，不存在时加载并写入
+     * 命中时一次往返，未命中时同一 JVM 内同 Key 只加载一次，跨节点通过短租约锁只由一个节点加载
+     * 临近过期时按加载耗时概率提前刷新，避免同时过期导致集中加载
+     *
+     * @param key     缓存key
+     * @param seconds 缓存到期时间 秒
+     * @param tClass  元素类型
+     * @param loader  加载数据
+     * @param <T>     元素类型
+     * @return 缓存对象
+     */
+    public static <T> T getOrLoad(String key, int seconds, Class<T> tClass, Supplier<T> loader) {
+        return CacheLoader.getOrLoad(key, seconds, tClass, loader, value -> true);
+    }
+
+    /**
+     * 读取缓存，不存在或缓存值无效时加载并写入
+     *
+     * @param key       缓存key
+     * @param seconds   缓存到期时间 秒
+     * @param tClass    元素类型
+     * @param loader    加载数据
+     * @param validator 缓存值是否有效，无效时按未命中处理
+     * @param <T>       元素类型
+     * @return 缓存对象
+     */
+    public static <T> T getOrLoad(String key, int seconds, Class<T> tClass, Supplier<T> loader, Predicate<T> validator) {
+        return CacheLoader.getOrLoad(key, seconds, tClass, loader, validator);
+    }
+
     /**
      * 读取缓存值
      *
@@ -178,7 +609,7 @@ public class RedisClient {
      * @return Object 缓存对象
      */
     public static Object get(String key) {
-        return unSerialize(getValue(serialize(key)));
+        return unSerialize(getValue(serializeKey(key)));
     }
 
     /**
@@ -190,7 +621,7 @@ public class RedisClient {
      * @return Object 缓存对象
      */
     public static <T> T get(String key, Class<T> tClass) {
-        return tClass.cast(unSerialize(getValue(serialize(key))));
+        return tClass.cast(unSerialize(getValue(serializeKey(key))));
     }
 
     /**
@@ -202,7 +633,7 @@ public class RedisClient {
      * @return 缓存数据
      */
     public static <T> List<T> getList(String key, Class<T> tClass) {
-        Object object = unSerialize(getValue(serialize(key)));
+        Object object = unSerialize(getValue(serializeKey(key)));
         return BaseUtil.obj2List(object, tClass);
     }
 
@@ -217,7 +648,7 @@ public class RedisClient {
      * @return 缓存数据
      */
     public static <K, V> Map<K, V> getMap(String key, Class<K> kClass, Class<V> vClass) {
-        Object object = unSerialize(getValue(serialize(key)));
+        Object object = unSerialize(getValue(serializeKey(key)));
         return BaseUtil.obj2Map(object, kClass, vClass);
     }
 
@@ -229,7 +660,7 @@ public class RedisClient {
      * @return Object 缓存对象
      */
     public static Object hGet(String key, String field) {
-        return unSerialize(hGetValue(serialize(key), serialize(field)));
+        return unSerialize(hGetValue(serializeKey(key), serializeKey(field)));
     }
 
     /**
@@ -242,7 +673,7 @@ public class RedisClient {
      * @return Object 缓存对象
      */
     public static <T> T hGet(String key, String field, Class<T> tClass) {
-        return tClass.cast(unSerialize(hGetValue(serialize(key), serialize(field))));
+        return tClass.cast(unSerialize(hGetValue(serializeKey(key), serializeKey(field))));
     }
 
     /**
@@ -252,10 +683,10 @@ public class RedisClient {
      * @return Map key 字段 ，value 缓存对象
      */
     public static Map<String, Object> hGetAll(String key) {
-        Map<byte[], byte[]> unSerializeMap = hGetAllValues(serialize(key));
+        Map<byte[], byte[]> unSerializeMap = hGetAllValues(serializeKey(key));
         Map<String, Object> serializeMap = new HashMap<>(unSerializeMap.size());
         for (byte[] field : unSerializeMap.keySet()) {
-            serializeMap.put((String) unSerialize(field), unSerialize(unSerializeMap.get(field)));
+            serializeMap.put(unSerializeKey(field), unSerialize(unSerializeMap.get(field)));
         }
         return serializeMap;
     }
@@ -269,10 +700,10 @@ public class RedisClient {
      * @return Map key 字段 ，value 缓存对象
      */
     public static <T> Map<String, T> hGetAll(String key, Class<T> tClass) {
-        Map<byte[], byte[]> unSerializeMap = hGetAllValues(serialize(key));
+        Map<byte[], byte[]> unSerializeMap = hGetAllValues(serializeKey(key));
         Map<String, T> serializeMap = new HashMap<>(unSerializeMap.size());
         for (byte[] field : unSerializeMap.keySet()) {
-            serializeMap.put((String) unSerialize(field), tClass.cast(unSerialize(unSerializeMap.get(field))));
+            serializeMap.put(unSerializeKey(field), tClass.cast(unSerialize(unSerializeMap.get(field))));
         }
         return serializeMap;
     }
@@ -285,7 +716,7 @@ public class RedisClient {
      * @return boolean 是否存在
      */
     public static boolean hasKey(String key) {
-        return hasKey(serialize(key));
+        return hasKey(serializeKey(key));
     }
 
     /**
@@ -296,7 +727,7 @@ public class RedisClient {
      * @return boolean 是否存在
      */
     public static boolean hHasKey(String key, String field) {
-        return hHasKey(serialize(key), serialize(field));
+        return hHasKey(serializeKey(key), serializeKey(field));
     }
 
     /**
@@ -306,7 +737,7 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long removeKey(String key) {
-        return removeKey(serialize(key));
+        return removeKey(serializeKey(key));
     }
 
     /**
@@ -317,7 +748,7 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long lRemove(String key, String value) {
-        return lRem(serialize(key), serialize(value));
+        return lRem(serializeKey(key), serialize(value));
     }
 
     /**
@@ -328,7 +759,7 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long hRemoveField(String key, String field) {
-        return hRemoveFields(serialize(key), serialize(field));
+        return hRemoveFields(serializeKey(key), serializeKey(field));
     }
 
     /**
@@ -341,9 +772,9 @@ public class RedisClient {
     public static Long hRemoveFields(String key, String[] fields) {
         byte[][] bytes = new byte[fields.length][];
         for (int i = 0; i < fields.length; i++) {
-            bytes[i] = serialize(fields[i]);
+            bytes[i] = serializeKey(fields[i]);
         }
-        return hRemoveFields(serialize(key), bytes);
+        return hRemoveFields(serializeKey(key), bytes);
     }
 
     /**
@@ -355,7 +786,7 @@ public class RedisClient {
      * @return String 操作结果
      */
     public static String listSet(String key, long index, Object value) {
-        return lSet(serialize(key), index, serialize(value));
+        return lSet(serializeKey(key), index, serialize(value));
     }
 
     /**
@@ -366,7 +797,7 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long leftPush(String key, Object value) {
-        return lPush(serialize(key), serialize(value));
+        return lPush(serializeKey(key), serialize(value));
     }
 
     /**
@@ -377,7 +808,7 @@ public class RedisClient {
      * @return Long 操作结果
      */
     public static Long rightPush(String key, Object value) {
-        return rPush(serialize(key), serialize(value));
+        return rPush(serializeKey(key), serialize(value));
     }
 
     /**
@@ -387,7 +818,7 @@ public class RedisClient {
      * @return 列表长度
      */
     public static long listLength(String key) {
-        return lLen(serialize(key));
+        return lLen(serializeKey(key));
     }
 
     /**
@@ -399,7 +830,7 @@ public class RedisClient {
      * @return 数据列表
      */
     public static List<Object> listRange(String key, long start, long end) {
-        List<byte[]> list = lRange(serialize(key), start, end);
+        List<byte[]> list = lRange(serializeKey(key), start, end);
         if (list.size() == 0) {
             return Collections.emptyList();
         }
@@ -421,7 +852,7 @@ public class RedisClient {
      * @return 数据列表
      */
     public static <T> List<T> listRange(String key, long start, long end, Class<T> tClass) {
-        List<byte[]> list = lRange(serialize(key), start, end);
+        List<byte[]> list = lRange(serializeKey(key), start, end);
         if (list.size() == 0) {
             return Collections.emptyList();
         }
@@ -432,6 +863,61 @@ public class RedisClient {
         return result;
     }
 
+    /**
+     * 分段读取整个列表，每段一次 LRANGE，读到对应位置时才请求并反序列化
+     * 按下标分段，读取期间其他客户端从头部弹出元素会导致跳过部分元素
+     * 读取失败时抛出异常，不会当作列表结束
+     *
+     * @param key       缓存Key
+     * @param chunkSize 每段数量
+     * @param tClass    元素类型
+     * @param <T>       元素类型
+     * @return 元素流
+     */
+    public static <T> Stream<T> listStream(String key, int chunkSize, Class<T> tClass) {
+        Iterator<List<T>> pages = listPageIterator(key, chunkSize, tClass);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED), false)
+                .flatMap(List::stream);
+    }
+
+    /**
+     * 分段读取整个列表，每段回调一次，读取失败时抛出异常
+     *
+     * @param key       缓存Key
+     * @param chunkSize 每段数量
+     * @param tClass    元素类型
+     * @param consumer  每段元素
+     * @param <T>       元素类型
+     */
+    public static <T> void listRange(String key, int chunkSize, Class<T> tClass, Consumer<List<T>> consumer) {
+        listPageIterator(key, chunkSize, tClass).forEachRemaining(consumer);
+    }
+
+    /**
+     * 向队列最后面批量插入值，按 BATCH_CHUNK_SIZE 分段 RPUSH，一次 Pipeline 往返
+     *
+     * @param key    缓存Key
+     * @param values 保存数据
+     * @return 插入后列表长度，失败返回 0
+     */
+    public static long rightPushAll(String key, Collection<?> values) {
+        if (values.isEmpty()) {
+            return listLength(key);
+        }
+        List<RedisResponse<Long>> responseList = new ArrayList<>();
+        pipeline(batch -> {
+            for (List<?> chunk : chunk(values)) {
+                responseList.add(batch.rightPushAll(key, chunk.toArray()));
+            }
+        });
+        try {
+            return responseList.get(responseList.size() - 1).get();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return 0L;
+        }
+    }
+
     /**
      * 移出并获取列表的第一个元素
      *
@@ -439,7 +925,7 @@ public class RedisClient {
      * @return 列表的第一个元素
      */
     public static Object leftPop(String key) {
-        return unSerialize(lPop(serialize(key)));
+        return unSerialize(lPop(serializeKey(key)));
     }
 
     /**
@@ -451,7 +937,7 @@ public class RedisClient {
      * @return 列表的第一个元素
      */
     public static <T> T leftPop(String key, Class<T> tClass) {
-        return tClass.cast(unSerialize(lPop(serialize(key))));
+        return tClass.cast(unSerialize(lPop(serializeKey(key))));
     }
 
     /**
@@ -461,7 +947,7 @@ public class RedisClient {
      * @return 列表的最后一个元素
      */
     public static Object rightPop(String key) {
-        return unSerialize(rPop(serialize(key)));
+        return unSerialize(rPop(serializeKey(key)));
     }
 
     /**
@@ -473,7 +959,7 @@ public class RedisClient {
      * @return 列表的最后一个元素
      */
     public static <T> T rightPop(String key, Class<T> tClass) {
-        return tClass.cast(unSerialize(rPop(serialize(key))));
+        return tClass.cast(unSerialize(rPop(serializeKey(key))));
     }
 
     /**
@@ -484,7 +970,7 @@ public class RedisClient {
      * @return 操作结果
      */
     public static Long addSetValue(String key, Object values) {
-        return setAdd(serialize(key), serialize(values));
+        return setAdd(serializeKey(key), serialize(values));
     }
 
     /**
@@ -495,7 +981,7 @@ public class RedisClient {
      * @return 查询结果
      */
     public static Boolean sisMember(String key, Object value) {
-        return sisMember(serialize(key), serialize(value));
+        return sisMember(serializeKey(key), serialize(value));
     }
 
     /**
@@ -505,330 +991,1182 @@ public class RedisClient {
      * @return set中元素数量
      */
     public static Long sCard(String key) {
-        return sCard(serialize(key));
+        return sCard(serializeKey(key));
     }
 
     /**
-     * set集合使用pipelined插入
+     * set集合批量插入，一次 SADD 写入全部元素
      *
      * @param key   缓存key
      * @param value set元素数组
      */
     public static void pipeLinedSet(String key, String... value) {
-        pipeLinedSet(serialize(key), convert(value));
+        pipeLinedSet(serializeKey(key), convert(value));
     }
 
-    // Jedis 操作函数
-
-    private static final byte[] EMPTY_BYTE = new byte[0];
-    private static final String EMPTY_STRING = "";
-
-    //TODO pipelined 可能有点问题
-    //TODO 需要重新调整下异常处理
+    // 批量操作
 
-    private static Long setAdd(byte[] key, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            JEDIS_CLUSTER.sadd(key, value);
-            return JEDIS_CLUSTER.sadd(key, value);
-        }
-        try (Jedis jedis = getJedis()) {
-            Pipeline pipelined = jedis.pipelined();
-            pipelined.sadd(key, value);
-            pipelined.sync();
-            return jedis.sadd(key, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+    /**
+     * 批量读取缓存值
+     * 集群模式按 slot 分组，同一节点一次往返，节点之间并行
+     *
+     * @param keys   缓存Key列表
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return Map key 缓存Key，value 缓存对象，不存在的Key不返回
+     */
+    public static <T> Map<String, T> mGet(Collection<String> keys, Class<T> tClass) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
         }
-    }
-
-    private static Boolean sisMember(byte[] key, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.sismember(key, value);
+        List<String> keyList = new ArrayList<>(keys);
+        List<byte[]> keyBytes = new ArrayList<>(keyList.size());
+        for (String key : keyList) {
+            keyBytes.add(serializeKey(key));
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.sismember(key, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+        List<byte[]> values = timed("mget", () -> mGetValues(keyBytes));
+        Map<String, T> result = new LinkedHashMap<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Object value = unSerialize(values.get(i));
+            if (null != value) {
+                result.put(keyList.get(i), tClass.cast(value));
+            }
         }
+        return result;
     }
 
-    private static Long sCard(byte[] key) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.scard(key);
+    /**
+     * 批量设置缓存
+     * 集群模式按 slot 分组，同一节点一次往返，节点之间并行
+     *
+     * @param valueMap key 缓存Key，value 缓存值
+     * @param seconds  缓存到期时间 秒，小于等于0 为永久缓存
+     * @return 是否全部设置成功
+     */
+    public static boolean mSet(Map<String, ?> valueMap, int seconds) {
+        if (valueMap.isEmpty()) {
+            return true;
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.scard(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+        List<byte[]> keyBytes = new ArrayList<>(valueMap.size());
+        List<byte[]> valueBytes = new ArrayList<>(valueMap.size());
+        for (Map.Entry<String, ?> entry : valueMap.entrySet()) {
+            keyBytes.add(serializeKey(entry.getKey()));
+            valueBytes.add(serialize(entry.getValue()));
         }
+        return timed("mset", () -> mSetValues(keyBytes, valueBytes, seconds));
     }
 
-    private static void pipeLinedSet(byte[] key, byte[]... value) {
-        if (RedisConfig.USE_CLUSTER) {
-            JEDIS_CLUSTER.sadd(key, value);
-            return;
-        }
-        try (Jedis jedis = getJedis()) {
-            Pipeline pipelined = jedis.pipelined();
-            pipelined.sadd(key, value);
-            pipelined.sync();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /**
+     * 读取散列缓存多个字段值，一次往返
+     *
+     * @param key    散列缓存key
+     * @param fields 字段
+     * @return Map key 字段，value 缓存对象，不存在的字段不返回
+     */
+    public static Map<String, Object> hMGet(String key, String... fields) {
+        return hMGet(key, Object.class, Arrays.asList(fields));
     }
 
-    private static List<byte[]> lRange(byte[] key, long start, long end) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.lrange(key, start, end);
-        }
-        try (Jedis jedis = getJedis()) {
-            return jedis.lrange(key, start, end);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return Collections.emptyList();
+    /**
+     * 读取散列缓存多个字段值，一次往返
+     *
+     * @param key    散列缓存key
+     * @param tClass 元素类型
+     * @param fields 字段
+     * @param <T>    元素类型
+     * @return Map key 字段，value 缓存对象，不存在的字段不返回
+     */
+    public static <T> Map<String, T> hMGet(String key, Class<T> tClass, Collection<String> fields) {
+        if (fields.isEmpty()) {
+            return Collections.emptyMap();
         }
-    }
-
-    private static long lLen(byte[] key) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.llen(key);
+        List<String> fieldList = new ArrayList<>(fields);
+        byte[][] fieldBytes = new byte[fieldList.size()][];
+        for (int i = 0; i < fieldBytes.length; i++) {
+            fieldBytes[i] = serializeKey(fieldList.get(i));
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.llen(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+        List<byte[]> values = hmGetValues(serializeKey(key), fieldBytes);
+        Map<String, T> result = new LinkedHashMap<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Object value = unSerialize(values.get(i));
+            if (null != value) {
+                result.put(fieldList.get(i), tClass.cast(value));
+            }
         }
+        return result;
     }
 
-    private static byte[] lPop(byte[] key) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.lpop(key);
+    /**
+     * 设置散列缓存多个字段，一次往返
+     *
+     * @param key      散列缓存key
+     * @param fieldMap key 字段，value 缓存值
+     * @return Long 新增字段数量
+     */
+    public static Long hMSet(String key, Map<String, ?> fieldMap) {
+        if (fieldMap.isEmpty()) {
+            return 0L;
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.lpop(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return EMPTY_BYTE;
+        Map<byte[], byte[]> hash = new HashMap<>(fieldMap.size());
+        for (Map.Entry<String, ?> entry : fieldMap.entrySet()) {
+            hash.put(serializeKey(entry.getKey()), serialize(entry.getValue()));
         }
+        return hSetValues(serializeKey(key), hash);
     }
 
-    private static byte[] rPop(byte[] key) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.rpop(key);
-        }
-        try (Jedis jedis = getJedis()) {
-            return jedis.rpop(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return EMPTY_BYTE;
-        }
+    // 游标遍历
+
+    /**
+     * 游标遍历散列缓存
+     * HSCAN 按页读取，每页约 count 个字段，内存中只保留一页，读取失败时抛出异常
+     *
+     * @param key    散列缓存key
+     * @param count  每页数量
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return Entry key 字段，value 缓存对象
+     */
+    public static <T> Iterator<Map.Entry<String, T>> hScan(String key, int count, Class<T> tClass) {
+        return hScanIterator(key, count, tClass);
     }
 
-    private static String lSet(byte[] key, long index, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.lset(key, index, value);
+    /**
+     * 游标遍历散列缓存
+     *
+     * @param key    散列缓存key
+     * @param count  每页数量
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return Entry key 字段，value 缓存对象
+     */
+    public static <T> Stream<Map.Entry<String, T>> hScanStream(String key, int count, Class<T> tClass) {
+        return hScanIterator(key, count, tClass).stream();
+    }
+
+    /**
+     * 游标遍历散列缓存，按页回调
+     *
+     * @param key      散列缓存key
+     * @param count    每页数量
+     * @param tClass   元素类型
+     * @param consumer 处理一页数据 key 字段，value 缓存对象
+     * @param <T>      元素类型
+     */
+    public static <T> void hScan(String key, int count, Class<T> tClass, Consumer<Map<String, T>> consumer) {
+        ScanIterator<Map.Entry<byte[], byte[]>, Map.Entry<String, T>> iterator = hScanIterator(key, count, tClass);
+        for (List<Map.Entry<String, T>> page = iterator.nextPage(); !page.isEmpty(); page = iterator.nextPage()) {
+            Map<String, T> pageMap = new HashMap<>(page.size());
+            for (Map.Entry<String, T> entry : page) {
+                pageMap.put(entry.getKey(), entry.getValue());
+            }
+            consumer.accept(pageMap);
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.lset(key, index, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return EMPTY_STRING;
+    }
+
+    /**
+     * 游标遍历set集合
+     * SSCAN 按页读取，每页约 count 个元素，读取失败时抛出异常
+     *
+     * @param key    缓存key
+     * @param count  每页数量
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return 集合元素
+     */
+    public static <T> Iterator<T> sScan(String key, int count, Class<T> tClass) {
+        return sScanIterator(key, count, tClass);
+    }
+
+    /**
+     * 游标遍历set集合
+     *
+     * @param key    缓存key
+     * @param count  每页数量
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return 集合元素
+     */
+    public static <T> Stream<T> sScanStream(String key, int count, Class<T> tClass) {
+        return sScanIterator(key, count, tClass).stream();
+    }
+
+    /**
+     * 游标遍历set集合，按页回调
+     *
+     * @param key      缓存key
+     * @param count    每页数量
+     * @param tClass   元素类型
+     * @param consumer 处理一页元素
+     * @param <T>      元素类型
+     */
+    public static <T> void sScan(String key, int count, Class<T> tClass, Consumer<List<T>> consumer) {
+        ScanIterator<byte[], T> iterator = sScanIterator(key, count, tClass);
+        for (List<T> page = iterator.nextPage(); !page.isEmpty(); page = iterator.nextPage()) {
+            consumer.accept(page);
         }
     }
 
+    /**
+     * 游标遍历 Key
+     * SCAN 按页读取，集群模式依次遍历每个主节点，读取失败时抛出异常
+     *
+     * @param pattern Key 匹配规则，如 sso:cache:*
+     * @param count   每页数量
+     * @return 缓存Key
+     */
+    public static Iterator<String> scan(String pattern, int count) {
+        return scanIterator(pattern, count);
+    }
 
-    private static Long lPush(byte[] key, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.lpush(key, value);
+    /**
+     * 游标遍历 Key
+     *
+     * @param pattern Key 匹配规则
+     * @param count   每页数量
+     * @return 缓存Key
+     */
+    public static Stream<String> scanStream(String pattern, int count) {
+        return scanIterator(pattern, count).stream();
+    }
+
+    /**
+     * 游标遍历 Key，按页回调
+     *
+     * @param pattern  Key 匹配规则
+     * @param count    每页数量
+     * @param consumer 处理一页 Key
+     */
+    public static void scan(String pattern, int count, Consumer<List<String>> consumer) {
+        ScanIterator<byte[], String> iterator = scanIterator(pattern, count);
+        for (List<String> page = iterator.nextPage(); !page.isEmpty(); page = iterator.nextPage()) {
+            consumer.accept(page);
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.lpush(key, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0L;
+    }
+
+    // 基数统计与位图
+
+    /**
+     * 添加元素到 HyperLogLog，元素按 Value 编码后计算
+     * 每个 Key 最多占用 12KB，基数估算标准误差 0.81%
+     *
+     * @param key    缓存Key
+     * @param values 元素
+     * @return 估算基数是否变化
+     */
+    public static boolean pfAdd(String key, Object... values) {
+        if (values.length == 0) {
+            return false;
         }
+        byte[][] elements = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            elements[i] = serialize(values[i]);
+        }
+        return pfAdd(serializeKey(key), elements) > 0;
     }
 
-    private static Long rPush(byte[] key, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.rpush(key, value);
+    /**
+     * 批量添加元素到 HyperLogLog，按 BATCH_CHUNK_SIZE 分段 PFADD，一次 Pipeline 往返
+     *
+     * @param key    缓存Key
+     * @param values 元素
+     * @return 估算基数是否变化
+     */
+    public static boolean pfAddAll(String key, Collection<?> values) {
+        if (values.isEmpty()) {
+            return false;
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.rpush(key, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0L;
+        List<RedisResponse<Long>> responseList = new ArrayList<>();
+        pipeline(batch -> {
+            for (List<?> chunk : chunk(values)) {
+                responseList.add(batch.pfAdd(key, chunk.toArray()));
+            }
+        });
+        boolean changed = false;
+        for (RedisResponse<Long> response : responseList) {
+            try {
+                changed |= response.get() > 0;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
         }
+        return changed;
     }
 
-    private static boolean hasKey(byte[] key) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.exists(key);
+    /**
+     * 估算 HyperLogLog 基数，多个 Key 时为并集基数
+     * 集群模式多个 Key 需使用相同的 {hash tag}
+     *
+     * @param keys 缓存Key
+     * @return 估算基数
+     */
+    public static long pfCount(String... keys) {
+        return pfCount(convertKeys(keys));
+    }
+
+    /**
+     * 合并多个 HyperLogLog
+     * 集群模式所有 Key 需使用相同的 {hash tag}
+     *
+     * @param destKey    目标Key
+     * @param sourceKeys 来源Key
+     * @return 操作结果
+     */
+    public static String pfMerge(String destKey, String... sourceKeys) {
+        return pfMerge(serializeKey(destKey), convertKeys(sourceKeys));
+    }
+
+    /**
+     * 设置位图指定位
+     *
+     * @param key    缓存Key
+     * @param offset 位偏移
+     * @param value  位值
+     * @return 原来的位值
+     */
+    public static boolean setBit(String key, long offset, boolean value) {
+        return setBit(serializeKey(key), offset, value);
+    }
+
+    /**
+     * 批量设置位图，按 BATCH_CHUNK_SIZE 分段 BITFIELD SET，一次 Pipeline 往返
+     *
+     * @param key     缓存Key
+     * @param value   位值
+     * @param offsets 位偏移
+     * @return 实际变化的位数量
+     */
+    public static long setBits(String key, boolean value, long... offsets) {
+        NearCache.invalidate(serializeKey(key));
+        byte[] bitValue = String.valueOf(value ? 1 : 0).getBytes(StandardCharsets.UTF_8);
+        List<Long> previous = bitField(key, offsets, BIT_SET, bitValue);
+        long changed = 0;
+        for (Long bit : previous) {
+            if (null != bit && (bit == 1) != value) {
+                changed++;
+            }
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.exists(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+        return changed;
+    }
+
+    /**
+     * 读取位图指定位
+     *
+     * @param key    缓存Key
+     * @param offset 位偏移
+     * @return 位值
+     */
+    public static boolean getBit(String key, long offset) {
+        return getBit(serializeKey(key), offset);
+    }
+
+    /**
+     * 批量读取位图，按 BATCH_CHUNK_SIZE 分段 BITFIELD GET，一次 Pipeline 往返
+     *
+     * @param key     缓存Key
+     * @param offsets 位偏移
+     * @return 与偏移顺序对应的位值，读取失败的位为 false
+     */
+    public static List<Boolean> getBits(String key, long... offsets) {
+        List<Long> bits = bitField(key, offsets, BIT_GET, null);
+        List<Boolean> result = new ArrayList<>(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            result.add(i < bits.size() && Long.valueOf(1).equals(bits.get(i)));
         }
+        return result;
     }
 
-    private static Long setPersistKeyValue(byte[] key, byte[] value) {
+    /**
+     * 统计位图中值为 1 的位数量
+     *
+     * @param key 缓存Key
+     * @return 位数量
+     */
+    public static long bitCount(String key) {
+        return bitCount(serializeKey(key));
+    }
+
+    /**
+     * 统计位图指定字节范围中值为 1 的位数量
+     *
+     * @param key   缓存Key
+     * @param start 开始字节
+     * @param end   结束字节，-1 为最后一个字节
+     * @return 位数量
+     */
+    public static long bitCount(String key, long start, long end) {
+        return bitCount(serializeKey(key), start, end);
+    }
+
+    /**
+     * 位图运算，结果写入目标Key
+     * 集群模式所有 Key 需使用相同的 {hash tag}
+     *
+     * @param op         运算 AND、OR、XOR、NOT
+     * @param destKey    目标Key
+     * @param sourceKeys 来源Key
+     * @return 目标位图字节长度
+     */
+    public static long bitOp(BitOP op, String destKey, String... sourceKeys) {
+        byte[] destKeyBytes = serializeKey(destKey);
+        NearCache.invalidate(destKeyBytes);
+        return bitOp(op, destKeyBytes, convertKeys(sourceKeys));
+    }
+
+    // Pipeline
+
+    /**
+     * 批量执行命令
+     * 单点、哨兵一次往返，集群每个节点一次往返，节点之间并行
+     * <pre>
+     * RedisClient.pipeline(batch -> {
+     *     response = batch.get(key, UserInfoDTO.class);
+     *     batch.hSetPersist(hashKey, field, value);
+     * });
+     * </pre>
+     * 集群节点连接异常时，该节点的命令会通过集群客户端重试，非幂等命令可能重复执行
+     *
+     * @param consumer 添加命令
+     */
+    public static void pipeline(Consumer<RedisBatch> consumer) {
+        RedisBatch batch = new RedisBatch();
+        consumer.accept(batch);
+        timed("pipeline", () -> {
+            executeBatch(batch.getCommandList());
+            return null;
+        });
+    }
+
+    // 脚本
+
+    /**
+     * 执行脚本，优先 EVALSHA，服务端没有缓存时使用 EVAL
+     *
+     * @param script 脚本
+     * @param keys   编码后的 Key
+     * @param args   参数
+     * @return 脚本返回值
+     */
+    static Object eval(RedisScript script, List<byte[]> keys, List<byte[]> args) {
+        return execute("evalsha", redis -> {
+            try {
+                return redis.evalsha(script.getSha1(), keys, args);
+            } catch (JedisNoScriptException e) {
+                return redis.eval(script.getScript(), keys, args);
+            }
+        }, null);
+    }
+
+    // 发布订阅
+
+    /**
+     * 发布消息
+     *
+     * @param channel 频道
+     * @param message 消息
+     * @return 收到消息的订阅者数量
+     */
+    public static long publish(String channel, String message) {
+        return execute("publish", redis -> redis instanceof Jedis ? ((Jedis) redis).publish(channel, message)
+                : ((UnifiedJedis) redis).publish(channel, message), 0L);
+    }
+
+    /**
+     * 订阅频道，阻塞直到取消订阅或连接断开，连接异常直接抛出
+     * 单点、哨兵、进程内存储使用独立连接，不占用连接池
+     *
+     * @param pubSub   消息处理
+     * @param channels 频道
+     */
+    public static void subscribe(JedisPubSub pubSub, String... channels) {
         if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.persist(key);
+            JEDIS_CLUSTER.subscribe(pubSub, channels);
+            return;
         }
-        try (Jedis jedis = getJedis()) {
-            jedis.set(key, value);
-            return jedis.persist(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0L;
+        if (RedisConfig.USE_MEMORY) {
+            try (Jedis jedis = new Jedis(RedisConfig.memorySocketFactory(), RedisConfig.jedisClient())) {
+                jedis.subscribe(pubSub, channels);
+            }
+            return;
+        }
+        HostAndPort node = RedisConfig.USE_SENTINEL ? JEDIS_SENTINEL_POOL.getCurrentHostMaster()
+                : new HostAndPort(RedisConfig.HOST, RedisConfig.PORT);
+        try (Jedis jedis = new Jedis(node, RedisConfig.jedisClient())) {
+            jedis.subscribe(pubSub, channels);
         }
     }
 
-    private static Long removeKey(byte[] key) {
+    // Jedis 操作函数
+
+    private static final byte[] EMPTY_BYTE = new byte[0];
+    private static final String EMPTY_STRING = "";
+    /**
+     * 批量命令每条命令最多携带的元素数量，避免单条命令过大阻塞 Redis
+     */
+    private static final int BATCH_CHUNK_SIZE = 1000;
+    private static final byte[] BIT_GET = "GET".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BIT_SET = "SET".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BIT_TYPE = "u1".getBytes(StandardCharsets.UTF_8);
+
+    //TODO 需要重新调整下异常处理
+
+    private static void executeBatch(List<RedisBatch.Command<?, ?>> commandList) {
+        if (commandList.isEmpty()) {
+            return;
+        }
+        for (RedisBatch.Command<?, ?> command : commandList) {
+            if (command.isWrite()) {
+                NearCache.invalidate(command.getKey());
+            }
+        }
+        if (!allowRequest("pipeline")) {
+            RuntimeException failure = new JedisConnectionException("Redis - circuit breaker open !");
+            for (RedisBatch.Command<?, ?> command : commandList) {
+                command.fail(failure);
+            }
+            return;
+        }
+        for (RedisBatch.Command<?, ?> command : commandList) {
+            if (HotKeyTracker.shouldSample()) {
+                recordKey(command.getCommand().getArguments().getCommand().toString().toLowerCase(), command.getKey());
+            }
+        }
         if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.del(key);
+            List<byte[]> keys = new ArrayList<>(commandList.size());
+            for (RedisBatch.Command<?, ?> command : commandList) {
+                keys.add(command.getKey());
+            }
+            clusterExecute(keys, (pipeline, indexes) -> {
+                for (Integer index : indexes) {
+                    commandList.get(index).append(pipeline);
+                }
+                return () -> {
+                    for (Integer index : indexes) {
+                        readClusterCommand(commandList.get(index));
+                    }
+                };
+            }, indexes -> {
+                for (Integer index : indexes) {
+                    executeClusterCommand(commandList.get(index));
+                }
+            });
+            return;
         }
         try (Jedis jedis = getJedis()) {
-            return jedis.del(key);
+            Pipeline pipeline = jedis.pipelined();
+            for (RedisBatch.Command<?, ?> command : commandList) {
+                command.append(pipeline);
+            }
+            pipeline.sync();
+            BREAKER.onSuccess();
+            for (RedisBatch.Command<?, ?> command : commandList) {
+                try {
+                    command.read();
+                } catch (RuntimeException e) {
+                    command.fail(e);
+                }
+            }
         } catch (Exception e) {
+            onError("pipeline", e);
             e.printStackTrace();
-            return 0L;
+            RuntimeException failure = e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+            for (RedisBatch.Command<?, ?> command : commandList) {
+                command.fail(failure);
+            }
         }
     }
 
-    private static String setKeyValue(byte[] key, byte[] value, int seconds) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.setex(key, seconds, value);
+    private static void readClusterCommand(RedisBatch.Command<?, ?> command) {
+        try {
+            command.read();
+        } catch (JedisRedirectionException e) {
+            // slot 迁移，交给集群客户端跟随重定向
+            executeClusterCommand(command);
+        } catch (RuntimeException e) {
+            command.fail(e);
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.setex(key, seconds, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return EMPTY_STRING;
+    }
+
+    private static <R> void executeClusterCommand(RedisBatch.Command<R, ?> command) {
+        try {
+            command.complete(JEDIS_CLUSTER.executeCommand(command.getCommand()));
+        } catch (RuntimeException e) {
+            command.fail(e);
         }
     }
 
-    private static Long hRemoveFields(byte[] key, byte[]... fields) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.hdel(key, fields);
+    private static Long setAdd(byte[] key, byte[] value) {
+        return execute("sadd", key, redis -> redis.sadd(key, value), null);
+    }
+
+    private static Boolean sisMember(byte[] key, byte[] value) {
+        return executeRead("sismember", key, redis -> redis.sismember(key, value), false);
+    }
+
+    private static Long sCard(byte[] key) {
+        return executeRead("scard", key, redis -> redis.scard(key), null);
+    }
+
+    private static void pipeLinedSet(byte[] key, byte[]... value) {
+        execute("sadd", key, redis -> redis.sadd(key, value), null);
+    }
+
+    private static long pfAdd(byte[] key, byte[]... elements) {
+        return execute("pfadd", key, redis -> redis.pfadd(key, elements), 0L);
+    }
+
+    private static long pfCount(byte[]... keys) {
+        return execute("pfcount", redis -> redis.pfcount(keys), 0L);
+    }
+
+    private static String pfMerge(byte[] destKey, byte[]... sourceKeys) {
+        return execute("pfmerge", redis -> redis.pfmerge(destKey, sourceKeys), EMPTY_STRING);
+    }
+
+    private static boolean setBit(byte[] key, long offset, boolean value) {
+        NearCache.invalidate(key);
+        return execute("setbit", key, redis -> redis.setbit(key, offset, value), false);
+    }
+
+    private static boolean getBit(byte[] key, long offset) {
+        return execute("getbit", key, redis -> redis.getbit(key, offset), false);
+    }
+
+    private static long bitCount(byte[] key) {
+        return execute("bitcount", key, redis -> redis.bitcount(key), 0L);
+    }
+
+    private static long bitCount(byte[] key, long start, long end) {
+        return execute("bitcount", key, redis -> redis.bitcount(key, start, end), 0L);
+    }
+
+    private static long bitOp(BitOP op, byte[] destKey, byte[]... sourceKeys) {
+        return execute("bitop", redis -> redis.bitop(op, destKey, sourceKeys), 0L);
+    }
+
+    /**
+     * 分段 BITFIELD，每一位按 u1 读写
+     *
+     * @param key       缓存Key
+     * @param offsets   位偏移
+     * @param operation GET 或 SET
+     * @param value     SET 的位值，GET 为 null
+     * @return 与偏移顺序对应的结果，SET 为原来的位值，分段失败时对应位置为 null
+     */
+    private static List<Long> bitField(String key, long[] offsets, byte[] operation, byte[] value) {
+        if (offsets.length == 0) {
+            return Collections.emptyList();
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.hdel(key, fields);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0L;
+        int argCount = null == value ? 3 : 4;
+        List<RedisResponse<List<Long>>> responseList = new ArrayList<>();
+        pipeline(batch -> {
+            for (int start = 0; start < offsets.length; start += BATCH_CHUNK_SIZE) {
+                int end = Math.min(offsets.length, start + BATCH_CHUNK_SIZE);
+                byte[][] args = new byte[(end - start) * argCount][];
+                int index = 0;
+                for (int i = start; i < end; i++) {
+                    args[index++] = operation;
+                    args[index++] = BIT_TYPE;
+                    args[index++] = String.valueOf(offsets[i]).getBytes(StandardCharsets.UTF_8);
+                    if (null != value) {
+                        args[index++] = value;
+                    }
+                }
+                responseList.add(batch.bitField(key, args));
+            }
+        });
+        List<Long> result = new ArrayList<>(offsets.length);
+        for (int i = 0; i < responseList.size(); i++) {
+            int size = Math.min(BATCH_CHUNK_SIZE, offsets.length - i * BATCH_CHUNK_SIZE);
+            try {
+                result.addAll(responseList.get(i).get());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                result.addAll(Collections.nCopies(size, null));
+            }
         }
+        return result;
     }
 
-    private static Long lRem(byte[] key, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.lrem(key, 0, value);
+    private static <T> List<List<T>> chunk(Collection<T> values) {
+        List<List<T>> chunkList = new ArrayList<>(values.size() / BATCH_CHUNK_SIZE + 1);
+        List<T> current = new ArrayList<>(Math.min(values.size(), BATCH_CHUNK_SIZE));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == BATCH_CHUNK_SIZE) {
+                chunkList.add(current);
+                current = new ArrayList<>(BATCH_CHUNK_SIZE);
+            }
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.lrem(key, 0, value);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0L;
+        if (!current.isEmpty()) {
+            chunkList.add(current);
+        }
+        return chunkList;
+    }
+
+    private static List<byte[]> lRange(byte[] key, long start, long end) {
+        return executeRead("lrange", key, redis -> redis.lrange(key, start, end), Collections.emptyList());
+    }
+
+    /**
+     * 分段读取使用，读取失败时抛出异常，避免被当作列表结束
+     */
+    private static List<byte[]> lRangeOrThrow(byte[] key, long start, long end) {
+        return executeOrThrow("lrange", key, () -> {
+            if (RedisConfig.USE_CLUSTER) {
+                remainingTimeout();
+                return JEDIS_CLUSTER.lrange(key, start, end);
+            }
+            try (Jedis jedis = getJedis()) {
+                return applyWithDeadline(jedis, redis -> redis.lrange(key, start, end));
+            }
+        });
+    }
+
+    private static <T> Iterator<List<T>> listPageIterator(String key, int chunkSize, Class<T> tClass) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Redis - list chunk size must be positive !");
         }
+        byte[] keyBytes = serializeKey(key);
+        return new Iterator<>() {
+            private long start;
+            private List<T> next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                if (null == next && !finished) {
+                    List<byte[]> list = lRangeOrThrow(keyBytes, start, start + chunkSize - 1);
+                    start += chunkSize;
+                    finished = list.size() < chunkSize;
+                    if (!list.isEmpty()) {
+                        next = new ArrayList<>(list.size());
+                        for (byte[] cache : list) {
+                            next.add(tClass.cast(unSerialize(cache)));
+                        }
+                    }
+                }
+                return null != next;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> page = next;
+                next = null;
+                return page;
+            }
+        };
+    }
+
+    private static long lLen(byte[] key) {
+        return executeRead("llen", key, redis -> redis.llen(key), 0L);
+    }
+
+    private static byte[] lPop(byte[] key) {
+        return execute("lpop", key, redis -> redis.lpop(key), EMPTY_BYTE);
+    }
+
+    private static byte[] rPop(byte[] key) {
+        return execute("rpop", key, redis -> redis.rpop(key), EMPTY_BYTE);
+    }
+
+    private static String lSet(byte[] key, long index, byte[] value) {
+        return execute("lset", key, redis -> redis.lset(key, index, value), EMPTY_STRING);
+    }
+
+
+    private static Long lPush(byte[] key, byte[] value) {
+        return execute("lpush", key, redis -> redis.lpush(key, value), 0L);
+    }
+
+    private static Long rPush(byte[] key, byte[] value) {
+        return execute("rpush", key, redis -> redis.rpush(key, value), 0L);
+    }
+
+    private static boolean hasKey(byte[] key) {
+        return executeRead("exists", key, redis -> redis.exists(key), false);
+    }
+
+    private static Long setPersistKeyValue(byte[] key, byte[] value) {
+        NearCache.invalidate(key);
+        return execute("set", key, redis -> {
+            redis.set(key, value);
+            return redis.persist(key);
+        }, 0L);
+    }
+
+    private static Long removeKey(byte[] key) {
+        NearCache.invalidate(key);
+        return execute("del", key, redis -> redis.del(key), 0L);
+    }
+
+    private static boolean setIfAbsent(byte[] key, byte[] value, long milliseconds) {
+        NearCache.invalidate(key);
+        SetParams params = SetParams.setParams().nx().px(milliseconds);
+        return execute("set", key, redis -> null != redis.set(key, value, params), false);
+    }
+
+    private static String setKeyValue(byte[] key, byte[] value, int seconds) {
+        NearCache.invalidate(key);
+        return execute("setex", key, redis -> redis.setex(key, seconds, value), EMPTY_STRING);
+    }
+
+    private static Long hRemoveFields(byte[] key, byte[]... fields) {
+        NearCache.invalidate(key);
+        return execute("hdel", key, redis -> redis.hdel(key, fields), 0L);
+    }
+
+    private static Long lRem(byte[] key, byte[] value) {
+        return execute("lrem", key, redis -> redis.lrem(key, 0, value), 0L);
     }
 
     private static boolean hHasKey(byte[] key, byte[] field) {
+        return executeRead("hexists", key, redis -> redis.hexists(key, field), false);
+    }
+
+
+    private static long ttl(byte[] key) {
+        return execute("ttl", key, redis -> redis.ttl(key), 0L);
+    }
+
+    private static Map<byte[], byte[]> hGetAllValues(byte[] key) {
+        return NearCache.hGetAll(key, RedisClient::loadHashValues);
+    }
+
+    private static Map<byte[], byte[]> loadHashValues(byte[] key) {
+        return executeLoad("hgetAll", key, redis -> redis.hgetAll(key), Collections.emptyMap());
+    }
+
+    private static <T> ScanIterator<Map.Entry<byte[], byte[]>, Map.Entry<String, T>> hScanIterator(String key, int count, Class<T> tClass) {
+        byte[] keyBytes = serializeKey(key);
+        ScanParams params = new ScanParams().count(count);
+        Function<byte[], ScanResult<Map.Entry<byte[], byte[]>>> fetcher = cursor -> executeOrThrow("hscan", keyBytes, () -> {
+            if (RedisConfig.USE_CLUSTER) {
+                remainingTimeout();
+                return JEDIS_CLUSTER.hscan(keyBytes, cursor, params);
+            }
+            try (Jedis jedis = getJedis()) {
+                return applyWithDeadline(jedis, redis -> redis.hscan(keyBytes, cursor, params));
+            }
+        });
+        return new ScanIterator<>(Collections.singletonList(fetcher), entry ->
+                new AbstractMap.SimpleImmutableEntry<>(unSerializeKey(entry.getKey()), tClass.cast(unSerialize(entry.getValue()))));
+    }
+
+    private static <T> ScanIterator<byte[], T> sScanIterator(String key, int count, Class<T> tClass) {
+        byte[] keyBytes = serializeKey(key);
+        ScanParams params = new ScanParams().count(count);
+        Function<byte[], ScanResult<byte[]>> fetcher = cursor -> executeOrThrow("sscan", keyBytes, () -> {
+            if (RedisConfig.USE_CLUSTER) {
+                remainingTimeout();
+                return JEDIS_CLUSTER.sscan(keyBytes, cursor, params);
+            }
+            try (Jedis jedis = getJedis()) {
+                return applyWithDeadline(jedis, redis -> redis.sscan(keyBytes, cursor, params));
+            }
+        });
+        return new ScanIterator<>(Collections.singletonList(fetcher), member -> tClass.cast(unSerialize(member)));
+    }
+
+    private static ScanIterator<byte[], String> scanIterator(String pattern, int count) {
+        return scanIterator(new ScanParams().match(serializeKey(pattern)).count(count), RedisClient::unSerializeKey);
+    }
+
+    /**
+     * 遍历所有 Key，不经过 Key 编码，包括其他客户端写入的 Key
+     *
+     * @param count 每次遍历数量
+     * @return 原始 Key 迭代器
+     */
+    static ScanIterator<byte[], byte[]> rawScanIterator(int count) {
+        return scanIterator(new ScanParams().count(count), Function.identity());
+    }
+
+    private static <R> ScanIterator<byte[], R> scanIterator(ScanParams params, Function<byte[], R> decoder) {
+        List<Function<byte[], ScanResult<byte[]>>> fetcherList = new ArrayList<>();
         if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.hexists(key, field);
+            for (HostAndPort node : masterNodes()) {
+                fetcherList.add(cursor -> executeOrThrow("scan", null, () -> {
+                    try (Connection connection = CLUSTER_PROVIDER.getConnection(node)) {
+                        return applyWithDeadline(new Jedis(connection), redis -> redis.scan(cursor, params));
+                    }
+                }));
+            }
+        } else {
+            fetcherList.add(cursor -> executeOrThrow("scan", null, () -> {
+                try (Jedis jedis = getJedis()) {
+                    return applyWithDeadline(jedis, redis -> redis.scan(cursor, params));
+                }
+            }));
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.hexists(key, field);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+        return new ScanIterator<>(fetcherList, decoder);
+    }
+
+    /**
+     * 集群主节点，按槽位分配去重
+     */
+    private static Set<HostAndPort> masterNodes() {
+        Set<HostAndPort> nodes = new LinkedHashSet<>();
+        for (int slot = 0; slot < Protocol.CLUSTER_HASHSLOTS; slot++) {
+            HostAndPort node = CLUSTER_PROVIDER.getNode(slot);
+            if (null == node) {
+                renewSlotCache();
+                node = CLUSTER_PROVIDER.getNode(slot);
+            }
+            if (null != node) {
+                nodes.add(node);
+            }
         }
+        return nodes;
+    }
+
+    private static byte[] hGetValue(byte[] key, byte[] field) {
+        return NearCache.hGet(key, field, hashField -> loadHashValue(key, hashField));
     }
 
+    private static byte[] loadHashValue(byte[] key, byte[] field) {
+        return executeLoad("hget", key, redis -> redis.hget(key, field), EMPTY_BYTE);
+    }
 
-    private static long ttl(byte[] key) {
+    private static Long hSetKeyValue(byte[] key, byte[] field, byte[] value) {
+        NearCache.invalidate(key);
+        return execute("hset", key, redis -> redis.hset(key, field, value), 0L);
+    }
+
+    private static byte[] getValue(byte[] key) {
+        return NearCache.get(key, RedisClient::loadValue);
+    }
+
+    private static byte[] loadValue(byte[] key) {
+        return executeLoad("get", key, redis -> redis.get(key), EMPTY_BYTE);
+    }
+
+
+    private static List<byte[]> mGetValues(List<byte[]> keys) {
+        if (!allowRequest("mget")) {
+            return Collections.emptyList();
+        }
+        for (byte[] key : keys) {
+            sampleKey("mget", key);
+        }
         if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.ttl(key);
+            byte[][] values = new byte[keys.size()][];
+            clusterExecute(keys, (pipeline, indexes) -> {
+                Response<List<byte[]>> response = pipeline.mget(select(keys, indexes));
+                return () -> fill(values, indexes, response.get());
+            }, indexes -> fill(values, indexes, JEDIS_CLUSTER.mget(select(keys, indexes))));
+            return Arrays.asList(values);
         }
         try (Jedis jedis = getJedis()) {
-            return jedis.ttl(key);
+            List<byte[]> values = jedis.mget(keys.toArray(new byte[0][]));
+            BREAKER.onSuccess();
+            return values;
         } catch (Exception e) {
+            onError("mget", e);
             e.printStackTrace();
-            return 0;
+            return Collections.emptyList();
         }
     }
 
-    private static Map<byte[], byte[]> hGetAllValues(byte[] key) {
+    private static boolean mSetValues(List<byte[]> keys, List<byte[]> values, int seconds) {
+        keys.forEach(NearCache::invalidate);
+        if (!allowRequest("mset")) {
+            return false;
+        }
         if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.hgetAll(key);
+            AtomicBoolean success = new AtomicBoolean(true);
+            clusterExecute(keys, (pipeline, indexes) -> {
+                List<Response<String>> responses = new ArrayList<>(indexes.size());
+                if (seconds > 0) {
+                    for (Integer index : indexes) {
+                        responses.add(pipeline.setex(keys.get(index), seconds, values.get(index)));
+                    }
+                } else {
+                    responses.add(pipeline.mset(keyValues(keys, values, indexes)));
+                }
+                return () -> responses.forEach(Response::get);
+            }, indexes -> {
+                if (seconds > 0) {
+                    for (Integer index : indexes) {
+                        JEDIS_CLUSTER.setex(keys.get(index), seconds, values.get(index));
+                    }
+                    return;
+                }
+                JEDIS_CLUSTER.mset(keyValues(keys, values, indexes));
+            }, success);
+            return success.get();
         }
         try (Jedis jedis = getJedis()) {
-            return jedis.hgetAll(key);
+            Pipeline pipelined = jedis.pipelined();
+            if (seconds > 0) {
+                for (int i = 0; i < keys.size(); i++) {
+                    pipelined.setex(keys.get(i), seconds, values.get(i));
+                }
+            } else {
+                pipelined.mset(keyValues(keys, values, null));
+            }
+            pipelined.sync();
+            BREAKER.onSuccess();
+            return true;
         } catch (Exception e) {
+            onError("mset", e);
             e.printStackTrace();
-            return Collections.emptyMap();
+            return false;
         }
     }
 
-    private static byte[] hGetValue(byte[] key, byte[] field) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.hget(key, field);
+    private static List<byte[]> hmGetValues(byte[] key, byte[]... fields) {
+        return executeRead("hmget", key, redis -> redis.hmget(key, fields), Collections.emptyList());
+    }
+
+    private static Long hSetValues(byte[] key, Map<byte[], byte[]> hash) {
+        NearCache.invalidate(key);
+        return execute("hset", key, redis -> redis.hset(key, hash), 0L);
+    }
+
+    // 集群批量执行
+
+    private static void clusterExecute(List<byte[]> keys, BiFunction<Pipeline, List<Integer>, Runnable> pipelined,
+                                       Consumer<List<Integer>> fallback) {
+        clusterExecute(keys, pipelined, fallback, new AtomicBoolean(true));
+    }
+
+    /**
+     * 集群按节点分组执行
+     * 同一节点上的 slot 分组通过 Pipeline 一次发送，节点之间并行执行
+     * 节点执行失败（如 slot 迁移）时刷新 slot 缓存，失败的分组回退到 JEDIS_CLUSTER 逐组执行
+     *
+     * @param keys      key 列表
+     * @param pipelined 在 Pipeline 中加入一个 slot 分组的命令，参数为 key 下标，返回同步后读取结果的函数
+     * @param fallback  回退执行一个 slot 分组
+     * @param success   是否全部执行成功
+     */
+    private static void clusterExecute(List<byte[]> keys, BiFunction<Pipeline, List<Integer>, Runnable> pipelined,
+                                       Consumer<List<Integer>> fallback, AtomicBoolean success) {
+        Map<HostAndPort, Map<Integer, List<Integer>>> nodeGroups = groupByNode(keys);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(nodeGroups.size());
+        for (Map.Entry<HostAndPort, Map<Integer, List<Integer>>> nodeGroup : nodeGroups.entrySet()) {
+            List<List<Integer>> slotGroups = new ArrayList<>(nodeGroup.getValue().values());
+            futures.add(CompletableFuture.runAsync(() ->
+                    executeOnNode(nodeGroup.getKey(), slotGroups, pipelined, fallback, success), CLUSTER_EXECUTOR));
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.hget(key, field);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static void executeOnNode(HostAndPort node, List<List<Integer>> slotGroups,
+                                      BiFunction<Pipeline, List<Integer>, Runnable> pipelined,
+                                      Consumer<List<Integer>> fallback, AtomicBoolean success) {
+        List<List<Integer>> failedGroups = new ArrayList<>();
+        try (Connection connection = CLUSTER_PROVIDER.getConnection(node)) {
+            Pipeline pipeline = new Pipeline(connection);
+            List<Runnable> readers = new ArrayList<>(slotGroups.size());
+            for (List<Integer> slotGroup : slotGroups) {
+                readers.add(pipelined.apply(pipeline, slotGroup));
+            }
+            pipeline.sync();
+            for (int i = 0; i < readers.size(); i++) {
+                try {
+                    readers.get(i).run();
+                } catch (Exception e) {
+                    failedGroups.add(slotGroups.get(i));
+                }
+            }
         } catch (Exception e) {
-            e.printStackTrace();
-            return EMPTY_BYTE;
+            onError("pipeline", e);
+            failedGroups = slotGroups;
+        }
+        if (failedGroups.isEmpty()) {
+            return;
+        }
+        renewSlotCache();
+        for (List<Integer> slotGroup : failedGroups) {
+            try {
+                fallback.accept(slotGroup);
+            } catch (Exception e) {
+                e.printStackTrace();
+                success.set(false);
+            }
         }
     }
 
-    private static Long hSetKeyValue(byte[] key, byte[] field, byte[] value) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.hset(key, field, value);
+    private static Map<HostAndPort, Map<Integer, List<Integer>>> groupByNode(List<byte[]> keys) {
+        Map<HostAndPort, Map<Integer, List<Integer>>> nodeGroups = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            int slot = JedisClusterCRC16.getSlot(keys.get(i));
+            HostAndPort node = CLUSTER_PROVIDER.getNode(slot);
+            if (null == node) {
+                renewSlotCache();
+                node = CLUSTER_PROVIDER.getNode(slot);
+            }
+            nodeGroups.computeIfAbsent(node, k -> new HashMap<>()).computeIfAbsent(slot, k -> new ArrayList<>()).add(i);
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.hset(key, field, value);
+        return nodeGroups;
+    }
+
+    private static void renewSlotCache() {
+        try {
+            CLUSTER_PROVIDER.renewSlotCache();
         } catch (Exception e) {
             e.printStackTrace();
-            return 0L;
         }
     }
 
-    private static byte[] getValue(byte[] key) {
-        if (RedisConfig.USE_CLUSTER) {
-            return JEDIS_CLUSTER.get(key);
+    private static byte[][] select(List<byte[]> list, List<Integer> indexes) {
+        byte[][] bytes = new byte[indexes.size()][];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = list.get(indexes.get(i));
         }
-        try (Jedis jedis = getJedis()) {
-            return jedis.get(key);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return EMPTY_BYTE;
+        return bytes;
+    }
+
+    private static void fill(byte[][] target, List<Integer> indexes, List<byte[]> values) {
+        for (int i = 0; i < indexes.size() && i < values.size(); i++) {
+            target[indexes.get(i)] = values.get(i);
         }
     }
 
+    /**
+     * 组装 MSET 参数
+     *
+     * @param indexes key 下标，为空时使用全部
+     */
+    private static byte[][] keyValues(List<byte[]> keys, List<byte[]> values, List<Integer> indexes) {
+        int size = null == indexes ? keys.size() : indexes.size();
+        byte[][] keyValues = new byte[size * 2][];
+        for (int i = 0; i < size; i++) {
+            int index = null == indexes ? i : indexes.get(i);
+            keyValues[i * 2] = keys.get(index);
+            keyValues[i * 2 + 1] = values.get(index);
+        }
+        return keyValues;
+    }
 
     private static long expire(byte[] bytes, int seconds) {
-        try (Jedis jedis = getJedis()) {
-            return jedis.expire(bytes, seconds);
-        } catch (Exception e) {
-            e.printStackTrace();
+        return execute("expire", bytes, redis -> redis.expire(bytes, seconds), -1L);
+    }
+
+    static Object unSerialize(byte[] bytes) throws RuntimeException {
+        if (null != bytes) {
+            RedisMetrics.recordPayload("read", bytes.length);
         }
-        return -1;
+        return VALUE_CODEC.decode(bytes);
     }
 
-    private static Object unSerialize(byte[] bytes) throws RuntimeException {
-        GenericFastJsonRedisSerializer serializer = new GenericFastJsonRedisSerializer();
-        return serializer.deserialize(bytes);
+    static byte[] serialize(Object object) throws RuntimeException {
+        byte[] bytes = VALUE_CODEC.encode(object);
+        RedisMetrics.recordPayload("write", bytes.length);
+        return bytes;
     }
 
-    private static byte[] serialize(Object object) throws RuntimeException {
-        GenericFastJsonRedisSerializer serializer = new GenericFastJsonRedisSerializer();
-        return serializer.serialize(object);
+    static String unSerializeKey(byte[] bytes) throws RuntimeException {
+        Object key = KEY_CODEC.decode(bytes);
+        return null == key ? null : key.toString();
+    }
+
+    static byte[] serializeKey(String key) throws RuntimeException {
+        return KEY_CODEC.encode(key);
     }
 
     private static byte[][] convert(String[] strings) {
@@ -838,4 +2176,12 @@ public class RedisClient {
         }
         return bytes;
     }
+
+    private static byte[][] convertKeys(String[] keys) {
+        byte[][] bytes = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            bytes[i] = serializeKey(keys[i]);
+        }
+        return bytes;
+    }
 }
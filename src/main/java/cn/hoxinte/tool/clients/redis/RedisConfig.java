@@ -1,11 +1,23 @@
 package cn.hoxinte.tool.clients.redis;
 
+import cn.hoxinte.tool.clients.redis.codec.BinaryRedisCodec;
+import cn.hoxinte.tool.clients.redis.codec.CompressedRedisCodec;
+import cn.hoxinte.tool.clients.redis.codec.FastJsonRedisCodec;
+import cn.hoxinte.tool.clients.redis.codec.RedisCodec;
+import cn.hoxinte.tool.clients.redis.codec.StringRedisCodec;
+import cn.hoxinte.tool.clients.redis.memory.MemoryLatency;
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
 import cn.hoxinte.tool.utils.LoadUtil;
+import cn.hoxinte.tool.utils.StringUtil;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.redisson.config.Config;
 import redis.clients.jedis.Connection;
 import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisSocketFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
 
 /**
  * Jedis 配置类
@@ -39,11 +51,104 @@ public class RedisConfig {
     // 集群
     protected static final String[] CLUSTER_NODES = LoadUtil.getArrayProperty("spring.redis.cluster.nodes");
 
+    // 进程内存储 backend 配置为 memory 时启用，用于本地压测及基准测试，忽略单点、哨兵、集群配置
+
+    private static final String BACKEND_MEMORY = "memory";
+    public static final boolean USE_MEMORY = BACKEND_MEMORY.equalsIgnoreCase(LoadUtil.getProperty("hoxinte.redis.backend"));
+    // 注入延迟 往返、抖动上限、命令耗时 微秒，抖动随机种子
+    private static final int MEMORY_ROUND_TRIP_MICROS = LoadUtil.getIntegerProperty("hoxinte.redis.memory.round-trip-micros");
+    private static final int MEMORY_JITTER_MICROS = LoadUtil.getIntegerProperty("hoxinte.redis.memory.jitter-micros");
+    private static final int MEMORY_COMMAND_MICROS = LoadUtil.getIntegerProperty("hoxinte.redis.memory.command-micros");
+    private static final int MEMORY_SEED = LoadUtil.getIntegerProperty("hoxinte.redis.memory.seed");
+
+    protected static final boolean USE_CLUSTER = !USE_MEMORY && RedisConfig.CLUSTER_NODES.length > 1;
+    protected static final boolean USE_SENTINEL = !USE_MEMORY && !USE_CLUSTER && (RedisConfig.SENTINEL_NODES.length > 1);
+
+    private static final int TIME_OUT = LOAD_TIMEOUT == 0 ? 3000 : LOAD_TIMEOUT;
+    // 连接池耗尽时等待连接的最长时间 毫秒
+    private static final int MAX_WAIT = getOrDefault("spring.redis.jedis.pool.max-wait", 1000);
+
+    // 熔断 连续失败次数，打开时长 毫秒，半开探测次数
+
+    protected static final int BREAKER_FAILURES = getOrDefault("hoxinte.redis.breaker.failures", 5);
+    protected static final int BREAKER_OPEN_MILLIS = getOrDefault("hoxinte.redis.breaker.open-millis", 5000);
+    protected static final int BREAKER_HALF_OPEN_CALLS = getOrDefault("hoxinte.redis.breaker.half-open-calls", 1);
+
+    // 编码 key 默认 json 兼容已有数据，可选 string；value 默认 json 写入并可读取 binary，
+    // 可选 binary 写入注册类型，需所有读取节点升级后再启用
+
+    private static final String KEY_CODEC = LoadUtil.getProperty("hoxinte.redis.codec.key");
+    private static final String VALUE_CODEC = LoadUtil.getProperty("hoxinte.redis.codec.value");
+    private static final String CODEC_STRING = "string";
+    private static final String CODEC_BINARY = "binary";
+    // value 编码后超过该大小时压缩 字节，默认不压缩，读取始终兼容压缩数据
+    // 分两步上线：先部署所有读取节点，确认没有旧版本节点后再配置阈值启用压缩写入
+    private static final int COMPRESS_THRESHOLD = LoadUtil.getIntegerProperty("hoxinte.redis.codec.compress-threshold");
+
+    // 近端缓存 配置 Key 前缀后启用，多个前缀逗号分隔
+
+    protected static final String[] NEAR_CACHE_PREFIXES = Arrays.stream(LoadUtil.getArrayProperty("hoxinte.redis.near-cache.prefixes"))
+            .map(String::trim).filter(StringUtil::isNotEmpty).toArray(String[]::new);
+    protected static final int NEAR_CACHE_MAX_SIZE = getOrDefault("hoxinte.redis.near-cache.max-size", 10000);
+    protected static final int NEAR_CACHE_TTL = getOrDefault("hoxinte.redis.near-cache.ttl", 60);
+
+    // 异步客户端线程数及等待队列长度
+
+    protected static final int ASYNC_THREADS = getOrDefault("hoxinte.redis.async.threads", Runtime.getRuntime().availableProcessors() * 2);
+    protected static final int ASYNC_QUEUE_SIZE = getOrDefault("hoxinte.redis.async.queue-size", 1024);
+
+    // 读路由 master、replica-preferred、nearest，默认只读主节点，近缓存的 Key 始终读主节点
+
+    protected static final String READ_FROM = LoadUtil.getProperty("hoxinte.redis.read-from");
+    protected static final int READ_REFRESH_SECONDS = getOrDefault("hoxinte.redis.read-from.refresh-seconds", 30);
+
+    // 热点 Key 统计 配置采样率后启用，每 sample-rate 次命令统计一次
 
-    protected static final boolean USE_CLUSTER = RedisConfig.CLUSTER_NODES.length > 1;
-    protected static final boolean USE_SENTINEL = !USE_CLUSTER && (RedisConfig.SENTINEL_NODES.length > 1);
+    protected static final int HOT_KEY_SAMPLE_RATE = LoadUtil.getIntegerProperty("hoxinte.redis.hot-key.sample-rate");
+    protected static final int HOT_KEY_TOP = getOrDefault("hoxinte.redis.hot-key.top", 20);
+    protected static final int HOT_KEY_REPORT_SECONDS = getOrDefault("hoxinte.redis.hot-key.report-seconds", 60);
 
-    private static final int TIME_OUT = LOAD_TIMEOUT == 0 ? 100000 : LOAD_TIMEOUT;
+    // 合并延迟写入 达到 batch-size 或间隔 flush-millis 写入一次，待写入达到 capacity 时由写入线程同步写入
+
+    protected static final int WRITE_BEHIND_BATCH_SIZE = getOrDefault("hoxinte.redis.write-behind.batch-size", 500);
+    protected static final int WRITE_BEHIND_FLUSH_MILLIS = getOrDefault("hoxinte.redis.write-behind.flush-millis", 1000);
+    protected static final int WRITE_BEHIND_CAPACITY = getOrDefault("hoxinte.redis.write-behind.capacity", 10000);
+
+    // Stream 消费 每次读取数量，阻塞读取时长 毫秒，处理线程数，关闭时等待处理完成的时长 毫秒
+
+    protected static final int STREAM_BATCH_SIZE = getOrDefault("hoxinte.redis.stream.batch-size", 10);
+    protected static final int STREAM_BLOCK_MILLIS = getOrDefault("hoxinte.redis.stream.block-millis", 2000);
+    protected static final int STREAM_WORKERS = getOrDefault("hoxinte.redis.stream.workers", Runtime.getRuntime().availableProcessors());
+    protected static final int STREAM_SHUTDOWN_MILLIS = getOrDefault("hoxinte.redis.stream.shutdown-millis", 10000);
+    // Stream 待确认消息接管 空闲超过 idle-millis 的消息由存活的消费者接管，检查间隔 interval-millis 毫秒，投递超过 max-deliveries 次转入死信
+    protected static final int STREAM_RECLAIM_IDLE_MILLIS = getOrDefault("hoxinte.redis.stream.reclaim.idle-millis", 60000);
+    protected static final int STREAM_RECLAIM_INTERVAL_MILLIS = getOrDefault("hoxinte.redis.stream.reclaim.interval-millis", 10000);
+    protected static final int STREAM_MAX_DELIVERIES = getOrDefault("hoxinte.redis.stream.reclaim.max-deliveries", 5);
+    // Stream 写入裁剪 近似保留 max-len 条，或保留 retention-millis 内写入的消息，max-len 优先，默认不裁剪
+    protected static final int STREAM_MAX_LEN = LoadUtil.getIntegerProperty("hoxinte.redis.stream.max-len");
+    protected static final int STREAM_RETENTION_MILLIS = LoadUtil.getIntegerProperty("hoxinte.redis.stream.retention-millis");
+    // Stream 异步写入 达到 batch-size 或等待 linger-millis 后写入，待写入达到 capacity 时由发送线程同步写入
+    protected static final int STREAM_PRODUCER_BATCH_SIZE = getOrDefault("hoxinte.redis.stream.producer.batch-size", 100);
+    protected static final int STREAM_PRODUCER_LINGER_MILLIS = getOrDefault("hoxinte.redis.stream.producer.linger-millis", 5);
+    protected static final int STREAM_PRODUCER_CAPACITY = getOrDefault("hoxinte.redis.stream.producer.capacity", 10000);
+    // Stream 消费组指标 配置采集间隔 秒后启用
+    protected static final int STREAM_METRICS_INTERVAL_SECONDS = LoadUtil.getIntegerProperty("hoxinte.redis.stream.metrics.interval-seconds");
+
+    // getOrLoad 加载租约时长 毫秒
+
+    protected static final int LOAD_LEASE_MILLIS = getOrDefault("hoxinte.redis.load.lease", 3000);
+
+    public static RedisCodec keyCodec() {
+        if (CODEC_STRING.equals(KEY_CODEC)) {
+            return StringRedisCodec.INSTANCE;
+        }
+        return FastJsonRedisCodec.INSTANCE;
+    }
+
+    public static RedisCodec valueCodec() {
+        RedisCodec codec = CODEC_BINARY.equals(VALUE_CODEC) ? BinaryRedisCodec.INSTANCE : BinaryRedisCodec.DECODE_ONLY;
+        return new CompressedRedisCodec(codec, COMPRESS_THRESHOLD > 0 ? COMPRESS_THRESHOLD : Integer.MAX_VALUE);
+    }
 
     public static DefaultJedisClientConfig jedisClient() {
         return DefaultJedisClientConfig.builder()
@@ -61,6 +166,17 @@ public class RedisConfig {
         return config;
     }
 
+    /**
+     * 进程内存储连接工厂，应用配置的注入延迟
+     *
+     * @return 共享存储的连接工厂
+     */
+    public static JedisSocketFactory memorySocketFactory() {
+        MemoryRedis redis = MemoryRedis.getInstance();
+        redis.setLatency(MemoryLatency.of(MEMORY_ROUND_TRIP_MICROS, MEMORY_JITTER_MICROS, MEMORY_COMMAND_MICROS, MEMORY_SEED));
+        return redis.socketFactory();
+    }
+
     public static GenericObjectPoolConfig<Connection> genericPool() {
         GenericObjectPoolConfig<Connection> config = new GenericObjectPoolConfig<>();
         setPoolConfig(config);
@@ -105,6 +221,11 @@ public class RedisConfig {
         return config;
     }
 
+    private static int getOrDefault(String property, int defaultValue) {
+        int value = LoadUtil.getIntegerProperty(property);
+        return value <= 0 ? defaultValue : value;
+    }
+
     private static void setPoolConfig(GenericObjectPoolConfig<?> config) {
         // 是否启用后进先出, 默认true
         config.setLifo(true);
@@ -116,6 +237,8 @@ public class RedisConfig {
         config.setMaxTotal(MAX_TOTAL);
         // 每次逐出检查时 逐出的最大数目 如果为负数就是 : 1/abs(n), 默认3
         config.setNumTestsPerEvictionRun(EVICTION_RUN_NUM);
+        // 连接池耗尽时最长等待时间, 默认-1 一直等待
+        config.setMaxWait(Duration.ofMillis(MAX_WAIT));
         // 在获取连接的时候检查有效性, 默认false
         config.setTestOnBorrow(true);
         // 在空闲时检查有效性, 默认false
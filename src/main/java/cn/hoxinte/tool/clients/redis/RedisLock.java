@@ -0,0 +1,218 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.metrics.RedisMetrics;
+import org.redisson.api.RLock;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 分布式锁
+ * <p>
+ * 先在本地分段锁上排队，同一节点同一个锁同时只有一个线程访问 Redis 竞争，其余线程在本地等待
+ * 加锁、解锁需在同一线程，支持重入，重入次数与 Redisson 锁一致
+ * 不同 Key 可能落在同一分段，分段被其他 Key 占用时不在本地排队，直接竞争 Redis 锁
+ * <pre>
+ * if (RedisLock.tryLock(key, 3, 10, TimeUnit.SECONDS)) {
+ *     try {
+ *         ...
+ *     } finally {
+ *         RedisLock.unlock(key);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class RedisLock {
+
+    /**
+     * 本地分段数量，2 的幂
+     */
+    private static final int STRIPE_SIZE = 256;
+    /**
+     * 不设置租约时间，由 Redisson 看门狗自动续期
+     */
+    public static final long WATCH_DOG_LEASE = -1;
+
+    private static final ReentrantLock[] STRIPES = new ReentrantLock[STRIPE_SIZE];
+    /**
+     * 分段当前对应的 Key，只用于判断是否为同一个锁排队
+     */
+    private static final AtomicReferenceArray<String> STRIPE_KEYS = new AtomicReferenceArray<>(STRIPE_SIZE);
+    private static final ThreadLocal<Map<String, Holder>> HOLDERS = ThreadLocal.withInitial(HashMap::new);
+    /**
+     * 获取 Redis 锁，测试中替换为本地实现
+     */
+    static volatile Function<String, RLock> LOCK_FACTORY = key -> RedisClient.getRedisson().getLock(key);
+
+    static {
+        for (int i = 0; i < STRIPE_SIZE; i++) {
+            STRIPES[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @param key       锁的值
+     * @param waitTime  最长等待时间，包括本地排队时间
+     * @param leaseTime 租约时间，到期自动释放，WATCH_DOG_LEASE 为持有期间自动续期
+     * @param unit      时间单位
+     * @return 是否成功上锁，等待超时、线程中断或 Redis 异常返回 false
+     */
+    public static boolean tryLock(String key, long waitTime, long leaseTime, TimeUnit unit) {
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(waitTime);
+        int index = stripeIndex(key);
+        ReentrantLock stripe = STRIPES[index];
+        boolean striped = true;
+        try {
+            if (!stripe.tryLock()) {
+                if (!key.equals(STRIPE_KEYS.get(index))) {
+                    // 分段被其他 Key 占用，不是同一个锁，直接竞争 Redis 锁
+                    striped = false;
+                } else {
+                    RedisMetrics.recordLockContention();
+                    if (!stripe.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        RedisMetrics.recordLockTimeout();
+                        return false;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (striped) {
+            STRIPE_KEYS.set(index, key);
+        }
+        boolean locked = false;
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            long lease = leaseTime < 0 ? WATCH_DOG_LEASE : unit.toNanos(leaseTime);
+            locked = getLock(key).tryLock(remaining, lease, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            if (!locked && striped) {
+                releaseStripe(index);
+            }
+        }
+        long now = System.nanoTime();
+        RedisMetrics.recordLockWait(now - start);
+        if (!locked) {
+            RedisMetrics.recordLockTimeout();
+            return false;
+        }
+        HOLDERS.get().computeIfAbsent(key, k -> new Holder(now)).stripes.push(striped);
+        return true;
+    }
+
+    /**
+     * 尝试加锁，不等待
+     *
+     * @param key       锁的值
+     * @param leaseTime 租约时间
+     * @param unit      时间单位
+     * @return 是否成功上锁
+     */
+    public static boolean tryLock(String key, long leaseTime, TimeUnit unit) {
+        return tryLock(key, 0, leaseTime, unit);
+    }
+
+    /**
+     * 解锁，只能由加锁线程调用
+     * 租约已过期时 Redis 锁已被释放，仍会释放本地排队锁并抛出异常
+     *
+     * @param key 锁的值
+     */
+    public static void unlock(String key) {
+        Map<String, Holder> holderMap = HOLDERS.get();
+        Holder holder = holderMap.get(key);
+        if (null == holder) {
+            throw new IllegalMonitorStateException("Redis - lock " + key + " not held by current thread !");
+        }
+        try {
+            getLock(key).unlock();
+        } finally {
+            if (holder.stripes.pop()) {
+                releaseStripe(stripeIndex(key));
+            }
+            if (holder.stripes.isEmpty()) {
+                holderMap.remove(key);
+                RedisMetrics.recordLockHold(System.nanoTime() - holder.lockTime);
+            }
+        }
+    }
+
+    /**
+     * 当前线程是否持有锁，只检查本地记录
+     *
+     * @param key 锁的值
+     * @return 是否持有
+     */
+    public static boolean isHeldByCurrentThread(String key) {
+        return HOLDERS.get().containsKey(key);
+    }
+
+    /**
+     * 加锁执行
+     *
+     * @param key       锁的值
+     * @param waitTime  最长等待时间
+     * @param leaseTime 租约时间
+     * @param unit      时间单位
+     * @param task      任务
+     * @return 是否获取到锁并执行
+     */
+    public static boolean runWithLock(String key, long waitTime, long leaseTime, TimeUnit unit, Runnable task) {
+        if (!tryLock(key, waitTime, leaseTime, unit)) {
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } finally {
+            unlock(key);
+        }
+    }
+
+    private static RLock getLock(String key) {
+        return LOCK_FACTORY.apply(key);
+    }
+
+    static int stripeIndex(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPE_SIZE - 1);
+    }
+
+    private static void releaseStripe(int index) {
+        ReentrantLock stripe = STRIPES[index];
+        if (stripe.getHoldCount() == 1) {
+            STRIPE_KEYS.set(index, null);
+        }
+        stripe.unlock();
+    }
+
+    private static class Holder {
+        private final long lockTime;
+        /**
+         * 每次加锁是否占用了本地分段，按加锁顺序倒序释放
+         */
+        private final Deque<Boolean> stripes = new ArrayDeque<>();
+
+        private Holder(long lockTime) {
+            this.lockTime = lockTime;
+        }
+    }
+}
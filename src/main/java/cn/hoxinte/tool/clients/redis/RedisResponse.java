@@ -0,0 +1,53 @@
+package cn.hoxinte.tool.clients.redis;
+
+/**
+ * 批量执行的命令结果
+ * <p>
+ * 在 RedisClient.pipeline 执行完成后才可读取
+ *
+ * @param <T> 结果类型
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class RedisResponse<T> {
+
+    private volatile boolean done;
+    private T value;
+    private RuntimeException exception;
+
+    /**
+     * 读取结果
+     *
+     * @return 命令结果
+     * @throws IllegalStateException 批量命令尚未执行
+     * @throws RuntimeException      命令执行失败
+     */
+    public T get() {
+        if (!done) {
+            throw new IllegalStateException("Redis - pipeline not executed yet !");
+        }
+        if (null != exception) {
+            throw exception;
+        }
+        return value;
+    }
+
+    /**
+     * 是否执行成功
+     *
+     * @return 执行完成且没有异常
+     */
+    public boolean isSuccess() {
+        return done && null == exception;
+    }
+
+    void complete(T value) {
+        this.value = value;
+        this.done = true;
+    }
+
+    void fail(RuntimeException exception) {
+        this.exception = exception;
+        this.done = true;
+    }
+}
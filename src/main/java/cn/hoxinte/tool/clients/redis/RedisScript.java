@@ -0,0 +1,54 @@
+package cn.hoxinte.tool.clients.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lua 脚本
+ * <p>
+ * 创建时在本地计算 SHA1，执行时使用 EVALSHA，服务端没有缓存时使用 EVAL 发送脚本并由服务端缓存
+ * 集群模式下脚本使用的所有 Key 需要在同一个 slot
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public final class RedisScript {
+
+    private final byte[] script;
+    private final byte[] sha1;
+
+    private RedisScript(String script) {
+        this.script = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = sha1Hex(this.script).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static RedisScript of(String script) {
+        return new RedisScript(script);
+    }
+
+    byte[] getScript() {
+        return script;
+    }
+
+    byte[] getSha1() {
+        return sha1;
+    }
+
+    public String getSha1Hex() {
+        return new String(sha1, StandardCharsets.UTF_8);
+    }
+
+    private static String sha1Hex(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Redis - script sha1 failed !", e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import cn.hoxinte.tool.clients.redis.memory.MemoryScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Lua 脚本执行
+ * <p>
+ * 将读取、判断、写入的组合操作合并为一次原子往返，内置常用脚本
+ * 自定义脚本通过 RedisScript.of 创建后保存为常量复用，需要在进程内存储运行时通过 MemoryRedis.registerScript 注册同样逻辑的实现
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class RedisScripts {
+
+    /**
+     * 从列表头部弹出最多 N 个元素
+     * KEYS[1] 列表 ARGV[1] 数量
+     */
+    public static final RedisScript POP_N = RedisScript.of(
+            "local values = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)\n" +
+                    "if #values > 0 then redis.call('LTRIM', KEYS[1], #values, -1) end\n" +
+                    "return values");
+
+    /**
+     * 读取并延长过期时间
+     * KEYS[1] 缓存 ARGV[1] 过期时间 秒
+     */
+    public static final RedisScript GET_AND_TOUCH = RedisScript.of(
+            "local value = redis.call('GET', KEYS[1])\n" +
+                    "if value then redis.call('EXPIRE', KEYS[1], ARGV[1]) end\n" +
+                    "return value");
+
+    /**
+     * 当前值与期望值相同时写入，期望值为空表示 Key 不存在
+     * KEYS[1] 缓存 ARGV[1] 期望值 ARGV[2] 新值 ARGV[3] 过期时间 秒，0 为永久
+     */
+    public static final RedisScript COMPARE_AND_SET = RedisScript.of(
+            "local current = redis.call('GET', KEYS[1])\n" +
+                    "if (current == false and ARGV[1] == '') or current == ARGV[1] then\n" +
+                    "  if tonumber(ARGV[3]) > 0 then redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])\n" +
+                    "  else redis.call('SET', KEYS[1], ARGV[2]) end\n" +
+                    "  return 1\n" +
+                    "end\n" +
+                    "return 0");
+
+    /**
+     * 当前值与期望值相同时删除
+     * KEYS[1] 缓存 ARGV[1] 期望值
+     */
+    public static final RedisScript REMOVE_IF_EQUALS = RedisScript.of(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+                    "return 0");
+
+    private static final long SUCCESS = 1L;
+
+    static {
+        MemoryRedis.registerScript(POP_N.getSha1Hex(), RedisScripts::popN);
+        MemoryRedis.registerScript(GET_AND_TOUCH.getSha1Hex(), RedisScripts::getAndTouch);
+        MemoryRedis.registerScript(COMPARE_AND_SET.getSha1Hex(), RedisScripts::compareAndSet);
+        MemoryRedis.registerScript(REMOVE_IF_EQUALS.getSha1Hex(), RedisScripts::removeIfEquals);
+    }
+
+    /**
+     * 从列表头部弹出最多 count 个元素
+     *
+     * @param key    缓存Key
+     * @param count  最大数量
+     * @param tClass 元素类型
+     * @param <T>    元素类型
+     * @return 弹出的元素，列表为空返回空列表
+     */
+    public static <T> List<T> leftPop(String key, int count, Class<T> tClass) {
+        Object result = eval(POP_N, key, toBytes(count));
+        if (!(result instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<?> values = (List<?>) result;
+        List<T> list = new ArrayList<>(values.size());
+        for (Object value : values) {
+            list.add(tClass.cast(RedisClient.unSerialize((byte[]) value)));
+        }
+        return list;
+    }
+
+    /**
+     * 读取缓存并重新设置过期时间
+     *
+     * @param key     缓存Key
+     * @param seconds 过期时间 秒
+     * @param tClass  元素类型
+     * @param <T>     元素类型
+     * @return 缓存对象，不存在返回 null
+     */
+    public static <T> T getAndTouch(String key, int seconds, Class<T> tClass) {
+        Object result = eval(GET_AND_TOUCH, key, toBytes(seconds));
+        return result instanceof byte[] ? tClass.cast(RedisClient.unSerialize((byte[]) result)) : null;
+    }
+
+    /**
+     * 当前值与期望值相同时写入新值
+     * 按编码后的字节比较，期望值为 null 表示 Key 不存在
+     *
+     * @param key     缓存Key
+     * @param expect  期望值
+     * @param update  新值
+     * @param seconds 过期时间 秒，0 为永久
+     * @return 是否写入
+     */
+    public static boolean compareAndSet(String key, Object expect, Object update, int seconds) {
+        byte[] expectBytes = null == expect ? new byte[0] : RedisClient.serialize(expect);
+        Object result = eval(COMPARE_AND_SET, key, expectBytes, RedisClient.serialize(update),
+                toBytes(Math.max(0, seconds)));
+        return Objects.equals(SUCCESS, result);
+    }
+
+    /**
+     * 当前值与期望值相同时删除，用于释放自己持有的锁、租约
+     *
+     * @param key    缓存Key
+     * @param expect 期望值
+     * @return 是否删除
+     */
+    public static boolean removeIfEquals(String key, Object expect) {
+        return Objects.equals(SUCCESS, eval(REMOVE_IF_EQUALS, key, RedisClient.serialize(expect)));
+    }
+
+    /**
+     * 执行单 Key 脚本
+     *
+     * @param script 脚本
+     * @param key    缓存Key
+     * @param args   参数
+     * @return 脚本返回值，字符串为 byte[]，数字为 Long，数组为 List，异常时返回 null
+     */
+    public static Object eval(RedisScript script, String key, byte[]... args) {
+        byte[] keyBytes = RedisClient.serializeKey(key);
+        NearCache.invalidate(keyBytes);
+        return RedisClient.eval(script, Collections.singletonList(keyBytes), Arrays.asList(args));
+    }
+
+    private static byte[] toBytes(long number) {
+        return String.valueOf(number).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 进程内存储实现，与脚本逻辑一致
+
+    private static Object popN(MemoryScript.Call redis, byte[][] keys, byte[][] argv) {
+        List<?> values = (List<?>) redis.call("LRANGE", keys[0], 0, MemoryScript.toLong(argv[0]) - 1);
+        if (!values.isEmpty()) {
+            redis.call("LTRIM", keys[0], values.size(), -1);
+        }
+        return values;
+    }
+
+    private static Object getAndTouch(MemoryScript.Call redis, byte[][] keys, byte[][] argv) {
+        Object value = redis.call("GET", keys[0]);
+        if (null != value) {
+            redis.call("EXPIRE", keys[0], argv[0]);
+        }
+        return value;
+    }
+
+    private static Object compareAndSet(MemoryScript.Call redis, byte[][] keys, byte[][] argv) {
+        byte[] current = (byte[]) redis.call("GET", keys[0]);
+        if (null == current ? argv[0].length > 0 : !Arrays.equals(current, argv[0])) {
+            return 0L;
+        }
+        if (MemoryScript.toLong(argv[2]) > 0) {
+            redis.call("SET", keys[0], argv[1], "EX", argv[2]);
+        } else {
+            redis.call("SET", keys[0], argv[1]);
+        }
+        return SUCCESS;
+    }
+
+    private static Object removeIfEquals(MemoryScript.Call redis, byte[][] keys, byte[][] argv) {
+        if (Arrays.equals((byte[]) redis.call("GET", keys[0]), argv[0])) {
+            return redis.call("DEL", keys[0]);
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,83 @@
+package cn.hoxinte.tool.clients.redis;
+
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * SCAN 系列命令迭代器
+ * <p>
+ * 按游标逐页读取，内存中只保留当前页，集群 SCAN 时依次遍历每个主节点
+ * SCAN 命令可能返回重复元素，调用方需要自行处理
+ * 读取失败时抛出异常，不会当作遍历结束返回部分结果
+ *
+ * @param <E> 原始元素类型
+ * @param <R> 解码后元素类型
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class ScanIterator<E, R> implements Iterator<R> {
+
+    private final Iterator<Function<byte[], ScanResult<E>>> fetchers;
+    private final Function<E, R> decoder;
+
+    private Function<byte[], ScanResult<E>> fetcher;
+    private byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+    private Iterator<E> page = Collections.emptyIterator();
+
+    ScanIterator(List<Function<byte[], ScanResult<E>>> fetcherList, Function<E, R> decoder) {
+        this.fetchers = fetcherList.iterator();
+        this.fetcher = fetchers.hasNext() ? fetchers.next() : null;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && null != fetcher) {
+            page = fetch().iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return decoder.apply(page.next());
+    }
+
+    /**
+     * 读取下一页，当前页未读完时返回剩余部分
+     *
+     * @return 解码后的一页元素，迭代结束返回空列表
+     */
+    List<R> nextPage() {
+        if (!hasNext()) {
+            return Collections.emptyList();
+        }
+        List<R> result = new ArrayList<>();
+        while (page.hasNext()) {
+            result.add(decoder.apply(page.next()));
+        }
+        return result;
+    }
+
+    Stream<R> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+    }
+
+    private List<E> fetch() {
+        ScanResult<E> result = fetcher.apply(cursor);
+        cursor = result.getCursorAsBytes();
+        if (result.isCompleteIteration()) {
+            cursor = ScanParams.SCAN_POINTER_START_BINARY;
+            fetcher = fetchers.hasNext() ? fetchers.next() : null;
+        }
+        return result.getResult();
+    }
+}
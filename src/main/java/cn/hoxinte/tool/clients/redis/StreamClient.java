@@ -2,17 +2,23 @@ package cn.hoxinte.tool.clients.redis;
 
 import cn.hoxinte.tool.utils.BaseUtil;
 import cn.hoxinte.tool.utils.LoadUtil;
+import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XAddParams;
 import redis.clients.jedis.params.XReadGroupParams;
 import redis.clients.jedis.resps.StreamEntry;
 import redis.clients.jedis.resps.StreamGroupInfo;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Redis Stream 客户端
@@ -32,9 +38,14 @@ public class StreamClient {
 
     static {
         JEDIS_POOL = initialPool();
+        StreamMetrics.start(RedisConfig.STREAM_METRICS_INTERVAL_SECONDS);
     }
 
     private static JedisPool initialPool() {
+        if (RedisConfig.USE_MEMORY) {
+            return new JedisPool(RedisConfig.jedisPool(), RedisConfig.memorySocketFactory(),
+                    DefaultJedisClientConfig.builder().socketTimeoutMillis(TIME_OUT).build());
+        }
         return new JedisPool(RedisConfig.jedisPool(), HOST, PORT, TIME_OUT, PASSWORD, DATABASE);
     }
 
@@ -43,10 +54,28 @@ public class StreamClient {
     }
 
     public static final String STREAM_MQ = "sm:";
+    /**
+     * 死信 Stream 后缀，投递次数超过上限的消息写入 key + 该后缀
+     */
+    public static final String DEAD_LETTER_SUFFIX = ":dlq";
     private static final String LAST_DELIVERED_ID = "0-0";
     public final static int MQ_INFO_CONSUMER = 1;
     public final static int MQ_INFO_GROUP = 2;
 
+    /**
+     * 确认方式
+     */
+    public enum AckMode {
+        /**
+         * 读取后立即确认，处理失败的消息不再投递
+         */
+        AUTO,
+        /**
+         * 处理成功后确认，处理失败的消息留在待确认列表，至少处理一次
+         */
+        AT_LEAST_ONCE
+    }
+
     /**
      * 发送消息
      *
@@ -58,6 +87,28 @@ public class StreamClient {
         return produce(key, BaseUtil.beanToStringMap(obj));
     }
 
+    /**
+     * 批量发送消息，一次 Pipeline 写入
+     *
+     * @param key     请求Key
+     * @param objList 发送数据
+     * @return 消息id，与发送数据顺序一致
+     */
+    public static List<StreamEntryID> sendBatch(String key, Collection<?> objList) {
+        if (objList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Map<String, String>> messageList = new ArrayList<>(objList.size());
+        for (Object obj : objList) {
+            messageList.add(BaseUtil.beanToStringMap(obj));
+        }
+        try (Jedis jedis = getJedis()) {
+            return produceBatch(jedis, key, messageList);
+        } catch (Exception e) {
+            throw new RuntimeException("Stream - product failed !", e);
+        }
+    }
+
     /**
      * 发布消息到Stream
      *
@@ -68,12 +119,50 @@ public class StreamClient {
     private static StreamEntryID produce(String key, Map<String, String> message) {
         try (Jedis jedis = getJedis()) {
             //xAdd 发布消息到
-            return jedis.xadd(STREAM_MQ + key, StreamEntryID.NEW_ENTRY, message);
+            return jedis.xadd(STREAM_MQ + key, addParams(), message);
         } catch (Exception e) {
             throw new RuntimeException("Stream - product failed !");
         }
     }
 
+    /**
+     * Pipeline 发布多条消息
+     *
+     * @param jedis       连接
+     * @param key         key
+     * @param messageList 消息内容
+     * @return 消息id
+     */
+    static List<StreamEntryID> produceBatch(Jedis jedis, String key, List<Map<String, String>> messageList) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<StreamEntryID>> responseList = new ArrayList<>(messageList.size());
+        for (Map<String, String> message : messageList) {
+            // 每条都带裁剪参数，近似裁剪只在整个宏节点可删除时执行，开销很小
+            responseList.add(pipeline.xadd(STREAM_MQ + key, addParams(), message));
+        }
+        pipeline.sync();
+        List<StreamEntryID> idList = new ArrayList<>(responseList.size());
+        for (Response<StreamEntryID> response : responseList) {
+            idList.add(response.get());
+        }
+        return idList;
+    }
+
+    /**
+     * 写入参数，按配置近似裁剪 MAXLEN ~ 或 MINID ~
+     */
+    static XAddParams addParams() {
+        XAddParams params = XAddParams.xAddParams();
+        if (RedisConfig.STREAM_MAX_LEN > 0) {
+            return params.maxLen(RedisConfig.STREAM_MAX_LEN).approximateTrimming();
+        }
+        if (RedisConfig.STREAM_RETENTION_MILLIS > 0) {
+            long minId = System.currentTimeMillis() - RedisConfig.STREAM_RETENTION_MILLIS;
+            return params.minId(minId + "-0").approximateTrimming();
+        }
+        return params;
+    }
+
     /**
      * 创建消费群组,消费群组不可重复创建
      *
@@ -95,7 +184,7 @@ public class StreamClient {
     }
 
     /**
-     * 自动接收消息
+     * 自动接收消息，读取后立即确认并删除
      *
      * @param key          steam key
      * @param customerName 定义名称
@@ -105,76 +194,114 @@ public class StreamClient {
      * @return 消息结果数组
      */
     public static <T> List<T> autoReceived(String key, String customerName, String groupName, Class<T> clazz) {
-        Map.Entry<String, List<StreamEntry>> rnt = consume(customerName, groupName, key);
-        List<StreamEntry> streamList = rnt.getValue();
-        StreamEntryID[] streamEntryIds = streamList.stream().map(StreamEntry::getID).toArray(StreamEntryID[]::new);
-        ackMsg(key, groupName, streamEntryIds);
-        del(key, streamEntryIds);
-        List<T> result = new ArrayList<>(streamList.size());
-        for (StreamEntry streamEntry : rnt.getValue()) {
-            result.add(BaseUtil.stringMapToBean(streamEntry.getFields(), clazz));
+        try (Jedis jedis = getJedis()) {
+            List<StreamEntry> streamList = consume(jedis, customerName, groupName, key);
+            if (!streamList.isEmpty()) {
+                ackAndDelete(jedis, STREAM_MQ + key, groupName, true, toIds(streamList));
+            }
+            List<T> result = new ArrayList<>(streamList.size());
+            for (StreamEntry streamEntry : streamList) {
+                result.add(BaseUtil.stringMapToBean(streamEntry.getFields(), clazz));
+            }
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Stream - consume failed !", e);
         }
-        return result;
-    }
-
-    private static Map.Entry<String, List<StreamEntry>> consume(String customerName, String groupName, String key) {
-        List<Map.Entry<String, List<StreamEntry>>> entryList = consumes(customerName, groupName, key);
-        assert entryList.size() != 0;
-        return entryList.get(0);
     }
 
     /**
-     * 消息消费
+     * 接收一批消息并逐条处理
+     * <p>
+     * AUTO 读取后立即确认，处理失败的消息不再投递；AT_LEAST_ONCE 处理完成后只确认处理成功的消息，失败的消息留在待确认列表
+     * 确认与删除在同一次 Pipeline 中发送，删除对所有消费组生效，只在 Stream 只有一个消费组时使用
      *
-     * @param keys         keys
+     * @param key          steam key
      * @param customerName 消费者名称
-     * @param groupName    组名
-     * @return 消费结果
+     * @param groupName    组名称
+     * @param clazz        数据类型
+     * @param handler      处理方法，抛出异常视为处理失败
+     * @param ackMode      确认方式
+     * @param delete       确认后是否删除
+     * @param <T>          数据类型
+     * @return 处理成功数量
      */
-    private static List<Map.Entry<String, List<StreamEntry>>> consumes(String customerName, String groupName, String... keys) {
+    public static <T> int receive(String key, String customerName, String groupName, Class<T> clazz,
+                                  Consumer<T> handler, AckMode ackMode, boolean delete) {
         try (Jedis jedis = getJedis()) {
-            // 以阻塞或者非阻塞方式读取，默认超时时间设为1毫秒
-            XReadGroupParams xReadGroupParams = new XReadGroupParams().block(0).count(10);
-            Map<String, StreamEntryID> streams = new HashMap<>(keys.length);
-            for (String key : keys) {
-                streams.put(STREAM_MQ + key, StreamEntryID.UNRECEIVED_ENTRY);
-            }
-            return jedis.xreadGroup(groupName, customerName, xReadGroupParams, streams);
+            return receive(jedis, key, customerName, groupName, clazz, handler, ackMode, delete);
         } catch (Exception e) {
             throw new RuntimeException("Stream - consume failed !", e);
         }
     }
 
+    static <T> int receive(Jedis jedis, String key, String customerName, String groupName, Class<T> clazz,
+                           Consumer<T> handler, AckMode ackMode, boolean delete) {
+        List<StreamEntry> streamList = consume(jedis, customerName, groupName, key);
+        if (streamList.isEmpty()) {
+            return 0;
+        }
+        if (AckMode.AUTO == ackMode) {
+            ackAndDelete(jedis, STREAM_MQ + key, groupName, delete, toIds(streamList));
+        }
+        List<StreamEntry> handledList = new ArrayList<>(streamList.size());
+        for (StreamEntry streamEntry : streamList) {
+            try {
+                handler.accept(BaseUtil.stringMapToBean(streamEntry.getFields(), clazz));
+                handledList.add(streamEntry);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        if (AckMode.AT_LEAST_ONCE == ackMode && !handledList.isEmpty()) {
+            ackAndDelete(jedis, STREAM_MQ + key, groupName, delete, toIds(handledList));
+        }
+        return handledList.size();
+    }
+
     /**
-     * 消息确认
+     * 消息消费
      *
-     * @param key       key
-     * @param groupName 组名
-     * @param ids       消费ID
+     * @param jedis        连接
+     * @param customerName 消费者名称
+     * @param groupName    组名
+     * @param key          key
+     * @return 消费结果，没有消息时为空
      */
-    private static void ackMsg(String key, String groupName, StreamEntryID... ids) {
-        if (ids.length == 0) {
-            throw new RuntimeException("msg id is empty !");
-        }
-        try (Jedis jedis = getJedis()) {
-            jedis.xack(key, groupName, ids);
-        } catch (Exception e) {
-            throw new RuntimeException("Stream - ack msg failed !", e);
+    private static List<StreamEntry> consume(Jedis jedis, String customerName, String groupName, String key) {
+        // 没有新消息时最多阻塞 block-millis，每次最多读取 batch-size 条，与 StreamConsumer 一致
+        XReadGroupParams xReadGroupParams = new XReadGroupParams()
+                .block(RedisConfig.STREAM_BLOCK_MILLIS).count(RedisConfig.STREAM_BATCH_SIZE);
+        Map<String, StreamEntryID> streams = Collections.singletonMap(STREAM_MQ + key, StreamEntryID.UNRECEIVED_ENTRY);
+        List<Map.Entry<String, List<StreamEntry>>> entryList = jedis.xreadGroup(groupName, customerName, xReadGroupParams, streams);
+        if (null == entryList || entryList.isEmpty()) {
+            return Collections.emptyList();
         }
+        return entryList.get(0).getValue();
     }
 
     /**
-     * 删除
+     * 确认消息，需要时在同一次 Pipeline 中删除
      *
-     * @param key key
-     * @param id  消费ID
+     * @param jedis     连接
+     * @param streamKey 带前缀的 stream key
+     * @param groupName 组名
+     * @param delete    是否删除
+     * @param ids       消息ID
+     * @return 确认数量
      */
-    private static void del(String key, StreamEntryID... id) {
-        try (Jedis jedis = getJedis()) {
-            jedis.xdel(STREAM_MQ + key, id);
-        } catch (Exception e) {
-            throw new RuntimeException("Stream - delete failed !", e);
+    static long ackAndDelete(Jedis jedis, String streamKey, String groupName, boolean delete, StreamEntryID... ids) {
+        if (!delete) {
+            return jedis.xack(streamKey, groupName, ids);
         }
+        Pipeline pipeline = jedis.pipelined();
+        Response<Long> acked = pipeline.xack(streamKey, groupName, ids);
+        pipeline.xdel(streamKey, ids);
+        pipeline.sync();
+        return acked.get();
+    }
+
+    private static StreamEntryID[] toIds(List<StreamEntry> streamList) {
+        return streamList.stream().map(StreamEntry::getID).toArray(StreamEntryID[]::new);
     }
 
     /**
@@ -0,0 +1,396 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.utils.BaseUtil;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.XAutoClaimParams;
+import redis.clients.jedis.params.XPendingParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.resps.StreamPendingEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Stream 消费者
+ * <p>
+ * 读取线程循环 XREADGROUP 读取新消息，交给固定数量的处理线程执行，处理成功后确认
+ * 处理中及等待处理的消息数量达到上限时读取线程暂停读取，每次读取数量不超过剩余额度，避免消息堆积在内存
+ * 确认在下次读取前批量发送；处理失败的消息不确认，留在待确认列表
+ * 每隔 reclaimIntervalMillis 用 XAUTOCLAIM 接管组内空闲超过 reclaimIdleMillis 的待确认消息重新处理，包括已停止的消费者未确认的消息
+ * 投递次数超过 maxDeliveries 的消息写入死信 Stream（原 key 加 :dlq）并确认，不再处理
+ * 设置 deleteAfterAck 后确认与 XDEL 在同一次 Pipeline 中发送
+ * 关闭时停止读取，等待已读取的消息处理完成并确认
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class StreamConsumer<T> implements AutoCloseable {
+
+    private static final AtomicInteger INDEX = new AtomicInteger();
+    /**
+     * 读取失败后重试间隔 毫秒
+     */
+    private static final long RETRY_MILLIS = 1000;
+    private static final String BUSY_GROUP = "BUSYGROUP";
+    private static final StreamEntryID START_ID = new StreamEntryID();
+
+    private final String key;
+    private final String groupName;
+    private final String consumerName;
+    private final Class<T> clazz;
+    private final Consumer<T> handler;
+    private final int batchSize;
+    private final int blockMillis;
+    private final Supplier<Jedis> jedisSupplier;
+    private final ExecutorService workers;
+    private final Semaphore permits;
+    private final Queue<StreamEntryID> ackQueue = new ConcurrentLinkedQueue<>();
+    private final Thread pollThread;
+    private final Thread shutdownHook;
+    private final AtomicLong handledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong deadCount = new AtomicLong();
+    private volatile long reclaimIdleMillis = RedisConfig.STREAM_RECLAIM_IDLE_MILLIS;
+    private volatile long reclaimIntervalMillis = RedisConfig.STREAM_RECLAIM_INTERVAL_MILLIS;
+    private volatile int maxDeliveries = RedisConfig.STREAM_MAX_DELIVERIES;
+    private volatile boolean deleteAfterAck;
+    /**
+     * XAUTOCLAIM 游标，只在读取线程访问
+     */
+    private StreamEntryID reclaimCursor = START_ID;
+    private volatile long nextReclaimTime;
+    private volatile boolean running = true;
+
+    StreamConsumer(String key, String groupName, String consumerName, Class<T> clazz, Consumer<T> handler,
+                   int batchSize, int blockMillis, int workerCount, ThreadFactory threadFactory, Supplier<Jedis> jedisSupplier) {
+        this.key = StreamClient.STREAM_MQ + key;
+        this.groupName = groupName;
+        this.consumerName = consumerName;
+        this.clazz = clazz;
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.blockMillis = blockMillis;
+        this.jedisSupplier = jedisSupplier;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        // 处理中的消息加一批等待处理的消息
+        this.permits = new Semaphore(workerCount + batchSize);
+        int index = INDEX.incrementAndGet();
+        this.pollThread = new Thread(this::poll, "redis-stream-poll-" + index);
+        pollThread.setDaemon(true);
+        createGroup();
+        pollThread.start();
+        this.shutdownHook = new Thread(this::close, "redis-stream-shutdown-" + index);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 按配置启动消费者，消费组不存在时创建，从头开始消费
+     *
+     * @param key          stream key
+     * @param groupName    组名称
+     * @param consumerName 消费者名称
+     * @param clazz        数据类型
+     * @param handler      消息处理，抛出异常时消息不确认
+     * @param <T>          数据类型
+     * @return 消费者
+     */
+    public static <T> StreamConsumer<T> start(String key, String groupName, String consumerName, Class<T> clazz,
+                                              Consumer<T> handler) {
+        return start(key, groupName, consumerName, clazz, handler, RedisConfig.STREAM_BATCH_SIZE,
+                RedisConfig.STREAM_BLOCK_MILLIS, RedisConfig.STREAM_WORKERS, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * 启动消费者，消费组不存在时创建，从头开始消费
+     *
+     * @param key           stream key
+     * @param groupName     组名称
+     * @param consumerName  消费者名称
+     * @param clazz         数据类型
+     * @param handler       消息处理，抛出异常时消息不确认
+     * @param batchSize     每次读取最大数量
+     * @param blockMillis   没有消息时阻塞读取时长 毫秒，需小于连接读取超时
+     * @param workerCount   处理线程数
+     * @param threadFactory 处理线程工厂，运行在 Java 21 及以上时可传入虚拟线程工厂
+     * @param <T>           数据类型
+     * @return 消费者
+     */
+    public static <T> StreamConsumer<T> start(String key, String groupName, String consumerName, Class<T> clazz,
+                                              Consumer<T> handler, int batchSize, int blockMillis, int workerCount,
+                                              ThreadFactory threadFactory) {
+        if (batchSize <= 0 || blockMillis <= 0 || workerCount <= 0) {
+            throw new IllegalArgumentException("Stream - batch size, block millis and worker count must be positive !");
+        }
+        return new StreamConsumer<>(key, groupName, consumerName, clazz, handler, batchSize, blockMillis, workerCount,
+                threadFactory, StreamClient::getJedis);
+    }
+
+    /**
+     * 设置待确认消息接管，默认使用配置
+     *
+     * @param idleMillis     空闲超过该时长的待确认消息被接管 毫秒，需大于单条消息处理时长
+     * @param intervalMillis 检查间隔 毫秒
+     * @param maxDeliveries  最大投递次数，超过后转入死信 Stream
+     * @return 当前消费者
+     */
+    public StreamConsumer<T> reclaim(long idleMillis, long intervalMillis, int maxDeliveries) {
+        if (idleMillis <= 0 || intervalMillis <= 0 || maxDeliveries <= 0) {
+            throw new IllegalArgumentException("Stream - reclaim idle millis, interval millis and max deliveries must be positive !");
+        }
+        this.reclaimIdleMillis = idleMillis;
+        this.reclaimIntervalMillis = intervalMillis;
+        this.maxDeliveries = maxDeliveries;
+        this.nextReclaimTime = 0;
+        return this;
+    }
+
+    /**
+     * 设置确认后是否删除消息，默认不删除
+     * <p>
+     * 删除对所有消费组生效，只在 Stream 只有一个消费组时使用
+     *
+     * @param delete 是否删除
+     * @return 当前消费者
+     */
+    public StreamConsumer<T> deleteAfterAck(boolean delete) {
+        this.deleteAfterAck = delete;
+        return this;
+    }
+
+    /**
+     * 处理成功数量
+     *
+     * @return 数量
+     */
+    public long getHandledCount() {
+        return handledCount.get();
+    }
+
+    /**
+     * 处理失败数量
+     *
+     * @return 数量
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * 转入死信 Stream 的数量
+     *
+     * @return 数量
+     */
+    public long getDeadCount() {
+        return deadCount.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 停止读取，等待已读取的消息处理完成并确认，最长等待 shutdown-millis
+     */
+    @Override
+    public void close() {
+        try {
+            // 读取线程中断时已停止，同样需要移除
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM 关闭中，由关闭钩子调用
+        }
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            // 读取线程最多阻塞 blockMillis
+            pollThread.join(blockMillis + RETRY_MILLIS);
+            workers.shutdown();
+            if (!workers.awaitTermination(RedisConfig.STREAM_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try (Jedis jedis = jedisSupplier.get()) {
+            flushAck(jedis);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void createGroup() {
+        try (Jedis jedis = jedisSupplier.get()) {
+            jedis.xgroupCreate(key, groupName, START_ID, true);
+        } catch (JedisDataException e) {
+            if (null == e.getMessage() || !e.getMessage().startsWith(BUSY_GROUP)) {
+                throw new RuntimeException("Stream - create custom group failed !", e);
+            }
+        }
+    }
+
+    private void poll() {
+        while (running) {
+            int count = acquire();
+            if (count == 0) {
+                continue;
+            }
+            List<StreamEntry> entryList;
+            try (Jedis jedis = jedisSupplier.get()) {
+                flushAck(jedis);
+                entryList = System.currentTimeMillis() >= nextReclaimTime ? reclaim(jedis, count) : Collections.emptyList();
+                if (entryList.isEmpty()) {
+                    entryList = read(jedis, count);
+                }
+            } catch (RuntimeException e) {
+                permits.release(count);
+                e.printStackTrace();
+                pause();
+                continue;
+            }
+            permits.release(count - entryList.size());
+            for (StreamEntry entry : entryList) {
+                workers.execute(() -> handle(entry));
+            }
+        }
+    }
+
+    /**
+     * 获取本次读取额度，至少等待一个额度，最多 batchSize
+     *
+     * @return 额度，超时或关闭时为 0
+     */
+    private int acquire() {
+        try {
+            if (!permits.tryAcquire(blockMillis, TimeUnit.MILLISECONDS)) {
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            running = false;
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        int count = 1;
+        while (count < batchSize && permits.tryAcquire()) {
+            count++;
+        }
+        if (!running) {
+            permits.release(count);
+            return 0;
+        }
+        return count;
+    }
+
+    private List<StreamEntry> read(Jedis jedis, int count) {
+        XReadGroupParams params = XReadGroupParams.xReadGroupParams().count(count).block(blockMillis);
+        List<Map.Entry<String, List<StreamEntry>>> result = jedis.xreadGroup(groupName, consumerName, params,
+                Collections.singletonMap(key, StreamEntryID.UNRECEIVED_ENTRY));
+        if (null == result || result.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return result.get(0).getValue();
+    }
+
+    /**
+     * 接管空闲的待确认消息，投递次数超过上限的转入死信 Stream
+     *
+     * @return 需要重新处理的消息
+     */
+    private List<StreamEntry> reclaim(Jedis jedis, int count) {
+        Map.Entry<StreamEntryID, List<StreamEntry>> result = jedis.xautoclaim(key, groupName, consumerName,
+                reclaimIdleMillis, reclaimCursor, XAutoClaimParams.xAutoClaimParams().count(count));
+        reclaimCursor = result.getKey();
+        // 游标回到 0-0 表示一轮扫描完成，否则下次读取前继续接管
+        nextReclaimTime = START_ID.equals(reclaimCursor) ? System.currentTimeMillis() + reclaimIntervalMillis : 0;
+        List<StreamEntry> claimedList = result.getValue();
+        if (claimedList.isEmpty()) {
+            return claimedList;
+        }
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<StreamPendingEntry>>> pendingList = new ArrayList<>(claimedList.size());
+        for (StreamEntry entry : claimedList) {
+            pendingList.add(pipeline.xpending(key, groupName, XPendingParams.xPendingParams(entry.getID(), entry.getID(), 1)));
+        }
+        pipeline.sync();
+        List<StreamEntry> liveList = new ArrayList<>(claimedList.size());
+        List<StreamEntry> deadList = new ArrayList<>();
+        for (int i = 0; i < claimedList.size(); i++) {
+            List<StreamPendingEntry> pending = pendingList.get(i).get();
+            if (!pending.isEmpty() && pending.get(0).getDeliveredTimes() > maxDeliveries) {
+                deadList.add(claimedList.get(i));
+            } else {
+                liveList.add(claimedList.get(i));
+            }
+        }
+        if (!deadList.isEmpty()) {
+            deadLetter(jedis, deadList);
+        }
+        return liveList;
+    }
+
+    private void deadLetter(Jedis jedis, List<StreamEntry> deadList) {
+        Pipeline pipeline = jedis.pipelined();
+        StreamEntryID[] ids = new StreamEntryID[deadList.size()];
+        for (int i = 0; i < deadList.size(); i++) {
+            pipeline.xadd(key + StreamClient.DEAD_LETTER_SUFFIX, StreamClient.addParams(), deadList.get(i).getFields());
+            ids[i] = deadList.get(i).getID();
+        }
+        pipeline.xack(key, groupName, ids);
+        pipeline.sync();
+        deadCount.addAndGet(deadList.size());
+    }
+
+    private void handle(StreamEntry entry) {
+        try {
+            handler.accept(BaseUtil.stringMapToBean(entry.getFields(), clazz));
+            ackQueue.add(entry.getID());
+            handledCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            e.printStackTrace();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void flushAck(Jedis jedis) {
+        List<StreamEntryID> idList = new ArrayList<>();
+        for (StreamEntryID id = ackQueue.poll(); null != id; id = ackQueue.poll()) {
+            idList.add(id);
+        }
+        if (idList.isEmpty()) {
+            return;
+        }
+        try {
+            StreamClient.ackAndDelete(jedis, key, groupName, deleteAfterAck, idList.toArray(new StreamEntryID[0]));
+        } catch (RuntimeException e) {
+            // 下次读取前重试
+            ackQueue.addAll(idList);
+            throw e;
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(RETRY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.metrics.RedisMetrics;
+import lombok.extern.slf4j.Slf4j;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.resps.StreamConsumersInfo;
+import redis.clients.jedis.resps.StreamGroupInfo;
+import redis.clients.jedis.resps.StreamInfo;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Stream 消费组指标
+ * <p>
+ * 每个周期 SCAN 所有 sm: 前缀的 Stream，通过 XINFO STREAM、GROUPS、CONSUMERS 采集长度、积压、待确认数及消费者空闲时间
+ * 写入、消费速率为两次采样的差值除以间隔；Redis 7 以下没有 entries-added、lag 字段时用 XRANGE 计数，最多计 10000 条
+ * 指标名
+ * redis.stream.{key}.length / produce-rate                         长度，每秒写入条数
+ * redis.stream.{key}.{组}.lag / pending / consume-rate             未投递条数，待确认条数，每秒消费条数
+ * redis.stream.{key}.{组}.{消费者}.pending / idle                  待确认条数，空闲时间 毫秒
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+@Slf4j
+public final class StreamMetrics {
+
+    private static final String PREFIX = "redis.stream.";
+    private static final String STREAM_TYPE = "stream";
+    private static final String ENTRIES_ADDED = "entries-added";
+    private static final String LAG = "lag";
+    private static final int SCAN_COUNT = 100;
+    /**
+     * 没有 entries-added、lag 字段时 XRANGE 计数上限
+     */
+    private static final int RANGE_LIMIT = 10000;
+
+    private static volatile Map<String, StreamStat> SNAPSHOT = Collections.emptyMap();
+    private static volatile long SAMPLE_TIME;
+    /**
+     * 已注册的指标名，采集后移除已删除的 Stream、组、消费者的指标
+     */
+    private static Set<String> GAUGE_NAMES = Collections.emptySet();
+    private static volatile Consumer<Collection<StreamStat>> REPORTER = statList -> {
+        if (!statList.isEmpty()) {
+            log.info("redis streams {}", statList);
+        }
+    };
+
+    private static ScheduledExecutorService SCHEDULER;
+
+    private StreamMetrics() {
+    }
+
+    /**
+     * 启动采集
+     *
+     * @param intervalSeconds 采集间隔 秒，小于等于 0 时不采集
+     */
+    public static synchronized void start(int intervalSeconds) {
+        if (intervalSeconds <= 0 || null != SCHEDULER) {
+            return;
+        }
+        SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-stream-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SCHEDULER.scheduleAtFixedRate(StreamMetrics::report, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 替换周期输出方式，默认输出日志
+     *
+     * @param reporter 每个周期所有 Stream 的指标
+     */
+    public static void setReporter(Consumer<Collection<StreamStat>> reporter) {
+        REPORTER = reporter;
+    }
+
+    /**
+     * 最近一次采集结果
+     *
+     * @return key 为带前缀的 Stream key
+     */
+    public static Map<String, StreamStat> getSnapshot() {
+        return SNAPSHOT;
+    }
+
+    private static void report() {
+        try (Jedis jedis = StreamClient.getJedis()) {
+            REPORTER.accept(sample(jedis, System.currentTimeMillis()).values());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 采集一次，与上次结果比较计算速率
+     *
+     * @param jedis 连接
+     * @param now   采集时间 毫秒
+     * @return 采集结果
+     */
+    static synchronized Map<String, StreamStat> sample(Jedis jedis, long now) {
+        Map<String, StreamStat> previous = SNAPSHOT;
+        double seconds = SAMPLE_TIME > 0 ? (now - SAMPLE_TIME) / 1000.0 : 0;
+        Map<String, StreamStat> current = new TreeMap<>();
+        Set<String> gaugeNames = new HashSet<>();
+        for (String key : scanStreams(jedis)) {
+            try {
+                StreamStat stat = sampleStream(jedis, key, previous.get(key), seconds);
+                current.put(key, stat);
+                register(stat, gaugeNames);
+            } catch (RuntimeException e) {
+                // 采集期间被删除
+                e.printStackTrace();
+            }
+        }
+        for (String name : GAUGE_NAMES) {
+            if (!gaugeNames.contains(name)) {
+                RedisMetrics.removeGauge(name);
+            }
+        }
+        GAUGE_NAMES = gaugeNames;
+        SNAPSHOT = Collections.unmodifiableMap(current);
+        SAMPLE_TIME = now;
+        return SNAPSHOT;
+    }
+
+    private static List<String> scanStreams(Jedis jedis) {
+        List<String> keyList = new ArrayList<>();
+        ScanParams params = new ScanParams().match(StreamClient.STREAM_MQ + "*").count(SCAN_COUNT);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> result = jedis.scan(cursor, params, STREAM_TYPE);
+            keyList.addAll(result.getResult());
+            cursor = result.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        return keyList;
+    }
+
+    private static StreamStat sampleStream(Jedis jedis, String key, StreamStat previous, double seconds) {
+        StreamInfo info = jedis.xinfoStream(key);
+        StreamEntryID lastId = info.getLastGeneratedId();
+        Object entriesAdded = info.getStreamInfo().get(ENTRIES_ADDED);
+        long added;
+        long produced = 0;
+        if (entriesAdded instanceof Long) {
+            added = (Long) entriesAdded;
+            produced = null == previous ? 0 : added - previous.added;
+        } else {
+            added = -1;
+            if (null != previous && !lastId.equals(previous.lastId)) {
+                produced = countAfter(jedis, key, previous.lastId);
+            }
+        }
+        List<GroupStat> groupList = new ArrayList<>();
+        for (StreamGroupInfo groupInfo : jedis.xinfoGroups(key)) {
+            Object lagValue = groupInfo.getGroupInfo().get(LAG);
+            long lag = lagValue instanceof Long ? (Long) lagValue : countAfter(jedis, key, groupInfo.getLastDeliveredId());
+            GroupStat previousGroup = null == previous ? null : previous.getGroup(groupInfo.getName());
+            // 消费条数 = 写入条数 - 积压增加条数
+            long consumed = null == previousGroup ? 0 : Math.max(0, produced - (lag - previousGroup.lag));
+            List<ConsumerStat> consumerList = new ArrayList<>();
+            for (StreamConsumersInfo consumerInfo : jedis.xinfoConsumers(key, groupInfo.getName())) {
+                consumerList.add(new ConsumerStat(consumerInfo.getName(), consumerInfo.getPending(), consumerInfo.getIdle()));
+            }
+            groupList.add(new GroupStat(groupInfo.getName(), lag, groupInfo.getPending(), rate(consumed, seconds), consumerList));
+        }
+        return new StreamStat(key, info.getLength(), lastId, added, rate(produced, seconds), groupList);
+    }
+
+    /**
+     * 指定 ID 之后的条数，最多计 RANGE_LIMIT 条
+     */
+    private static long countAfter(Jedis jedis, String key, StreamEntryID id) {
+        return jedis.xrange(key, "(" + id, "+", RANGE_LIMIT).size();
+    }
+
+    private static double rate(long count, double seconds) {
+        return seconds > 0 ? count / seconds : 0;
+    }
+
+    private static void register(StreamStat stat, Set<String> gaugeNames) {
+        String streamPrefix = PREFIX + stat.key + ".";
+        String key = stat.key;
+        gauge(gaugeNames, streamPrefix + "length", () -> streamValue(key, s -> s.length));
+        gauge(gaugeNames, streamPrefix + "produce-rate", () -> streamValue(key, s -> s.produceRate));
+        for (GroupStat group : stat.groupList) {
+            String groupPrefix = streamPrefix + group.name + ".";
+            String groupName = group.name;
+            gauge(gaugeNames, groupPrefix + "lag", () -> groupValue(key, groupName, g -> g.lag));
+            gauge(gaugeNames, groupPrefix + "pending", () -> groupValue(key, groupName, g -> g.pending));
+            gauge(gaugeNames, groupPrefix + "consume-rate", () -> groupValue(key, groupName, g -> g.consumeRate));
+            for (ConsumerStat consumer : group.consumerList) {
+                String consumerPrefix = groupPrefix + consumer.name + ".";
+                String consumerName = consumer.name;
+                gauge(gaugeNames, consumerPrefix + "pending", () -> consumerValue(key, groupName, consumerName, c -> c.pending));
+                gauge(gaugeNames, consumerPrefix + "idle", () -> consumerValue(key, groupName, consumerName, c -> c.idle));
+            }
+        }
+    }
+
+    /**
+     * 已注册的指标不重复注册
+     */
+    private static void gauge(Set<String> gaugeNames, String name, Supplier<Number> supplier) {
+        gaugeNames.add(name);
+        if (!GAUGE_NAMES.contains(name)) {
+            RedisMetrics.gauge(name, supplier);
+        }
+    }
+
+    private static double streamValue(String key, ToDoubleFunction<StreamStat> getter) {
+        StreamStat stat = SNAPSHOT.get(key);
+        return null == stat ? 0 : getter.applyAsDouble(stat);
+    }
+
+    private static double groupValue(String key, String groupName, ToDoubleFunction<GroupStat> getter) {
+        StreamStat stat = SNAPSHOT.get(key);
+        GroupStat group = null == stat ? null : stat.getGroup(groupName);
+        return null == group ? 0 : getter.applyAsDouble(group);
+    }
+
+    private static double consumerValue(String key, String groupName, String consumerName, ToDoubleFunction<ConsumerStat> getter) {
+        StreamStat stat = SNAPSHOT.get(key);
+        GroupStat group = null == stat ? null : stat.getGroup(groupName);
+        if (null == group) {
+            return 0;
+        }
+        for (ConsumerStat consumer : group.consumerList) {
+            if (consumer.name.equals(consumerName)) {
+                return getter.applyAsDouble(consumer);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stream 指标
+     */
+    public static final class StreamStat {
+
+        private final String key;
+        private final long length;
+        private final StreamEntryID lastId;
+        private final long added;
+        private final double produceRate;
+        private final List<GroupStat> groupList;
+
+        private StreamStat(String key, long length, StreamEntryID lastId, long added, double produceRate, List<GroupStat> groupList) {
+            this.key = key;
+            this.length = length;
+            this.lastId = lastId;
+            this.added = added;
+            this.produceRate = produceRate;
+            this.groupList = Collections.unmodifiableList(groupList);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * 每秒写入条数，首次采集为 0
+         */
+        public double getProduceRate() {
+            return produceRate;
+        }
+
+        public List<GroupStat> getGroupList() {
+            return groupList;
+        }
+
+        public GroupStat getGroup(String name) {
+            for (GroupStat group : groupList) {
+                if (group.name.equals(name)) {
+                    return group;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return key + "{length=" + length + ", produceRate=" + String.format("%.1f", produceRate) + ", groups=" + groupList + '}';
+        }
+    }
+
+    /**
+     * 消费组指标
+     */
+    public static final class GroupStat {
+
+        private final String name;
+        private final long lag;
+        private final long pending;
+        private final double consumeRate;
+        private final List<ConsumerStat> consumerList;
+
+        private GroupStat(String name, long lag, long pending, double consumeRate, List<ConsumerStat> consumerList) {
+            this.name = name;
+            this.lag = lag;
+            this.pending = pending;
+            this.consumeRate = consumeRate;
+            this.consumerList = Collections.unmodifiableList(consumerList);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 尚未投递给组内消费者的条数
+         */
+        public long getLag() {
+            return lag;
+        }
+
+        /**
+         * 已投递未确认的条数
+         */
+        public long getPending() {
+            return pending;
+        }
+
+        /**
+         * 每秒消费条数，首次采集为 0
+         */
+        public double getConsumeRate() {
+            return consumeRate;
+        }
+
+        public List<ConsumerStat> getConsumerList() {
+            return consumerList;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{lag=" + lag + ", pending=" + pending + ", consumeRate=" + String.format("%.1f", consumeRate)
+                    + ", consumers=" + consumerList + '}';
+        }
+    }
+
+    /**
+     * 消费者指标
+     */
+    public static final class ConsumerStat {
+
+        private final String name;
+        private final long pending;
+        private final long idle;
+
+        private ConsumerStat(String name, long pending, long idle) {
+            this.name = name;
+            this.pending = pending;
+            this.idle = idle;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPending() {
+            return pending;
+        }
+
+        /**
+         * 距上次读取或接管的时间 毫秒
+         */
+        public long getIdle() {
+            return idle;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{pending=" + pending + ", idle=" + idle + '}';
+        }
+    }
+}
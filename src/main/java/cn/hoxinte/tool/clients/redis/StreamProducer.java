@@ -0,0 +1,221 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.utils.BaseUtil;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Stream 异步发送
+ * <p>
+ * 消息先在发送线程转换后进入缓冲区，达到 batchSize 或第一条消息等待 lingerMillis 后一次 Pipeline 写入
+ * 待写入数量达到 capacity 时由发送线程同步写入，限制内存占用
+ * 写入按配置近似裁剪，写入失败时对应的 Future 异常完成，不重试；JVM 关闭时写入剩余消息
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class StreamProducer implements AutoCloseable {
+
+    private static final AtomicInteger INDEX = new AtomicInteger();
+
+    private final String key;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final int capacity;
+    private final Supplier<Jedis> jedisSupplier;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final Thread shutdownHook;
+
+    private List<Message> messageList = new ArrayList<>();
+    private volatile boolean closed;
+
+    StreamProducer(String key, int batchSize, long lingerMillis, int capacity, Supplier<Jedis> jedisSupplier) {
+        this.key = key;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.capacity = Math.max(batchSize, capacity);
+        this.jedisSupplier = jedisSupplier;
+        int index = INDEX.incrementAndGet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-stream-producer-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shutdownHook = new Thread(this::close, "redis-stream-producer-shutdown-" + index);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 创建异步发送
+     *
+     * @param key          stream key
+     * @param batchSize    待写入数量达到后立即写入
+     * @param lingerMillis 第一条消息最长等待时间 毫秒
+     * @param capacity     最大待写入数量，达到后发送线程同步写入
+     * @return 异步发送
+     */
+    public static StreamProducer create(String key, int batchSize, long lingerMillis, int capacity) {
+        if (batchSize <= 0 || lingerMillis < 0) {
+            throw new IllegalArgumentException("Stream - producer batch size must be positive and linger millis must not be negative !");
+        }
+        return new StreamProducer(key, batchSize, lingerMillis, capacity, StreamClient::getJedis);
+    }
+
+    /**
+     * 按配置创建异步发送
+     *
+     * @param key stream key
+     * @return 异步发送
+     */
+    public static StreamProducer create(String key) {
+        return create(key, RedisConfig.STREAM_PRODUCER_BATCH_SIZE, RedisConfig.STREAM_PRODUCER_LINGER_MILLIS,
+                RedisConfig.STREAM_PRODUCER_CAPACITY);
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param obj 发送数据
+     * @return 写入后完成，结果为消息id
+     */
+    public CompletableFuture<StreamEntryID> send(Object obj) {
+        Message message = new Message(BaseUtil.beanToStringMap(obj));
+        int size;
+        synchronized (this) {
+            messageList.add(message);
+            size = messageList.size();
+        }
+        if (size >= capacity || closed) {
+            // 背压，缓冲区已满时由发送线程完成写入
+            flushQuietly();
+        } else if (size >= batchSize) {
+            scheduleFlush();
+        } else if (size == 1) {
+            try {
+                scheduler.schedule(this::flushQuietly, lingerMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 并发关闭
+                flushQuietly();
+            }
+        }
+        return message.future;
+    }
+
+    /**
+     * 待写入数量
+     *
+     * @return 数量
+     */
+    public synchronized int size() {
+        return messageList.size();
+    }
+
+    /**
+     * 立即写入所有待写入消息
+     *
+     * @return 是否全部写入成功
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            List<Message> flushList;
+            synchronized (this) {
+                if (messageList.isEmpty()) {
+                    return true;
+                }
+                flushList = messageList;
+                messageList = new ArrayList<>();
+            }
+            boolean success = true;
+            for (int start = 0; start < flushList.size(); start += batchSize) {
+                success &= write(flushList.subList(start, Math.min(flushList.size(), start + batchSize)));
+            }
+            return success;
+        }
+    }
+
+    /**
+     * 停止定时写入并写入剩余消息，关闭后的消息由发送线程同步写入
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM 关闭中，由关闭钩子调用
+        }
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        } catch (RuntimeException e) {
+            flushScheduled.set(false);
+            flushQuietly();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean write(List<Message> batch) {
+        List<Map<String, String>> fieldsList = new ArrayList<>(batch.size());
+        for (Message message : batch) {
+            fieldsList.add(message.fields);
+        }
+        List<StreamEntryID> idList;
+        try (Jedis jedis = jedisSupplier.get()) {
+            idList = StreamClient.produceBatch(jedis, key, fieldsList);
+        } catch (RuntimeException e) {
+            RuntimeException failure = new RuntimeException("Stream - product failed !", e);
+            for (Message message : batch) {
+                message.future.completeExceptionally(failure);
+            }
+            return false;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(idList.get(i));
+        }
+        return true;
+    }
+
+    private static class Message {
+
+        private final Map<String, String> fields;
+        private final CompletableFuture<StreamEntryID> future = new CompletableFuture<>();
+
+        private Message(Map<String, String> fields) {
+            this.fields = fields;
+        }
+    }
+}
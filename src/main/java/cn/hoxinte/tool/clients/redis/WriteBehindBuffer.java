@@ -0,0 +1,319 @@
+package cn.hoxinte.tool.clients.redis;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并延迟写入
+ * <p>
+ * 写入先在内存中按 Key、字段合并，同一字段多次写入只保留最后一次
+ * 待写入数量达到 batchSize 或距上次写入超过 flushMillis 时，散列一次 Pipeline 多字段 HSET，字符串按过期时间分组 MSET
+ * 待写入数量达到 capacity 时由写入线程同步写入 Redis，限制内存占用
+ * 写入失败的数据在没有更新值时放回缓冲区，下次重试；JVM 关闭时写入剩余数据
+ * 写入 Redis 前其他节点读不到新值，只用于允许短暂延迟的缓存同步
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class WriteBehindBuffer implements AutoCloseable {
+
+    private static final AtomicInteger INDEX = new AtomicInteger();
+    /**
+     * 每条 HSET 最多携带的字段数量
+     */
+    private static final int HASH_CHUNK_SIZE = 1000;
+
+    private final int batchSize;
+    private final int capacity;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final Thread shutdownHook;
+
+    private Map<String, Map<String, Object>> hashMap = new LinkedHashMap<>();
+    private Map<Integer, Map<String, Object>> stringMap = new HashMap<>();
+    private int pending;
+    private volatile boolean closed;
+
+    private WriteBehindBuffer(int batchSize, long flushMillis, int capacity) {
+        this.batchSize = batchSize;
+        this.capacity = Math.max(batchSize, capacity);
+        int index = INDEX.incrementAndGet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-write-behind-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        this.shutdownHook = new Thread(this::close, "redis-write-behind-shutdown-" + index);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 创建缓冲区
+     *
+     * @param batchSize   待写入数量达到后立即写入
+     * @param flushMillis 定时写入间隔 毫秒
+     * @param capacity    最大待写入数量，达到后写入线程同步写入
+     * @return 缓冲区
+     */
+    public static WriteBehindBuffer create(int batchSize, long flushMillis, int capacity) {
+        if (batchSize <= 0 || flushMillis <= 0) {
+            throw new IllegalArgumentException("Redis - write behind batch size and flush millis must be positive !");
+        }
+        return new WriteBehindBuffer(batchSize, flushMillis, capacity);
+    }
+
+    /**
+     * 按配置创建缓冲区
+     *
+     * @return 缓冲区
+     */
+    public static WriteBehindBuffer create() {
+        return create(RedisConfig.WRITE_BEHIND_BATCH_SIZE, RedisConfig.WRITE_BEHIND_FLUSH_MILLIS,
+                RedisConfig.WRITE_BEHIND_CAPACITY);
+    }
+
+    /**
+     * 设置散列缓存字段
+     *
+     * @param key   散列缓存key
+     * @param field 字段
+     * @param value 缓存值
+     */
+    public void hSet(String key, String field, Object value) {
+        boolean full;
+        synchronized (this) {
+            if (null == hashMap.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(field, value)) {
+                pending++;
+            }
+            full = pending >= capacity;
+        }
+        afterWrite(full);
+    }
+
+    /**
+     * 设置散列缓存多个字段
+     *
+     * @param key      散列缓存key
+     * @param fieldMap key 字段，value 缓存值
+     */
+    public void hSetAll(String key, Map<String, ?> fieldMap) {
+        boolean full;
+        synchronized (this) {
+            Map<String, Object> fields = hashMap.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            for (Map.Entry<String, ?> entry : fieldMap.entrySet()) {
+                if (null == fields.put(entry.getKey(), entry.getValue())) {
+                    pending++;
+                }
+            }
+            full = pending >= capacity;
+        }
+        afterWrite(full);
+    }
+
+    /**
+     * 设置永久缓存
+     *
+     * @param key   缓存Key
+     * @param value 缓存值
+     */
+    public void set(String key, Object value) {
+        set(key, value, 0);
+    }
+
+    /**
+     * 设置缓存
+     *
+     * @param key     缓存Key
+     * @param value   缓存值
+     * @param seconds 缓存到期时间 秒，小于等于0 为永久缓存
+     */
+    public void set(String key, Object value, int seconds) {
+        boolean full;
+        synchronized (this) {
+            int expire = Math.max(0, seconds);
+            boolean exists = false;
+            for (Map.Entry<Integer, Map<String, Object>> entry : stringMap.entrySet()) {
+                // 过期时间变化时只保留最后一次写入
+                if (entry.getKey() != expire && null != entry.getValue().remove(key)) {
+                    exists = true;
+                }
+            }
+            if (null == stringMap.computeIfAbsent(expire, k -> new LinkedHashMap<>()).put(key, value) && !exists) {
+                pending++;
+            }
+            full = pending >= capacity;
+        }
+        afterWrite(full);
+    }
+
+    /**
+     * 待写入数量
+     *
+     * @return 合并后的字段及字符串数量
+     */
+    public synchronized int size() {
+        return pending;
+    }
+
+    /**
+     * 立即写入所有待写入数据
+     *
+     * @return 是否全部写入成功
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            Map<String, Map<String, Object>> hashes;
+            Map<Integer, Map<String, Object>> strings;
+            synchronized (this) {
+                if (pending == 0) {
+                    return true;
+                }
+                hashes = hashMap;
+                strings = stringMap;
+                hashMap = new LinkedHashMap<>();
+                stringMap = new HashMap<>();
+                pending = 0;
+            }
+            boolean success = flushHashes(hashes);
+            for (Map.Entry<Integer, Map<String, Object>> entry : strings.entrySet()) {
+                if (!entry.getValue().isEmpty() && !RedisClient.mSet(entry.getValue(), entry.getKey())) {
+                    success = false;
+                    restoreStrings(entry.getKey(), entry.getValue());
+                }
+            }
+            return success;
+        }
+    }
+
+    /**
+     * 停止定时写入并写入剩余数据，关闭后的写入由写入线程同步完成
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM 关闭中，由关闭钩子调用
+        }
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    private void afterWrite(boolean full) {
+        if (full || closed) {
+            // 背压，缓冲区已满时由写入线程完成写入
+            flushQuietly();
+            return;
+        }
+        if (size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                flushScheduled.set(false);
+                flushQuietly();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean flushHashes(Map<String, Map<String, Object>> hashes) {
+        if (hashes.isEmpty()) {
+            return true;
+        }
+        Map<String, List<Map<String, Object>>> chunkMap = new LinkedHashMap<>(hashes.size());
+        Map<String, List<RedisResponse<Long>>> responseMap = new LinkedHashMap<>(hashes.size());
+        for (Map.Entry<String, Map<String, Object>> entry : hashes.entrySet()) {
+            chunkMap.put(entry.getKey(), chunk(entry.getValue()));
+            NearCache.invalidate(RedisClient.serializeKey(entry.getKey()));
+        }
+        try {
+            RedisClient.pipeline(batch -> {
+                for (Map.Entry<String, List<Map<String, Object>>> entry : chunkMap.entrySet()) {
+                    List<RedisResponse<Long>> responseList = new ArrayList<>(entry.getValue().size());
+                    for (Map<String, Object> chunk : entry.getValue()) {
+                        responseList.add(batch.hMSet(entry.getKey(), chunk));
+                    }
+                    responseMap.put(entry.getKey(), responseList);
+                }
+            });
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            hashes.forEach(this::restoreHash);
+            return false;
+        }
+        boolean success = true;
+        for (Map.Entry<String, List<RedisResponse<Long>>> entry : responseMap.entrySet()) {
+            List<RedisResponse<Long>> responseList = entry.getValue();
+            for (int i = 0; i < responseList.size(); i++) {
+                try {
+                    responseList.get(i).get();
+                } catch (RuntimeException e) {
+                    success = false;
+                    restoreHash(entry.getKey(), chunkMap.get(entry.getKey()).get(i));
+                }
+            }
+        }
+        return success;
+    }
+
+    synchronized void restoreHash(String key, Map<String, Object> fieldMap) {
+        Map<String, Object> fields = hashMap.computeIfAbsent(key, k -> new LinkedHashMap<>());
+        for (Map.Entry<String, Object> entry : fieldMap.entrySet()) {
+            if (null == fields.putIfAbsent(entry.getKey(), entry.getValue())) {
+                pending++;
+            }
+        }
+    }
+
+    synchronized void restoreStrings(int seconds, Map<String, Object> valueMap) {
+        for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
+            boolean exists = false;
+            for (Map<String, Object> values : stringMap.values()) {
+                exists |= values.containsKey(entry.getKey());
+            }
+            if (!exists) {
+                stringMap.computeIfAbsent(seconds, k -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+                pending++;
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> chunk(Map<String, Object> fieldMap) {
+        if (fieldMap.size() <= HASH_CHUNK_SIZE) {
+            return Collections.singletonList(fieldMap);
+        }
+        List<Map<String, Object>> chunkList = new ArrayList<>(fieldMap.size() / HASH_CHUNK_SIZE + 1);
+        Map<String, Object> current = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : fieldMap.entrySet()) {
+            current.put(entry.getKey(), entry.getValue());
+            if (current.size() == HASH_CHUNK_SIZE) {
+                chunkList.add(current);
+                current = new LinkedHashMap<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            chunkList.add(current);
+        }
+        return chunkList;
+    }
+}
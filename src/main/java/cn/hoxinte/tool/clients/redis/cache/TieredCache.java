@@ -0,0 +1,529 @@
+package cn.hoxinte.tool.clients.redis.cache;
+
+import cn.hoxinte.tool.clients.redis.RedisClient;
+import cn.hoxinte.tool.clients.redis.RedisResponse;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 二级缓存
+ * <p>
+ * L1 为进程内缓存，按权重限制大小，分段加锁，段内 LRU 淘汰；L2 为 Redis，Key 为 前缀 + 缓存Key
+ * 读取顺序 L1、L2、加载，L2 未命中时通过 RedisClient.getOrLoad 合并加载
+ * L1 保留时间不超过写入时 L2 的剩余时间，条目过期前按比例提前在后台刷新，命中的调用方不等待
+ * 写入、删除及重新加载时通过 Redis 发布订阅通知其他节点删除 L1，订阅断开重连后清空 L1
+ * <pre>
+ * TieredCache&lt;Integer, Object&gt; cache = TieredCache.&lt;Integer, Object&gt;builder("sso:temp:user:list:dept:id:", Object.class)
+ *         .expireSeconds(300).maximumWeight(10000).weigher(value -&gt; ((List&lt;?&gt;) value).size()).build();
+ * Object value = cache.get(deptId, () -&gt; load(deptId));
+ * </pre>
+ *
+ * @param <K> 缓存Key类型，通过 String.valueOf 转换
+ * @param <V> 缓存值类型
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TieredCache<K, V> {
+
+    private static final String INVALIDATE_CHANNEL = "hoxinte:cache:invalidate";
+    private static final String MESSAGE_SPLIT = "\n";
+    private static final String ALL_KEY = "";
+    private static final String NODE_ID = UUID.randomUUID().toString();
+    private static final long RECONNECT_MILLIS = 1000;
+    private static final long PERSIST_TTL = -1;
+
+    private static final Map<String, TieredCache<?, ?>> CACHE_MAP = new ConcurrentHashMap<>();
+    private static final ExecutorService REFRESH_EXECUTOR = initialRefreshExecutor();
+    private static final AtomicBoolean LISTENING = new AtomicBoolean();
+
+    private final String prefix;
+    private final Class<V> vClass;
+    private final int expireSeconds;
+    private final long localExpireMillis;
+    private final double refreshAheadRatio;
+    private final ToIntFunction<V> weigher;
+    private final List<Segment<V>> segments;
+
+    private TieredCache(Builder<K, V> builder) {
+        this.prefix = builder.prefix;
+        this.vClass = builder.vClass;
+        this.expireSeconds = builder.expireSeconds;
+        this.localExpireMillis = TimeUnit.SECONDS.toMillis(Math.min(builder.localExpireSeconds, builder.expireSeconds));
+        this.refreshAheadRatio = builder.refreshAheadRatio;
+        this.weigher = builder.weigher;
+        int segmentSize = Integer.highestOneBit(Math.max(1, builder.concurrencyLevel));
+        long segmentWeight = Math.max(1, builder.maximumWeight / segmentSize);
+        List<Segment<V>> segmentList = new ArrayList<>(segmentSize);
+        for (int i = 0; i < segmentSize; i++) {
+            segmentList.add(new Segment<>(segmentWeight));
+        }
+        this.segments = Collections.unmodifiableList(segmentList);
+    }
+
+    public static <K, V> Builder<K, V> builder(String prefix, Class<V> vClass) {
+        return new Builder<>(prefix, vClass);
+    }
+
+    /**
+     * 读取缓存，L1、L2 均未命中返回 null
+     *
+     * @param key 缓存Key
+     * @return 缓存值
+     */
+    public V get(K key) {
+        String cacheKey = String.valueOf(key);
+        Entry<V> entry = segment(cacheKey).get(cacheKey, System.currentTimeMillis());
+        if (null != entry) {
+            refreshAhead(cacheKey, entry, expireSeconds, null);
+            return entry.value;
+        }
+        return readRemote(cacheKey);
+    }
+
+    /**
+     * 读取缓存，未命中时加载并写入 L1、L2
+     *
+     * @param key    缓存Key
+     * @param loader 加载数据
+     * @return 缓存值
+     */
+    public V get(K key, Supplier<V> loader) {
+        return get(key, expireSeconds, loader);
+    }
+
+    /**
+     * 读取缓存，未命中时加载并按指定过期时间写入 L1、L2
+     *
+     * @param key     缓存Key
+     * @param seconds 过期时间 秒
+     * @param loader  加载数据
+     * @return 缓存值
+     */
+    public V get(K key, int seconds, Supplier<V> loader) {
+        String cacheKey = String.valueOf(key);
+        Entry<V> entry = segment(cacheKey).get(cacheKey, System.currentTimeMillis());
+        if (null != entry) {
+            refreshAhead(cacheKey, entry, seconds, loader);
+            return entry.value;
+        }
+        return load(cacheKey, seconds, loader);
+    }
+
+    public void put(K key, V value) {
+        put(key, value, expireSeconds);
+    }
+
+    /**
+     * 写入缓存并通知其他节点删除 L1
+     *
+     * @param key     缓存Key
+     * @param value   缓存值
+     * @param seconds 过期时间 秒
+     */
+    public void put(K key, V value, int seconds) {
+        String cacheKey = String.valueOf(key);
+        RedisClient.set(prefix + cacheKey, value, seconds);
+        putLocal(cacheKey, value, seconds, TimeUnit.SECONDS.toMillis(seconds));
+        publish(cacheKey);
+    }
+
+    /**
+     * 删除缓存并通知其他节点删除 L1
+     *
+     * @param key 缓存Key
+     */
+    public void invalidate(K key) {
+        String cacheKey = String.valueOf(key);
+        segment(cacheKey).remove(cacheKey);
+        RedisClient.removeKey(prefix + cacheKey);
+        publish(cacheKey);
+    }
+
+    /**
+     * 清空所有节点的 L1，不删除 Redis 数据
+     */
+    public void invalidateAll() {
+        invalidateLocal(ALL_KEY);
+        publish(ALL_KEY);
+    }
+
+    /**
+     * @return L1 条目数量
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return L1 总权重
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment<V> segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    private void refreshAhead(String cacheKey, Entry<V> entry, int seconds, Supplier<V> loader) {
+        if (System.currentTimeMillis() < entry.refreshTime || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            REFRESH_EXECUTOR.execute(() -> {
+                try {
+                    V value = null == loader ? readRemote(cacheKey) : load(cacheKey, seconds, loader);
+                    if (null == value) {
+                        segment(cacheKey).remove(cacheKey);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * 一次往返读取 L2 值及剩余时间，写入 L1，读取失败返回 null
+     */
+    private V readRemote(String cacheKey) {
+        List<RedisResponse<?>> responseList = new ArrayList<>(2);
+        V value;
+        long remoteTtl;
+        try {
+            RedisClient.pipeline(batch -> {
+                responseList.add(batch.get(prefix + cacheKey, vClass));
+                responseList.add(batch.pTtl(prefix + cacheKey));
+            });
+            value = vClass.cast(responseList.get(0).get());
+            remoteTtl = (Long) responseList.get(1).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        putLocal(cacheKey, value, expireSeconds, remoteTtl);
+        return value;
+    }
+
+    /**
+     * 通过 getOrLoad 读取 L2，本次调用执行了加载时通知其他节点删除 L1
+     */
+    private V load(String cacheKey, int seconds, Supplier<V> loader) {
+        AtomicBoolean loaded = new AtomicBoolean();
+        V value = RedisClient.getOrLoad(prefix + cacheKey, seconds, vClass, () -> {
+            loaded.set(true);
+            return loader.get();
+        });
+        if (loaded.get()) {
+            publish(cacheKey);
+            putLocal(cacheKey, value, seconds, TimeUnit.SECONDS.toMillis(seconds));
+        } else {
+            putLocal(cacheKey, value, seconds, remoteTtl(cacheKey));
+        }
+        return value;
+    }
+
+    private long remoteTtl(String cacheKey) {
+        List<RedisResponse<Long>> responseList = new ArrayList<>(1);
+        try {
+            RedisClient.pipeline(batch -> responseList.add(batch.pTtl(prefix + cacheKey)));
+            return responseList.get(0).get();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * 写入 L1
+     *
+     * @param cacheKey  缓存Key
+     * @param value     缓存值
+     * @param seconds   过期时间 秒
+     * @param remoteTtl L2 剩余时间 毫秒，-1 永久，不大于 0 时不写入
+     */
+    private void putLocal(String cacheKey, V value, int seconds, long remoteTtl) {
+        if (null == value || (remoteTtl != PERSIST_TTL && remoteTtl <= 0)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long ttl = Math.min(TimeUnit.SECONDS.toMillis(seconds), localExpireMillis);
+        if (remoteTtl != PERSIST_TTL) {
+            ttl = Math.min(ttl, remoteTtl);
+        }
+        int weight = Math.max(1, weigher.applyAsInt(value));
+        segment(cacheKey).put(cacheKey, new Entry<>(value, weight, now + ttl, now + (long) (ttl * refreshAheadRatio)));
+    }
+
+    private void invalidateLocal(String cacheKey) {
+        if (ALL_KEY.equals(cacheKey)) {
+            for (Segment<V> segment : segments) {
+                segment.clear();
+            }
+            return;
+        }
+        segment(cacheKey).remove(cacheKey);
+    }
+
+    private Segment<V> segment(String cacheKey) {
+        int hash = cacheKey.hashCode();
+        return segments.get((hash ^ (hash >>> 16)) & (segments.size() - 1));
+    }
+
+    private void publish(String cacheKey) {
+        try {
+            RedisClient.publish(INVALIDATE_CHANNEL, NODE_ID + MESSAGE_SPLIT + prefix + MESSAGE_SPLIT + cacheKey);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 失效通知
+
+    private static void register(TieredCache<?, ?> cache) {
+        if (null != CACHE_MAP.putIfAbsent(cache.prefix, cache)) {
+            throw new IllegalArgumentException("TieredCache - prefix " + cache.prefix + " already exists !");
+        }
+        if (LISTENING.compareAndSet(false, true)) {
+            Thread thread = new Thread(TieredCache::listen, "tiered-cache-invalidate");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static void listen() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                RedisClient.subscribe(new JedisPubSub() {
+                    @Override
+                    public void onSubscribe(String channel, int subscribedChannels) {
+                        // 断开期间可能错过通知
+                        CACHE_MAP.values().forEach(cache -> cache.invalidateLocal(ALL_KEY));
+                    }
+
+                    @Override
+                    public void onMessage(String channel, String message) {
+                        onInvalidate(message);
+                    }
+                }, INVALIDATE_CHANNEL);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            CACHE_MAP.values().forEach(cache -> cache.invalidateLocal(ALL_KEY));
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void onInvalidate(String message) {
+        String[] parts = message.split(MESSAGE_SPLIT, 3);
+        if (parts.length != 3 || NODE_ID.equals(parts[0])) {
+            return;
+        }
+        TieredCache<?, ?> cache = CACHE_MAP.get(parts[1]);
+        if (null != cache) {
+            cache.invalidateLocal(parts[2]);
+        }
+    }
+
+    private static ExecutorService initialRefreshExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1024), runnable -> {
+            Thread thread = new Thread(runnable, "tiered-cache-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 缓存段，段内按访问顺序淘汰
+     */
+    private static final class Segment<V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maximumWeight;
+        private long weight;
+
+        private Segment(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        private Entry<V> get(String key, long now) {
+            lock.lock();
+            try {
+                Entry<V> entry = map.get(key);
+                if (null != entry && entry.expireTime <= now) {
+                    map.remove(key);
+                    weight -= entry.weight;
+                    return null;
+                }
+                return entry;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(String key, Entry<V> entry) {
+            lock.lock();
+            try {
+                Entry<V> old = map.put(key, entry);
+                weight += entry.weight - (null == old ? 0 : old.weight);
+                Iterator<Entry<V>> iterator = map.values().iterator();
+                while (weight > maximumWeight && iterator.hasNext()) {
+                    Entry<V> eldest = iterator.next();
+                    if (eldest == entry) {
+                        continue;
+                    }
+                    iterator.remove();
+                    weight -= eldest.weight;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(String key) {
+            lock.lock();
+            try {
+                Entry<V> entry = map.remove(key);
+                if (null != entry) {
+                    weight -= entry.weight;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                map.clear();
+                weight = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long weight() {
+            lock.lock();
+            try {
+                return weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final int weight;
+        private final long expireTime;
+        private final long refreshTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(V value, int weight, long expireTime, long refreshTime) {
+            this.value = value;
+            this.weight = weight;
+            this.expireTime = expireTime;
+            this.refreshTime = refreshTime;
+        }
+    }
+
+    public static final class Builder<K, V> {
+
+        private final String prefix;
+        private final Class<V> vClass;
+        private int expireSeconds = 300;
+        private int localExpireSeconds = Integer.MAX_VALUE;
+        private long maximumWeight = 10000;
+        private double refreshAheadRatio = 0.8;
+        private int concurrencyLevel = 16;
+        private ToIntFunction<V> weigher = value -> 1;
+
+        private Builder(String prefix, Class<V> vClass) {
+            this.prefix = prefix;
+            this.vClass = vClass;
+        }
+
+        /**
+         * @param expireSeconds 默认过期时间 秒，默认 300
+         */
+        public Builder<K, V> expireSeconds(int expireSeconds) {
+            this.expireSeconds = expireSeconds;
+            return this;
+        }
+
+        /**
+         * @param localExpireSeconds L1 最长保留时间 秒，默认与过期时间相同
+         */
+        public Builder<K, V> localExpireSeconds(int localExpireSeconds) {
+            this.localExpireSeconds = localExpireSeconds;
+            return this;
+        }
+
+        /**
+         * @param maximumWeight L1 最大总权重，默认 10000
+         */
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * @param weigher 条目权重，默认每个条目为 1
+         */
+        public Builder<K, V> weigher(ToIntFunction<V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * @param refreshAheadRatio 经过 L1 保留时间的该比例后提前刷新，默认 0.8，1 为不提前刷新
+         */
+        public Builder<K, V> refreshAheadRatio(double refreshAheadRatio) {
+            this.refreshAheadRatio = refreshAheadRatio;
+            return this;
+        }
+
+        /**
+         * @param concurrencyLevel L1 分段数量，向下取 2 的幂，默认 16
+         */
+        public Builder<K, V> concurrencyLevel(int concurrencyLevel) {
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        public TieredCache<K, V> build() {
+            TieredCache<K, V> cache = new TieredCache<>(this);
+            register(cache);
+            return cache;
+        }
+    }
+}
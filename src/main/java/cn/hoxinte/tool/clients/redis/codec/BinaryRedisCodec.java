@@ -0,0 +1,182 @@
+package cn.hoxinte.tool.clients.redis.codec;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制编解码
+ * <p>
+ * 只对注册过的类型生效，其余类型交给 fallback 处理
+ * 数据格式 MAGIC(1) + 类型ID(2) + 字段数据，MAGIC 不会出现在 JSON 开头，读取时可兼容原有 JSON 数据
+ * 实体字段变动时需要注册新的类型ID，避免读到旧格式数据
+ * 类型由使用方在读写前注册到 INSTANCE；DECODE_ONLY 与 INSTANCE 共享注册，只读取二进制格式，写入仍交给 fallback
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class BinaryRedisCodec implements RedisCodec {
+
+    public static final BinaryRedisCodec INSTANCE = new BinaryRedisCodec(FastJsonRedisCodec.INSTANCE);
+    /**
+     * 滚动升级时先部署读取端使用，所有节点可读取后再切换为 INSTANCE 写入
+     */
+    public static final BinaryRedisCodec DECODE_ONLY = INSTANCE.decodeOnly();
+
+    public static final byte MAGIC = 0x01;
+
+    private static final int NULL_LENGTH = -1;
+    private static final int BUFFER_SIZE = 128;
+
+    private final RedisCodec fallback;
+    private final boolean encodeBinary;
+    private final Map<Class<?>, Registration<?>> classMap;
+    private final Map<Integer, Registration<?>> typeMap;
+
+    public BinaryRedisCodec(RedisCodec fallback) {
+        this(fallback, true, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private BinaryRedisCodec(RedisCodec fallback, boolean encodeBinary,
+                             Map<Class<?>, Registration<?>> classMap, Map<Integer, Registration<?>> typeMap) {
+        this.fallback = fallback;
+        this.encodeBinary = encodeBinary;
+        this.classMap = classMap;
+        this.typeMap = typeMap;
+    }
+
+    /**
+     * 共享类型注册，只读取二进制格式，写入使用 fallback
+     *
+     * @return 只读取二进制格式的编解码
+     */
+    public BinaryRedisCodec decodeOnly() {
+        return new BinaryRedisCodec(fallback, false, classMap, typeMap);
+    }
+
+    /**
+     * 注册类型
+     *
+     * @param typeId  类型ID 全局唯一 0 - 65535
+     * @param tClass  类型
+     * @param adapter 读写实现
+     * @param <T>     类型
+     */
+    public <T> void register(int typeId, Class<T> tClass, Adapter<T> adapter) {
+        Registration<?> exist = typeMap.get(typeId);
+        if (null != exist && exist.tClass != tClass) {
+            throw new IllegalArgumentException("Redis - binary type id " + typeId + " already registered !");
+        }
+        Registration<T> registration = new Registration<>(typeId, tClass, adapter);
+        typeMap.put(typeId, registration);
+        classMap.put(tClass, registration);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object object) {
+        if (null == object || !encodeBinary) {
+            return fallback.encode(object);
+        }
+        Registration<Object> registration = (Registration<Object>) classMap.get(object.getClass());
+        if (null == registration) {
+            return fallback.encode(object);
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(BUFFER_SIZE);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(MAGIC);
+            out.writeShort(registration.typeId);
+            registration.adapter.write(object, out);
+        } catch (IOException e) {
+            throw new RuntimeException("Redis - binary encode failed !", e);
+        }
+        return bos.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        if (null == bytes || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.decode(bytes);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+            int typeId = in.readUnsignedShort();
+            Registration<?> registration = typeMap.get(typeId);
+            if (null == registration) {
+                throw new IllegalStateException("Redis - binary type id " + typeId + " not registered !");
+            }
+            return registration.adapter.read(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Redis - binary decode failed !", e);
+        }
+    }
+
+    // 字段读写工具
+
+    public static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value) {
+            out.writeInt(value);
+        }
+    }
+
+    public static Integer readInteger(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    public static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(null == value ? NULL_LENGTH : (value ? 1 : 0));
+    }
+
+    public static Boolean readBoolean(DataInput in) throws IOException {
+        byte value = in.readByte();
+        return value == NULL_LENGTH ? null : value == 1;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (null == value) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 类型读写实现
+     *
+     * @param <T> 类型
+     */
+    public interface Adapter<T> {
+
+        void write(T value, DataOutput out) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    private static class Registration<T> {
+        private final int typeId;
+        private final Class<T> tClass;
+        private final Adapter<T> adapter;
+
+        private Registration(int typeId, Class<T> tClass, Adapter<T> adapter) {
+            this.typeId = typeId;
+            this.tClass = tClass;
+            this.adapter = adapter;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package cn.hoxinte.tool.clients.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩编解码
+ * <p>
+ * 包装其他编码，编码结果超过阈值时使用 Deflate 压缩，压缩后更小才写入压缩格式
+ * 数据格式 MAGIC(1) + 原始长度(4) + 压缩数据，MAGIC 与 JSON、BinaryRedisCodec 开头不同，读取时兼容未压缩数据
+ * 旧版本无法读取压缩数据，阈值为 Integer.MAX_VALUE 时只解压不压缩，用于先升级读取端
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class CompressedRedisCodec implements RedisCodec {
+
+    public static final byte MAGIC = 0x02;
+
+    private static final int HEADER_SIZE = 5;
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final RedisCodec codec;
+    private final int threshold;
+
+    /**
+     * @param codec     实际编码
+     * @param threshold 压缩阈值 字节，编码结果不小于该值时压缩
+     */
+    public CompressedRedisCodec(RedisCodec codec, int threshold) {
+        this.codec = codec;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] encode(Object object) {
+        byte[] bytes = codec.encode(object);
+        if (null == bytes || bytes.length < threshold) {
+            return bytes;
+        }
+        byte[] compressed = compress(bytes);
+        return compressed.length < bytes.length ? compressed : bytes;
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        if (null == bytes || bytes.length == 0 || bytes[0] != MAGIC) {
+            return codec.decode(bytes);
+        }
+        return codec.decode(decompress(bytes));
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + HEADER_SIZE);
+        out.write(MAGIC);
+        out.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        int length = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        byte[] result = new byte[length];
+        try {
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int read = inflater.inflate(result, offset, length - offset);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += read;
+            }
+            if (offset != length) {
+                throw new IllegalStateException("Redis - decompress length mismatch !");
+            }
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Redis - decompress failed !", e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package cn.hoxinte.tool.clients.redis.codec;
+
+import com.alibaba.fastjson.support.spring.GenericFastJsonRedisSerializer;
+
+/**
+ * FastJson 编解码，带类型信息
+ * <p>
+ * GenericFastJsonRedisSerializer 无状态，全局共享一个实例
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class FastJsonRedisCodec implements RedisCodec {
+
+    public static final FastJsonRedisCodec INSTANCE = new FastJsonRedisCodec();
+
+    private static final GenericFastJsonRedisSerializer SERIALIZER = new GenericFastJsonRedisSerializer();
+
+    @Override
+    public byte[] encode(Object object) {
+        return SERIALIZER.serialize(object);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return SERIALIZER.deserialize(bytes);
+    }
+}
@@ -0,0 +1,28 @@
+package cn.hoxinte.tool.clients.redis.codec;
+
+/**
+ * Redis 编解码接口
+ * <p>
+ * 实现类需要线程安全，RedisClient 全局共享同一个实例
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public interface RedisCodec {
+
+    /**
+     * 编码
+     *
+     * @param object 数据对象 为空时返回空数组
+     * @return 字节数组
+     */
+    byte[] encode(Object object);
+
+    /**
+     * 解码
+     *
+     * @param bytes 字节数组 为空时返回 null
+     * @return 数据对象
+     */
+    Object decode(byte[] bytes);
+}
@@ -0,0 +1,34 @@
+package cn.hoxinte.tool.clients.redis.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 原始 UTF-8 字符串编解码
+ * <p>
+ * 适用于 Key 与 Hash 字段，不带 JSON 引号
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class StringRedisCodec implements RedisCodec {
+
+    public static final StringRedisCodec INSTANCE = new StringRedisCodec();
+
+    private static final byte[] EMPTY_BYTE = new byte[0];
+
+    @Override
+    public byte[] encode(Object object) {
+        if (null == object) {
+            return EMPTY_BYTE;
+        }
+        return String.valueOf(object).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        if (null == bytes || bytes.length == 0) {
+            return null;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,364 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 进程内连接
+ * <p>
+ * 替代 Socket 交给 Jedis 使用，写入的 RESP 命令在 flush 时由调用线程解析并执行，回复写入读取缓冲
+ * 一次 flush 中的所有命令（单条命令或一次 Pipeline）只等待一次往返延迟
+ * 订阅连接的消息由发布线程写入读取缓冲
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class MemoryConnection extends Socket {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final MemoryRedis redis;
+    private final SplittableRandom random;
+    private final RequestStream requestStream = new RequestStream();
+    private final ReplyStream replyStream = new ReplyStream();
+    private final Set<String> channels = new LinkedHashSet<>();
+    private volatile boolean closed;
+    private volatile int soTimeout;
+
+    MemoryConnection(MemoryRedis redis, int index) {
+        this.redis = redis;
+        this.random = redis.getLatency().random(index);
+    }
+
+    /**
+     * 订阅的频道，只在存储锁内访问
+     */
+    Set<String> getChannels() {
+        return channels;
+    }
+
+    /**
+     * 写入回复
+     *
+     * @param reply RESP 结构
+     */
+    void reply(Object reply) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        encode(reply, buffer);
+        replyStream.append(buffer.toByteArray());
+    }
+
+    private static void encode(Object reply, ByteArrayOutputStream buffer) {
+        if (null == reply) {
+            writeLine(buffer, '$', "-1");
+        } else if (reply == MemoryRedis.NULL_ARRAY) {
+            writeLine(buffer, '*', "-1");
+        } else if (reply instanceof String) {
+            writeLine(buffer, '+', (String) reply);
+        } else if (reply instanceof MemoryException) {
+            writeLine(buffer, '-', ((MemoryException) reply).getMessage());
+        } else if (reply instanceof Long || reply instanceof Integer) {
+            writeLine(buffer, ':', reply.toString());
+        } else if (reply instanceof byte[]) {
+            byte[] bytes = (byte[]) reply;
+            writeLine(buffer, '$', String.valueOf(bytes.length));
+            buffer.write(bytes, 0, bytes.length);
+            buffer.write(CRLF, 0, CRLF.length);
+        } else if (reply instanceof List) {
+            List<?> list = (List<?>) reply;
+            writeLine(buffer, '*', String.valueOf(list.size()));
+            for (Object item : list) {
+                encode(item, buffer);
+            }
+        } else {
+            throw new IllegalStateException("Redis - unsupported memory reply " + reply.getClass() + " !");
+        }
+    }
+
+    private static void writeLine(ByteArrayOutputStream buffer, char type, String text) {
+        buffer.write(type);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+        buffer.write(CRLF, 0, CRLF.length);
+    }
+
+    private void execute(List<byte[][]> commandList) {
+        MemoryLatency.pause(redis.getLatency().roundTripNanos(random));
+        for (byte[][] args : commandList) {
+            Object reply = redis.execute(this, args);
+            if (reply != MemoryRedis.NO_REPLY) {
+                reply(reply);
+            }
+        }
+    }
+
+    // Socket
+
+    @Override
+    public InputStream getInputStream() {
+        return replyStream;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return requestStream;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !closed;
+    }
+
+    @Override
+    public boolean isBound() {
+        return true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return closed;
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return closed;
+    }
+
+    @Override
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+
+    @Override
+    public void setSoTimeout(int timeout) {
+        this.soTimeout = timeout;
+    }
+
+    @Override
+    public void setKeepAlive(boolean on) {
+    }
+
+    @Override
+    public void setTcpNoDelay(boolean on) {
+    }
+
+    @Override
+    public void setReuseAddress(boolean on) {
+    }
+
+    @Override
+    public void setSoLinger(boolean on, int linger) {
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        redis.disconnect(this);
+        replyStream.close();
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryConnection[" + redis + "]";
+    }
+
+    /**
+     * 命令写入，flush 时执行已完整写入的命令
+     */
+    private final class RequestStream extends OutputStream {
+
+        private byte[] buffer = new byte[8192];
+        private int count;
+
+        @Override
+        public synchronized void write(int b) {
+            ensure(1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (closed) {
+                throw new IOException("Redis - memory connection closed !");
+            }
+            List<byte[][]> commandList = new ArrayList<>();
+            int position = 0;
+            while (position < count) {
+                int next = parse(position, commandList);
+                if (next < 0) {
+                    break;
+                }
+                position = next;
+            }
+            System.arraycopy(buffer, position, buffer, 0, count - position);
+            count -= position;
+            if (!commandList.isEmpty()) {
+                execute(commandList);
+            }
+        }
+
+        /**
+         * 解析一条命令
+         *
+         * @return 下一条命令位置，命令不完整时返回 -1
+         */
+        private int parse(int position, List<byte[][]> commandList) throws IOException {
+            if (buffer[position] != '*') {
+                throw new IOException("Redis - memory connection only accepts RESP arrays !");
+            }
+            int lineEnd = lineEnd(position);
+            if (lineEnd < 0) {
+                return -1;
+            }
+            int size = parseInt(position + 1, lineEnd);
+            byte[][] args = new byte[size][];
+            position = lineEnd + 2;
+            for (int i = 0; i < size; i++) {
+                if (position >= count) {
+                    return -1;
+                }
+                lineEnd = lineEnd(position);
+                if (lineEnd < 0) {
+                    return -1;
+                }
+                int length = parseInt(position + 1, lineEnd);
+                position = lineEnd + 2;
+                if (position + length + 2 > count) {
+                    return -1;
+                }
+                args[i] = Arrays.copyOfRange(buffer, position, position + length);
+                position += length + 2;
+            }
+            commandList.add(args);
+            return position;
+        }
+
+        private int lineEnd(int position) {
+            for (int i = position; i < count - 1; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int parseInt(int start, int end) {
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                value = value * 10 + (buffer[i] - '0');
+            }
+            return value;
+        }
+
+        private void ensure(int length) {
+            if (count + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+            }
+        }
+    }
+
+    /**
+     * 回复读取，没有数据时按读取超时等待
+     */
+    private final class ReplyStream extends InputStream {
+
+        private byte[] buffer = new byte[8192];
+        private int start;
+        private int end;
+        private boolean eof;
+
+        synchronized void append(byte[] bytes) {
+            if (end + bytes.length > buffer.length) {
+                int size = end - start;
+                byte[] target = size + bytes.length > buffer.length
+                        ? new byte[Math.max(buffer.length * 2, size + bytes.length)] : buffer;
+                System.arraycopy(buffer, start, target, 0, size);
+                buffer = target;
+                start = 0;
+                end = size;
+            }
+            System.arraycopy(bytes, 0, buffer, end, bytes.length);
+            end += bytes.length;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            if (!await()) {
+                return -1;
+            }
+            return buffer[start++] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!await()) {
+                return -1;
+            }
+            int read = Math.min(length, end - start);
+            System.arraycopy(buffer, start, bytes, offset, read);
+            start += read;
+            return read;
+        }
+
+        @Override
+        public synchronized int available() {
+            return end - start;
+        }
+
+        @Override
+        public synchronized void close() {
+            eof = true;
+            notifyAll();
+        }
+
+        private boolean await() throws IOException {
+            long timeout = soTimeout;
+            long deadline = System.currentTimeMillis() + timeout;
+            while (start == end) {
+                if (eof) {
+                    return false;
+                }
+                try {
+                    if (timeout <= 0) {
+                        wait();
+                        continue;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new SocketTimeoutException("Redis - memory connection read timed out !");
+                    }
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+/**
+ * 进程内存储命令错误，作为错误回复返回给客户端
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class MemoryException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+    static final String NOT_INTEGER = "ERR value is not an integer or out of range";
+    static final String SYNTAX = "ERR syntax error";
+
+    private MemoryException(String message) {
+        super(message, null, false, false);
+    }
+
+    static MemoryException of(String message) {
+        return new MemoryException(message);
+    }
+}
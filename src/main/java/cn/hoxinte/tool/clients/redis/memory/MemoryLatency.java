@@ -0,0 +1,93 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内存储注入的延迟
+ * <p>
+ * 往返延迟在每次发送（单条命令或一次 Pipeline）时由调用线程等待，模拟网络，多个连接并行等待
+ * 命令耗时在持有存储锁时等待，模拟单线程服务端，所有连接串行
+ * 抖动由连接序号与种子生成的随机序列决定，同一种子、同样的调用顺序得到同样的延迟
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public final class MemoryLatency {
+
+    /**
+     * 不注入延迟
+     */
+    public static final MemoryLatency NONE = new MemoryLatency(0, 0, 0, 0);
+
+    /**
+     * 短于该时长的等待使用自旋，避免休眠精度带来的误差
+     */
+    private static final long SPIN_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final long roundTripNanos;
+    private final long jitterNanos;
+    private final long commandNanos;
+    private final long seed;
+
+    private MemoryLatency(long roundTripNanos, long jitterNanos, long commandNanos, long seed) {
+        this.roundTripNanos = roundTripNanos;
+        this.jitterNanos = jitterNanos;
+        this.commandNanos = commandNanos;
+        this.seed = seed;
+    }
+
+    /**
+     * 创建延迟配置
+     *
+     * @param roundTripMicros 每次往返延迟 微秒
+     * @param jitterMicros    往返延迟随机增加的上限 微秒
+     * @param commandMicros   每条命令服务端耗时 微秒
+     * @param seed            抖动随机种子
+     * @return 延迟配置
+     */
+    public static MemoryLatency of(long roundTripMicros, long jitterMicros, long commandMicros, long seed) {
+        if (roundTripMicros < 0 || jitterMicros < 0 || commandMicros < 0) {
+            throw new IllegalArgumentException("Redis - memory latency must not be negative !");
+        }
+        return new MemoryLatency(TimeUnit.MICROSECONDS.toNanos(roundTripMicros),
+                TimeUnit.MICROSECONDS.toNanos(jitterMicros), TimeUnit.MICROSECONDS.toNanos(commandMicros), seed);
+    }
+
+    SplittableRandom random(int connectionIndex) {
+        return new SplittableRandom(seed * 31 + connectionIndex);
+    }
+
+    long roundTripNanos(SplittableRandom random) {
+        return jitterNanos == 0 ? roundTripNanos : roundTripNanos + random.nextLong(jitterNanos + 1);
+    }
+
+    long getCommandNanos() {
+        return commandNanos;
+    }
+
+    static void pause(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > SPIN_NANOS) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining - SPIN_NANOS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "roundTrip=" + roundTripNanos + "ns jitter=" + jitterNanos + "ns command=" + commandNanos + "ns seed=" + seed;
+    }
+}
@@ -0,0 +1,2194 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+import redis.clients.jedis.JedisSocketFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 进程内 Redis 存储
+ * <p>
+ * 通过 socketFactory 交给 JedisPool 使用，命令经 RESP 编码后在进程内执行，上层代码与连接真实 Redis 时相同
+ * 支持字符串、位、HyperLogLog（精确计数）、散列、列表、集合、过期时间、SCAN、发布订阅及 Stream 消费组
+ * 所有命令在同一把锁内串行执行，与 Redis 单线程模型一致；阻塞命令等待时释放锁
+ * 过期 Key 在访问时删除，并每执行 1024 条命令清理一次
+ * 脚本只支持通过 registerScript 注册了本地实现的脚本，有序集合只支持脚本用到的 ZADD、ZCARD、ZRANGE、ZREMRANGEBYSCORE
+ * 不支持事务，SELECT 不区分数据库
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public final class MemoryRedis {
+
+    /**
+     * 空数组回复
+     */
+    static final Object NULL_ARRAY = new Object();
+    /**
+     * 命令已自行写入回复
+     */
+    static final Object NO_REPLY = new Object();
+
+    private static final String OK = "OK";
+    private static final String PONG = "PONG";
+    private static final int EXPIRE_CYCLE = 1024;
+    private static final int DEFAULT_SCAN_COUNT = 10;
+    private static final MemoryRedis INSTANCE = new MemoryRedis("default");
+    private static final AtomicInteger INDEX = new AtomicInteger();
+    private static final Map<String, MemoryScript> SCRIPTS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Map<String, Object> data = new HashMap<>();
+    private final Map<String, Long> expires = new HashMap<>();
+    private final Map<String, Set<MemoryConnection>> channels = new HashMap<>();
+    private final AtomicInteger connectionIndex = new AtomicInteger();
+    private volatile MemoryLatency latency = MemoryLatency.NONE;
+    private long commandCount;
+
+    private MemoryRedis(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 进程共享的存储，RedisClient、StreamClient 使用
+     *
+     * @return 共享存储
+     */
+    public static MemoryRedis getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 创建独立的存储
+     *
+     * @return 新存储
+     */
+    public static MemoryRedis create() {
+        return new MemoryRedis("memory-" + INDEX.incrementAndGet());
+    }
+
+    /**
+     * 连接工厂，用于 JedisPool 或 Jedis
+     *
+     * @return 连接工厂
+     */
+    public JedisSocketFactory socketFactory() {
+        return () -> new MemoryConnection(this, connectionIndex.incrementAndGet());
+    }
+
+    /**
+     * 注册脚本的本地实现，所有存储共享
+     *
+     * @param sha1   脚本 SHA1
+     * @param script 本地实现
+     */
+    public static void registerScript(String sha1, MemoryScript script) {
+        SCRIPTS.put(sha1.toLowerCase(Locale.ROOT), script);
+    }
+
+    /**
+     * 脚本是否有本地实现
+     *
+     * @param sha1 脚本 SHA1
+     * @return 是否可执行
+     */
+    public static boolean hasScript(String sha1) {
+        return SCRIPTS.containsKey(sha1.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 设置注入的延迟，之后创建的连接按新种子生成抖动
+     *
+     * @param latency 延迟配置
+     */
+    public void setLatency(MemoryLatency latency) {
+        this.latency = latency;
+    }
+
+    public MemoryLatency getLatency() {
+        return latency;
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public synchronized void flushAll() {
+        data.clear();
+        expires.clear();
+    }
+
+    /**
+     * Key 数量，包括已过期未清理的 Key
+     *
+     * @return Key 数量
+     */
+    public synchronized int size() {
+        return data.size();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // 执行
+
+    /**
+     * 执行一条命令
+     *
+     * @param connection 连接
+     * @param args       命令及参数
+     * @return 回复，NO_REPLY 表示已写入回复
+     */
+    Object execute(MemoryConnection connection, byte[][] args) {
+        String command = upper(args[0]);
+        synchronized (this) {
+            MemoryLatency.pause(latency.getCommandNanos());
+            if (++commandCount % EXPIRE_CYCLE == 0) {
+                activeExpire();
+            }
+            try {
+                return dispatch(connection, command, args);
+            } catch (MemoryException e) {
+                return e;
+            } catch (IndexOutOfBoundsException e) {
+                return MemoryException.of("ERR wrong number of arguments for '" + command.toLowerCase() + "' command");
+            }
+        }
+    }
+
+    synchronized void disconnect(MemoryConnection connection) {
+        for (String channel : connection.getChannels()) {
+            Set<MemoryConnection> subscribers = channels.get(channel);
+            if (null != subscribers) {
+                subscribers.remove(connection);
+                if (subscribers.isEmpty()) {
+                    channels.remove(channel);
+                }
+            }
+        }
+        connection.getChannels().clear();
+    }
+
+    private Object dispatch(MemoryConnection connection, String command, byte[][] args) {
+        switch (command) {
+            // 连接
+            case "PING":
+                return args.length > 1 ? args[1] : PONG;
+            case "ECHO":
+                return args[1];
+            case "AUTH":
+            case "SELECT":
+            case "READONLY":
+            case "READWRITE":
+                return OK;
+            case "CLIENT":
+                return "ID".equals(upper(args[1])) ? (long) connection.hashCode() : OK;
+            case "QUIT":
+                connection.reply(OK);
+                connection.close();
+                return NO_REPLY;
+            case "INFO":
+                return raw("# Server\r\nredis_mode:memory\r\n");
+            case "TIME":
+                long micros = System.currentTimeMillis() * 1000;
+                return Arrays.asList(raw(String.valueOf(micros / 1000000)), raw(String.valueOf(micros % 1000000)));
+            case "DBSIZE":
+                return (long) data.size();
+            case "FLUSHDB":
+            case "FLUSHALL":
+                flushAll();
+                return OK;
+            case "EVAL":
+                return eval(connection, args, false);
+            case "EVALSHA":
+                return eval(connection, args, true);
+            case "SCRIPT":
+                return script(args);
+            case "MULTI":
+            case "EXEC":
+            case "WATCH":
+                return MemoryException.of("ERR '" + command.toLowerCase() + "' is not supported by memory backend");
+            // Key
+            case "DEL":
+            case "UNLINK":
+                return del(args);
+            case "EXISTS":
+                return exists(args);
+            case "TYPE":
+                return type(key(args[1]));
+            case "EXPIRE":
+                return expire(key(args[1]), parseLong(args[2]) * 1000);
+            case "PEXPIRE":
+                return expire(key(args[1]), parseLong(args[2]));
+            case "EXPIREAT":
+                return expireAt(key(args[1]), parseLong(args[2]) * 1000);
+            case "PEXPIREAT":
+                return expireAt(key(args[1]), parseLong(args[2]));
+            case "TTL":
+                return ttl(key(args[1]), true);
+            case "PTTL":
+                return ttl(key(args[1]), false);
+            case "PERSIST":
+                return persist(key(args[1]));
+            case "KEYS":
+                return keys(args[1]);
+            case "SCAN":
+                return scan(args);
+            case "MEMORY":
+                return memoryUsage(args);
+            // 字符串
+            case "GET":
+                return getString(key(args[1]));
+            case "SET":
+                return set(args);
+            case "SETEX":
+                return setString(key(args[1]), args[3], parseLong(args[2]) * 1000);
+            case "PSETEX":
+                return setString(key(args[1]), args[3], parseLong(args[2]));
+            case "SETNX":
+                return setNx(key(args[1]), args[2]);
+            case "GETSET":
+                return getSet(key(args[1]), args[2]);
+            case "MGET":
+                return mGet(args);
+            case "MSET":
+                return mSet(args);
+            case "INCR":
+                return incrBy(key(args[1]), 1);
+            case "INCRBY":
+                return incrBy(key(args[1]), parseLong(args[2]));
+            case "DECR":
+                return incrBy(key(args[1]), -1);
+            case "DECRBY":
+                return incrBy(key(args[1]), -parseLong(args[2]));
+            case "APPEND":
+                return append(key(args[1]), args[2]);
+            case "STRLEN":
+                return strLen(key(args[1]));
+            // 位
+            case "SETBIT":
+                return setBit(key(args[1]), parseLong(args[2]), parseLong(args[3]));
+            case "GETBIT":
+                return getBit(key(args[1]), parseLong(args[2]));
+            case "BITCOUNT":
+                return bitCount(args);
+            case "BITOP":
+                return bitOp(args);
+            case "BITFIELD":
+                return bitField(args);
+            // HyperLogLog
+            case "PFADD":
+                return pfAdd(args);
+            case "PFCOUNT":
+                return pfCount(args);
+            case "PFMERGE":
+                return pfMerge(args);
+            // 散列
+            case "HSET":
+            case "HMSET":
+                return hSet(command, args);
+            case "HSETNX":
+                return hSetNx(key(args[1]), key(args[2]), args[3]);
+            case "HGET":
+                return hGet(key(args[1]), key(args[2]));
+            case "HMGET":
+                return hmGet(args);
+            case "HGETALL":
+                return hGetAll(key(args[1]));
+            case "HDEL":
+                return hDel(args);
+            case "HEXISTS":
+                return hExists(key(args[1]), key(args[2]));
+            case "HLEN":
+                return hLen(key(args[1]));
+            case "HKEYS":
+                return hKeys(key(args[1]));
+            case "HVALS":
+                return hVals(key(args[1]));
+            case "HINCRBY":
+                return hIncrBy(key(args[1]), key(args[2]), parseLong(args[3]));
+            case "HSCAN":
+                return hScan(args);
+            // 列表
+            case "LPUSH":
+                return push(args, true);
+            case "RPUSH":
+                return push(args, false);
+            case "LPOP":
+                return pop(args, true);
+            case "RPOP":
+                return pop(args, false);
+            case "BLPOP":
+                return blockingPop(args, true);
+            case "BRPOP":
+                return blockingPop(args, false);
+            case "LLEN":
+                return lLen(key(args[1]));
+            case "LRANGE":
+                return lRange(key(args[1]), parseLong(args[2]), parseLong(args[3]));
+            case "LINDEX":
+                return lIndex(key(args[1]), parseLong(args[2]));
+            case "LSET":
+                return lSet(key(args[1]), parseLong(args[2]), args[3]);
+            case "LREM":
+                return lRem(key(args[1]), parseLong(args[2]), args[3]);
+            case "LTRIM":
+                return lTrim(key(args[1]), parseLong(args[2]), parseLong(args[3]));
+            // 集合
+            case "SADD":
+                return sAdd(args);
+            case "SREM":
+                return sRem(args);
+            case "SISMEMBER":
+                return sIsMember(key(args[1]), key(args[2]));
+            case "SMISMEMBER":
+                return smIsMember(args);
+            case "SMEMBERS":
+                return sMembers(key(args[1]));
+            case "SCARD":
+                return sCard(key(args[1]));
+            case "SPOP":
+                return sPop(args);
+            case "SSCAN":
+                return sScan(args);
+            // 有序集合
+            case "ZADD":
+                return zAdd(args);
+            case "ZCARD":
+                return zCard(key(args[1]));
+            case "ZRANGE":
+                return zRange(args);
+            case "ZREMRANGEBYSCORE":
+                return zRemRangeByScore(key(args[1]), args[2], args[3]);
+            // 发布订阅
+            case "PUBLISH":
+                return publish(key(args[1]), args[2]);
+            case "SUBSCRIBE":
+                return subscribe(connection, args);
+            case "UNSUBSCRIBE":
+                return unsubscribe(connection, args);
+            // Stream
+            case "XADD":
+                return xAdd(args);
+            case "XLEN":
+                return xLen(key(args[1]));
+            case "XRANGE":
+                return xRange(args, false);
+            case "XREVRANGE":
+                return xRange(args, true);
+            case "XDEL":
+                return xDel(args);
+            case "XTRIM":
+                return xTrim(args);
+            case "XREAD":
+                return xRead(args);
+            case "XGROUP":
+                return xGroup(args);
+            case "XREADGROUP":
+                return xReadGroup(args);
+            case "XACK":
+                return xAck(args);
+            case "XPENDING":
+                return xPending(args);
+            case "XCLAIM":
+                return xClaim(args);
+            case "XAUTOCLAIM":
+                return xAutoClaim(args);
+            case "XINFO":
+                return xInfo(args);
+            default:
+                return MemoryException.of("ERR unknown command '" + command.toLowerCase() + "'");
+        }
+    }
+
+    // Key 空间
+
+    private Object lookup(String key) {
+        Long expireAt = expires.get(key);
+        if (null != expireAt && expireAt <= now()) {
+            data.remove(key);
+            expires.remove(key);
+            return null;
+        }
+        return data.get(key);
+    }
+
+    private <T> T lookup(String key, Class<T> type) {
+        Object value = lookup(key);
+        if (null == value) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw MemoryException.of(MemoryException.WRONG_TYPE);
+        }
+        return type.cast(value);
+    }
+
+    private <T> T lookupOrCreate(String key, Class<T> type, Supplier<T> creator) {
+        T value = lookup(key, type);
+        if (null == value) {
+            value = creator.get();
+            data.put(key, value);
+        }
+        return value;
+    }
+
+    private void removeIfEmpty(String key, int size) {
+        if (size == 0) {
+            data.remove(key);
+            expires.remove(key);
+        }
+    }
+
+    private void activeExpire() {
+        long now = now();
+        Iterator<Map.Entry<String, Long>> iterator = expires.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                data.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    private long del(byte[][] args) {
+        long removed = 0;
+        for (int i = 1; i < args.length; i++) {
+            String key = key(args[i]);
+            if (null != lookup(key)) {
+                data.remove(key);
+                expires.remove(key);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private long exists(byte[][] args) {
+        long count = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (null != lookup(key(args[i]))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String type(String key) {
+        Object value = lookup(key);
+        if (null == value) {
+            return "none";
+        }
+        if (value instanceof byte[] || value instanceof Hll) {
+            return "string";
+        }
+        if (value instanceof Map) {
+            return "hash";
+        }
+        if (value instanceof Deque) {
+            return "list";
+        }
+        if (value instanceof Set) {
+            return "set";
+        }
+        if (value instanceof ZSet) {
+            return "zset";
+        }
+        return "stream";
+    }
+
+    private long expire(String key, long millis) {
+        return expireAt(key, now() + millis);
+    }
+
+    private long expireAt(String key, long expireAt) {
+        if (null == lookup(key)) {
+            return 0;
+        }
+        if (expireAt <= now()) {
+            data.remove(key);
+            expires.remove(key);
+        } else {
+            expires.put(key, expireAt);
+        }
+        return 1;
+    }
+
+    private long ttl(String key, boolean seconds) {
+        if (null == lookup(key)) {
+            return -2;
+        }
+        Long expireAt = expires.get(key);
+        if (null == expireAt) {
+            return -1;
+        }
+        long remaining = expireAt - now();
+        return seconds ? (remaining + 500) / 1000 : remaining;
+    }
+
+    private long persist(String key) {
+        return null != lookup(key) && null != expires.remove(key) ? 1 : 0;
+    }
+
+    private List<Object> keys(byte[] pattern) {
+        String glob = key(pattern);
+        List<Object> result = new ArrayList<>();
+        for (String key : new ArrayList<>(data.keySet())) {
+            if (null != lookup(key) && globMatch(glob, key)) {
+                result.add(raw(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * SCAN 游标为遍历位置，遍历期间 Key 数量变化时可能重复或遗漏
+     */
+    private List<Object> scan(byte[][] args) {
+        int cursor = (int) parseLong(args[1]);
+        String match = null;
+        String type = null;
+        int count = DEFAULT_SCAN_COUNT;
+        for (int i = 2; i < args.length; i += 2) {
+            String option = upper(args[i]);
+            if ("MATCH".equals(option)) {
+                match = key(args[i + 1]);
+            } else if ("COUNT".equals(option)) {
+                count = (int) parseLong(args[i + 1]);
+            } else if ("TYPE".equals(option)) {
+                type = text(args[i + 1]).toLowerCase();
+            } else {
+                throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        List<String> page = new ArrayList<>(count);
+        int next = scanPage(data.keySet(), cursor, count, page);
+        List<Object> keys = new ArrayList<>(page.size());
+        for (String key : page) {
+            if (null != lookup(key) && (null == match || globMatch(match, key))
+                    && (null == type || type.equals(type(key)))) {
+                keys.add(raw(key));
+            }
+        }
+        return Arrays.asList(raw(String.valueOf(next)), keys);
+    }
+
+    private static <T> int scanPage(Collection<T> collection, int cursor, int count, List<T> page) {
+        Iterator<T> iterator = collection.iterator();
+        int position = 0;
+        while (position < cursor && iterator.hasNext()) {
+            iterator.next();
+            position++;
+        }
+        while (page.size() < count && iterator.hasNext()) {
+            page.add(iterator.next());
+            position++;
+        }
+        return iterator.hasNext() ? position : 0;
+    }
+
+    private Object memoryUsage(byte[][] args) {
+        if (!"USAGE".equals(upper(args[1]))) {
+            throw MemoryException.of(MemoryException.SYNTAX);
+        }
+        String key = key(args[2]);
+        Object value = lookup(key);
+        if (null == value) {
+            return null;
+        }
+        long bytes = 48 + key.length();
+        if (value instanceof byte[]) {
+            bytes += ((byte[]) value).length;
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                bytes += 24 + entry.getKey().toString().length() + ((byte[]) entry.getValue()).length;
+            }
+        } else if (value instanceof Deque) {
+            for (Object item : (Deque<?>) value) {
+                bytes += 16 + ((byte[]) item).length;
+            }
+        } else if (value instanceof Set) {
+            for (Object member : (Set<?>) value) {
+                bytes += 16 + member.toString().length();
+            }
+        } else if (value instanceof Hll) {
+            bytes += 12304;
+        } else if (value instanceof ZSet) {
+            bytes += ((ZSet) value).estimateBytes();
+        } else {
+            bytes += ((MemoryStream) value).estimateBytes();
+        }
+        return bytes;
+    }
+
+    // 字符串
+
+    private byte[] getString(String key) {
+        return lookup(key, byte[].class);
+    }
+
+    private Object set(byte[][] args) {
+        String key = key(args[1]);
+        byte[] value = args[2];
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        boolean get = false;
+        long expireAt = 0;
+        for (int i = 3; i < args.length; i++) {
+            String option = upper(args[i]);
+            switch (option) {
+                case "NX":
+                    nx = true;
+                    break;
+                case "XX":
+                    xx = true;
+                    break;
+                case "KEEPTTL":
+                    keepTtl = true;
+                    break;
+                case "GET":
+                    get = true;
+                    break;
+                case "EX":
+                    expireAt = now() + positive(args[++i]) * 1000;
+                    break;
+                case "PX":
+                    expireAt = now() + positive(args[++i]);
+                    break;
+                case "EXAT":
+                    expireAt = positive(args[++i]) * 1000;
+                    break;
+                case "PXAT":
+                    expireAt = positive(args[++i]);
+                    break;
+                default:
+                    throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        Object old = lookup(key);
+        if (get && null != old && !(old instanceof byte[])) {
+            throw MemoryException.of(MemoryException.WRONG_TYPE);
+        }
+        if ((nx && null != old) || (xx && null == old)) {
+            return get ? old : null;
+        }
+        data.put(key, value);
+        if (expireAt > 0) {
+            expires.put(key, expireAt);
+        } else if (!keepTtl) {
+            expires.remove(key);
+        }
+        return get ? old : OK;
+    }
+
+    private String setString(String key, byte[] value, long millis) {
+        if (millis <= 0) {
+            throw MemoryException.of("ERR invalid expire time in 'setex' command");
+        }
+        data.put(key, value);
+        expires.put(key, now() + millis);
+        return OK;
+    }
+
+    private void putString(String key, byte[] value) {
+        data.put(key, value);
+        expires.remove(key);
+    }
+
+    private long setNx(String key, byte[] value) {
+        if (null != lookup(key)) {
+            return 0;
+        }
+        putString(key, value);
+        return 1;
+    }
+
+    private byte[] getSet(String key, byte[] value) {
+        byte[] old = getString(key);
+        putString(key, value);
+        return old;
+    }
+
+    private List<Object> mGet(byte[][] args) {
+        List<Object> result = new ArrayList<>(args.length - 1);
+        for (int i = 1; i < args.length; i++) {
+            Object value = lookup(key(args[i]));
+            result.add(value instanceof byte[] ? value : null);
+        }
+        return result;
+    }
+
+    private String mSet(byte[][] args) {
+        if (args.length % 2 == 0) {
+            throw MemoryException.of("ERR wrong number of arguments for 'mset' command");
+        }
+        for (int i = 1; i < args.length; i += 2) {
+            putString(key(args[i]), args[i + 1]);
+        }
+        return OK;
+    }
+
+    private long incrBy(String key, long increment) {
+        byte[] old = getString(key);
+        long value;
+        try {
+            value = Math.addExact(null == old ? 0 : Long.parseLong(text(old)), increment);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw MemoryException.of(MemoryException.NOT_INTEGER);
+        }
+        data.put(key, raw(String.valueOf(value)));
+        return value;
+    }
+
+    private long append(String key, byte[] value) {
+        byte[] old = getString(key);
+        byte[] appended = null == old ? value : concat(old, value);
+        data.put(key, appended);
+        return appended.length;
+    }
+
+    private long strLen(String key) {
+        byte[] value = getString(key);
+        return null == value ? 0 : value.length;
+    }
+
+    // 位
+
+    private long setBit(String key, long offset, long bit) {
+        if (offset < 0 || offset >= 1L << 32) {
+            throw MemoryException.of("ERR bit offset is not an integer or out of range");
+        }
+        if (bit != 0 && bit != 1) {
+            throw MemoryException.of("ERR bit is not an integer or out of range");
+        }
+        byte[] old = getString(key);
+        int byteIndex = (int) (offset >> 3);
+        byte[] value = null == old ? new byte[byteIndex + 1]
+                : old.length > byteIndex ? old : Arrays.copyOf(old, byteIndex + 1);
+        int mask = 0x80 >>> (offset & 7);
+        long previous = (value[byteIndex] & mask) == 0 ? 0 : 1;
+        value[byteIndex] = (byte) (bit == 1 ? value[byteIndex] | mask : value[byteIndex] & ~mask);
+        data.put(key, value);
+        return previous;
+    }
+
+    private long getBit(String key, long offset) {
+        byte[] value = getString(key);
+        int byteIndex = (int) (offset >> 3);
+        if (null == value || byteIndex >= value.length) {
+            return 0;
+        }
+        return (value[byteIndex] & (0x80 >>> (offset & 7))) == 0 ? 0 : 1;
+    }
+
+    private long bitCount(byte[][] args) {
+        byte[] value = getString(key(args[1]));
+        if (null == value) {
+            return 0;
+        }
+        long start = 0;
+        long end = value.length - 1L;
+        boolean bitUnit = false;
+        if (args.length >= 4) {
+            bitUnit = args.length > 4 && "BIT".equals(upper(args[4]));
+            long length = bitUnit ? value.length * 8L : value.length;
+            start = index(parseLong(args[2]), length);
+            end = Math.min(index(parseLong(args[3]), length), length - 1);
+        }
+        long count = 0;
+        for (long i = start; i <= end; i++) {
+            count += bitUnit ? (value[(int) (i >> 3)] & (0x80 >>> (i & 7))) == 0 ? 0 : 1
+                    : Integer.bitCount(value[(int) i] & 0xFF);
+        }
+        return count;
+    }
+
+    private long bitOp(byte[][] args) {
+        String op = upper(args[1]);
+        String dest = key(args[2]);
+        List<byte[]> sources = new ArrayList<>();
+        int length = 0;
+        for (int i = 3; i < args.length; i++) {
+            byte[] value = getString(key(args[i]));
+            value = null == value ? new byte[0] : value;
+            sources.add(value);
+            length = Math.max(length, value.length);
+        }
+        if ("NOT".equals(op) && sources.size() != 1) {
+            throw MemoryException.of("ERR BITOP NOT must be called with a single source key.");
+        }
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int value = i < sources.get(0).length ? sources.get(0)[i] & 0xFF : 0;
+            if ("NOT".equals(op)) {
+                value = ~value;
+            }
+            for (int j = 1; j < sources.size(); j++) {
+                int other = i < sources.get(j).length ? sources.get(j)[i] & 0xFF : 0;
+                switch (op) {
+                    case "AND":
+                        value &= other;
+                        break;
+                    case "OR":
+                        value |= other;
+                        break;
+                    case "XOR":
+                        value ^= other;
+                        break;
+                    default:
+                        throw MemoryException.of(MemoryException.SYNTAX);
+                }
+            }
+            result[i] = (byte) value;
+        }
+        if (length == 0) {
+            data.remove(dest);
+            expires.remove(dest);
+        } else {
+            putString(dest, result);
+        }
+        return length;
+    }
+
+    /**
+     * BITFIELD 只支持 GET、SET、INCRBY，溢出按 WRAP 处理
+     */
+    private List<Object> bitField(byte[][] args) {
+        String key = key(args[1]);
+        List<Object> result = new ArrayList<>();
+        for (int i = 2; i < args.length; ) {
+            String op = upper(args[i]);
+            String type = text(args[i + 1]);
+            boolean signed = type.charAt(0) == 'i' || type.charAt(0) == 'I';
+            int bits = Integer.parseInt(type.substring(1));
+            if (bits < 1 || bits > (signed ? 64 : 63)) {
+                throw MemoryException.of("ERR Invalid bitfield type. Use something like i16 u8. Note that u64 is not supported but i64 is.");
+            }
+            String offsetText = text(args[i + 2]);
+            long offset = offsetText.startsWith("#") ? Long.parseLong(offsetText.substring(1)) * bits : Long.parseLong(offsetText);
+            switch (op) {
+                case "GET":
+                    result.add(readBits(getString(key), offset, bits, signed));
+                    i += 3;
+                    break;
+                case "SET":
+                    result.add(readBits(getString(key), offset, bits, signed));
+                    writeBits(key, offset, bits, parseLong(args[i + 3]));
+                    i += 4;
+                    break;
+                case "INCRBY":
+                    long value = readBits(getString(key), offset, bits, signed) + parseLong(args[i + 3]);
+                    writeBits(key, offset, bits, value);
+                    result.add(readBits(getString(key), offset, bits, signed));
+                    i += 4;
+                    break;
+                default:
+                    throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        return result;
+    }
+
+    private static long readBits(byte[] value, long offset, int bits, boolean signed) {
+        long result = 0;
+        for (int i = 0; i < bits; i++) {
+            long bitOffset = offset + i;
+            int byteIndex = (int) (bitOffset >> 3);
+            int bit = null == value || byteIndex >= value.length ? 0 : (value[byteIndex] >>> (7 - (bitOffset & 7))) & 1;
+            result = (result << 1) | bit;
+        }
+        if (signed && bits < 64 && (result & (1L << (bits - 1))) != 0) {
+            result |= -1L << bits;
+        }
+        return result;
+    }
+
+    private void writeBits(String key, long offset, int bits, long value) {
+        for (int i = 0; i < bits; i++) {
+            setBit(key, offset + i, (value >>> (bits - 1 - i)) & 1);
+        }
+    }
+
+    // HyperLogLog
+
+    private long pfAdd(byte[][] args) {
+        String key = key(args[1]);
+        boolean created = null == lookup(key);
+        Hll hll = lookupOrCreate(key, Hll.class, Hll::new);
+        boolean changed = created;
+        for (int i = 2; i < args.length; i++) {
+            changed |= hll.members.add(key(args[i]));
+        }
+        return changed ? 1 : 0;
+    }
+
+    private long pfCount(byte[][] args) {
+        Set<String> union = new HashSet<>();
+        for (int i = 1; i < args.length; i++) {
+            Hll hll = lookupHll(key(args[i]));
+            if (null != hll) {
+                union.addAll(hll.members);
+            }
+        }
+        return union.size();
+    }
+
+    private String pfMerge(byte[][] args) {
+        Set<String> union = new HashSet<>();
+        for (int i = 1; i < args.length; i++) {
+            Hll hll = lookupHll(key(args[i]));
+            if (null != hll) {
+                union.addAll(hll.members);
+            }
+        }
+        Hll dest = lookupOrCreate(key(args[1]), Hll.class, Hll::new);
+        dest.members.addAll(union);
+        return OK;
+    }
+
+    private Hll lookupHll(String key) {
+        Object value = lookup(key);
+        if (null != value && !(value instanceof Hll)) {
+            throw MemoryException.of("WRONGTYPE Key is not a valid HyperLogLog string value.");
+        }
+        return (Hll) value;
+    }
+
+    // 散列
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> lookupHash(String key) {
+        return lookup(key, Map.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> lookupOrCreateHash(String key) {
+        return lookupOrCreate(key, Map.class, LinkedHashMap::new);
+    }
+
+    private Object hSet(String command, byte[][] args) {
+        if (args.length < 4 || args.length % 2 == 1) {
+            throw MemoryException.of("ERR wrong number of arguments for '" + command.toLowerCase() + "' command");
+        }
+        Map<String, byte[]> hash = lookupOrCreateHash(key(args[1]));
+        long added = 0;
+        for (int i = 2; i < args.length; i += 2) {
+            if (null == hash.put(key(args[i]), args[i + 1])) {
+                added++;
+            }
+        }
+        return "HMSET".equals(command) ? OK : added;
+    }
+
+    private long hSetNx(String key, String field, byte[] value) {
+        Map<String, byte[]> hash = lookupOrCreateHash(key);
+        return null == hash.putIfAbsent(field, value) ? 1 : 0;
+    }
+
+    private byte[] hGet(String key, String field) {
+        Map<String, byte[]> hash = lookupHash(key);
+        return null == hash ? null : hash.get(field);
+    }
+
+    private List<Object> hmGet(byte[][] args) {
+        Map<String, byte[]> hash = lookupHash(key(args[1]));
+        List<Object> result = new ArrayList<>(args.length - 2);
+        for (int i = 2; i < args.length; i++) {
+            result.add(null == hash ? null : hash.get(key(args[i])));
+        }
+        return result;
+    }
+
+    private List<Object> hGetAll(String key) {
+        Map<String, byte[]> hash = lookupHash(key);
+        if (null == hash) {
+            return Collections.emptyList();
+        }
+        List<Object> result = new ArrayList<>(hash.size() * 2);
+        for (Map.Entry<String, byte[]> entry : hash.entrySet()) {
+            result.add(raw(entry.getKey()));
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    private long hDel(byte[][] args) {
+        String key = key(args[1]);
+        Map<String, byte[]> hash = lookupHash(key);
+        if (null == hash) {
+            return 0;
+        }
+        long removed = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (null != hash.remove(key(args[i]))) {
+                removed++;
+            }
+        }
+        removeIfEmpty(key, hash.size());
+        return removed;
+    }
+
+    private long hExists(String key, String field) {
+        Map<String, byte[]> hash = lookupHash(key);
+        return null != hash && hash.containsKey(field) ? 1 : 0;
+    }
+
+    private long hLen(String key) {
+        Map<String, byte[]> hash = lookupHash(key);
+        return null == hash ? 0 : hash.size();
+    }
+
+    private List<Object> hKeys(String key) {
+        Map<String, byte[]> hash = lookupHash(key);
+        List<Object> result = new ArrayList<>();
+        if (null != hash) {
+            for (String field : hash.keySet()) {
+                result.add(raw(field));
+            }
+        }
+        return result;
+    }
+
+    private List<Object> hVals(String key) {
+        Map<String, byte[]> hash = lookupHash(key);
+        return null == hash ? Collections.emptyList() : new ArrayList<>(hash.values());
+    }
+
+    private long hIncrBy(String key, String field, long increment) {
+        Map<String, byte[]> hash = lookupOrCreateHash(key);
+        byte[] old = hash.get(field);
+        long value;
+        try {
+            value = Math.addExact(null == old ? 0 : Long.parseLong(text(old)), increment);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw MemoryException.of("ERR hash value is not an integer");
+        }
+        hash.put(field, raw(String.valueOf(value)));
+        return value;
+    }
+
+    private List<Object> hScan(byte[][] args) {
+        Map<String, byte[]> hash = lookupHash(key(args[1]));
+        ScanOptions options = ScanOptions.parse(args, 3);
+        if (null == hash) {
+            return Arrays.asList(raw("0"), Collections.emptyList());
+        }
+        List<String> page = new ArrayList<>(options.count);
+        int next = scanPage(hash.keySet(), (int) parseLong(args[2]), options.count, page);
+        List<Object> result = new ArrayList<>(page.size() * 2);
+        for (String field : page) {
+            if (options.matches(field)) {
+                result.add(raw(field));
+                result.add(hash.get(field));
+            }
+        }
+        return Arrays.asList(raw(String.valueOf(next)), result);
+    }
+
+    // 列表
+
+    @SuppressWarnings("unchecked")
+    private Deque<byte[]> lookupList(String key) {
+        return lookup(key, Deque.class);
+    }
+
+    private long push(byte[][] args, boolean left) {
+        if (args.length < 3) {
+            throw MemoryException.of("ERR wrong number of arguments for '" + (left ? "lpush" : "rpush") + "' command");
+        }
+        @SuppressWarnings("unchecked")
+        Deque<byte[]> list = lookupOrCreate(key(args[1]), Deque.class, ArrayDeque::new);
+        for (int i = 2; i < args.length; i++) {
+            if (left) {
+                list.addFirst(args[i]);
+            } else {
+                list.addLast(args[i]);
+            }
+        }
+        notifyAll();
+        return list.size();
+    }
+
+    private Object pop(byte[][] args, boolean left) {
+        String key = key(args[1]);
+        Deque<byte[]> list = lookupList(key);
+        if (args.length < 3) {
+            if (null == list) {
+                return null;
+            }
+            byte[] value = left ? list.pollFirst() : list.pollLast();
+            removeIfEmpty(key, list.size());
+            return value;
+        }
+        long count = parseLong(args[2]);
+        if (null == list) {
+            return NULL_ARRAY;
+        }
+        List<Object> result = new ArrayList<>();
+        while (result.size() < count && !list.isEmpty()) {
+            result.add(left ? list.pollFirst() : list.pollLast());
+        }
+        removeIfEmpty(key, list.size());
+        return result;
+    }
+
+    private Object blockingPop(byte[][] args, boolean left) {
+        long deadline = deadline(Math.round(Double.parseDouble(text(args[args.length - 1])) * 1000));
+        while (true) {
+            for (int i = 1; i < args.length - 1; i++) {
+                String key = key(args[i]);
+                Deque<byte[]> list = lookupList(key);
+                if (null != list && !list.isEmpty()) {
+                    byte[] value = left ? list.pollFirst() : list.pollLast();
+                    removeIfEmpty(key, list.size());
+                    return Arrays.asList(args[i], value);
+                }
+            }
+            if (!await(deadline)) {
+                return NULL_ARRAY;
+            }
+        }
+    }
+
+    private long lLen(String key) {
+        Deque<byte[]> list = lookupList(key);
+        return null == list ? 0 : list.size();
+    }
+
+    private List<Object> lRange(String key, long start, long end) {
+        Deque<byte[]> list = lookupList(key);
+        if (null == list) {
+            return Collections.emptyList();
+        }
+        start = index(start, list.size());
+        end = Math.min(index(end, list.size()), list.size() - 1L);
+        List<Object> result = new ArrayList<>((int) Math.max(0, end - start + 1));
+        Iterator<byte[]> iterator = list.iterator();
+        for (long i = 0; i <= end && iterator.hasNext(); i++) {
+            byte[] value = iterator.next();
+            if (i >= start) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private byte[] lIndex(String key, long index) {
+        Deque<byte[]> list = lookupList(key);
+        if (null == list) {
+            return null;
+        }
+        long position = index < 0 ? list.size() + index : index;
+        if (position < 0 || position >= list.size()) {
+            return null;
+        }
+        Iterator<byte[]> iterator = list.iterator();
+        for (long i = 0; i < position; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    private String lSet(String key, long index, byte[] value) {
+        Deque<byte[]> list = lookupList(key);
+        if (null == list) {
+            throw MemoryException.of("ERR no such key");
+        }
+        long position = index < 0 ? list.size() + index : index;
+        if (position < 0 || position >= list.size()) {
+            throw MemoryException.of("ERR index out of range");
+        }
+        List<byte[]> copy = new ArrayList<>(list);
+        copy.set((int) position, value);
+        list.clear();
+        list.addAll(copy);
+        return OK;
+    }
+
+    private long lRem(String key, long count, byte[] value) {
+        Deque<byte[]> list = lookupList(key);
+        if (null == list) {
+            return 0;
+        }
+        long removed = 0;
+        Iterator<byte[]> iterator = count < 0 ? list.descendingIterator() : list.iterator();
+        long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+        while (iterator.hasNext() && removed < limit) {
+            if (Arrays.equals(iterator.next(), value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        removeIfEmpty(key, list.size());
+        return removed;
+    }
+
+    private String lTrim(String key, long start, long end) {
+        Deque<byte[]> list = lookupList(key);
+        if (null == list) {
+            return OK;
+        }
+        int size = list.size();
+        start = index(start, size);
+        end = Math.min(index(end, size), size - 1L);
+        if (start > end) {
+            list.clear();
+        } else {
+            for (long i = end + 1; i < size; i++) {
+                list.pollLast();
+            }
+            for (long i = 0; i < start; i++) {
+                list.pollFirst();
+            }
+        }
+        removeIfEmpty(key, list.size());
+        return OK;
+    }
+
+    // 集合
+
+    @SuppressWarnings("unchecked")
+    private Set<String> lookupSet(String key) {
+        return lookup(key, Set.class);
+    }
+
+    private long sAdd(byte[][] args) {
+        @SuppressWarnings("unchecked")
+        Set<String> set = lookupOrCreate(key(args[1]), Set.class, LinkedHashSet::new);
+        long added = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (set.add(key(args[i]))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private long sRem(byte[][] args) {
+        String key = key(args[1]);
+        Set<String> set = lookupSet(key);
+        if (null == set) {
+            return 0;
+        }
+        long removed = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (set.remove(key(args[i]))) {
+                removed++;
+            }
+        }
+        removeIfEmpty(key, set.size());
+        return removed;
+    }
+
+    private long sIsMember(String key, String member) {
+        Set<String> set = lookupSet(key);
+        return null != set && set.contains(member) ? 1 : 0;
+    }
+
+    private List<Object> smIsMember(byte[][] args) {
+        Set<String> set = lookupSet(key(args[1]));
+        List<Object> result = new ArrayList<>(args.length - 2);
+        for (int i = 2; i < args.length; i++) {
+            result.add(null != set && set.contains(key(args[i])) ? 1L : 0L);
+        }
+        return result;
+    }
+
+    private List<Object> sMembers(String key) {
+        Set<String> set = lookupSet(key);
+        List<Object> result = new ArrayList<>();
+        if (null != set) {
+            for (String member : set) {
+                result.add(raw(member));
+            }
+        }
+        return result;
+    }
+
+    private long sCard(String key) {
+        Set<String> set = lookupSet(key);
+        return null == set ? 0 : set.size();
+    }
+
+    private Object sPop(byte[][] args) {
+        String key = key(args[1]);
+        Set<String> set = lookupSet(key);
+        long count = args.length > 2 ? parseLong(args[2]) : 1;
+        List<Object> result = new ArrayList<>();
+        if (null != set) {
+            Iterator<String> iterator = set.iterator();
+            while (result.size() < count && iterator.hasNext()) {
+                result.add(raw(iterator.next()));
+                iterator.remove();
+            }
+            removeIfEmpty(key, set.size());
+        }
+        if (args.length > 2) {
+            return result;
+        }
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    private List<Object> sScan(byte[][] args) {
+        Set<String> set = lookupSet(key(args[1]));
+        ScanOptions options = ScanOptions.parse(args, 3);
+        if (null == set) {
+            return Arrays.asList(raw("0"), Collections.emptyList());
+        }
+        List<String> page = new ArrayList<>(options.count);
+        int next = scanPage(set, (int) parseLong(args[2]), options.count, page);
+        List<Object> result = new ArrayList<>(page.size());
+        for (String member : page) {
+            if (options.matches(member)) {
+                result.add(raw(member));
+            }
+        }
+        return Arrays.asList(raw(String.valueOf(next)), result);
+    }
+
+    // 发布订阅
+
+    private long publish(String channel, byte[] message) {
+        Set<MemoryConnection> subscribers = channels.get(channel);
+        if (null == subscribers) {
+            return 0;
+        }
+        for (MemoryConnection subscriber : subscribers) {
+            subscriber.reply(Arrays.asList(raw("message"), raw(channel), message));
+        }
+        return subscribers.size();
+    }
+
+    private Object subscribe(MemoryConnection connection, byte[][] args) {
+        for (int i = 1; i < args.length; i++) {
+            String channel = key(args[i]);
+            connection.getChannels().add(channel);
+            channels.computeIfAbsent(channel, k -> new LinkedHashSet<>()).add(connection);
+            connection.reply(Arrays.asList(raw("subscribe"), args[i], (long) connection.getChannels().size()));
+        }
+        return NO_REPLY;
+    }
+
+    private Object unsubscribe(MemoryConnection connection, byte[][] args) {
+        List<String> channelList = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            channelList.add(key(args[i]));
+        }
+        if (channelList.isEmpty()) {
+            channelList.addAll(connection.getChannels());
+        }
+        if (channelList.isEmpty()) {
+            connection.reply(Arrays.asList(raw("unsubscribe"), null, 0L));
+            return NO_REPLY;
+        }
+        for (String channel : channelList) {
+            connection.getChannels().remove(channel);
+            Set<MemoryConnection> subscribers = channels.get(channel);
+            if (null != subscribers) {
+                subscribers.remove(connection);
+                if (subscribers.isEmpty()) {
+                    channels.remove(channel);
+                }
+            }
+            connection.reply(Arrays.asList(raw("unsubscribe"), raw(channel), (long) connection.getChannels().size()));
+        }
+        return NO_REPLY;
+    }
+
+    // Stream
+
+    private MemoryStream lookupStream(String key) {
+        return lookup(key, MemoryStream.class);
+    }
+
+    private MemoryStream.Group lookupGroup(String key, String group, String command) {
+        MemoryStream stream = lookupStream(key);
+        MemoryStream.Group result = null == stream ? null : stream.getGroup(group);
+        if (null == result) {
+            throw MemoryException.of("NOGROUP No such key '" + key + "' or consumer group '" + group + "' in " + command);
+        }
+        return result;
+    }
+
+    private Object xAdd(byte[][] args) {
+        String key = key(args[1]);
+        boolean noMkStream = false;
+        Trim trim = null;
+        int i = 2;
+        while (true) {
+            String option = upper(args[i]);
+            if ("NOMKSTREAM".equals(option)) {
+                noMkStream = true;
+                i++;
+            } else if ("MAXLEN".equals(option) || "MINID".equals(option)) {
+                trim = new Trim();
+                i = trim.parse(args, i);
+            } else {
+                break;
+            }
+        }
+        String idArg = text(args[i++]);
+        if (args.length == i || (args.length - i) % 2 != 0) {
+            throw MemoryException.of("ERR wrong number of arguments for 'xadd' command");
+        }
+        MemoryStream stream = lookupStream(key);
+        if (null == stream) {
+            if (noMkStream) {
+                return null;
+            }
+            stream = new MemoryStream();
+        }
+        MemoryStream.Id id = stream.add(idArg, Arrays.copyOfRange(args, i, args.length), now());
+        data.put(key, stream);
+        if (null != trim) {
+            trim.apply(stream);
+        }
+        notifyAll();
+        return id.raw();
+    }
+
+    private long xLen(String key) {
+        MemoryStream stream = lookupStream(key);
+        return null == stream ? 0 : stream.size();
+    }
+
+    private List<Object> xRange(byte[][] args, boolean reverse) {
+        MemoryStream stream = lookupStream(key(args[1]));
+        int count = args.length > 5 && "COUNT".equals(upper(args[4])) ? (int) parseLong(args[5]) : 0;
+        if (null == stream) {
+            return Collections.emptyList();
+        }
+        MemoryStream.Id start = MemoryStream.Id.parseBound(text(args[reverse ? 3 : 2]), true);
+        MemoryStream.Id end = MemoryStream.Id.parseBound(text(args[reverse ? 2 : 3]), false);
+        return stream.range(start, end, count, reverse);
+    }
+
+    private long xDel(byte[][] args) {
+        MemoryStream stream = lookupStream(key(args[1]));
+        return null == stream ? 0 : stream.delete(parseIds(args, 2, args.length));
+    }
+
+    private long xTrim(byte[][] args) {
+        MemoryStream stream = lookupStream(key(args[1]));
+        Trim trim = new Trim();
+        trim.parse(args, 2);
+        return null == stream ? 0 : trim.apply(stream);
+    }
+
+    private Object xRead(byte[][] args) {
+        int count = 0;
+        long block = -1;
+        int i = 1;
+        for (; i < args.length; i++) {
+            String option = upper(args[i]);
+            if ("COUNT".equals(option)) {
+                count = (int) parseLong(args[++i]);
+            } else if ("BLOCK".equals(option)) {
+                block = parseLong(args[++i]);
+            } else if ("STREAMS".equals(option)) {
+                break;
+            } else {
+                throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        int streamCount = streamCount(args, i + 1);
+        List<MemoryStream.Id> after = new ArrayList<>(streamCount);
+        for (int j = 0; j < streamCount; j++) {
+            String idArg = text(args[i + 1 + streamCount + j]);
+            if ("$".equals(idArg)) {
+                MemoryStream stream = lookupStream(key(args[i + 1 + j]));
+                after.add(null == stream ? MemoryStream.Id.MIN : stream.getLastId());
+            } else {
+                after.add(MemoryStream.Id.parse(idArg, 0));
+            }
+        }
+        long deadline = block < 0 ? -1 : deadline(block);
+        while (true) {
+            List<Object> result = new ArrayList<>();
+            for (int j = 0; j < streamCount; j++) {
+                MemoryStream stream = lookupStream(key(args[i + 1 + j]));
+                List<Object> entries = null == stream ? Collections.emptyList() : stream.readAfter(after.get(j), count);
+                if (!entries.isEmpty()) {
+                    result.add(Arrays.asList(args[i + 1 + j], entries));
+                }
+            }
+            if (!result.isEmpty()) {
+                return result;
+            }
+            if (block < 0 || !await(deadline)) {
+                return NULL_ARRAY;
+            }
+        }
+    }
+
+    private Object xGroup(byte[][] args) {
+        String subCommand = upper(args[1]);
+        String key = key(args[2]);
+        switch (subCommand) {
+            case "CREATE": {
+                MemoryStream stream = lookupStream(key);
+                boolean mkStream = args.length > 5 && "MKSTREAM".equals(upper(args[5]));
+                if (null == stream) {
+                    if (!mkStream) {
+                        throw MemoryException.of("ERR The XGROUP subcommand requires the key to exist. "
+                                + "Note that for CREATE you may want to use the MKSTREAM option to create an empty stream automatically.");
+                    }
+                    stream = new MemoryStream();
+                    data.put(key, stream);
+                }
+                String idArg = text(args[4]);
+                MemoryStream.Id id = "$".equals(idArg) ? stream.getLastId() : MemoryStream.Id.parse(idArg, 0);
+                if (!stream.createGroup(key(args[3]), id)) {
+                    throw MemoryException.of("BUSYGROUP Consumer Group name already exists");
+                }
+                return OK;
+            }
+            case "DESTROY": {
+                MemoryStream stream = lookupStream(key);
+                return null != stream && stream.destroyGroup(key(args[3])) ? 1L : 0L;
+            }
+            case "CREATECONSUMER":
+                return lookupGroup(key, key(args[3]), "XGROUP").createConsumer(key(args[4]), now()) ? 1L : 0L;
+            case "DELCONSUMER":
+                return lookupGroup(key, key(args[3]), "XGROUP").deleteConsumer(key(args[4]));
+            case "SETID": {
+                MemoryStream stream = lookupStream(key);
+                String idArg = text(args[4]);
+                lookupGroup(key, key(args[3]), "XGROUP").setLastDelivered("$".equals(idArg)
+                        ? stream.getLastId() : MemoryStream.Id.parse(idArg, 0));
+                return OK;
+            }
+            default:
+                throw MemoryException.of(MemoryException.SYNTAX);
+        }
+    }
+
+    private Object xReadGroup(byte[][] args) {
+        if (!"GROUP".equals(upper(args[1]))) {
+            throw MemoryException.of(MemoryException.SYNTAX);
+        }
+        String groupName = key(args[2]);
+        String consumer = key(args[3]);
+        int count = 0;
+        long block = -1;
+        boolean noAck = false;
+        int i = 4;
+        for (; i < args.length; i++) {
+            String option = upper(args[i]);
+            if ("COUNT".equals(option)) {
+                count = (int) parseLong(args[++i]);
+            } else if ("BLOCK".equals(option)) {
+                block = parseLong(args[++i]);
+            } else if ("NOACK".equals(option)) {
+                noAck = true;
+            } else if ("STREAMS".equals(option)) {
+                break;
+            } else {
+                throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        int streamCount = streamCount(args, i + 1);
+        List<MemoryStream.Id> history = new ArrayList<>(streamCount);
+        boolean onlyNew = true;
+        for (int j = 0; j < streamCount; j++) {
+            lookupGroup(key(args[i + 1 + j]), groupName, "XREADGROUP with GROUP option");
+            String idArg = text(args[i + 1 + streamCount + j]);
+            MemoryStream.Id id = ">".equals(idArg) ? null : MemoryStream.Id.parse(idArg, 0);
+            onlyNew &= null == id;
+            history.add(id);
+        }
+        long deadline = block < 0 ? -1 : deadline(block);
+        while (true) {
+            List<Object> result = new ArrayList<>();
+            long now = now();
+            for (int j = 0; j < streamCount; j++) {
+                String key = key(args[i + 1 + j]);
+                MemoryStream stream = lookupStream(key);
+                MemoryStream.Group group = lookupGroup(key, groupName, "XREADGROUP with GROUP option");
+                List<Object> entries = stream.readGroup(group, consumer, history.get(j), count, noAck, now);
+                if (null != history.get(j) || !entries.isEmpty()) {
+                    result.add(Arrays.asList(args[i + 1 + j], entries));
+                }
+            }
+            if (!result.isEmpty()) {
+                return result;
+            }
+            if (!onlyNew || block < 0 || !await(deadline)) {
+                return NULL_ARRAY;
+            }
+        }
+    }
+
+    private long xAck(byte[][] args) {
+        MemoryStream stream = lookupStream(key(args[1]));
+        MemoryStream.Group group = null == stream ? null : stream.getGroup(key(args[2]));
+        return null == group ? 0 : stream.ack(group, parseIds(args, 3, args.length));
+    }
+
+    private List<Object> xPending(byte[][] args) {
+        String key = key(args[1]);
+        MemoryStream.Group group = lookupGroup(key, key(args[2]), "XPENDING");
+        MemoryStream stream = lookupStream(key);
+        if (args.length == 3) {
+            return stream.pendingSummary(group);
+        }
+        int i = 3;
+        long minIdle = 0;
+        if ("IDLE".equals(upper(args[i]))) {
+            minIdle = parseLong(args[i + 1]);
+            i += 2;
+        }
+        MemoryStream.Id start = MemoryStream.Id.parseBound(text(args[i]), true);
+        MemoryStream.Id end = MemoryStream.Id.parseBound(text(args[i + 1]), false);
+        int count = (int) parseLong(args[i + 2]);
+        String consumer = args.length > i + 3 ? key(args[i + 3]) : null;
+        return stream.pendingRange(group, start, end, count, consumer, minIdle, now());
+    }
+
+    private List<Object> xClaim(byte[][] args) {
+        String key = key(args[1]);
+        MemoryStream.Group group = lookupGroup(key, key(args[2]), "XCLAIM");
+        String consumer = key(args[3]);
+        long minIdle = parseLong(args[4]);
+        List<MemoryStream.Id> ids = new ArrayList<>();
+        int i = 5;
+        for (; i < args.length; i++) {
+            String text = text(args[i]);
+            if (text.isEmpty() || !Character.isDigit(text.charAt(0))) {
+                break;
+            }
+            ids.add(MemoryStream.Id.parse(text, 0));
+        }
+        long now = now();
+        long deliveryTime = now;
+        Long retryCount = null;
+        boolean force = false;
+        boolean justId = false;
+        for (; i < args.length; i++) {
+            String option = upper(args[i]);
+            switch (option) {
+                case "IDLE":
+                    deliveryTime = now - parseLong(args[++i]);
+                    break;
+                case "TIME":
+                    deliveryTime = parseLong(args[++i]);
+                    break;
+                case "RETRYCOUNT":
+                    retryCount = parseLong(args[++i]);
+                    break;
+                case "FORCE":
+                    force = true;
+                    break;
+                case "JUSTID":
+                    justId = true;
+                    break;
+                case "LASTID":
+                    i++;
+                    break;
+                default:
+                    throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        return lookupStream(key).claim(group, consumer, minIdle, ids, deliveryTime, retryCount, force, justId, now);
+    }
+
+    private List<Object> xAutoClaim(byte[][] args) {
+        String key = key(args[1]);
+        MemoryStream.Group group = lookupGroup(key, key(args[2]), "XAUTOCLAIM");
+        int count = 100;
+        boolean justId = false;
+        for (int i = 6; i < args.length; i++) {
+            String option = upper(args[i]);
+            if ("COUNT".equals(option)) {
+                count = (int) parseLong(args[++i]);
+            } else if ("JUSTID".equals(option)) {
+                justId = true;
+            } else {
+                throw MemoryException.of(MemoryException.SYNTAX);
+            }
+        }
+        return lookupStream(key).autoClaim(group, key(args[3]), parseLong(args[4]),
+                MemoryStream.Id.parseBound(text(args[5]), true), count, justId, now());
+    }
+
+    private List<Object> xInfo(byte[][] args) {
+        String subCommand = upper(args[1]);
+        String key = key(args[2]);
+        MemoryStream stream = lookupStream(key);
+        if (null == stream) {
+            throw MemoryException.of("ERR no such key");
+        }
+        switch (subCommand) {
+            case "STREAM":
+                return stream.infoStream();
+            case "GROUPS":
+                return stream.infoGroups();
+            case "CONSUMERS":
+                return stream.infoConsumers(lookupGroup(key, key(args[3]), "XINFO"), now());
+            default:
+                throw MemoryException.of(MemoryException.SYNTAX);
+        }
+    }
+
+    private static int streamCount(byte[][] args, int start) {
+        int remaining = args.length - start;
+        if (remaining <= 0 || remaining % 2 != 0) {
+            throw MemoryException.of("ERR Unbalanced 'xread' list of streams: for each stream key an ID or '$' must be specified.");
+        }
+        return remaining / 2;
+    }
+
+    private static List<MemoryStream.Id> parseIds(byte[][] args, int start, int end) {
+        List<MemoryStream.Id> ids = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            ids.add(MemoryStream.Id.parse(text(args[i]), 0));
+        }
+        return ids;
+    }
+
+    // 阻塞
+
+    private static long deadline(long timeoutMillis) {
+        return timeoutMillis <= 0 ? 0 : System.currentTimeMillis() + timeoutMillis;
+    }
+
+    /**
+     * 释放锁等待写入，deadline 为 0 时一直等待
+     *
+     * @return 是否未超时
+     */
+    private boolean await(long deadline) {
+        try {
+            if (deadline == 0) {
+                wait();
+                return true;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 有序集合
+
+    private ZSet lookupZSet(String key) {
+        return lookup(key, ZSet.class);
+    }
+
+    private long zAdd(byte[][] args) {
+        if (args.length % 2 != 0) {
+            throw MemoryException.of(MemoryException.SYNTAX);
+        }
+        String key = key(args[1]);
+        ZSet zSet = lookupOrCreate(key, ZSet.class, ZSet::new);
+        long added = 0;
+        for (int i = 2; i < args.length; i += 2) {
+            if (zSet.add(key(args[i + 1]), parseScore(args[i]))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private long zCard(String key) {
+        ZSet zSet = lookupZSet(key);
+        return null == zSet ? 0 : zSet.size();
+    }
+
+    private List<Object> zRange(byte[][] args) {
+        ZSet zSet = lookupZSet(key(args[1]));
+        boolean withScores = args.length > 4 && "WITHSCORES".equals(upper(args[4]));
+        if (null == zSet) {
+            return Collections.emptyList();
+        }
+        int size = zSet.size();
+        long start = index(parseLong(args[2]), size);
+        long end = Math.min(index(parseLong(args[3]), size), size - 1L);
+        List<Object> result = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<String, Double> entry : zSet.entries) {
+            if (i > end) {
+                break;
+            }
+            if (i++ >= start) {
+                result.add(raw(entry.getKey()));
+                if (withScores) {
+                    result.add(raw(MemoryScript.toString(entry.getValue())));
+                }
+            }
+        }
+        return result;
+    }
+
+    private long zRemRangeByScore(String key, byte[] min, byte[] max) {
+        ZSet zSet = lookupZSet(key);
+        if (null == zSet) {
+            return 0;
+        }
+        long removed = zSet.removeRange(new ScoreBound(min), new ScoreBound(max));
+        removeIfEmpty(key, zSet.size());
+        return removed;
+    }
+
+    private static double parseScore(byte[] bytes) {
+        String text = text(bytes);
+        switch (text) {
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "+inf":
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            default:
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    throw MemoryException.of("ERR min or max is not a float");
+                }
+        }
+    }
+
+    // 脚本
+
+    private Object eval(MemoryConnection connection, byte[][] args, boolean sha) {
+        String sha1 = sha ? text(args[1]).toLowerCase(Locale.ROOT) : sha1Hex(args[1]);
+        MemoryScript script = SCRIPTS.get(sha1);
+        if (null == script) {
+            return MemoryException.of(sha ? "NOSCRIPT No matching script. Please use EVAL."
+                    : "ERR script has no memory backend implementation, register it with MemoryRedis.registerScript");
+        }
+        long numKeys = parseLong(args[2]);
+        if (numKeys < 0 || numKeys > args.length - 3) {
+            throw MemoryException.of("ERR Number of keys can't be greater than number of args");
+        }
+        int argStart = 3 + (int) numKeys;
+        MemoryScript.Call call = (command, callArgs) -> {
+            byte[][] commandArgs = new byte[callArgs.length + 1][];
+            commandArgs[0] = raw(command);
+            for (int i = 0; i < callArgs.length; i++) {
+                commandArgs[i + 1] = callArgs[i] instanceof byte[] ? (byte[]) callArgs[i]
+                        : String.valueOf(callArgs[i]).getBytes(StandardCharsets.UTF_8);
+            }
+            Object reply = dispatch(connection, command.toUpperCase(Locale.ROOT), commandArgs);
+            if (reply instanceof MemoryException) {
+                throw (MemoryException) reply;
+            }
+            return reply;
+        };
+        return script.run(call, Arrays.copyOfRange(args, 3, argStart), Arrays.copyOfRange(args, argStart, args.length));
+    }
+
+    private Object script(byte[][] args) {
+        switch (upper(args[1])) {
+            case "LOAD":
+                String sha1 = sha1Hex(args[2]);
+                if (!SCRIPTS.containsKey(sha1)) {
+                    throw MemoryException.of("ERR script has no memory backend implementation, register it with MemoryRedis.registerScript");
+                }
+                return raw(sha1);
+            case "EXISTS":
+                List<Object> result = new ArrayList<>(args.length - 2);
+                for (int i = 2; i < args.length; i++) {
+                    result.add(hasScript(text(args[i])) ? 1L : 0L);
+                }
+                return result;
+            case "FLUSH":
+                return OK;
+            default:
+                throw MemoryException.of(MemoryException.SYNTAX);
+        }
+    }
+
+    private static String sha1Hex(byte[] script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script);
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw MemoryException.of("ERR script sha1 failed");
+        }
+    }
+
+    // 工具
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * 负数下标转换为从头开始的位置
+     */
+    private static long index(long index, long size) {
+        return index < 0 ? Math.max(0, size + index) : index;
+    }
+
+    private static long positive(byte[] bytes) {
+        long value = parseLong(bytes);
+        if (value <= 0) {
+            throw MemoryException.of("ERR invalid expire time in 'set' command");
+        }
+        return value;
+    }
+
+    private static long parseLong(byte[] bytes) {
+        try {
+            return Long.parseLong(text(bytes));
+        } catch (NumberFormatException e) {
+            throw MemoryException.of(MemoryException.NOT_INTEGER);
+        }
+    }
+
+    /**
+     * Redis 风格通配符匹配，支持 * ? [] 及反斜杠转义
+     */
+    static boolean globMatch(String pattern, String text) {
+        return globMatch(pattern, 0, text, 0);
+    }
+
+    private static boolean globMatch(String pattern, int p, String text, int t) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                while (p < pattern.length() && pattern.charAt(p) == '*') {
+                    p++;
+                }
+                if (p == pattern.length()) {
+                    return true;
+                }
+                for (int i = t; i <= text.length(); i++) {
+                    if (globMatch(pattern, p, text, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (t >= text.length()) {
+                return false;
+            }
+            char target = text.charAt(t);
+            if (c == '?') {
+                p++;
+            } else if (c == '[') {
+                int i = p + 1;
+                boolean negate = i < pattern.length() && pattern.charAt(i) == '^';
+                if (negate) {
+                    i++;
+                }
+                boolean matched = false;
+                while (i < pattern.length() && pattern.charAt(i) != ']') {
+                    char from = pattern.charAt(i);
+                    if (from == '\\' && i + 1 < pattern.length()) {
+                        from = pattern.charAt(++i);
+                    }
+                    if (i + 2 < pattern.length() && pattern.charAt(i + 1) == '-' && pattern.charAt(i + 2) != ']') {
+                        char to = pattern.charAt(i + 2);
+                        matched |= target >= Math.min(from, to) && target <= Math.max(from, to);
+                        i += 3;
+                    } else {
+                        matched |= target == from;
+                        i++;
+                    }
+                }
+                if (matched == negate) {
+                    return false;
+                }
+                p = i + 1;
+            } else {
+                if (c == '\\' && p + 1 < pattern.length()) {
+                    c = pattern.charAt(++p);
+                }
+                if (c != target) {
+                    return false;
+                }
+                p++;
+            }
+            t++;
+        }
+        return t == text.length();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * 二进制 Key 按 ISO-8859-1 一一对应为字符串，用作存储的 Key、字段及集合成员
+     */
+    static String key(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    static byte[] raw(String key) {
+        return key.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String upper(byte[] bytes) {
+        return text(bytes).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * HyperLogLog，精确记录元素
+     */
+    private static final class Hll {
+
+        private final Set<String> members = new HashSet<>();
+    }
+
+    /**
+     * 有序集合，按分数、成员排序
+     */
+    private static final class ZSet {
+
+        private final Map<String, Double> scores = new HashMap<>();
+        private final TreeSet<Map.Entry<String, Double>> entries = new TreeSet<>(
+                Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        private boolean add(String member, double score) {
+            Double old = scores.put(member, score);
+            if (null != old) {
+                entries.remove(new AbstractMap.SimpleImmutableEntry<>(member, old));
+            }
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(member, score));
+            return null == old;
+        }
+
+        private long removeRange(ScoreBound min, ScoreBound max) {
+            long removed = 0;
+            Iterator<Map.Entry<String, Double>> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Double> entry = iterator.next();
+                if (!max.isAbove(entry.getValue())) {
+                    break;
+                }
+                if (min.isBelow(entry.getValue())) {
+                    iterator.remove();
+                    scores.remove(entry.getKey());
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        private int size() {
+            return scores.size();
+        }
+
+        private long estimateBytes() {
+            long bytes = 0;
+            for (String member : scores.keySet()) {
+                bytes += 32 + member.length();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * ZREMRANGEBYSCORE 分数边界，( 开头不包含边界
+     */
+    private static final class ScoreBound {
+
+        private final double score;
+        private final boolean exclusive;
+
+        private ScoreBound(byte[] bytes) {
+            this.exclusive = bytes.length > 0 && bytes[0] == '(';
+            this.score = parseScore(exclusive ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes);
+        }
+
+        /**
+         * 作为下界时 value 是否在范围内
+         */
+        private boolean isBelow(double value) {
+            return exclusive ? score < value : score <= value;
+        }
+
+        /**
+         * 作为上界时 value 是否在范围内
+         */
+        private boolean isAbove(double value) {
+            return exclusive ? value < score : value <= score;
+        }
+    }
+
+    /**
+     * HSCAN、SSCAN 参数
+     */
+    private static final class ScanOptions {
+
+        private String match;
+        private int count = DEFAULT_SCAN_COUNT;
+
+        private static ScanOptions parse(byte[][] args, int start) {
+            ScanOptions options = new ScanOptions();
+            for (int i = start; i < args.length; i += 2) {
+                String option = upper(args[i]);
+                if ("MATCH".equals(option)) {
+                    options.match = key(args[i + 1]);
+                } else if ("COUNT".equals(option)) {
+                    options.count = (int) parseLong(args[i + 1]);
+                } else {
+                    throw MemoryException.of(MemoryException.SYNTAX);
+                }
+            }
+            return options;
+        }
+
+        private boolean matches(String value) {
+            return null == match || globMatch(match, value);
+        }
+    }
+
+    /**
+     * XADD、XTRIM 裁剪参数，近似裁剪同样精确执行
+     */
+    private static final class Trim {
+
+        private boolean minId;
+        private String threshold;
+        private long limit;
+
+        private int parse(byte[][] args, int start) {
+            minId = "MINID".equals(upper(args[start]));
+            int i = start + 1;
+            String next = text(args[i]);
+            if ("~".equals(next) || "=".equals(next)) {
+                i++;
+            }
+            threshold = text(args[i++]);
+            if (i < args.length && "LIMIT".equals(upper(args[i]))) {
+                limit = parseLong(args[i + 1]);
+                i += 2;
+            }
+            return i;
+        }
+
+        private long apply(MemoryStream stream) {
+            if (minId) {
+                return stream.trimMinId(MemoryStream.Id.parse(threshold, 0), limit);
+            }
+            return stream.trimMaxLen(Long.parseLong(threshold), limit);
+        }
+    }
+}
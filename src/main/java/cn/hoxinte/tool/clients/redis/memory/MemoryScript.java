@@ -0,0 +1,106 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 进程内存储的脚本实现
+ * <p>
+ * 进程内存储不执行 Lua，脚本的使用方按 SHA1 通过 MemoryRedis.registerScript 注册同样逻辑的实现
+ * 实现中通过 Call 执行命令，与 Lua 中的 redis.call 相同：在命令锁内执行，错误回复作为异常抛出
+ * 返回值按 Lua 转换规则：整数为 Long，字符串为 byte[]，数组为 List，nil 为 null
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+@FunctionalInterface
+public interface MemoryScript {
+
+    /**
+     * 执行脚本
+     *
+     * @param redis 执行命令
+     * @param keys  KEYS
+     * @param argv  ARGV
+     * @return 脚本返回值
+     */
+    Object run(Call redis, byte[][] keys, byte[][] argv);
+
+    /**
+     * 脚本内执行命令
+     */
+    @FunctionalInterface
+    interface Call {
+
+        /**
+         * 执行命令
+         *
+         * @param command 命令
+         * @param args    参数，byte[] 原样发送，其余按字符串发送
+         * @return 回复
+         */
+        Object call(String command, Object... args);
+    }
+
+    /**
+     * Lua tonumber，无法转换时为 null
+     *
+     * @param value 回复或参数
+     * @return 数值
+     */
+    static Double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (!(value instanceof byte[])) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(new String((byte[]) value, StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 转换为整数，无法转换时抛出错误
+     *
+     * @param value 回复或参数
+     * @return 整数
+     */
+    static long toLong(Object value) {
+        Double number = toNumber(value);
+        if (null == number) {
+            throw MemoryException.of(MemoryException.NOT_INTEGER);
+        }
+        return number.longValue();
+    }
+
+    /**
+     * 转换为浮点数，无法转换时抛出错误
+     *
+     * @param value 回复或参数
+     * @return 浮点数
+     */
+    static double toDouble(Object value) {
+        Double number = toNumber(value);
+        if (null == number) {
+            throw MemoryException.of("ERR value is not a valid float");
+        }
+        return number;
+    }
+
+    /**
+     * Lua tostring，保留 14 位有效数字
+     *
+     * @param value 数值
+     * @return 字符串
+     */
+    static String toString(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return new BigDecimal(value).round(new MathContext(14)).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,566 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 进程内 Stream
+ * <p>
+ * 消息按 ID 有序保存，消费组记录最后投递 ID、待确认列表及消费者
+ * 返回值为 RESP 结构，由 MemoryConnection 编码
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+final class MemoryStream {
+
+    private final TreeMap<Id, byte[][]> entries = new TreeMap<>();
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private Id lastId = Id.MIN;
+    private long entriesAdded;
+
+    // 写入
+
+    /**
+     * 追加消息
+     *
+     * @param idArg  * 自动生成，ms-* 自动生成序号，或指定 ID
+     * @param fields 字段、值交替
+     * @param now    当前时间 毫秒
+     * @return 消息ID
+     */
+    Id add(String idArg, byte[][] fields, long now) {
+        Id id;
+        if ("*".equals(idArg)) {
+            long ms = Math.max(now, lastId.ms);
+            id = new Id(ms, ms == lastId.ms ? lastId.seq + 1 : 0);
+        } else if (idArg.endsWith("-*")) {
+            long ms = Id.parseLong(idArg.substring(0, idArg.length() - 2));
+            if (ms < lastId.ms) {
+                throw MemoryException.of("ERR The ID specified in XADD is equal or smaller than the target stream top item");
+            }
+            id = new Id(ms, ms == lastId.ms ? lastId.seq + 1 : 0);
+        } else {
+            id = Id.parse(idArg, 0);
+            if (id.equals(Id.MIN)) {
+                throw MemoryException.of("ERR The ID specified in XADD must be greater than 0-0");
+            }
+            if (id.compareTo(lastId) <= 0) {
+                throw MemoryException.of("ERR The ID specified in XADD is equal or smaller than the target stream top item");
+            }
+        }
+        entries.put(id, fields);
+        lastId = id;
+        entriesAdded++;
+        return id;
+    }
+
+    /**
+     * 按长度裁剪，近似裁剪同样精确执行
+     *
+     * @param maxLen 保留数量
+     * @param limit  最多删除数量，0 不限
+     * @return 删除数量
+     */
+    long trimMaxLen(long maxLen, long limit) {
+        long removed = 0;
+        while (entries.size() > maxLen && (limit <= 0 || removed < limit)) {
+            entries.pollFirstEntry();
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * 删除 ID 小于 minId 的消息
+     *
+     * @param minId 保留的最小ID
+     * @param limit 最多删除数量，0 不限
+     * @return 删除数量
+     */
+    long trimMinId(Id minId, long limit) {
+        long removed = 0;
+        while (!entries.isEmpty() && entries.firstKey().compareTo(minId) < 0 && (limit <= 0 || removed < limit)) {
+            entries.pollFirstEntry();
+            removed++;
+        }
+        return removed;
+    }
+
+    long delete(List<Id> ids) {
+        long removed = 0;
+        for (Id id : ids) {
+            if (null != entries.remove(id)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // 读取
+
+    int size() {
+        return entries.size();
+    }
+
+    Id getLastId() {
+        return lastId;
+    }
+
+    List<Object> range(Id start, Id end, int count, boolean reverse) {
+        List<Object> result = new ArrayList<>();
+        if (start.compareTo(end) > 0) {
+            return result;
+        }
+        NavigableMap<Id, byte[][]> range = entries.subMap(start, true, end, true);
+        for (Map.Entry<Id, byte[][]> entry : (reverse ? range.descendingMap() : range).entrySet()) {
+            if (count > 0 && result.size() >= count) {
+                break;
+            }
+            result.add(entryReply(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * ID 大于 after 的消息
+     */
+    List<Object> readAfter(Id after, int count) {
+        List<Object> result = new ArrayList<>();
+        for (Map.Entry<Id, byte[][]> entry : entries.tailMap(after, false).entrySet()) {
+            if (count > 0 && result.size() >= count) {
+                break;
+            }
+            result.add(entryReply(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    // 消费组
+
+    Group getGroup(String name) {
+        return groups.get(name);
+    }
+
+    boolean createGroup(String name, Id lastDelivered) {
+        if (groups.containsKey(name)) {
+            return false;
+        }
+        groups.put(name, new Group(name, lastDelivered));
+        return true;
+    }
+
+    boolean destroyGroup(String name) {
+        return null != groups.remove(name);
+    }
+
+    /**
+     * 消费组读取
+     *
+     * @param group    消费组
+     * @param consumer 消费者
+     * @param after    null 读取未投递的消息，否则读取该消费者待确认列表中 ID 大于 after 的消息
+     * @param count    最多读取数量，0 不限
+     * @param noAck    是否不加入待确认列表
+     * @param now      当前时间 毫秒
+     * @return 消息列表
+     */
+    List<Object> readGroup(Group group, String consumerName, Id after, int count, boolean noAck, long now) {
+        Consumer consumer = group.consumer(consumerName, now);
+        List<Object> result = new ArrayList<>();
+        if (null != after) {
+            for (Map.Entry<Id, Pending> pending : group.pel.tailMap(after, false).entrySet()) {
+                if (count > 0 && result.size() >= count) {
+                    break;
+                }
+                if (!consumerName.equals(pending.getValue().consumer)) {
+                    continue;
+                }
+                byte[][] fields = entries.get(pending.getKey());
+                result.add(null == fields ? Arrays.asList(pending.getKey().raw(), null) : entryReply(pending.getKey(), fields));
+            }
+            return result;
+        }
+        for (Map.Entry<Id, byte[][]> entry : entries.tailMap(group.lastDelivered, false).entrySet()) {
+            if (count > 0 && result.size() >= count) {
+                break;
+            }
+            group.lastDelivered = entry.getKey();
+            group.entriesRead++;
+            if (!noAck) {
+                group.pel.put(entry.getKey(), new Pending(consumerName, now));
+            }
+            result.add(entryReply(entry.getKey(), entry.getValue()));
+        }
+        if (!result.isEmpty()) {
+            consumer.activeTime = now;
+        }
+        return result;
+    }
+
+    boolean hasUndelivered(Group group) {
+        return null != entries.higherKey(group.lastDelivered);
+    }
+
+    long ack(Group group, List<Id> ids) {
+        long acked = 0;
+        for (Id id : ids) {
+            if (null != group.pel.remove(id)) {
+                acked++;
+            }
+        }
+        return acked;
+    }
+
+    List<Object> pendingSummary(Group group) {
+        if (group.pel.isEmpty()) {
+            return Arrays.asList(0L, null, null, null);
+        }
+        Map<String, Long> consumerCounts = new TreeMap<>();
+        for (Pending pending : group.pel.values()) {
+            consumerCounts.merge(pending.consumer, 1L, Long::sum);
+        }
+        List<Object> consumerList = new ArrayList<>(consumerCounts.size());
+        for (Map.Entry<String, Long> entry : consumerCounts.entrySet()) {
+            consumerList.add(Arrays.asList(MemoryRedis.raw(entry.getKey()), MemoryRedis.raw(entry.getValue().toString())));
+        }
+        return Arrays.asList((long) group.pel.size(), group.pel.firstKey().raw(), group.pel.lastKey().raw(), consumerList);
+    }
+
+    List<Object> pendingRange(Group group, Id start, Id end, int count, String consumer, long minIdle, long now) {
+        List<Object> result = new ArrayList<>();
+        if (start.compareTo(end) > 0) {
+            return result;
+        }
+        for (Map.Entry<Id, Pending> entry : group.pel.subMap(start, true, end, true).entrySet()) {
+            if (result.size() >= count) {
+                break;
+            }
+            Pending pending = entry.getValue();
+            long idle = now - pending.deliveryTime;
+            if ((null != consumer && !consumer.equals(pending.consumer)) || idle < minIdle) {
+                continue;
+            }
+            result.add(Arrays.asList(entry.getKey().raw(), MemoryRedis.raw(pending.consumer), idle, pending.deliveryCount));
+        }
+        return result;
+    }
+
+    /**
+     * 转移待确认消息
+     *
+     * @param deliveryTime 新的投递时间
+     * @param retryCount   指定投递次数，null 时不指定
+     * @param force        不在待确认列表中的消息也加入
+     * @param justId       只返回 ID，不增加投递次数
+     */
+    List<Object> claim(Group group, String consumerName, long minIdle, List<Id> ids, long deliveryTime, Long retryCount,
+                       boolean force, boolean justId, long now) {
+        Consumer consumer = group.consumer(consumerName, now);
+        List<Object> result = new ArrayList<>();
+        for (Id id : ids) {
+            Pending pending = group.pel.get(id);
+            byte[][] fields = entries.get(id);
+            if (null == pending) {
+                if (!force || null == fields) {
+                    continue;
+                }
+                pending = new Pending(consumerName, now);
+                pending.deliveryCount = 0;
+                group.pel.put(id, pending);
+            } else if (now - pending.deliveryTime < minIdle) {
+                continue;
+            }
+            if (null == fields) {
+                // 已删除的消息不再投递
+                group.pel.remove(id);
+                continue;
+            }
+            transfer(pending, consumerName, deliveryTime, retryCount, justId);
+            consumer.activeTime = now;
+            result.add(justId ? id.raw() : entryReply(id, fields));
+        }
+        return result;
+    }
+
+    /**
+     * 从 start 开始转移空闲超过 minIdle 的待确认消息
+     *
+     * @return 下次开始ID，转移的消息，已删除被移出待确认列表的ID
+     */
+    List<Object> autoClaim(Group group, String consumerName, long minIdle, Id start, int count, boolean justId, long now) {
+        Consumer consumer = group.consumer(consumerName, now);
+        List<Object> claimed = new ArrayList<>();
+        List<Object> deleted = new ArrayList<>();
+        Iterator<Map.Entry<Id, Pending>> iterator = group.pel.tailMap(start, true).entrySet().iterator();
+        int attempts = count * 10;
+        while (iterator.hasNext() && claimed.size() < count && attempts-- > 0) {
+            Map.Entry<Id, Pending> entry = iterator.next();
+            Pending pending = entry.getValue();
+            if (now - pending.deliveryTime < minIdle) {
+                continue;
+            }
+            byte[][] fields = entries.get(entry.getKey());
+            if (null == fields) {
+                iterator.remove();
+                deleted.add(entry.getKey().raw());
+                continue;
+            }
+            transfer(pending, consumerName, now, null, justId);
+            consumer.activeTime = now;
+            claimed.add(justId ? entry.getKey().raw() : entryReply(entry.getKey(), fields));
+        }
+        Id next = iterator.hasNext() ? iterator.next().getKey() : Id.MIN;
+        return Arrays.asList(next.raw(), claimed, deleted);
+    }
+
+    private static void transfer(Pending pending, String consumerName, long deliveryTime, Long retryCount, boolean justId) {
+        pending.consumer = consumerName;
+        pending.deliveryTime = deliveryTime;
+        if (null != retryCount) {
+            pending.deliveryCount = retryCount;
+        } else if (!justId) {
+            pending.deliveryCount++;
+        }
+    }
+
+    // 统计
+
+    List<Object> infoStream() {
+        Map.Entry<Id, byte[][]> first = entries.firstEntry();
+        Map.Entry<Id, byte[][]> last = entries.lastEntry();
+        return Arrays.asList(
+                MemoryRedis.raw("length"), (long) entries.size(),
+                MemoryRedis.raw("radix-tree-keys"), (long) entries.size(),
+                MemoryRedis.raw("radix-tree-nodes"), (long) entries.size(),
+                MemoryRedis.raw("last-generated-id"), lastId.raw(),
+                MemoryRedis.raw("groups"), (long) groups.size(),
+                MemoryRedis.raw("first-entry"), null == first ? null : entryReply(first.getKey(), first.getValue()),
+                MemoryRedis.raw("last-entry"), null == last ? null : entryReply(last.getKey(), last.getValue()));
+    }
+
+    List<Object> infoGroups() {
+        List<Object> result = new ArrayList<>(groups.size());
+        for (Group group : groups.values()) {
+            long lag = entries.tailMap(group.lastDelivered, false).size();
+            result.add(Arrays.asList(
+                    MemoryRedis.raw("name"), MemoryRedis.raw(group.name),
+                    MemoryRedis.raw("consumers"), (long) group.consumers.size(),
+                    MemoryRedis.raw("pending"), (long) group.pel.size(),
+                    MemoryRedis.raw("last-delivered-id"), group.lastDelivered.raw(),
+                    MemoryRedis.raw("entries-read"), group.entriesRead,
+                    MemoryRedis.raw("lag"), lag));
+        }
+        return result;
+    }
+
+    List<Object> infoConsumers(Group group, long now) {
+        Map<String, Long> pendingCounts = new HashMap<>();
+        for (Pending pending : group.pel.values()) {
+            pendingCounts.merge(pending.consumer, 1L, Long::sum);
+        }
+        List<Object> result = new ArrayList<>(group.consumers.size());
+        for (Consumer consumer : group.consumers.values()) {
+            result.add(Arrays.asList(
+                    MemoryRedis.raw("name"), MemoryRedis.raw(consumer.name),
+                    MemoryRedis.raw("pending"), pendingCounts.getOrDefault(consumer.name, 0L),
+                    MemoryRedis.raw("idle"), now - consumer.seenTime,
+                    MemoryRedis.raw("inactive"), consumer.activeTime < 0 ? -1L : now - consumer.activeTime));
+        }
+        return result;
+    }
+
+    long estimateBytes() {
+        long bytes = 64;
+        for (byte[][] fields : entries.values()) {
+            bytes += 32;
+            for (byte[] field : fields) {
+                bytes += field.length + 8;
+            }
+        }
+        for (Group group : groups.values()) {
+            bytes += 64 + group.pel.size() * 48L;
+        }
+        return bytes;
+    }
+
+    private static List<Object> entryReply(Id id, byte[][] fields) {
+        return Arrays.asList(id.raw(), Arrays.asList((Object[]) fields));
+    }
+
+    /**
+     * 消息ID
+     */
+    static final class Id implements Comparable<Id> {
+
+        static final Id MIN = new Id(0, 0);
+        static final Id MAX = new Id(-1, -1);
+
+        private final long ms;
+        private final long seq;
+
+        Id(long ms, long seq) {
+            this.ms = ms;
+            this.seq = seq;
+        }
+
+        /**
+         * 解析ID，- 为最小，+ 为最大，只有时间部分时序号取 defaultSeq
+         */
+        static Id parse(String text, long defaultSeq) {
+            if ("-".equals(text)) {
+                return MIN;
+            }
+            if ("+".equals(text)) {
+                return MAX;
+            }
+            int split = text.indexOf('-');
+            if (split < 0) {
+                return new Id(parseLong(text), defaultSeq);
+            }
+            return new Id(parseLong(text.substring(0, split)), parseLong(text.substring(split + 1)));
+        }
+
+        /**
+         * 解析范围边界，( 开头为不包含
+         */
+        static Id parseBound(String text, boolean start) {
+            if (!text.startsWith("(")) {
+                return parse(text, start ? 0 : -1);
+            }
+            Id id = parse(text.substring(1), start ? 0 : -1);
+            return start ? id.next() : id.previous();
+        }
+
+        private static long parseLong(String text) {
+            try {
+                return Long.parseUnsignedLong(text);
+            } catch (NumberFormatException e) {
+                throw MemoryException.of("ERR Invalid stream ID specified as stream command argument");
+            }
+        }
+
+        Id next() {
+            if (seq == -1) {
+                if (ms == -1) {
+                    throw MemoryException.of("ERR invalid start ID for the interval");
+                }
+                return new Id(ms + 1, 0);
+            }
+            return new Id(ms, seq + 1);
+        }
+
+        Id previous() {
+            if (seq == 0) {
+                if (ms == 0) {
+                    throw MemoryException.of("ERR invalid end ID for the interval");
+                }
+                return new Id(ms - 1, -1);
+            }
+            return new Id(ms, seq - 1);
+        }
+
+        byte[] raw() {
+            return toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int compareTo(Id other) {
+            int compare = Long.compareUnsigned(ms, other.ms);
+            return compare != 0 ? compare : Long.compareUnsigned(seq, other.seq);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Id && ((Id) other).ms == ms && ((Id) other).seq == seq;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(ms) * 31 + Long.hashCode(seq);
+        }
+
+        @Override
+        public String toString() {
+            return Long.toUnsignedString(ms) + "-" + Long.toUnsignedString(seq);
+        }
+    }
+
+    /**
+     * 消费组
+     */
+    static final class Group {
+
+        private final String name;
+        private final TreeMap<Id, Pending> pel = new TreeMap<>();
+        private final Map<String, Consumer> consumers = new LinkedHashMap<>();
+        private Id lastDelivered;
+        private long entriesRead;
+
+        private Group(String name, Id lastDelivered) {
+            this.name = name;
+            this.lastDelivered = lastDelivered;
+        }
+
+        void setLastDelivered(Id lastDelivered) {
+            this.lastDelivered = lastDelivered;
+        }
+
+        boolean createConsumer(String consumerName, long now) {
+            if (consumers.containsKey(consumerName)) {
+                return false;
+            }
+            consumer(consumerName, now);
+            return true;
+        }
+
+        /**
+         * 删除消费者及其待确认消息
+         *
+         * @return 删除的待确认数量
+         */
+        long deleteConsumer(String consumerName) {
+            if (null == consumers.remove(consumerName)) {
+                return 0;
+            }
+            long removed = 0;
+            Iterator<Pending> iterator = pel.values().iterator();
+            while (iterator.hasNext()) {
+                if (consumerName.equals(iterator.next().consumer)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        private Consumer consumer(String consumerName, long now) {
+            Consumer consumer = consumers.computeIfAbsent(consumerName, Consumer::new);
+            consumer.seenTime = now;
+            return consumer;
+        }
+    }
+
+    private static final class Consumer {
+
+        private final String name;
+        private long seenTime;
+        private long activeTime = -1;
+
+        private Consumer(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Pending {
+
+        private String consumer;
+        private long deliveryTime;
+        private long deliveryCount = 1;
+
+        private Pending(String consumer, long deliveryTime) {
+            this.consumer = consumer;
+            this.deliveryTime = deliveryTime;
+        }
+    }
+}
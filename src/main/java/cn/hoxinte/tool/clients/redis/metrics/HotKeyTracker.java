@@ -0,0 +1,219 @@
+package cn.hoxinte.tool.clients.redis.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 热点 Key 统计
+ * <p>
+ * 按采样率抽取命令，Count-Min Sketch 估算每个 命令 + Key 的访问次数，只保留估算次数最高的候选 Key
+ * 每个周期输出访问最多的 Key 后清空重新统计，估算次数已按采样率放大，只会偏大不会偏小
+ * 统计只占用固定内存，未启用时 shouldSample 始终返回 false
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+@Slf4j
+public final class HotKeyTracker {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1 << 12;
+    private static final int CANDIDATE_FACTOR = 4;
+
+    private static volatile int SAMPLE_RATE;
+    private static volatile int TOP_SIZE = 20;
+    private static volatile Window CURRENT = new Window();
+    private static volatile List<HotKey> LAST_TOP = Collections.emptyList();
+    private static volatile Consumer<List<HotKey>> REPORTER = topList -> {
+        if (!topList.isEmpty()) {
+            log.info("redis hot keys {}", topList);
+        }
+    };
+
+    private static ScheduledExecutorService SCHEDULER;
+
+    private HotKeyTracker() {
+    }
+
+    /**
+     * 启动统计
+     *
+     * @param sampleRate    采样率，每 sampleRate 次命令统计一次
+     * @param topSize       每个周期输出的 Key 数量
+     * @param reportSeconds 统计周期 秒
+     */
+    public static synchronized void start(int sampleRate, int topSize, int reportSeconds) {
+        if (sampleRate <= 0 || null != SCHEDULER) {
+            return;
+        }
+        TOP_SIZE = topSize;
+        SAMPLE_RATE = sampleRate;
+        SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-hot-key");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SCHEDULER.scheduleAtFixedRate(HotKeyTracker::report, reportSeconds, reportSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 替换周期输出方式，默认输出日志
+     *
+     * @param reporter 每个周期访问最多的 Key，按次数倒序
+     */
+    public static void setReporter(Consumer<List<HotKey>> reporter) {
+        REPORTER = reporter;
+    }
+
+    /**
+     * 本次命令是否采样，采样后调用 record
+     *
+     * @return 是否采样
+     */
+    public static boolean shouldSample() {
+        int rate = SAMPLE_RATE;
+        return rate > 0 && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    /**
+     * 记录一次采样
+     *
+     * @param command 命令
+     * @param key     缓存Key
+     */
+    public static void record(String command, String key) {
+        CURRENT.add(command + ' ' + key);
+    }
+
+    /**
+     * 上一个周期访问最多的 Key
+     *
+     * @return 按次数倒序
+     */
+    public static List<HotKey> getTopKeys() {
+        return LAST_TOP;
+    }
+
+    /**
+     * 结束当前周期，返回访问最多的 Key
+     *
+     * @return 按次数倒序
+     */
+    static List<HotKey> rotate() {
+        Window window = CURRENT;
+        CURRENT = new Window();
+        List<HotKey> topList = window.top(TOP_SIZE, Math.max(1, SAMPLE_RATE));
+        LAST_TOP = topList;
+        return topList;
+    }
+
+    private static void report() {
+        try {
+            REPORTER.accept(rotate());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 一个统计周期
+     */
+    private static final class Window {
+
+        private final AtomicLongArray sketch = new AtomicLongArray(DEPTH * WIDTH);
+        private final Map<String, Long> candidateMap = new ConcurrentHashMap<>();
+        private volatile long candidateMin;
+
+        private void add(String item) {
+            int hash = item.hashCode();
+            int h1 = hash ^ (hash >>> 16);
+            int h2 = (hash * 0x9E3779B9) | 1;
+            long estimate = Long.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = i * WIDTH + ((h1 + i * h2) & (WIDTH - 1));
+                estimate = Math.min(estimate, sketch.incrementAndGet(index));
+            }
+            int capacity = TOP_SIZE * CANDIDATE_FACTOR;
+            if (estimate <= candidateMin && !candidateMap.containsKey(item)) {
+                return;
+            }
+            candidateMap.put(item, estimate);
+            if (candidateMap.size() > capacity * 2) {
+                prune(capacity);
+            }
+        }
+
+        private synchronized void prune(int capacity) {
+            if (candidateMap.size() <= capacity * 2) {
+                return;
+            }
+            List<Map.Entry<String, Long>> entryList = sortedCandidates();
+            for (int i = capacity; i < entryList.size(); i++) {
+                candidateMap.remove(entryList.get(i).getKey());
+            }
+            candidateMin = entryList.get(capacity - 1).getValue();
+        }
+
+        private List<HotKey> top(int size, int sampleRate) {
+            List<Map.Entry<String, Long>> entryList = sortedCandidates();
+            List<HotKey> topList = new ArrayList<>(Math.min(size, entryList.size()));
+            for (int i = 0; i < entryList.size() && i < size; i++) {
+                String item = entryList.get(i).getKey();
+                int split = item.indexOf(' ');
+                topList.add(new HotKey(item.substring(0, split), item.substring(split + 1),
+                        entryList.get(i).getValue() * sampleRate));
+            }
+            return topList;
+        }
+
+        private List<Map.Entry<String, Long>> sortedCandidates() {
+            List<Map.Entry<String, Long>> entryList = new ArrayList<>(candidateMap.entrySet());
+            entryList.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            return entryList;
+        }
+    }
+
+    /**
+     * 热点 Key
+     */
+    public static final class HotKey {
+
+        private final String command;
+        private final String key;
+        private final long count;
+
+        private HotKey(String command, String key, long count) {
+            this.command = command;
+            this.key = key;
+            this.count = count;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 估算访问次数，已按采样率放大
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return command + ' ' + key + '=' + count;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package cn.hoxinte.tool.clients.redis.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 内存指标注册表
+ * <p>
+ * 耗时与数值保存为直方图，可通过 report 输出当前统计，用于日志或排查慢命令、连接池耗尽
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class LocalMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, Histogram> timerMap = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> valueMap = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counterMap = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<Number>> gaugeMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordTime(String name, long nanos) {
+        timerMap.computeIfAbsent(name, k -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void recordValue(String name, long value) {
+        valueMap.computeIfAbsent(name, k -> new Histogram()).record(value);
+    }
+
+    @Override
+    public void increment(String name) {
+        counterMap.computeIfAbsent(name, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void gauge(String name, Supplier<Number> supplier) {
+        gaugeMap.put(name, supplier);
+    }
+
+    @Override
+    public void removeGauge(String name) {
+        gaugeMap.remove(name);
+    }
+
+    /**
+     * 耗时直方图，单位纳秒
+     *
+     * @param name 指标名
+     * @return 直方图，未记录过返回 null
+     */
+    public Histogram getTimer(String name) {
+        return timerMap.get(name);
+    }
+
+    public Histogram getValue(String name) {
+        return valueMap.get(name);
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counterMap.get(name);
+        return null == counter ? 0 : counter.sum();
+    }
+
+    public Number getGauge(String name) {
+        Supplier<Number> supplier = gaugeMap.get(name);
+        return null == supplier ? null : supplier.get();
+    }
+
+    /**
+     * 输出当前统计，按指标名排序
+     *
+     * @return 每行一个指标
+     */
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(timerMap).entrySet()) {
+            Histogram histogram = entry.getValue();
+            builder.append(entry.getKey())
+                    .append(" count=").append(histogram.getCount())
+                    .append(" p50=").append(toMillis(histogram.getPercentile(0.5))).append("ms")
+                    .append(" p99=").append(toMillis(histogram.getPercentile(0.99))).append("ms")
+                    .append(" max=").append(toMillis(histogram.getMax())).append("ms\n");
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(valueMap).entrySet()) {
+            Histogram histogram = entry.getValue();
+            builder.append(entry.getKey())
+                    .append(" count=").append(histogram.getCount())
+                    .append(" p50=").append(histogram.getPercentile(0.5))
+                    .append(" p99=").append(histogram.getPercentile(0.99))
+                    .append(" max=").append(histogram.getMax()).append('\n');
+        }
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counterMap).entrySet()) {
+            builder.append(entry.getKey()).append(" count=").append(entry.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, Supplier<Number>> entry : new TreeMap<>(gaugeMap).entrySet()) {
+            builder.append(entry.getKey()).append(" value=").append(readGauge(entry.getValue())).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static Object readGauge(Supplier<Number> supplier) {
+        try {
+            return supplier.get();
+        } catch (Exception e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,53 @@
+package cn.hoxinte.tool.clients.redis.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * 指标注册表
+ * <p>
+ * 默认使用 LocalMetricsRegistry 保存在内存中，需要接入其他监控系统时实现此接口并通过 RedisMetrics.setRegistry 替换
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public interface MetricsRegistry {
+
+    /**
+     * 记录耗时
+     *
+     * @param name  指标名
+     * @param nanos 耗时 纳秒
+     */
+    void recordTime(String name, long nanos);
+
+    /**
+     * 记录数值分布，如数据大小
+     *
+     * @param name  指标名
+     * @param value 数值
+     */
+    void recordValue(String name, long value);
+
+    /**
+     * 计数加一
+     *
+     * @param name 指标名
+     */
+    void increment(String name);
+
+    /**
+     * 注册实时读取的指标，如连接池活跃连接数
+     *
+     * @param name     指标名
+     * @param supplier 读取当前值
+     */
+    void gauge(String name, Supplier<Number> supplier);
+
+    /**
+     * 移除实时读取的指标，如已删除的 Stream
+     *
+     * @param name 指标名
+     */
+    default void removeGauge(String name) {
+    }
+}
@@ -0,0 +1,123 @@
+package cn.hoxinte.tool.clients.redis.metrics;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Redis 客户端指标
+ * <p>
+ * 指标名
+ * redis.command.{命令}          命令耗时
+ * redis.error.{命令}.{异常类型} 命令异常次数
+ * redis.breaker.rejected.{命令} 熔断打开时被拒绝的命令次数
+ * redis.pool.borrow             从连接池获取连接等待时间
+ * redis.pool.{连接池}.*         连接池活跃、空闲、等待数及平均、最大等待时间
+ * redis.payload.write/read      序列化后数据大小 字节
+ * redis.lock.wait/hold          分布式锁等待、持有时间
+ * redis.lock.contention         本节点内同一个锁已被占用需要本地排队的次数
+ * redis.lock.timeout            等待超时未获取到锁的次数
+ * redis.stream.*                Stream 长度、消费组积压及速率，见 StreamMetrics
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public final class RedisMetrics {
+
+    private static final String COMMAND_PREFIX = "redis.command.";
+    private static final String ERROR_PREFIX = "redis.error.";
+    private static final String POOL_PREFIX = "redis.pool.";
+    private static final String PAYLOAD_PREFIX = "redis.payload.";
+    private static final String REJECTED_PREFIX = "redis.breaker.rejected.";
+    private static final String BORROW = "redis.pool.borrow";
+    private static final String LOCK_WAIT = "redis.lock.wait";
+    private static final String LOCK_HOLD = "redis.lock.hold";
+    private static final String LOCK_CONTENTION = "redis.lock.contention";
+    private static final String LOCK_TIMEOUT = "redis.lock.timeout";
+
+    private static final Map<String, Supplier<Number>> GAUGE_MAP = new ConcurrentHashMap<>();
+
+    private static volatile MetricsRegistry REGISTRY = new LocalMetricsRegistry();
+
+    private RedisMetrics() {
+    }
+
+    /**
+     * 替换指标注册表，已注册的实时指标会同步注册到新的注册表
+     *
+     * @param registry 指标注册表
+     */
+    public static void setRegistry(MetricsRegistry registry) {
+        for (Map.Entry<String, Supplier<Number>> entry : GAUGE_MAP.entrySet()) {
+            registry.gauge(entry.getKey(), entry.getValue());
+        }
+        REGISTRY = registry;
+    }
+
+    public static MetricsRegistry getRegistry() {
+        return REGISTRY;
+    }
+
+    public static void recordCommand(String command, long nanos) {
+        REGISTRY.recordTime(COMMAND_PREFIX + command, nanos);
+    }
+
+    public static void recordError(String command, Throwable e) {
+        REGISTRY.increment(ERROR_PREFIX + command + "." + e.getClass().getSimpleName());
+    }
+
+    public static void recordRejected(String command) {
+        REGISTRY.increment(REJECTED_PREFIX + command);
+    }
+
+    public static void recordBorrow(long nanos) {
+        REGISTRY.recordTime(BORROW, nanos);
+    }
+
+    public static void recordPayload(String direction, int size) {
+        REGISTRY.recordValue(PAYLOAD_PREFIX + direction, size);
+    }
+
+    public static void recordLockWait(long nanos) {
+        REGISTRY.recordTime(LOCK_WAIT, nanos);
+    }
+
+    public static void recordLockHold(long nanos) {
+        REGISTRY.recordTime(LOCK_HOLD, nanos);
+    }
+
+    public static void recordLockContention() {
+        REGISTRY.increment(LOCK_CONTENTION);
+    }
+
+    public static void recordLockTimeout() {
+        REGISTRY.increment(LOCK_TIMEOUT);
+    }
+
+    public static void gauge(String name, Supplier<Number> supplier) {
+        GAUGE_MAP.put(name, supplier);
+        REGISTRY.gauge(name, supplier);
+    }
+
+    public static void removeGauge(String name) {
+        GAUGE_MAP.remove(name);
+        REGISTRY.removeGauge(name);
+    }
+
+    /**
+     * 注册连接池指标
+     *
+     * @param name 连接池名称，如节点地址
+     * @param pool 连接池
+     */
+    public static void registerPool(String name, GenericObjectPool<?> pool) {
+        String prefix = POOL_PREFIX + name + ".";
+        gauge(prefix + "active", pool::getNumActive);
+        gauge(prefix + "idle", pool::getNumIdle);
+        gauge(prefix + "waiters", pool::getNumWaiters);
+        gauge(prefix + "borrow.mean", pool::getMeanBorrowWaitTimeMillis);
+        gauge(prefix + "borrow.max", pool::getMaxBorrowWaitTimeMillis);
+    }
+}
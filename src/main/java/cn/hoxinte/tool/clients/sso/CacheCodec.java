@@ -0,0 +1,180 @@
+package cn.hoxinte.tool.clients.sso;
+
+import cn.hoxinte.tool.clients.redis.codec.BinaryRedisCodec;
+import cn.hoxinte.tool.clients.sso.entity.DeptCache;
+import cn.hoxinte.tool.clients.sso.entity.UserCache;
+import cn.hoxinte.tool.clients.sso.entity.UserInfoDTO;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static cn.hoxinte.tool.clients.redis.codec.BinaryRedisCodec.*;
+
+/**
+ * SSO 缓存实体二进制编码
+ * <p>
+ * 由 CacheUtil 初始化时注册到 BinaryRedisCodec.INSTANCE，value 编码配置为 binary 后写入 Redis 使用紧凑二进制格式，读取时兼容原有 JSON 数据
+ * 实体新增字段时需更换类型ID
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public final class CacheCodec {
+
+    private static final int USER_INFO_TYPE = 1;
+    private static final int USER_CACHE_TYPE = 2;
+    private static final int DEPT_CACHE_TYPE = 3;
+
+    private static final int NULL_SIZE = -1;
+
+    private CacheCodec() {
+    }
+
+    /**
+     * 注册 SSO 缓存实体编码
+     *
+     * @param codec 二进制编码
+     */
+    public static void register(BinaryRedisCodec codec) {
+        codec.register(USER_INFO_TYPE, UserInfoDTO.class, new BinaryRedisCodec.Adapter<>() {
+            @Override
+            public void write(UserInfoDTO value, DataOutput out) throws IOException {
+                writeUserInfo(value, out);
+            }
+
+            @Override
+            public UserInfoDTO read(DataInput in) throws IOException {
+                return readUserInfo(in);
+            }
+        });
+        codec.register(USER_CACHE_TYPE, UserCache.class, new BinaryRedisCodec.Adapter<>() {
+            @Override
+            public void write(UserCache value, DataOutput out) throws IOException {
+                writeUserCache(value, out);
+            }
+
+            @Override
+            public UserCache read(DataInput in) throws IOException {
+                return readUserCache(in);
+            }
+        });
+        codec.register(DEPT_CACHE_TYPE, DeptCache.class, new BinaryRedisCodec.Adapter<>() {
+            @Override
+            public void write(DeptCache value, DataOutput out) throws IOException {
+                writeDeptCache(value, out);
+            }
+
+            @Override
+            public DeptCache read(DataInput in) throws IOException {
+                return readDeptCache(in);
+            }
+        });
+    }
+
+    private static void writeUserInfo(UserInfoDTO user, DataOutput out) throws IOException {
+        writeInteger(out, user.getAccountId());
+        writeString(out, user.getUniqueCode());
+        writeString(out, user.getIdentity());
+        writeString(out, user.getAlias());
+        writeString(out, user.getName());
+        writeString(out, user.getPhone());
+        writeString(out, user.getEmail());
+        writeInteger(out, user.getSex());
+        writeString(out, user.getAvatar());
+        writeBoolean(out, user.getIsAlive());
+    }
+
+    private static UserInfoDTO readUserInfo(DataInput in) throws IOException {
+        return new UserInfoDTO()
+                .setAccountId(readInteger(in))
+                .setUniqueCode(readString(in))
+                .setIdentity(readString(in))
+                .setAlias(readString(in))
+                .setName(readString(in))
+                .setPhone(readString(in))
+                .setEmail(readString(in))
+                .setSex(readInteger(in))
+                .setAvatar(readString(in))
+                .setIsAlive(readBoolean(in));
+    }
+
+    private static void writeUserCache(UserCache user, DataOutput out) throws IOException {
+        writeInteger(out, user.getAccountId());
+        writeString(out, user.getName());
+        writeString(out, user.getDeptDesr());
+        writeString(out, user.getDeptName());
+        writeString(out, user.getPosition());
+        writeString(out, user.getStandardPost());
+        writeInteger(out, user.getManagerCode());
+        writeInteger(out, user.getDeptId());
+        writeBoolean(out, user.getIsLeader());
+    }
+
+    private static UserCache readUserCache(DataInput in) throws IOException {
+        return new UserCache()
+                .setAccountId(readInteger(in))
+                .setName(readString(in))
+                .setDeptDesr(readString(in))
+                .setDeptName(readString(in))
+                .setPosition(readString(in))
+                .setStandardPost(readString(in))
+                .setManagerCode(readInteger(in))
+                .setDeptId(readInteger(in))
+                .setIsLeader(readBoolean(in));
+    }
+
+    private static void writeDeptCache(DeptCache dept, DataOutput out) throws IOException {
+        writeInteger(out, dept.getDeptId());
+        writeString(out, dept.getName());
+        writeString(out, dept.getDesr());
+        writeInteger(out, dept.getParentId());
+        writeString(out, dept.getLeaderDesr());
+        Map<Integer, DeptCache.Leader> leaderMap = dept.getLeaderMap();
+        if (null == leaderMap) {
+            out.writeInt(NULL_SIZE);
+            return;
+        }
+        out.writeInt(leaderMap.size());
+        for (Map.Entry<Integer, DeptCache.Leader> entry : leaderMap.entrySet()) {
+            writeInteger(out, entry.getKey());
+            DeptCache.Leader leader = entry.getValue();
+            out.writeBoolean(null != leader);
+            if (null == leader) {
+                continue;
+            }
+            writeInteger(out, leader.getUserId());
+            writeString(out, leader.getUserName());
+            writeString(out, leader.getUniqueCode());
+        }
+    }
+
+    private static DeptCache readDeptCache(DataInput in) throws IOException {
+        DeptCache dept = new DeptCache()
+                .setDeptId(readInteger(in))
+                .setName(readString(in))
+                .setDesr(readString(in))
+                .setParentId(readInteger(in))
+                .setLeaderDesr(readString(in));
+        int size = in.readInt();
+        if (size == NULL_SIZE) {
+            return dept;
+        }
+        Map<Integer, DeptCache.Leader> leaderMap = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            Integer managerCode = readInteger(in);
+            if (!in.readBoolean()) {
+                leaderMap.put(managerCode, null);
+                continue;
+            }
+            DeptCache.Leader leader = new DeptCache.Leader();
+            leader.setUserId(readInteger(in));
+            leader.setUserName(readString(in));
+            leader.setUniqueCode(readString(in));
+            leaderMap.put(managerCode, leader);
+        }
+        return dept.setLeaderMap(leaderMap);
+    }
+}
@@ -2,6 +2,8 @@ package cn.hoxinte.tool.clients.sso;
 
 
 import cn.hoxinte.tool.clients.redis.RedisClient;
+import cn.hoxinte.tool.clients.redis.WriteBehindBuffer;
+import cn.hoxinte.tool.clients.redis.codec.BinaryRedisCodec;
 import cn.hoxinte.tool.clients.sso.entity.DeptCache;
 import cn.hoxinte.tool.clients.sso.entity.ManagerDTO;
 import cn.hoxinte.tool.clients.sso.entity.UserCache;
@@ -68,12 +70,20 @@ public class CacheUtil {
      */
     private static final Map<Integer, Map<Integer, ManagerDTO>> CACHE_MANAGER_MAP = new HashMap<>();
 
+    /**
+     * 单个用户缓存合并写入，本地缓存立即更新
+     */
+    private static final WriteBehindBuffer USER_WRITER = WriteBehindBuffer.create();
+
     private static final String EMPTY_STRING = "";
     private static final String DEPT_LEADER_SPLIT = "/";
     private static final String SPLIT = ":";
     private static final int DEFAULT_MAP_SIZE = 8;
+    private static final int LOAD_SCAN_COUNT = 500;
 
     static {
+        // 读取缓存前注册实体的二进制编码
+        CacheCodec.register(BinaryRedisCodec.INSTANCE);
         loadCache();
     }
 
@@ -192,6 +202,34 @@ public class CacheUtil {
         return CACHE_USER_MAP.getOrDefault(accountId, null);
     }
 
+    /**
+     * 批量获取用户
+     * 本地缓存没有的用户从 Redis 一次读取，读取结果不写入本地缓存，本地缓存只由加载及设置方法更新
+     *
+     * @param accountIds 用户ID列表
+     * @return key 用户ID value 用户数据，未缓存的用户不返回
+     */
+    public static Map<Integer, UserInfoDTO> getUserMap(Collection<Integer> accountIds) {
+        Map<Integer, UserInfoDTO> userMap = new HashMap<>(accountIds.size());
+        List<String> missFields = new ArrayList<>();
+        for (Integer accountId : accountIds) {
+            UserInfoDTO user = CACHE_USER_MAP.get(accountId);
+            if (null != user) {
+                userMap.put(accountId, user);
+            } else {
+                missFields.add(String.valueOf(accountId));
+            }
+        }
+        if (missFields.isEmpty()) {
+            return userMap;
+        }
+        Map<String, UserInfoDTO> redisUserMap = RedisClient.hMGet(USER_MAP_CACHE_KEY, UserInfoDTO.class, missFields);
+        for (UserInfoDTO user : redisUserMap.values()) {
+            userMap.put(user.getAccountId(), user);
+        }
+        return userMap;
+    }
+
     /**
      * 从缓存获取用户部门描述
      *
@@ -237,16 +275,34 @@ public class CacheUtil {
     }
 
     /**
-     * 设置用户缓存
+     * 设置用户缓存，Redis 合并后延迟写入
      *
      * @param user 用户数据
      */
     public static void setUserCache(UserInfoDTO user) {
-        RedisClient.hSetPersist(USER_MAP_CACHE_KEY, user.getAccountId().toString(), user);
-        CACHE_USER_MAP.put(user.getAccountId(), user);
-        CACHE_USER_IDENTITY_MAP.put(user.getIdentity(), user.getAccountId());
-        CACHE_USER_UNIQUE_CODE_MAP.put(user.getUniqueCode(), user.getAccountId());
-        CACHE_USER_NAME_MAP.put(user.getName(), user.getAccountId());
+        USER_WRITER.hSet(USER_MAP_CACHE_KEY, user.getAccountId().toString(), user);
+        putUserMap(user);
+    }
+
+    /**
+     * 批量设置用户缓存，Redis 一次写入
+     *
+     * @param userList 用户数据列表
+     */
+    public static void setUserCache(Collection<UserInfoDTO> userList) {
+        if (userList.isEmpty()) {
+            return;
+        }
+        Map<String, UserInfoDTO> userMap = new HashMap<>(userList.size());
+        for (UserInfoDTO user : userList) {
+            userMap.put(user.getAccountId().toString(), user);
+        }
+        // 先写入延迟中的单个用户，避免旧数据在批量写入后覆盖
+        USER_WRITER.flush();
+        RedisClient.hMSet(USER_MAP_CACHE_KEY, userMap);
+        for (UserInfoDTO user : userList) {
+            putUserMap(user);
+        }
     }
 
     /**
@@ -288,26 +344,50 @@ public class CacheUtil {
     }
 
     private static void loadUserCache() {
-        Map<String, UserInfoDTO> userCacheMap = RedisClient.hGetAll(USER_MAP_CACHE_KEY, UserInfoDTO.class);
+        // 先写入延迟中的用户，避免读取 Redis 后本地缓存丢失这些用户
+        USER_WRITER.flush();
+        Map<Integer, UserInfoDTO> userMap = new HashMap<>();
+        try {
+            // 分页读取，避免一次读取整个散列；全部读取成功后再替换本地缓存，读取失败时保留原有数据
+            RedisClient.hScan(USER_MAP_CACHE_KEY, LOAD_SCAN_COUNT, UserInfoDTO.class, pageMap -> {
+                for (UserInfoDTO userInfo : pageMap.values()) {
+                    userMap.put(userInfo.getAccountId(), userInfo);
+                }
+            });
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
         CACHE_USER_MAP.clear();
         CACHE_USER_IDENTITY_MAP.clear();
         CACHE_USER_UNIQUE_CODE_MAP.clear();
         CACHE_USER_NAME_MAP.clear();
-        for (UserInfoDTO userInfo : userCacheMap.values()) {
-            CACHE_USER_MAP.put(userInfo.getAccountId(), userInfo);
-            CACHE_USER_IDENTITY_MAP.put(userInfo.getIdentity(), userInfo.getAccountId());
-            CACHE_USER_UNIQUE_CODE_MAP.put(userInfo.getUniqueCode(), userInfo.getAccountId());
-            CACHE_USER_NAME_MAP.put(userInfo.getName(), userInfo.getAccountId());
+        for (UserInfoDTO userInfo : userMap.values()) {
+            putUserMap(userInfo);
         }
     }
 
+    private static void putUserMap(UserInfoDTO user) {
+        CACHE_USER_MAP.put(user.getAccountId(), user);
+        CACHE_USER_IDENTITY_MAP.put(user.getIdentity(), user.getAccountId());
+        CACHE_USER_UNIQUE_CODE_MAP.put(user.getUniqueCode(), user.getAccountId());
+        CACHE_USER_NAME_MAP.put(user.getName(), user.getAccountId());
+    }
+
     private static void loadUserData() {
-        Map<String, UserCache> userCacheMap = RedisClient.hGetAll(USER_DATA_CACHE_KEY, UserCache.class);
-        CACHE_USER_DATA_MAP.clear();
-        for (Map.Entry<String, UserCache> entry : userCacheMap.entrySet()) {
-            CACHE_USER_DATA_MAP.put(Integer.parseInt(entry.getKey()), entry.getValue());
+        Map<Integer, UserCache> userDataMap = new HashMap<>();
+        try {
+            RedisClient.hScan(USER_DATA_CACHE_KEY, LOAD_SCAN_COUNT, UserCache.class, pageMap -> {
+                for (Map.Entry<String, UserCache> entry : pageMap.entrySet()) {
+                    userDataMap.put(Integer.parseInt(entry.getKey()), entry.getValue());
+                }
+            });
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
         }
-
+        CACHE_USER_DATA_MAP.clear();
+        CACHE_USER_DATA_MAP.putAll(userDataMap);
     }
 
     private static void loadDeptCache() {
@@ -2,6 +2,7 @@ package cn.hoxinte.tool.clients.sso;
 
 
 import cn.hoxinte.tool.clients.helper.AuthHelper;
+import cn.hoxinte.tool.clients.redis.RateLimiter;
 import cn.hoxinte.tool.clients.sso.enums.RestTargetEnum;
 import cn.hoxinte.tool.utils.LoadUtil;
 
@@ -13,6 +14,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SSO请求客户端
@@ -34,6 +36,16 @@ public class SsoClient {
      * 平台ID
      */
     private static final int SET_PLATFORM_ID = LoadUtil.getIntegerProperty("hoxinte.sso.platform-id");
+    /**
+     * 所有节点合计每秒请求上限，不配置不限流
+     */
+    private static final int REQUEST_RATE = LoadUtil.getIntegerProperty("hoxinte.sso.rate");
+    /**
+     * 限流时最长等待时间 毫秒
+     */
+    private static final int REQUEST_RATE_WAIT = 3000;
+    private static final RateLimiter REQUEST_LIMITER = REQUEST_RATE > 0 ?
+            RateLimiter.tokenBucket("sso:request", REQUEST_RATE, REQUEST_RATE) : null;
 
     private static final String PARAM_SPLIT = ",";
     private static final String EMPTY_STRING = "";
@@ -325,6 +337,9 @@ public class SsoClient {
     }
 
     private static String sendGet(String url, Map<String, String> headerMap) {
+        if (null != REQUEST_LIMITER && !REQUEST_LIMITER.acquire(1, REQUEST_RATE_WAIT, TimeUnit.MILLISECONDS)) {
+            return EMPTY_STRING;
+        }
         var client = HttpClient.newHttpClient();
         var requestBuilder = HttpRequest.newBuilder(URI.create(url));
         for (Map.Entry<String, String> header : headerMap.entrySet()) {
@@ -15,6 +15,20 @@ import java.util.*;
  */
 public final class BaseUtil {
 
+    /**
+     * 类声明的字段，已设置可访问，避免每次转换重复反射
+     */
+    private static final ClassValue<Field[]> ACCESSIBLE_FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            Field[] fields = type.getDeclaredFields();
+            for (Field field : fields) {
+                field.setAccessible(true);
+            }
+            return fields;
+        }
+    };
+
     /**
      * Object 转 Map
      *
@@ -249,13 +263,13 @@ public final class BaseUtil {
      * @return Map - String, String
      */
     public static Map<String, String> beanToStringMap(Object object) {
-        Field[] fields = object.getClass().getDeclaredFields();
         try {
+            Field[] fields = ACCESSIBLE_FIELDS.get(object.getClass());
             Map<String, String> map = new HashMap<>(fields.length);
             for (Field field : fields) {
-                field.setAccessible(true);
-                if (null != field.get(object)) {
-                    map.put(field.getName(), field.get(object).toString());
+                Object value = field.get(object);
+                if (null != value) {
+                    map.put(field.getName(), value.toString());
                 }
             }
             return map;
@@ -2,6 +2,12 @@ package cn.hoxinte.tool.clients.redis;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author dominate
  * @since 2022/9/14
@@ -17,4 +23,37 @@ public class DebugRedisClient {
         assert value.equals(RedisClient.get(key));
         assert 1 == RedisClient.removeKey(key);
     }
+
+    @Test
+    public void debugBatch() {
+        Map<String, Object> valueMap = new HashMap<>();
+        valueMap.put("test:redis:batch:1", "value1");
+        valueMap.put("test:redis:batch:2", "value2");
+        assert RedisClient.mSet(valueMap, 60);
+        Map<String, String> result = RedisClient.mGet(Arrays.asList("test:redis:batch:1", "test:redis:batch:2", "test:redis:batch:3"), String.class);
+        assert result.size() == 2;
+        assert "value1".equals(result.get("test:redis:batch:1"));
+
+        String hashKey = "test:redis:batch:hash";
+        RedisClient.hMSet(hashKey, valueMap);
+        assert RedisClient.hMGet(hashKey, "test:redis:batch:1", "none").size() == 1;
+        RedisClient.removeKey(hashKey);
+    }
+
+    @Test
+    public void debugPipeline() {
+        String key = "test:redis:pipeline:key";
+        String hashKey = "test:redis:pipeline:hash";
+        List<RedisResponse<String>> responses = new ArrayList<>(2);
+        RedisClient.pipeline(batch -> {
+            batch.set(key, "value", 60);
+            batch.hSetPersist(hashKey, "field", "value");
+            responses.add(batch.get(key, String.class));
+            responses.add(batch.hGet(hashKey, "field", String.class));
+            batch.removeKey(hashKey);
+        });
+        assert "value".equals(responses.get(0).get());
+        assert "value".equals(responses.get(1).get());
+        RedisClient.removeKey(key);
+    }
 }
@@ -0,0 +1,110 @@
+package cn.hoxinte.tool.clients.redis;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试使用进程内存储，见 pom.xml surefire 配置
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestCacheLoader {
+
+    @Test
+    public void testCoalesce() throws Exception {
+        String key = "test:loader:coalesce";
+        AtomicInteger loadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futureList = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futureList.add(executor.submit(() -> RedisClient.getOrLoad(key, 60, String.class, () -> {
+                    loadCount.incrementAndGet();
+                    sleep(200);
+                    return "v";
+                })));
+            }
+            for (Future<String> future : futureList) {
+                assert "v".equals(future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // 同一 JVM 内合并为一次加载
+        assert 1 == loadCount.get();
+        assert "v".equals(RedisClient.get(key, String.class));
+        assert !RedisClient.hasKey(CacheLoader.LEASE_PREFIX + key);
+    }
+
+    @Test
+    public void testWaitLease() throws Exception {
+        String key = "test:loader:lease";
+        // 模拟其他节点持有租约并在之后写入
+        assert RedisClient.setIfAbsent(CacheLoader.LEASE_PREFIX + key, "other", 5000);
+        CompletableFuture.runAsync(() -> {
+            sleep(150);
+            RedisClient.set(key, "remote", 60);
+        });
+        AtomicInteger loadCount = new AtomicInteger();
+        String value = RedisClient.getOrLoad(key, 60, String.class, () -> {
+            loadCount.incrementAndGet();
+            return "local";
+        });
+        assert "remote".equals(value);
+        assert 0 == loadCount.get();
+
+        // 其他节点释放租约但没有写入时自行加载，不等到租约过期
+        String releasedKey = "test:loader:released";
+        assert RedisClient.setIfAbsent(CacheLoader.LEASE_PREFIX + releasedKey, "other", 5000);
+        CompletableFuture.runAsync(() -> {
+            sleep(150);
+            RedisClient.removeKey(CacheLoader.LEASE_PREFIX + releasedKey);
+        });
+        long start = System.currentTimeMillis();
+        assert "local".equals(RedisClient.getOrLoad(releasedKey, 60, String.class, () -> "local"));
+        assert System.currentTimeMillis() - start < 2000;
+    }
+
+    @Test
+    public void testLoadFailure() throws Exception {
+        String key = "test:loader:failure";
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> RedisClient.getOrLoad(key, 60, String.class, () -> {
+            started.countDown();
+            sleep(200);
+            throw new Error("load failed");
+        }));
+        assert started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> RedisClient.getOrLoad(key, 60, String.class, () -> {
+            throw new Error("load failed");
+        }));
+        // Error 同样结束合并等待，不会一直阻塞
+        assertFailed(first);
+        assertFailed(waiter);
+        assert !RedisClient.hasKey(key);
+        assert !RedisClient.hasKey(CacheLoader.LEASE_PREFIX + key);
+        assert "v".equals(RedisClient.getOrLoad(key, 60, String.class, () -> "v"));
+    }
+
+    private static void assertFailed(CompletableFuture<String> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            assert false;
+        } catch (ExecutionException e) {
+            assert e.getCause() instanceof Error && "load failed".equals(e.getCause().getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cn.hoxinte.tool.clients.redis;
+
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestCircuitBreaker {
+
+    @Test
+    public void testOpenAndClose() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 50, 1);
+        breaker.onError(new JedisConnectionException("timeout"));
+        assert breaker.getState() == CircuitBreaker.State.CLOSED;
+        breaker.onError(new JedisConnectionException("timeout"));
+        assert breaker.getState() == CircuitBreaker.State.OPEN;
+        assert !breaker.allowRequest();
+
+        Thread.sleep(60);
+        assert breaker.allowRequest();
+        assert breaker.getState() == CircuitBreaker.State.HALF_OPEN;
+        // 半开只放行一次探测
+        assert !breaker.allowRequest();
+        breaker.onSuccess();
+        assert breaker.getState() == CircuitBreaker.State.CLOSED;
+        assert breaker.allowRequest();
+    }
+
+    @Test
+    public void testHalfOpenFailure() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, 50, 1);
+        // 数据异常不计入失败
+        breaker.onError(new JedisDataException("WRONGTYPE"));
+        assert breaker.getState() == CircuitBreaker.State.CLOSED;
+        breaker.onError(new JedisConnectionException("refused"));
+        assert breaker.getState() == CircuitBreaker.State.OPEN;
+
+        Thread.sleep(60);
+        assert breaker.allowRequest();
+        breaker.onError(new JedisConnectionException("refused"));
+        assert breaker.getState() == CircuitBreaker.State.OPEN;
+        assert !breaker.allowRequest();
+    }
+}
@@ -0,0 +1,97 @@
+package cn.hoxinte.tool.clients.redis;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试使用进程内存储，见 pom.xml surefire 配置
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestRateLimiter {
+
+    @Test
+    public void testTokenBucketRefill() {
+        RateLimiter limiter = RateLimiter.tokenBucket("test:refill", 10, 2);
+        // 容量内突发，之后每 100 毫秒生成一个令牌
+        assert limiter.tryAcquire();
+        assert limiter.tryAcquire();
+        assert !limiter.tryAcquire();
+        assert limiter.acquire(1, 500, TimeUnit.MILLISECONDS);
+        assert !limiter.tryAcquire();
+        sleep(300);
+        // 令牌不超过容量
+        assert limiter.tryAcquire();
+        assert limiter.tryAcquire();
+        assert !limiter.tryAcquire();
+        // 申请数量超过容量直接拒绝，不等待
+        long start = System.currentTimeMillis();
+        assert !limiter.tryAcquire(3);
+        assert !limiter.acquire(3, 2, TimeUnit.SECONDS);
+        assert System.currentTimeMillis() - start < 1000;
+    }
+
+    @Test
+    public void testSlidingWindowBoundary() {
+        RateLimiter limiter = RateLimiter.slidingWindow("test:window", 2, 500);
+        assert limiter.tryAcquire();
+        sleep(300);
+        assert limiter.tryAcquire();
+        assert !limiter.tryAcquire();
+        sleep(300);
+        // 第一个许可滑出窗口，第二个仍在窗口内
+        assert limiter.tryAcquire();
+        assert !limiter.tryAcquire();
+        // 等待到最早的许可滑出窗口
+        assert limiter.acquire(1, 1000, TimeUnit.MILLISECONDS);
+        assert !limiter.tryAcquire();
+    }
+
+    @Test
+    public void testAcquireUpTo() {
+        RateLimiter limiter = RateLimiter.slidingWindow("test:upTo", 3, 60000);
+        // 5 和 3 个以上超过额度，按一半递减到 2
+        assert 2 == limiter.tryAcquireUpTo(5);
+        assert 1 == limiter.tryAcquireUpTo(5);
+        assert 0 == limiter.tryAcquireUpTo(5);
+    }
+
+    @Test
+    public void testPrefetch() {
+        RateLimiter first = RateLimiter.tokenBucket("test:prefetch", 0.1, 5, 5);
+        RateLimiter second = RateLimiter.tokenBucket("test:prefetch", 0.1, 5, 5);
+        assert first.tryAcquire();
+        // 额度已预取到第一个节点本地
+        assert !second.tryAcquire();
+        for (int i = 0; i < 4; i++) {
+            assert first.tryAcquire();
+        }
+        assert !first.tryAcquire();
+    }
+
+    @Test
+    public void testFailOpen() {
+        // Key 类型错误时脚本报错，限流放行
+        RedisClient.set("rate:test:open:bucket", "x", 60);
+        RateLimiter bucket = RateLimiter.tokenBucket("test:open:bucket", 1, 1);
+        assert bucket.tryAcquire();
+        assert bucket.tryAcquire();
+        assert bucket.acquire(1, 100, TimeUnit.MILLISECONDS);
+
+        RedisClient.set("rate:test:open:window", "x", 60);
+        RateLimiter window = RateLimiter.slidingWindow("test:open:window", 10, 60000);
+        assert window.tryAcquire();
+        assert window.tryAcquire();
+        assert 4 == window.tryAcquireUpTo(4);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package cn.hoxinte.tool.clients.redis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestRedisBloomFilter {
+
+    @Test
+    public void testMurmur3() {
+        long[] hash = RedisBloomFilter.murmur3("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+        assert hash[0] == 0xe34bbc7bbc071b6cL;
+        assert hash[1] == 0x7a433ca9c49a9347L;
+        hash = RedisBloomFilter.murmur3("hell".getBytes(StandardCharsets.UTF_8));
+        assert hash[0] == 0x629942693e10f867L;
+        assert hash[1] == 0x92db0b82baeb5347L;
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        int insertions = 10000;
+        RedisBloomFilter filter = RedisBloomFilter.create("test", insertions, 0.01);
+        assert filter.getHashCount() == 7;
+        // 本地位图模拟脚本中的 SETBIT/GETBIT
+        BitSet bits = new BitSet((int) filter.getBitSize());
+        for (int i = 0; i < insertions; i++) {
+            for (long position : filter.positions(i)) {
+                bits.set((int) position);
+            }
+        }
+        int falsePositive = 0;
+        for (int i = insertions; i < insertions * 11; i++) {
+            boolean exists = true;
+            for (long position : filter.positions(i)) {
+                exists &= bits.get((int) position);
+            }
+            falsePositive += exists ? 1 : 0;
+        }
+        assert falsePositive < insertions * 10 * 0.02;
+    }
+}
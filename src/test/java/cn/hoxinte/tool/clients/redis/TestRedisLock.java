@@ -0,0 +1,156 @@
+package cn.hoxinte.tool.clients.redis;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.redisson.api.RLock;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Redisson 不经过进程内存储，Redis 锁替换为按 Key 的本地可重入锁，只验证本地分段排队
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestRedisLock {
+
+    private static final Map<String, ReentrantLock> LOCK_MAP = new ConcurrentHashMap<>();
+    private static final AtomicInteger REDIS_CALL_COUNT = new AtomicInteger();
+    private static Function<String, RLock> lockFactory;
+
+    @BeforeClass
+    public static void setUp() {
+        lockFactory = RedisLock.LOCK_FACTORY;
+        RedisLock.LOCK_FACTORY = TestRedisLock::localLock;
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        RedisLock.LOCK_FACTORY = lockFactory;
+    }
+
+    @Test
+    public void testSameKey() throws Exception {
+        String key = "test:lock:same";
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = holdAsync(key, locked, release);
+        assert locked.await(5, TimeUnit.SECONDS);
+        int callCount = REDIS_CALL_COUNT.get();
+
+        // 同一个锁在本地分段排队，不访问 Redis
+        assert !RedisLock.tryLock(key, 100, RedisLock.WATCH_DOG_LEASE, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> RedisLock.runWithLock(key, 5, 10,
+                TimeUnit.SECONDS, () -> {
+                }));
+        Thread.sleep(200);
+        assert !waiter.isDone();
+        assert callCount == REDIS_CALL_COUNT.get();
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assert waiter.get(5, TimeUnit.SECONDS);
+        assert callCount + 1 == REDIS_CALL_COUNT.get();
+    }
+
+    @Test
+    public void testDifferentKey() throws Exception {
+        String key = "test:lock:stripe";
+        String otherKey = sameStripeKey(key);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = holdAsync(key, locked, release);
+        assert locked.await(5, TimeUnit.SECONDS);
+
+        // 分段被其他 Key 占用，直接竞争 Redis 锁，不等待
+        int callCount = REDIS_CALL_COUNT.get();
+        assert RedisLock.tryLock(otherKey, 0, RedisLock.WATCH_DOG_LEASE, TimeUnit.SECONDS);
+        assert RedisLock.isHeldByCurrentThread(otherKey);
+        assert callCount + 1 == REDIS_CALL_COUNT.get();
+        RedisLock.unlock(otherKey);
+        assert !RedisLock.isHeldByCurrentThread(otherKey);
+
+        // 释放其他 Key 不影响分段，同一个锁仍在本地排队
+        callCount = REDIS_CALL_COUNT.get();
+        assert !RedisLock.tryLock(key, 100, RedisLock.WATCH_DOG_LEASE, TimeUnit.MILLISECONDS);
+        assert callCount == REDIS_CALL_COUNT.get();
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assert RedisLock.tryLock(key, 0, RedisLock.WATCH_DOG_LEASE, TimeUnit.SECONDS);
+        RedisLock.unlock(key);
+    }
+
+    @Test
+    public void testReentrant() throws Exception {
+        String key = "test:lock:reentrant";
+        assert RedisLock.tryLock(key, 0, RedisLock.WATCH_DOG_LEASE, TimeUnit.SECONDS);
+        assert RedisLock.tryLock(key, 0, RedisLock.WATCH_DOG_LEASE, TimeUnit.SECONDS);
+        RedisLock.unlock(key);
+        // 重入一次后仍持有，其他线程无法获取
+        assert RedisLock.isHeldByCurrentThread(key);
+        assert !tryLockAsync(key).get(5, TimeUnit.SECONDS);
+
+        RedisLock.unlock(key);
+        assert !RedisLock.isHeldByCurrentThread(key);
+        assert tryLockAsync(key).get(5, TimeUnit.SECONDS);
+        try {
+            RedisLock.unlock(key);
+            assert false;
+        } catch (IllegalMonitorStateException e) {
+            assert !RedisLock.isHeldByCurrentThread(key);
+        }
+    }
+
+    private static CompletableFuture<Void> holdAsync(String key, CountDownLatch locked, CountDownLatch release) {
+        return CompletableFuture.runAsync(() -> {
+            assert RedisLock.tryLock(key, 0, RedisLock.WATCH_DOG_LEASE, TimeUnit.SECONDS);
+            try {
+                locked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                RedisLock.unlock(key);
+            }
+        });
+    }
+
+    private static CompletableFuture<Boolean> tryLockAsync(String key) {
+        return CompletableFuture.supplyAsync(() -> RedisLock.runWithLock(key, 100, RedisLock.WATCH_DOG_LEASE,
+                TimeUnit.MILLISECONDS, () -> {
+                }));
+    }
+
+    private static String sameStripeKey(String key) {
+        int index = RedisLock.stripeIndex(key);
+        for (int i = 0; ; i++) {
+            String otherKey = key + ":" + i;
+            if (RedisLock.stripeIndex(otherKey) == index) {
+                return otherKey;
+            }
+        }
+    }
+
+    private static RLock localLock(String key) {
+        ReentrantLock lock = LOCK_MAP.computeIfAbsent(key, k -> new ReentrantLock());
+        return (RLock) Proxy.newProxyInstance(RLock.class.getClassLoader(), new Class<?>[]{RLock.class},
+                (proxy, method, args) -> {
+                    if ("tryLock".equals(method.getName()) && null != args && args.length == 3) {
+                        REDIS_CALL_COUNT.incrementAndGet();
+                        return lock.tryLock((Long) args[0], (TimeUnit) args[2]);
+                    }
+                    if ("unlock".equals(method.getName()) && null == args) {
+                        lock.unlock();
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
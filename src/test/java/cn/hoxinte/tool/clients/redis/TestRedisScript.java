@@ -0,0 +1,85 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestRedisScript {
+
+    @Test
+    public void testSha1() {
+        // redis-cli SCRIPT LOAD "return 1"
+        assert "e0e1f9fabfc9d4800c877a703b823ac0578ff8db".equals(RedisScript.of("return 1").getSha1Hex());
+    }
+
+    @Test
+    public void testMemoryScriptRegistered() throws IllegalAccessException {
+        // 修改内置脚本后 SHA1 变化，需同步修改进程内存储实现
+        int count = 0;
+        for (Class<?> owner : new Class<?>[]{RedisScripts.class, RateLimiter.class, RedisBloomFilter.class}) {
+            for (Field field : owner.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == RedisScript.class) {
+                    RedisScript script = (RedisScript) field.get(null);
+                    assert MemoryRedis.hasScript(script.getSha1Hex()) : owner.getSimpleName() + "." + field.getName();
+                    count++;
+                }
+            }
+        }
+        assert 8 == count;
+    }
+
+    @Test
+    public void testMemoryScript() {
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            try {
+                jedis.evalsha("e0e1f9fabfc9d4800c877a703b823ac0578ff8db", 0);
+                assert false;
+            } catch (JedisNoScriptException e) {
+                assert e.getMessage().startsWith("NOSCRIPT");
+            }
+            jedis.rpush("l", "1", "2", "3");
+            assert Arrays.asList("1", "2").equals(eval(jedis, RedisScripts.POP_N.getSha1Hex(), "l", "2"));
+            assert Collections.singletonList("3").equals(jedis.lrange("l", 0, -1));
+
+            assert 1L == (Long) eval(jedis, RedisScripts.COMPARE_AND_SET.getSha1Hex(), "c", "", "a", "0");
+            assert 0L == (Long) eval(jedis, RedisScripts.COMPARE_AND_SET.getSha1Hex(), "c", "x", "b", "0");
+            assert 1L == (Long) eval(jedis, RedisScripts.COMPARE_AND_SET.getSha1Hex(), "c", "a", "b", "10");
+            assert "b".equals(eval(jedis, RedisScripts.GET_AND_TOUCH.getSha1Hex(), "c", "100"));
+            assert jedis.ttl("c") > 10;
+            assert 0L == (Long) eval(jedis, RedisScripts.REMOVE_IF_EQUALS.getSha1Hex(), "c", "a");
+            assert 1L == (Long) eval(jedis, RedisScripts.REMOVE_IF_EQUALS.getSha1Hex(), "c", "b");
+            assert null == eval(jedis, RedisScripts.GET_AND_TOUCH.getSha1Hex(), "c", "100");
+
+            // 容量 2，每毫秒 0.001 个令牌
+            String bucket = RateLimiter.TOKEN_BUCKET.getSha1Hex();
+            assert 0L == (Long) eval(jedis, bucket, "t", "2", "0.001", "2", "id");
+            assert (Long) eval(jedis, bucket, "t", "2", "0.001", "1", "id") > 900;
+            assert -1L == (Long) eval(jedis, bucket, "t", "2", "0.001", "3", "id");
+            assert jedis.pttl("t") > 0;
+
+            // 每秒最多 3 个
+            String window = RateLimiter.SLIDING_WINDOW.getSha1Hex();
+            assert 0L == (Long) eval(jedis, window, "w", "3", "1000", "2", "a");
+            assert 0L == (Long) eval(jedis, window, "w", "3", "1000", "1", "b");
+            assert (Long) eval(jedis, window, "w", "3", "1000", "1", "c") > 900;
+            assert "zset".equals(jedis.type("w"));
+
+            assert Arrays.asList(1L, 0L).equals(eval(jedis, RedisBloomFilter.BLOOM_ADD.getSha1Hex(), "b", "2", "3", "7", "7", "3"));
+            assert Arrays.asList(1L, 0L).equals(eval(jedis, RedisBloomFilter.BLOOM_CONTAINS.getSha1Hex(), "b", "2", "3", "7", "3", "8"));
+        }
+    }
+
+    private static Object eval(Jedis jedis, String sha1, String key, String... args) {
+        return jedis.evalsha(sha1, Collections.singletonList(key), Arrays.asList(args));
+    }
+}
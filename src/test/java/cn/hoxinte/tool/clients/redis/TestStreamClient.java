@@ -0,0 +1,55 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestStreamClient {
+
+    @Test
+    public void testReceive() {
+        String key = StreamClient.STREAM_MQ + "receive";
+        Set<String> received = new HashSet<>();
+        Consumer<TestStreamConsumer.Message> handler = message -> {
+            if ("bad".equals(message.getBody())) {
+                throw new IllegalStateException("bad message");
+            }
+            received.add(message.getBody());
+        };
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            jedis.xgroupCreate(key, "g", new StreamEntryID(), true);
+            add(jedis, key, "1", "bad", "2", "3");
+            int handled = StreamClient.receive(jedis, "receive", "c1", "g", TestStreamConsumer.Message.class, handler,
+                    StreamClient.AckMode.AT_LEAST_ONCE, true);
+            assert 3 == handled;
+            // 处理成功的消息确认并删除，失败的消息留在 Stream 及待确认列表
+            assert 1 == jedis.xlen(key);
+            assert 1 == jedis.xinfoGroups(key).get(0).getPending();
+
+            add(jedis, key, "4", "bad");
+            handled = StreamClient.receive(jedis, "receive", "c1", "g", TestStreamConsumer.Message.class, handler,
+                    StreamClient.AckMode.AUTO, false);
+            assert 1 == handled;
+            // 读取后全部确认，不删除
+            assert 3 == jedis.xlen(key);
+            assert 1 == jedis.xinfoGroups(key).get(0).getPending();
+            assert 4 == received.size();
+        }
+    }
+
+    private static void add(Jedis jedis, String key, String... bodies) {
+        for (String body : bodies) {
+            jedis.xadd(key, StreamEntryID.NEW_ENTRY, Collections.singletonMap("body", body));
+        }
+    }
+}
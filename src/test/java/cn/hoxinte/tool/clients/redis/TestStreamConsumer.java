@@ -0,0 +1,113 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestStreamConsumer {
+
+    @Test
+    public void testConsumeAndAck() throws InterruptedException {
+        MemoryRedis redis = MemoryRedis.create();
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        StreamConsumer<Message> consumer = new StreamConsumer<>("test", "g", "c1", Message.class, message -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            if ("bad".equals(message.getBody())) {
+                throw new IllegalStateException("bad message");
+            }
+            received.add(message.getBody());
+        }, 8, 50, 3, Executors.defaultThreadFactory(), () -> new Jedis(redis.socketFactory()));
+        try (Jedis jedis = new Jedis(redis.socketFactory())) {
+            for (int i = 0; i < 100; i++) {
+                jedis.xadd(StreamClient.STREAM_MQ + "test", StreamEntryID.NEW_ENTRY,
+                        Collections.singletonMap("body", i == 50 ? "bad" : String.valueOf(i)));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (consumer.getHandledCount() + consumer.getFailedCount() < 100 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            consumer.close();
+            assert !consumer.isRunning();
+            assert 99 == received.size();
+            assert 1 == consumer.getFailedCount();
+            assert maxRunning.get() <= 3;
+            // 处理失败的消息留在待确认列表
+            assert 1 == jedis.xpending(StreamClient.STREAM_MQ + "test", "g").getTotal();
+        }
+    }
+
+    @Test
+    public void testReclaimAndDeadLetter() throws InterruptedException {
+        MemoryRedis redis = MemoryRedis.create();
+        String key = StreamClient.STREAM_MQ + "reclaim";
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger badCount = new AtomicInteger();
+        try (Jedis jedis = new Jedis(redis.socketFactory())) {
+            jedis.xgroupCreate(key, "g", new StreamEntryID(), true);
+            for (int i = 0; i < 10; i++) {
+                jedis.xadd(key, StreamEntryID.NEW_ENTRY, Collections.singletonMap("body", i == 5 ? "bad" : String.valueOf(i)));
+            }
+            // 已停止的消费者读取后未确认
+            jedis.xreadGroup("g", "crashed", XReadGroupParams.xReadGroupParams().count(10),
+                    Collections.singletonMap(key, StreamEntryID.UNRECEIVED_ENTRY));
+            Thread.sleep(30);
+
+            StreamConsumer<Message> consumer = new StreamConsumer<>("reclaim", "g", "c1", Message.class, message -> {
+                if ("bad".equals(message.getBody())) {
+                    badCount.incrementAndGet();
+                    throw new IllegalStateException("bad message");
+                }
+                received.add(message.getBody());
+            }, 4, 20, 2, Executors.defaultThreadFactory(), () -> new Jedis(redis.socketFactory())).reclaim(20, 10, 3);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (consumer.getDeadCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            consumer.close();
+            assert 9 == received.size();
+            // 第一次投递给已停止的消费者，之后接管处理两次，第四次投递时转入死信
+            assert 2 == badCount.get();
+            assert 1 == consumer.getDeadCount();
+            // 待确认列表为空时 XPENDING 汇总回复包含空值，Jedis 无法解析，通过 XINFO GROUPS 检查
+            assert 0 == jedis.xinfoGroups(key).get(0).getPending();
+            List<StreamEntry> deadList = jedis.xrange(key + StreamClient.DEAD_LETTER_SUFFIX, "-", "+");
+            assert 1 == deadList.size();
+            assert "bad".equals(deadList.get(0).getFields().get("body"));
+        }
+    }
+
+    public static class Message {
+
+        private String body;
+
+        public String getBody() {
+            return body;
+        }
+
+        public void setBody(String body) {
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import cn.hoxinte.tool.clients.redis.metrics.LocalMetricsRegistry;
+import cn.hoxinte.tool.clients.redis.metrics.RedisMetrics;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestStreamMetrics {
+
+    @Test
+    public void testSample() {
+        String key = StreamClient.STREAM_MQ + "metrics";
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            jedis.xgroupCreate(key, "g", new StreamEntryID(), true);
+            jedis.set(StreamClient.STREAM_MQ + "plain", "v");
+            add(jedis, key, 10);
+            List<StreamEntry> entries = read(jedis, key, 4);
+            jedis.xack(key, "g", entries.get(0).getID());
+
+            StreamMetrics.StreamStat stat = StreamMetrics.sample(jedis, 1000).get(key);
+            StreamMetrics.GroupStat group = stat.getGroup("g");
+            assert 10 == stat.getLength();
+            assert 6 == group.getLag();
+            assert 3 == group.getPending();
+            assert 0 == group.getConsumeRate();
+
+            add(jedis, key, 5);
+            read(jedis, key, 6);
+            Map<String, StreamMetrics.StreamStat> snapshot = StreamMetrics.sample(jedis, 2000);
+            // 只统计 Stream 类型的 key
+            assert !snapshot.containsKey(StreamClient.STREAM_MQ + "plain");
+            stat = snapshot.get(key);
+            group = stat.getGroup("g");
+            assert 15 == stat.getLength();
+            assert 5 == group.getLag();
+            assert 9 == group.getPending();
+            // 一秒写入 5 条，积压减少 1 条，消费 6 条
+            assert 5.0 == stat.getProduceRate();
+            assert 6.0 == group.getConsumeRate();
+            StreamMetrics.ConsumerStat consumer = group.getConsumerList().get(0);
+            assert "c1".equals(consumer.getName());
+            assert 9 == consumer.getPending();
+            assert consumer.getIdle() >= 0;
+
+            LocalMetricsRegistry registry = (LocalMetricsRegistry) RedisMetrics.getRegistry();
+            assert 15 == registry.getGauge("redis.stream." + key + ".length").intValue();
+            jedis.del(key);
+            StreamMetrics.sample(jedis, 3000);
+            // 已删除的 Stream 不再保留指标
+            assert null == registry.getGauge("redis.stream." + key + ".length");
+            assert null == registry.getGauge("redis.stream." + key + ".g.c1.pending");
+        }
+    }
+
+    private static void add(Jedis jedis, String key, int count) {
+        for (int i = 0; i < count; i++) {
+            jedis.xadd(key, StreamEntryID.NEW_ENTRY, Collections.singletonMap("i", String.valueOf(i)));
+        }
+    }
+
+    private static List<StreamEntry> read(Jedis jedis, String key, int count) {
+        return jedis.xreadGroup("g", "c1", XReadGroupParams.xReadGroupParams().count(count),
+                Collections.singletonMap(key, StreamEntryID.UNRECEIVED_ENTRY)).get(0).getValue();
+    }
+}
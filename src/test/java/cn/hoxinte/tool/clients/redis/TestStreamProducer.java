@@ -0,0 +1,45 @@
+package cn.hoxinte.tool.clients.redis;
+
+import cn.hoxinte.tool.clients.redis.memory.MemoryRedis;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestStreamProducer {
+
+    @Test
+    public void testBatchAndLinger() throws Exception {
+        MemoryRedis redis = MemoryRedis.create();
+        StreamProducer producer = new StreamProducer("test", 100, 20, 1000, () -> new Jedis(redis.socketFactory()));
+        List<CompletableFuture<StreamEntryID>> futureList = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            TestStreamConsumer.Message message = new TestStreamConsumer.Message();
+            message.setBody(String.valueOf(i));
+            futureList.add(producer.send(message));
+        }
+        // 不足一批的消息等待 linger 后写入，未关闭前没有其它写入触发，超时包含首次写入时的类加载
+        StreamEntryID last = futureList.get(249).get(10, TimeUnit.SECONDS);
+        StreamEntryID previous = null;
+        for (CompletableFuture<StreamEntryID> future : futureList) {
+            StreamEntryID id = future.get();
+            assert null == previous || previous.compareTo(id) < 0;
+            previous = id;
+        }
+        assert last.equals(previous);
+        assert 0 == producer.size();
+        producer.close();
+        try (Jedis jedis = new Jedis(redis.socketFactory())) {
+            assert 250 == jedis.xlen(StreamClient.STREAM_MQ + "test");
+            assert "0".equals(jedis.xrange(StreamClient.STREAM_MQ + "test", "-", "+", 1).get(0).getFields().get("body"));
+        }
+    }
+}
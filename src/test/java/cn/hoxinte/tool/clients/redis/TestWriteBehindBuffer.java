@@ -0,0 +1,115 @@
+package cn.hoxinte.tool.clients.redis;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 测试使用进程内存储，见 pom.xml surefire 配置
+ *
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestWriteBehindBuffer {
+
+    @Test
+    public void testCoalesce() {
+        String hashKey = "test:behind:coalesce:hash";
+        String stringKey = "test:behind:coalesce:string";
+        try (WriteBehindBuffer buffer = WriteBehindBuffer.create(100, 60000, 100)) {
+            buffer.hSet(hashKey, "a", "1");
+            buffer.hSet(hashKey, "a", "2");
+            Map<String, Object> fieldMap = new HashMap<>();
+            fieldMap.put("a", "3");
+            fieldMap.put("b", "1");
+            buffer.hSetAll(hashKey, fieldMap);
+            buffer.set(stringKey, "1", 60);
+            // 过期时间变化只保留最后一次写入
+            buffer.set(stringKey, "2");
+            assert 3 == buffer.size();
+            assert !RedisClient.hasKey(hashKey);
+
+            assert buffer.flush();
+            assert 0 == buffer.size();
+            assert "3".equals(RedisClient.hGet(hashKey, "a", String.class));
+            assert "1".equals(RedisClient.hGet(hashKey, "b", String.class));
+            assert "2".equals(RedisClient.get(stringKey, String.class));
+            assert RedisClient.ttl(stringKey) < 0;
+        }
+    }
+
+    @Test
+    public void testCapacity() {
+        String key = "test:behind:capacity";
+        try (WriteBehindBuffer buffer = WriteBehindBuffer.create(3, 60000, 3)) {
+            buffer.hSet(key, "a", "1");
+            buffer.hSet(key, "b", "1");
+            assert 2 == buffer.size();
+            assert !RedisClient.hasKey(key);
+            // 达到容量由写入线程同步写入，返回时已写入 Redis
+            buffer.hSet(key, "c", "1");
+            assert 0 == buffer.size();
+            assert 3 == RedisClient.hGetAll(key).size();
+        }
+    }
+
+    @Test
+    public void testFailedFlush() {
+        String key = "test:behind:failed";
+        RedisClient.set(key, "x", 60);
+        try (WriteBehindBuffer buffer = WriteBehindBuffer.create(100, 60000, 100)) {
+            buffer.hSet(key, "a", "1");
+            // 类型错误写入失败，放回缓冲区
+            assert !buffer.flush();
+            assert 1 == buffer.size();
+            RedisClient.removeKey(key);
+            assert buffer.flush();
+            assert 0 == buffer.size();
+            assert "1".equals(RedisClient.hGet(key, "a", String.class));
+        }
+    }
+
+    @Test
+    public void testRestore() {
+        String hashKey = "test:behind:restore:hash";
+        String stringKey = "test:behind:restore:string";
+        String oldKey = "test:behind:restore:old";
+        try (WriteBehindBuffer buffer = WriteBehindBuffer.create(100, 60000, 100)) {
+            // 写入失败前已有更新值
+            buffer.hSet(hashKey, "a", "new");
+            buffer.set(stringKey, "new", 60);
+            Map<String, Object> fieldMap = new LinkedHashMap<>();
+            fieldMap.put("a", "old");
+            fieldMap.put("b", "old");
+            buffer.restoreHash(hashKey, fieldMap);
+            Map<String, Object> valueMap = new LinkedHashMap<>();
+            valueMap.put(stringKey, "old");
+            valueMap.put(oldKey, "old");
+            // 过期时间不同时同样不覆盖
+            buffer.restoreStrings(0, valueMap);
+            assert 4 == buffer.size();
+
+            assert buffer.flush();
+            assert "new".equals(RedisClient.hGet(hashKey, "a", String.class));
+            assert "old".equals(RedisClient.hGet(hashKey, "b", String.class));
+            assert "new".equals(RedisClient.get(stringKey, String.class));
+            assert RedisClient.ttl(stringKey) > 0;
+            assert "old".equals(RedisClient.get(oldKey, String.class));
+        }
+    }
+
+    @Test
+    public void testClose() {
+        String key = "test:behind:close";
+        WriteBehindBuffer buffer = WriteBehindBuffer.create(100, 60000, 100);
+        buffer.set(key, "1");
+        buffer.close();
+        assert "1".equals(RedisClient.get(key, String.class));
+        // 关闭后同步写入
+        buffer.set(key, "2");
+        assert 0 == buffer.size();
+        assert "2".equals(RedisClient.get(key, String.class));
+    }
+}
@@ -0,0 +1,77 @@
+package cn.hoxinte.tool.clients.redis.codec;
+
+import cn.hoxinte.tool.clients.sso.CacheCodec;
+import cn.hoxinte.tool.clients.sso.entity.DeptCache;
+import cn.hoxinte.tool.clients.sso.entity.UserInfoDTO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestRedisCodec {
+
+    @Test
+    public void testStringCodec() {
+        String key = "sso:cache:user:map";
+        byte[] bytes = StringRedisCodec.INSTANCE.encode(key);
+        assert bytes.length == key.length();
+        assert key.equals(StringRedisCodec.INSTANCE.decode(bytes));
+        assert null == StringRedisCodec.INSTANCE.decode(new byte[0]);
+    }
+
+    @Test
+    public void testBinaryCodec() {
+        CacheCodec.register(BinaryRedisCodec.INSTANCE);
+        UserInfoDTO user = new UserInfoDTO(1, "code", null, "alias", "name", "phone", "email", 1, "avatar");
+        byte[] binary = BinaryRedisCodec.INSTANCE.encode(user);
+        byte[] json = FastJsonRedisCodec.INSTANCE.encode(user);
+        assert binary[0] == BinaryRedisCodec.MAGIC;
+        assert binary.length < json.length;
+        assert user.equals(BinaryRedisCodec.INSTANCE.decode(binary));
+        // 兼容原有 JSON 数据
+        assert user.equals(BinaryRedisCodec.INSTANCE.decode(json));
+
+        DeptCache.Leader leader = new DeptCache.Leader();
+        leader.setUserId(1);
+        leader.setUserName("name");
+        Map<Integer, DeptCache.Leader> leaderMap = new HashMap<>();
+        leaderMap.put(1, leader);
+        DeptCache dept = new DeptCache().setDeptId(1).setName("dept").setParentId(0).setLeaderMap(leaderMap);
+        assert dept.equals(BinaryRedisCodec.INSTANCE.decode(BinaryRedisCodec.INSTANCE.encode(dept)));
+
+        // 只读取二进制格式时写入 JSON
+        assert user.equals(BinaryRedisCodec.DECODE_ONLY.decode(binary));
+        assert Arrays.equals(json, BinaryRedisCodec.DECODE_ONLY.encode(user));
+
+        // 未注册类型使用 JSON
+        assert "value".equals(BinaryRedisCodec.INSTANCE.decode(BinaryRedisCodec.INSTANCE.encode("value")));
+    }
+
+    @Test
+    public void testCompressedCodec() {
+        CompressedRedisCodec codec = new CompressedRedisCodec(FastJsonRedisCodec.INSTANCE, 64);
+        List<Integer> small = Arrays.asList(1, 2, 3);
+        byte[] smallBytes = codec.encode(small);
+        assert smallBytes[0] != CompressedRedisCodec.MAGIC;
+        assert small.equals(codec.decode(smallBytes));
+
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            large.add(i % 10);
+        }
+        byte[] plain = FastJsonRedisCodec.INSTANCE.encode(large);
+        byte[] compressed = codec.encode(large);
+        assert compressed[0] == CompressedRedisCodec.MAGIC;
+        assert compressed.length < plain.length;
+        assert large.equals(codec.decode(compressed));
+        // 兼容未压缩数据
+        assert large.equals(codec.decode(plain));
+    }
+}
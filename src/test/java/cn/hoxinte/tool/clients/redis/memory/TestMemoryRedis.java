@@ -0,0 +1,211 @@
+package cn.hoxinte.tool.clients.redis.memory;
+
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.resps.StreamGroupInfo;
+import redis.clients.jedis.resps.StreamPendingSummary;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestMemoryRedis {
+
+    @Test
+    public void testStringAndExpire() throws InterruptedException {
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            assert "OK".equals(jedis.set("a", "1"));
+            assert "1".equals(jedis.get("a"));
+            assert 5 == jedis.incrBy("a", 4);
+            assert null == jedis.set("a", "x", SetParams.setParams().nx());
+            assert -1 == jedis.ttl("a");
+            jedis.psetex("b", 50, "v");
+            assert jedis.pttl("b") > 0;
+            Thread.sleep(80);
+            assert null == jedis.get("b");
+            assert !jedis.exists("b");
+            jedis.mset("c", "3", "d", "4");
+            assert Arrays.asList("3", null, "4").equals(jedis.mget("c", "none", "d"));
+            jedis.set("n", "x");
+            try {
+                jedis.incr("n");
+                assert false;
+            } catch (JedisDataException e) {
+                assert e.getMessage().startsWith("ERR value is not an integer");
+            }
+            assert 1 == jedis.del("a");
+            assert jedis.keys("*").containsAll(Arrays.asList("c", "d"));
+        }
+    }
+
+    @Test
+    public void testHashListSet() {
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            Map<String, String> hash = new HashMap<>();
+            hash.put("f1", "v1");
+            hash.put("f2", "v2");
+            jedis.hset("h", hash);
+            assert hash.equals(jedis.hgetAll("h"));
+            assert 3 == jedis.hincrBy("h", "count", 3);
+            assert 1 == jedis.hdel("h", "f1");
+            assert 2 == jedis.hlen("h");
+            try {
+                jedis.lpush("h", "x");
+                assert false;
+            } catch (JedisDataException e) {
+                assert e.getMessage().startsWith("WRONGTYPE");
+            }
+
+            jedis.rpush("l", "1", "2", "3", "4");
+            jedis.lpush("l", "0");
+            assert Arrays.asList("1", "2", "3").equals(jedis.lrange("l", 1, 3));
+            jedis.ltrim("l", 0, -2);
+            assert Arrays.asList("0", "1", "2", "3").equals(jedis.lrange("l", 0, -1));
+            assert "3".equals(jedis.rpop("l"));
+            assert Arrays.asList("l", "0").equals(jedis.blpop(1, "l"));
+
+            assert 2 == jedis.sadd("s", "a", "b", "a");
+            assert jedis.sismember("s", "a");
+            assert new HashSet<>(Arrays.asList("a", "b")).equals(jedis.smembers("s"));
+
+            Set<String> scanned = new HashSet<>();
+            for (int i = 0; i < 25; i++) {
+                jedis.set("scan:" + i, "v");
+            }
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = jedis.scan(cursor, new ScanParams().match("scan:*").count(10));
+                scanned.addAll(result.getResult());
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+            assert 25 == scanned.size();
+        }
+    }
+
+    @Test
+    public void testStreamGroup() {
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            jedis.xgroupCreate("st", "g", StreamEntryID.LAST_ENTRY, true);
+            for (int i = 0; i < 5; i++) {
+                jedis.xadd("st", XAddParams.xAddParams().maxLen(4), Collections.singletonMap("i", String.valueOf(i)));
+            }
+            assert 4 == jedis.xlen("st");
+            List<Map.Entry<String, List<StreamEntry>>> read = jedis.xreadGroup("g", "c1",
+                    XReadGroupParams.xReadGroupParams().count(3), Collections.singletonMap("st", StreamEntryID.UNRECEIVED_ENTRY));
+            List<StreamEntry> entries = read.get(0).getValue();
+            assert 3 == entries.size();
+            assert "1".equals(entries.get(0).getFields().get("i"));
+            assert 1 == jedis.xack("st", "g", entries.get(0).getID());
+
+            StreamPendingSummary summary = jedis.xpending("st", "g");
+            assert 2 == summary.getTotal();
+            assert 2 == summary.getConsumerMessageCount().get("c1");
+            StreamGroupInfo group = jedis.xinfoGroups("st").get(0);
+            assert "g".equals(group.getName());
+            assert 2 == group.getPending();
+            assert entries.get(2).getID().equals(group.getLastDeliveredId());
+
+            // 读取剩余消息后，没有新消息时阻塞超时返回空
+            XReadGroupParams params = XReadGroupParams.xReadGroupParams().count(10).block(20);
+            Map<String, StreamEntryID> streams = Collections.singletonMap("st", StreamEntryID.UNRECEIVED_ENTRY);
+            assert 1 == jedis.xreadGroup("g", "c2", params, streams).get(0).getValue().size();
+            assert null == jedis.xreadGroup("g", "c2", params, streams);
+            assert 2 == jedis.xinfoConsumers("st", "g").size();
+        }
+    }
+
+    @Test
+    public void testPipeline() {
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 100; i++) {
+                pipeline.set("p:" + i, String.valueOf(i));
+            }
+            List<Object> results = pipeline.syncAndReturnAll();
+            assert 100 == results.size();
+            assert "99".equals(jedis.get("p:99"));
+        }
+    }
+
+    @Test
+    public void testSortedSet() {
+        try (Jedis jedis = new Jedis(MemoryRedis.create().socketFactory())) {
+            assert 3 == jedis.zadd("z", Map.of("a", 1.0, "b", 2.0, "c", 3.0));
+            assert 0 == jedis.zadd("z", 4.0, "a");
+            assert 3 == jedis.zcard("z");
+            assert Arrays.asList("b", "c").equals(jedis.zrange("z", 0, 1));
+            assert 1 == jedis.zremrangeByScore("z", "-inf", "(3");
+            assert Arrays.asList("c", "a").equals(jedis.zrange("z", 0, -1));
+            assert "zset".equals(jedis.type("z"));
+        }
+    }
+
+    @Test
+    public void testPublishSubscribe() throws Exception {
+        MemoryRedis redis = MemoryRedis.create();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        CompletableFuture<String> received = new CompletableFuture<>();
+        JedisPubSub pubSub = new JedisPubSub() {
+            @Override
+            public void onSubscribe(String channel, int subscribedChannels) {
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onMessage(String channel, String message) {
+                received.complete(channel + ":" + message);
+                unsubscribe();
+            }
+        };
+        Thread subscriber = new Thread(() -> {
+            try (Jedis jedis = new Jedis(redis.socketFactory())) {
+                jedis.subscribe(pubSub, "ch");
+            }
+        });
+        subscriber.start();
+        assert subscribed.await(5, TimeUnit.SECONDS);
+        try (Jedis jedis = new Jedis(redis.socketFactory())) {
+            assert 0 == jedis.publish("other", "x");
+            assert 1 == jedis.publish("ch", "hello");
+        }
+        assert "ch:hello".equals(received.get(5, TimeUnit.SECONDS));
+        subscriber.join(5000);
+        assert !subscriber.isAlive();
+    }
+
+    @Test
+    public void testLatency() {
+        MemoryRedis redis = MemoryRedis.create();
+        redis.setLatency(MemoryLatency.of(2000, 1000, 0, 7));
+        long start = System.nanoTime();
+        try (Jedis jedis = new Jedis(redis.socketFactory())) {
+            for (int i = 0; i < 10; i++) {
+                jedis.set("k", "v");
+            }
+        }
+        // 每次往返至少 2 毫秒
+        assert System.nanoTime() - start >= 20_000_000L;
+        // 同一种子同一连接序号得到同样的抖动序列
+        MemoryLatency latency = MemoryLatency.of(0, 1000, 0, 7);
+        SplittableRandom first = latency.random(1);
+        SplittableRandom second = latency.random(1);
+        for (int i = 0; i < 10; i++) {
+            assert latency.roundTripNanos(first) == latency.roundTripNanos(second);
+        }
+    }
+}
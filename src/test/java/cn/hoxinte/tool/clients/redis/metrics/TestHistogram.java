@@ -0,0 +1,34 @@
+package cn.hoxinte.tool.clients.redis.metrics;
+
+import org.junit.Test;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestHistogram {
+
+    @Test
+    public void testPercentile() {
+        Histogram histogram = new Histogram();
+        assert histogram.getPercentile(0.99) == 0;
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assert histogram.getCount() == 1000;
+        assert histogram.getMax() == 1000;
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+        assert p50 >= 500 && p50 <= 500 + 500 / 16;
+        assert p99 >= 990 && p99 <= 1000;
+    }
+
+    @Test
+    public void testLargeValue() {
+        Histogram histogram = new Histogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-1);
+        assert histogram.getPercentile(1) == Long.MAX_VALUE;
+        assert histogram.getPercentile(0.5) == 0;
+    }
+}
@@ -0,0 +1,32 @@
+package cn.hoxinte.tool.clients.redis.metrics;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author dominate
+ * @since 2026/10/18
+ */
+public class TestHotKeyTracker {
+
+    @Test
+    public void testTopKeys() {
+        for (int i = 0; i < 5000; i++) {
+            HotKeyTracker.record("get", "cold:" + i);
+            if (i % 5 == 0) {
+                HotKeyTracker.record("get", "hot:1");
+            }
+            if (i % 10 == 0) {
+                HotKeyTracker.record("hget", "hot:2");
+            }
+        }
+        List<HotKeyTracker.HotKey> topList = HotKeyTracker.rotate();
+        assert "hot:1".equals(topList.get(0).getKey());
+        assert topList.get(0).getCount() >= 1000;
+        assert "hget".equals(topList.get(1).getCommand());
+        assert "hot:2".equals(topList.get(1).getKey());
+        // 周期结束后重新统计
+        assert HotKeyTracker.rotate().isEmpty();
+    }
+}